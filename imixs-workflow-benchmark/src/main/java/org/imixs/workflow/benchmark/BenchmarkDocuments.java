@@ -0,0 +1,129 @@
+/*
+ *  Imixs-Workflow
+ *
+ *  Copyright (C) 2001-2020 Imixs Software Solutions GmbH,
+ *  http://www.imixs.com
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 2
+ *  of the License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You can receive a copy of the GNU General Public
+ *  License at http://www.gnu.org/licenses/gpl.html
+ *
+ *  Project:
+ *      https://www.imixs.org
+ *      https://github.com/imixs/imixs-workflow
+ *
+ *  Contributors:
+ *      Imixs Software Solutions GmbH - Project Management
+ *      Ralph Soika - Software Developer
+ */
+
+package org.imixs.workflow.benchmark;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.imixs.workflow.ItemCollection;
+import org.imixs.workflow.WorkflowKernel;
+import org.imixs.workflow.exceptions.ModelException;
+import org.openbpmn.bpmn.BPMNModel;
+import org.openbpmn.bpmn.exceptions.BPMNModelException;
+import org.openbpmn.bpmn.util.BPMNModelFactory;
+
+/**
+ * Creates test documents of a given size for the benchmarks and reads the BPMN
+ * test models.
+ * <p>
+ * A document contains the typical workflow items and a number of additional
+ * items with String, Integer, Double, Date, Boolean and multi value lists.
+ * 
+ * @author rsoika
+ */
+public class BenchmarkDocuments {
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private BenchmarkDocuments() {
+    }
+
+    /**
+     * Creates a new document with the given number of additional items
+     * 
+     * @param itemCount - number of additional items
+     * @return new document
+     */
+    public static ItemCollection create(int itemCount) {
+        ItemCollection document = new ItemCollection().model("1.0.0").task(1000).event(10);
+        document.replaceItemValue(WorkflowKernel.UNIQUEID, WorkflowKernel.generateUniqueID());
+        document.replaceItemValue(WorkflowKernel.CREATED, new Date());
+        document.replaceItemValue(WorkflowKernel.MODIFIED, new Date());
+        document.replaceItemValue("$workflowgroup", "Ticket");
+        document.replaceItemValue("$workflowstatus", "Open");
+        document.replaceItemValue("$owner", "manfred");
+        document.replaceItemValue("$creator", "manfred");
+        document.replaceItemValue("txtname", "Imixs-Workflow");
+        document.replaceItemValue("_budget", 1500.0);
+
+        for (int i = 0; i < itemCount; i++) {
+            String name = "item" + i;
+            switch (i % 6) {
+            case 0:
+                document.replaceItemValue(name, "Some text value " + i);
+                break;
+            case 1:
+                document.replaceItemValue(name, i);
+                break;
+            case 2:
+                document.replaceItemValue(name, i * 1.5);
+                break;
+            case 3:
+                document.replaceItemValue(name, new Date());
+                break;
+            case 4:
+                document.replaceItemValue(name, i % 2 == 0);
+                break;
+            default:
+                List<String> list = new ArrayList<>();
+                list.add("anna");
+                list.add("manfred");
+                list.add("team-" + i);
+                document.replaceItemValue(name, list);
+            }
+        }
+        return document;
+    }
+
+    /**
+     * Reads a BPMN test model. The benchmarks do not provide own models. All
+     * models are read from the test resources of the module imixs-workflow-core
+     * (test-jar).
+     * 
+     * @param resource - resource path of the model (e.g. /bpmn/simple.bpmn)
+     * @return BPMNModel
+     * @throws ModelException if the model is not part of the test-jar
+     */
+    public static BPMNModel readModel(String resource) throws ModelException {
+        InputStream inputStream = BenchmarkDocuments.class.getResourceAsStream(resource);
+        if (inputStream == null) {
+            throw new ModelException(ModelException.INVALID_MODEL,
+                    "test model '" + resource + "' not found in the imixs-workflow-core test-jar");
+        }
+        try {
+            return BPMNModelFactory.read(inputStream);
+        } catch (BPMNModelException e) {
+            throw new ModelException(ModelException.INVALID_MODEL,
+                    "unable to read test model '" + resource + "' - " + e.getMessage(), e);
+        }
+    }
+}
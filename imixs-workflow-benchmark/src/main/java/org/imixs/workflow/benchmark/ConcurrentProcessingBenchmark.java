@@ -0,0 +1,112 @@
+/*
+ *  Imixs-Workflow
+ *
+ *  Copyright (C) 2001-2020 Imixs Software Solutions GmbH,
+ *  http://www.imixs.com
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 2
+ *  of the License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You can receive a copy of the GNU General Public
+ *  License at http://www.gnu.org/licenses/gpl.html
+ *
+ *  Project:
+ *      https://www.imixs.org
+ *      https://github.com/imixs/imixs-workflow
+ *
+ *  Contributors:
+ *      Imixs Software Solutions GmbH - Project Management
+ *      Ralph Soika - Software Developer
+ */
+package org.imixs.workflow.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.imixs.workflow.ItemCollection;
+import org.imixs.workflow.MockPlugin;
+import org.imixs.workflow.MockWorkflowContext;
+import org.imixs.workflow.WorkflowKernel;
+import org.imixs.workflow.exceptions.ModelException;
+import org.imixs.workflow.exceptions.PluginException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput benchmark for 32 processing threads sharing one ModelManager. The
+ * benchmark processes workitems against the BPMN test models with conditional
+ * events and conditional parallel gateways. Each thread uses its own
+ * WorkflowKernel.
+ * 
+ * @author rsoika
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(32)
+@Fork(1)
+public class ConcurrentProcessingBenchmark {
+
+    /**
+     * The shared workflow context holding the ModelManager. Each model defines
+     * the task 1000 with the conditional event 10.
+     */
+    @State(Scope.Benchmark)
+    public static class ModelState {
+
+        @Param({ "/bpmn/conditional_event1.bpmn", "/bpmn/conditional_split_event.bpmn" })
+        public String model;
+
+        private MockWorkflowContext workflowContext;
+
+        @Setup
+        public void setup() throws ModelException {
+            workflowContext = new MockWorkflowContext();
+            workflowContext.getModelManager().addModel(BenchmarkDocuments.readModel(model));
+        }
+    }
+
+    /**
+     * The WorkflowKernel of a processing thread
+     */
+    @State(Scope.Thread)
+    public static class KernelState {
+
+        private WorkflowKernel workflowKernel;
+        private int count;
+
+        @Setup
+        public void setup(ModelState modelState) throws PluginException {
+            workflowKernel = new WorkflowKernel(modelState.workflowContext);
+            workflowKernel.registerPlugin(new MockPlugin());
+        }
+    }
+
+    /**
+     * Processes a workitem with a budget alternating between the conditional
+     * flows of the model
+     */
+    @Benchmark
+    public ItemCollection process(KernelState state) throws Exception {
+        ItemCollection workitem = new ItemCollection().model("1.0.0").task(1000).event(10);
+        workitem.setItemValue("_budget", (state.count++ % 2 == 0) ? 1520.00 : 50.00);
+        return state.workflowKernel.process(workitem);
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ *  Imixs-Workflow
+ *
+ *  Copyright (C) 2001-2020 Imixs Software Solutions GmbH,
+ *  http://www.imixs.com
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 2
+ *  of the License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You can receive a copy of the GNU General Public
+ *  License at http://www.gnu.org/licenses/gpl.html
+ *
+ *  Project:
+ *      https://www.imixs.org
+ *      https://github.com/imixs/imixs-workflow
+ *
+ *  Contributors:
+ *      Imixs Software Solutions GmbH - Project Management
+ *      Ralph Soika - Software Developer
+ */
+
+package org.imixs.workflow.benchmark;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.imixs.workflow.ItemCollection;
+import org.imixs.workflow.util.ItemValueCopier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark for the basic operations of an ItemCollection - set, get, clone and
+ * merge - with different document sizes. The deep copy benchmarks compare the
+ * structural copy of the item values with the former serialization strategy.
+ * 
+ * @author rsoika
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemCollectionBenchmark {
+
+    /**
+     * Number of additional items of the test document
+     */
+    @Param({ "10", "100", "1000" })
+    public int itemCount;
+
+    private ItemCollection document;
+    private Map<String, List<Object>> items;
+    private String[] itemNames;
+    private Object[] itemValues;
+    private List<String> projection = Arrays.asList("txtname", "$taskid", "item1|number", "(^item2$|^item3$)");
+
+    @Setup
+    public void setup() {
+        document = BenchmarkDocuments.create(itemCount);
+        items = document.getAllItems();
+        itemNames = document.getItemNames().toArray(new String[0]);
+        itemValues = new Object[itemNames.length];
+        for (int i = 0; i < itemNames.length; i++) {
+            itemValues[i] = document.getItemValue(itemNames[i]);
+        }
+    }
+
+    /**
+     * Sets all items of the test document into a new ItemCollection
+     */
+    @Benchmark
+    public ItemCollection setItemValue() {
+        ItemCollection result = new ItemCollection();
+        for (int i = 0; i < itemNames.length; i++) {
+            result.setItemValue(itemNames[i], itemValues[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Reads all items of the test document
+     */
+    @Benchmark
+    public void getItemValue(Blackhole blackhole) {
+        for (String itemName : itemNames) {
+            blackhole.consume(document.getItemValue(itemName));
+        }
+    }
+
+    /**
+     * Reads all items of the test document as String values
+     */
+    @Benchmark
+    public void getItemValueString(Blackhole blackhole) {
+        for (String itemName : itemNames) {
+            blackhole.consume(document.getItemValueString(itemName));
+        }
+    }
+
+    /**
+     * Deep copy of the test document
+     */
+    @Benchmark
+    public Object cloneDocument() {
+        return document.clone();
+    }
+
+    /**
+     * Structural deep copy of the items of the test document
+     */
+    @Benchmark
+    public Object deepCopy() throws IOException, ClassNotFoundException {
+        return ItemValueCopier.deepCopy(items);
+    }
+
+    /**
+     * Deep copy of the items of the test document by a serialization round trip,
+     * the former copy strategy of the ItemCollection
+     */
+    @Benchmark
+    public Object deepCopyBySerialization() throws IOException, ClassNotFoundException {
+        return ItemValueCopier.deepCopyBySerialization(items);
+    }
+
+    /**
+     * Copy of a subset of items of the test document
+     */
+    @Benchmark
+    public ItemCollection cloneItems() {
+        return document.clone(projection);
+    }
+
+    /**
+     * Merges the test document into a new ItemCollection
+     */
+    @Benchmark
+    public ItemCollection mergeItems() {
+        ItemCollection result = new ItemCollection();
+        result.replaceItemValue("txtname", "Merge");
+        result.mergeItems(document.getAllItems());
+        return result;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ *  Imixs-Workflow
+ *
+ *  Copyright (C) 2001-2020 Imixs Software Solutions GmbH,
+ *  http://www.imixs.com
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 2
+ *  of the License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You can receive a copy of the GNU General Public
+ *  License at http://www.gnu.org/licenses/gpl.html
+ *
+ *  Project:
+ *      https://www.imixs.org
+ *      https://github.com/imixs/imixs-workflow
+ *
+ *  Contributors:
+ *      Imixs Software Solutions GmbH - Project Management
+ *      Ralph Soika - Software Developer
+ */
+
+package org.imixs.workflow.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.imixs.workflow.ItemCollection;
+import org.imixs.workflow.util.ImixsJSONBuilder;
+import org.imixs.workflow.util.ImixsJSONParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark for the ImixsJSONBuilder and the ImixsJSONParser with different
+ * document sizes.
+ * 
+ * @author rsoika
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JSONBenchmark {
+
+    /**
+     * Number of additional items of the test document
+     */
+    @Param({ "10", "100", "1000" })
+    public int itemCount;
+
+    private ItemCollection document;
+    private byte[] jsonData;
+
+    @Setup
+    public void setup() throws ParseException, UnsupportedEncodingException {
+        document = BenchmarkDocuments.create(itemCount);
+        jsonData = ImixsJSONBuilder.build(document).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Builds the JSON representation of the test document
+     */
+    @Benchmark
+    public String build() throws ParseException, UnsupportedEncodingException {
+        return ImixsJSONBuilder.build(document);
+    }
+
+    /**
+     * Writes the JSON representation of the test document into an OutputStream
+     */
+    @Benchmark
+    public void write() {
+        ImixsJSONBuilder.write(document, OutputStream.nullOutputStream());
+    }
+
+    /**
+     * Parses the JSON representation of the test document
+     */
+    @Benchmark
+    public List<ItemCollection> parse() throws ParseException, UnsupportedEncodingException {
+        return ImixsJSONParser.parse(new ByteArrayInputStream(jsonData));
+    }
+
+    /**
+     * Parses the JSON representation of the test document without collecting the
+     * documents
+     */
+    @Benchmark
+    public int parseStream(Blackhole blackhole) throws ParseException {
+        return ImixsJSONParser.parse(new ByteArrayInputStream(jsonData), blackhole::consume);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ *  Imixs-Workflow
+ *
+ *  Copyright (C) 2001-2020 Imixs Software Solutions GmbH,
+ *  http://www.imixs.com
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 2
+ *  of the License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You can receive a copy of the GNU General Public
+ *  License at http://www.gnu.org/licenses/gpl.html
+ *
+ *  Project:
+ *      https://www.imixs.org
+ *      https://github.com/imixs/imixs-workflow
+ *
+ *  Contributors:
+ *      Imixs Software Solutions GmbH - Project Management
+ *      Ralph Soika - Software Developer
+ */
+
+package org.imixs.workflow.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.imixs.workflow.ItemCollection;
+import org.imixs.workflow.RuleEngine;
+import org.imixs.workflow.exceptions.PluginException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for the evaluation of boolean expressions by the RuleEngine as
+ * used by conditional events.
+ * 
+ * @author rsoika
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleEngineBenchmark {
+
+    /**
+     * Number of additional items of the workitem
+     */
+    @Param({ "10", "100", "1000" })
+    public int itemCount;
+
+    @Param({ "(workitem._budget && workitem._budget[0]>100)",
+            "workitem.txtname[0]=='Imixs-Workflow' && workitem.$taskid[0]==1000" })
+    public String script;
+
+    private RuleEngine ruleEngine;
+    private ItemCollection workitem;
+
+    @Setup
+    public void setup() {
+        ruleEngine = new RuleEngine();
+        workitem = BenchmarkDocuments.create(itemCount);
+    }
+
+    /**
+     * Evaluates the boolean expression
+     */
+    @Benchmark
+    public boolean evaluateBooleanExpression() throws PluginException {
+        return ruleEngine.evaluateBooleanExpression(script, workitem);
+    }
+
+    /**
+     * Evaluates the boolean expression with a new RuleEngine instance as done by
+     * the RulePlugin for each event
+     */
+    @Benchmark
+    public boolean evaluateNewRuleEngine() throws PluginException {
+        return new RuleEngine().evaluateBooleanExpression(script, workitem);
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ *  Imixs-Workflow
+ *
+ *  Copyright (C) 2001-2020 Imixs Software Solutions GmbH,
+ *  http://www.imixs.com
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 2
+ *  of the License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You can receive a copy of the GNU General Public
+ *  License at http://www.gnu.org/licenses/gpl.html
+ *
+ *  Project:
+ *      https://www.imixs.org
+ *      https://github.com/imixs/imixs-workflow
+ *
+ *  Contributors:
+ *      Imixs Software Solutions GmbH - Project Management
+ *      Ralph Soika - Software Developer
+ */
+
+package org.imixs.workflow.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.imixs.workflow.ItemCollection;
+import org.imixs.workflow.MockWorkflowContext;
+import org.imixs.workflow.WorkflowKernel;
+import org.imixs.workflow.exceptions.ModelException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark for the WorkflowKernel process method and the typed getters of the
+ * ItemCollection called in the processing loop.
+ * <p>
+ * The process benchmark runs against the BPMN test models of the
+ * imixs-workflow-core module using the MockWorkflowContext.
+ * <p>
+ * The benchmarks 'legacy...' reproduce the former implementation of the typed
+ * getters parsing the String representation of a value.
+ * <p>
+ * Run the benchmarks with the 'gc' profiler to see the allocation rate:
+ * 
+ * <pre>
+ * java -jar imixs-workflow-benchmark/target/benchmarks.jar WorkflowKernelBenchmark -prof gc
+ * </pre>
+ * 
+ * @author rsoika
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorkflowKernelBenchmark {
+
+    private ItemCollection workitem;
+
+    /**
+     * The WorkflowKernel with a loaded test model. Each model defines the task
+     * 1000 with the event 10.
+     */
+    @State(Scope.Thread)
+    public static class KernelState {
+
+        @Param({ "/bpmn/simple.bpmn", "/bpmn/conditional_event1.bpmn" })
+        public String model;
+
+        /**
+         * Number of additional items of the processed workitem
+         */
+        @Param({ "10", "100", "1000" })
+        public int itemCount;
+
+        private WorkflowKernel workflowKernel;
+        private ItemCollection document;
+
+        @Setup
+        public void setup() throws ModelException {
+            MockWorkflowContext workflowContext = new MockWorkflowContext();
+            workflowContext.getModelManager().addModel(BenchmarkDocuments.readModel(model));
+            workflowKernel = new WorkflowKernel(workflowContext);
+            document = BenchmarkDocuments.create(itemCount);
+        }
+    }
+
+    @Setup
+    public void setup() {
+        workitem = new ItemCollection().model("1.0.0").task(1000).event(10);
+        workitem.setItemValue("$version", 3);
+        workitem.setItemValue("numamount", "1200");
+    }
+
+    /**
+     * Processes a copy of the test document by the WorkflowKernel
+     */
+    @Benchmark
+    public ItemCollection process(KernelState state) throws Exception {
+        ItemCollection document = (ItemCollection) state.document.clone();
+        return state.workflowKernel.process(document);
+    }
+
+    /**
+     * Reads the integer items used in each processing cycle
+     */
+    @Benchmark
+    public void getItemValueInteger(Blackhole blackhole) {
+        blackhole.consume(workitem.getTaskID());
+        blackhole.consume(workitem.getEventID());
+        blackhole.consume(workitem.getItemValueInteger("$version"));
+        blackhole.consume(workitem.getItemValueInteger("numamount"));
+    }
+
+    /**
+     * Reads the integer items with the former implementation
+     */
+    @Benchmark
+    public void legacyGetItemValueInteger(Blackhole blackhole) {
+        blackhole.consume(legacyGetItemValueInteger(workitem, "$taskid"));
+        blackhole.consume(legacyGetItemValueInteger(workitem, "$eventid"));
+        blackhole.consume(legacyGetItemValueInteger(workitem, "$version"));
+        blackhole.consume(legacyGetItemValueInteger(workitem, "numamount"));
+    }
+
+    /**
+     * Reads long and double values
+     */
+    @Benchmark
+    public void getItemValueLongDouble(Blackhole blackhole) {
+        blackhole.consume(workitem.getItemValueLong("$version"));
+        blackhole.consume(workitem.getItemValueDouble("numamount"));
+    }
+
+    /**
+     * The former implementation of the method getItemValueInteger
+     */
+    @SuppressWarnings("deprecation")
+    private static int legacyGetItemValueInteger(ItemCollection itemCol, String itemName) {
+        try {
+            List<?> v = itemCol.getItemValue(itemName);
+            if (v.size() == 0) {
+                return 0;
+            }
+            String sValue = v.get(0).toString();
+            return new Double(sValue).intValue();
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ *  Imixs-Workflow
+ *
+ *  Copyright (C) 2001-2020 Imixs Software Solutions GmbH,
+ *  http://www.imixs.com
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 2
+ *  of the License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You can receive a copy of the GNU General Public
+ *  License at http://www.gnu.org/licenses/gpl.html
+ *
+ *  Project:
+ *      https://www.imixs.org
+ *      https://github.com/imixs/imixs-workflow
+ *
+ *  Contributors:
+ *      Imixs Software Solutions GmbH - Project Management
+ *      Ralph Soika - Software Developer
+ */
+
+package org.imixs.workflow.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.imixs.workflow.ItemCollection;
+import org.imixs.workflow.xml.XMLDocument;
+import org.imixs.workflow.xml.XMLDocumentAdapter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jakarta.xml.bind.JAXBException;
+
+/**
+ * Benchmark for the XMLDocumentAdapter converting an ItemCollection into a
+ * XMLDocument and back, and for the JAXB serialization of a document.
+ * <p>
+ * The bytecode optimization of the JAXB runtime 3.0.0 is not supported on Java
+ * 17 and is disabled for the benchmark fork.
+ * 
+ * @author rsoika
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.glassfish.jaxb.runtime.v2.bytecode.ClassTailor.noOptimize=true")
+public class XMLDocumentAdapterBenchmark {
+
+    /**
+     * Number of additional items of the test document
+     */
+    @Param({ "10", "100", "1000" })
+    public int itemCount;
+
+    private ItemCollection document;
+    private XMLDocument xmlDocument;
+    private byte[] xmlData;
+
+    @Setup
+    public void setup() throws Exception {
+        document = BenchmarkDocuments.create(itemCount);
+        xmlDocument = XMLDocumentAdapter.getDocument(document);
+        xmlData = XMLDocumentAdapter.writeItemCollection(document);
+    }
+
+    /**
+     * Converts the ItemCollection into a XMLDocument
+     */
+    @Benchmark
+    public XMLDocument getDocument() {
+        return XMLDocumentAdapter.getDocument(document);
+    }
+
+    /**
+     * Converts the XMLDocument into an ItemCollection
+     */
+    @Benchmark
+    public ItemCollection putDocument() {
+        return XMLDocumentAdapter.putDocument(xmlDocument);
+    }
+
+    /**
+     * ItemCollection -> XMLDocument -> ItemCollection
+     */
+    @Benchmark
+    public ItemCollection roundTrip() {
+        return XMLDocumentAdapter.putDocument(XMLDocumentAdapter.getDocument(document));
+    }
+
+    /**
+     * Writes the ItemCollection as a XML byte array
+     */
+    @Benchmark
+    public byte[] writeItemCollection() throws JAXBException, IOException {
+        return XMLDocumentAdapter.writeItemCollection(document);
+    }
+
+    /**
+     * Reads an ItemCollection from a XML byte array
+     */
+    @Benchmark
+    public ItemCollection readItemCollection() throws JAXBException, IOException {
+        return XMLDocumentAdapter.readItemCollection(xmlData);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *  Imixs-Workflow
+ *
+ *  Copyright (C) 2001-2020 Imixs Software Solutions GmbH,
+ *  http://www.imixs.com
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 2
+ *  of the License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You can receive a copy of the GNU General Public
+ *  License at http://www.gnu.org/licenses/gpl.html
+ *
+ *  Project:
+ *      https://www.imixs.org
+ *      https://github.com/imixs/imixs-workflow
+ *
+ *  Contributors:
+ *      Imixs Software Solutions GmbH - Project Management
+ *      Ralph Soika - Software Developer
+ */
+
+package org.imixs.workflow.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.imixs.workflow.ItemCollection;
+import org.imixs.workflow.exceptions.PluginException;
+import org.imixs.workflow.util.XMLParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for the XMLParser methods used during text adaptation and the
+ * evaluation of a workflow result.
+ * 
+ * @author rsoika
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XMLParserBenchmark {
+
+    private static final String TEXT = "Dear <itemvalue>namcreator</itemvalue>, the ticket "
+            + "<itemvalue format=\"yyyy-MM-dd\" separator=\", \">$created</itemvalue> was updated by "
+            + "<itemvalue>$editor</itemvalue>.";
+
+    private static final String MODEL_TAG = "<model><version>1.0.0</version><task>1000</task>"
+            + "<event>10</event></model>";
+
+    /**
+     * Finds the itemvalue tags of a text and their attributes
+     */
+    @Benchmark
+    public int findTags() {
+        int result = 0;
+        List<String> tags = XMLParser.findTags(TEXT, "itemvalue");
+        for (String tag : tags) {
+            if (XMLParser.findAttribute(tag, "format") != null) {
+                result++;
+            }
+            result += XMLParser.findTagValue(tag, "itemvalue").length();
+        }
+        return result;
+    }
+
+    /**
+     * Parses a model tag of an event result
+     */
+    @Benchmark
+    public ItemCollection parseTag() throws PluginException {
+        return XMLParser.parseTag(MODEL_TAG, "model");
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ *  Imixs-Workflow
+ *
+ *  Copyright (C) 2001-2020 Imixs Software Solutions GmbH,
+ *  http://www.imixs.com
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 2
+ *  of the License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You can receive a copy of the GNU General Public
+ *  License at http://www.gnu.org/licenses/gpl.html
+ *
+ *  Project:
+ *      https://www.imixs.org
+ *      https://github.com/imixs/imixs-workflow
+ *
+ *  Contributors:
+ *      Imixs Software Solutions GmbH - Project Management
+ *      Ralph Soika - Software Developer
+ */
+
+package org.imixs.workflow.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.TransformerException;
+
+import org.imixs.workflow.ItemCollection;
+import org.imixs.workflow.xml.XSLHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jakarta.xml.bind.JAXBException;
+
+/**
+ * Benchmark for the XSL transformation of a single document (e.g. a mail body
+ * or a composed document) and of a report with 100 documents.
+ * 
+ * @author rsoika
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.glassfish.jaxb.runtime.v2.bytecode.ClassTailor.noOptimize=true")
+public class XSLHandlerBenchmark {
+
+    private static final String XSL = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>"
+            + "<xsl:stylesheet xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\" version=\"1.0\">"
+            + "<xsl:output method=\"html\" />" //
+            + "<xsl:template match=\"/\"><html><body><xsl:apply-templates select=\"//document\" /></body></html>"
+            + "</xsl:template>" //
+            + "<xsl:template match=\"document\"><p><xsl:value-of select=\"item[@name='txtname']/value\" />"
+            + " - <xsl:value-of select=\"item[@name='$modified']/value\" /></p></xsl:template>"
+            + "</xsl:stylesheet>";
+
+    /**
+     * Number of additional items of the test documents
+     */
+    @Param({ "10", "100" })
+    public int itemCount;
+
+    private ItemCollection document;
+    private List<ItemCollection> documents;
+
+    @Setup
+    public void setup() {
+        document = BenchmarkDocuments.create(itemCount);
+        documents = new ArrayList<ItemCollection>();
+        for (int i = 0; i < 100; i++) {
+            documents.add(BenchmarkDocuments.create(itemCount));
+        }
+    }
+
+    /**
+     * Transforms a single document like the MailPlugin
+     */
+    @Benchmark
+    public byte[] transformDocument() throws JAXBException, TransformerException, IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        XSLHandler.transform(document, XSL, "UTF-8", output);
+        return output.toByteArray();
+    }
+
+    /**
+     * Transforms a report of 100 documents
+     */
+    @Benchmark
+    public byte[] transformReport() throws JAXBException, TransformerException, IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        XSLHandler.transform(documents, XSL, "UTF-8", output);
+        return output.toByteArray();
+    }
+}
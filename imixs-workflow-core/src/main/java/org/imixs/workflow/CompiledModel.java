@@ -0,0 +1,520 @@
+/*
+ *  Imixs-Workflow
+ *
+ *  Copyright (C) 2001-2020 Imixs Software Solutions GmbH,
+ *  http://www.imixs.com
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 2
+ *  of the License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You can receive a copy of the GNU General Public
+ *  License at http://www.gnu.org/licenses/gpl.html
+ *
+ *  Project:
+ *      https://www.imixs.org
+ *      https://github.com/imixs/imixs-workflow
+ *
+ *  Contributors:
+ *      Imixs Software Solutions GmbH - Project Management
+ *      Ralph Soika - Software Developer
+ */
+
+package org.imixs.workflow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.imixs.workflow.bpmn.BPMNEntityBuilder;
+import org.imixs.workflow.bpmn.BPMNLinkedFlowIterator;
+import org.imixs.workflow.bpmn.BPMNUtil;
+import org.imixs.workflow.exceptions.ModelException;
+import org.openbpmn.bpmn.BPMNModel;
+import org.openbpmn.bpmn.elements.Activity;
+import org.openbpmn.bpmn.elements.BPMNProcess;
+import org.openbpmn.bpmn.elements.Event;
+import org.openbpmn.bpmn.elements.Gateway;
+import org.openbpmn.bpmn.elements.Participant;
+import org.openbpmn.bpmn.elements.SequenceFlow;
+import org.openbpmn.bpmn.elements.core.BPMNElementNode;
+import org.openbpmn.bpmn.exceptions.BPMNModelException;
+import org.openbpmn.bpmn.navigation.BPMNLinkNavigator;
+
+/**
+ * A CompiledModel is an immutable representation of a BPMNModel used by the
+ * {@link ModelManager} during the processing life cycle. The model graph is
+ * navigated only once when the model is added to the ModelManager.
+ * <p>
+ * Tasks, events per task, follow-up flows and parallel gateways are stored in
+ * int-keyed tables so that the lookup of a task or an event needs no string
+ * keys and no graph traversal. The flow graph is stored as an array of flow
+ * nodes referring to each other by their index. Conditions of sequence flows
+ * are evaluated by the caller while navigating the flow graph.
+ * <p>
+ * The entities returned by a CompiledModel are shared and must not be
+ * modified. The ModelManager returns copy-on-write instances of these
+ * entities.
+ *
+ * @author rsoika
+ */
+public final class CompiledModel {
+
+    private static final Logger logger = Logger.getLogger(CompiledModel.class.getName());
+
+    private final BPMNModel model;
+    private final String version;
+    private final ItemCollection definition;
+    private final IntTable<CompiledTask> tasks;
+    private final FlowNode[] flowNodes;
+    private final Map<String, Integer> flowNodeIndex;
+    private final Map<String, List<ItemCollection>> tasksByGroup = new HashMap<>();
+    private final Map<String, List<ItemCollection>> startTasksByGroup = new HashMap<>();
+    private final Map<String, List<ItemCollection>> endTasksByGroup = new HashMap<>();
+
+    /**
+     * Compiles a BPMNModel. The caller must hold the model lock.
+     */
+    CompiledModel(ModelManager modelManager, BPMNModel model, String version) throws ModelException {
+        long l = System.currentTimeMillis();
+        this.model = model;
+        this.version = version;
+        this.definition = modelManager.lookupDefinition(model);
+
+        // entities are shared by all tables
+        Map<String, ItemCollection> entities = new HashMap<>();
+
+        // tasks and events
+        Map<Integer, CompiledTask> taskMap = new LinkedHashMap<>();
+        for (Activity activity : model.findAllActivities()) {
+            String id = activity.getExtensionAttribute(BPMNUtil.getNamespace(), "processid");
+            if (id == null || id.isEmpty()) {
+                continue;
+            }
+            try {
+                taskMap.putIfAbsent(Integer.parseInt(id), new CompiledTask(modelManager, activity, entities));
+            } catch (NumberFormatException e) {
+                logger.warning(activity.getId() + " invalid attribute 'imixs:processid' = " + id + "  Number expected");
+            }
+        }
+        tasks = new IntTable<>(taskMap);
+
+        // flow graph
+        List<FlowNode> nodeList = new ArrayList<>();
+        flowNodeIndex = new HashMap<>();
+        List<String> groups = new ArrayList<>();
+        try {
+            for (BPMNProcess _process : model.getProcesses()) {
+                BPMNProcess process = model.openProcess(_process.getId());
+                if (process == null) {
+                    continue;
+                }
+                for (Event event : process.getEvents()) {
+                    if (BPMNUtil.isImixsEventElement(event)) {
+                        addFlowNode(event, nodeList, entities);
+                    }
+                }
+                for (Gateway gateway : process.getGateways()) {
+                    if (BPMNUtil.isParallelGatewayElement(gateway)) {
+                        addFlowNode(gateway, nodeList, entities);
+                    }
+                }
+            }
+            // process groups
+            if (model.isCollaborationDiagram()) {
+                for (Participant pool : model.getParticipants()) {
+                    groups.add(pool.openProcess().getName());
+                }
+            } else {
+                groups.add(model.openDefaultProces().getName());
+            }
+        } catch (BPMNModelException e) {
+            throw new ModelException(ModelException.INVALID_MODEL,
+                    "$modelversion " + version + " invalid process: " + e.getMessage());
+        }
+        flowNodes = nodeList.toArray(new FlowNode[nodeList.size()]);
+
+        for (String group : groups) {
+            if (group == null || group.isEmpty() || tasksByGroup.containsKey(group)) {
+                continue;
+            }
+            tasksByGroup.put(group, Collections.unmodifiableList(modelManager.lookupTasks(model, group)));
+            startTasksByGroup.put(group, Collections.unmodifiableList(modelManager.lookupStartTasks(model, group)));
+            endTasksByGroup.put(group, Collections.unmodifiableList(modelManager.lookupEndTasks(model, group)));
+        }
+        logger.log(Level.FINE, "...compiled model ''{0}'' with {1} tasks and {2} flow nodes in {3}ms",
+                new Object[] { version, taskMap.size(), flowNodes.length, System.currentTimeMillis() - l });
+    }
+
+    /**
+     * Returns the BPMNModel this instance was compiled from
+     */
+    public BPMNModel getModel() {
+        return model;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the definition entity of the model
+     */
+    public ItemCollection getDefinition() {
+        return definition;
+    }
+
+    /**
+     * Returns true if the model defines the given task
+     */
+    public boolean hasTask(int taskID) {
+        return tasks.get(taskID) != null;
+    }
+
+    /**
+     * Returns the task entity for a taskID or null if not defined.
+     */
+    public ItemCollection getTask(int taskID) {
+        CompiledTask task = tasks.get(taskID);
+        return task == null ? null : task.entity;
+    }
+
+    /**
+     * Returns the process entity (id and name) of a task or null if the task is
+     * not defined.
+     */
+    public ItemCollection getProcess(int taskID) {
+        CompiledTask task = tasks.get(taskID);
+        return task == null ? null : task.process;
+    }
+
+    /**
+     * Returns the event entity for a taskID and eventID or null if the event is
+     * not assigned to the task.
+     */
+    public ItemCollection getEvent(int taskID, int eventID) {
+        CompiledTask task = tasks.get(taskID);
+        return task == null ? null : task.eventTable.get(eventID);
+    }
+
+    /**
+     * Returns all events assigned to a task. The list is empty if the task is not
+     * defined.
+     */
+    public List<ItemCollection> getEvents(int taskID) {
+        CompiledTask task = tasks.get(taskID);
+        return task == null ? Collections.emptyList() : task.events;
+    }
+
+    /**
+     * Returns the tasks of a process group or null if the group is unknown
+     */
+    public List<ItemCollection> getTasks(String processGroup) {
+        return tasksByGroup.get(processGroup);
+    }
+
+    /**
+     * Returns the start tasks of a process group or null if the group is unknown
+     */
+    public List<ItemCollection> getStartTasks(String processGroup) {
+        return startTasksByGroup.get(processGroup);
+    }
+
+    /**
+     * Returns the end tasks of a process group or null if the group is unknown
+     */
+    public List<ItemCollection> getEndTasks(String processGroup) {
+        return endTasksByGroup.get(processGroup);
+    }
+
+    /**
+     * Returns the next Imixs Task, Imixs Event or ParallelGateway elements
+     * following the given element. The outgoing sequence flows of a gateway are
+     * filtered by the given conditionEvaluator. Conditional flows are tested
+     * first. The first flow with a matching condition or with no condition is
+     * followed.
+     * 
+     * @param elementId          - id of an Imixs Event or ParallelGateway
+     * @param conditionEvaluator - evaluates the condition of a sequence flow
+     * @return list of next elements or null if the element is not part of the
+     *         flow graph.
+     */
+    public List<ItemCollection> findNextElements(String elementId, Predicate<String> conditionEvaluator) {
+        Integer index = flowNodeIndex.get(elementId);
+        if (index == null) {
+            return null;
+        }
+        List<ItemCollection> result = new ArrayList<>(1);
+        collectNextElements(flowNodes[index], conditionEvaluator, result, 0);
+        return result;
+    }
+
+    /**
+     * Returns the Imixs Task and Imixs Event elements following a
+     * ParallelGateway.
+     * 
+     * @return list of target elements or null if the gateway is unknown
+     */
+    public List<ItemCollection> getSplitTargets(String gatewayId) {
+        Integer index = flowNodeIndex.get(gatewayId);
+        if (index == null || flowNodes[index].splitTargets == null) {
+            return null;
+        }
+        return flowNodes[index].splitTargets;
+    }
+
+    /**
+     * Returns the condition of the sequence flow connecting a ParallelGateway
+     * directly with a target element. The method returns null if no conditional
+     * flow exists.
+     */
+    public String getSplitCondition(String gatewayId, String targetId) {
+        Integer index = flowNodeIndex.get(gatewayId);
+        if (index == null || flowNodes[index].splitConditions == null) {
+            return null;
+        }
+        return flowNodes[index].splitConditions.get(targetId);
+    }
+
+    private void collectNextElements(FlowNode node, Predicate<String> conditionEvaluator,
+            List<ItemCollection> result, int depth) {
+        if (depth > flowNodes.length) {
+            // a loop of gateways without a task or event
+            logger.warning("Element " + node.name + " (" + node.id + ") is part of an endless sequence flow!");
+            return;
+        }
+        if (node.gateway && conditionEvaluator != null) {
+            for (int i = 0; i < node.targets.length; i++) {
+                String condition = node.conditions[i];
+                if ((condition != null && conditionEvaluator.test(condition))
+                        || condition == null || condition.trim().isEmpty()) {
+                    collectTarget(node.targets[i], conditionEvaluator, result, depth);
+                    return;
+                }
+            }
+            logger.warning("Gateway " + node.name + " (" + node.id
+                    + ") has conditional flows but non of the outgoing sequence flows is matching the condition!");
+            return;
+        }
+        for (int target : node.targets) {
+            collectTarget(target, conditionEvaluator, result, depth);
+        }
+    }
+
+    private void collectTarget(int target, Predicate<String> conditionEvaluator, List<ItemCollection> result,
+            int depth) {
+        if (target < 0) {
+            return;
+        }
+        FlowNode targetNode = flowNodes[target];
+        if (targetNode.entity != null) {
+            result.add(targetNode.entity);
+        } else {
+            collectNextElements(targetNode, conditionEvaluator, result, depth + 1);
+        }
+    }
+
+    /**
+     * Adds a node and all nodes reachable by its outgoing sequence flows to the
+     * flow graph. The outgoing flows of a gateway are sorted so that conditional
+     * flows come first.
+     */
+    private int addFlowNode(BPMNElementNode element, List<FlowNode> nodeList, Map<String, ItemCollection> entities) {
+        Integer index = flowNodeIndex.get(element.getId());
+        if (index != null) {
+            return index;
+        }
+        FlowNode node = new FlowNode(element);
+        index = nodeList.size();
+        nodeList.add(node);
+        flowNodeIndex.put(node.id, index);
+
+        if (BPMNUtil.isImixsTaskElement(element) || BPMNUtil.isImixsEventElement(element)
+                || BPMNUtil.isParallelGatewayElement(element)) {
+            node.entity = entities.computeIfAbsent(element.getId(), id -> BPMNEntityBuilder.build(element));
+        }
+        List<SequenceFlow> flows = new ArrayList<>(element.getOutgoingSequenceFlows());
+        if (node.gateway) {
+            flows.sort((a, b) -> Integer.compare(isConditional(a) ? 0 : 1, isConditional(b) ? 0 : 1));
+        }
+        node.targets = new int[flows.size()];
+        node.conditions = new String[flows.size()];
+        for (int i = 0; i < flows.size(); i++) {
+            node.conditions[i] = flows.get(i).getConditionExpression();
+            BPMNElementNode target = getTargetNode(flows.get(i));
+            node.targets[i] = (target == null) ? -1 : addFlowNode(target, nodeList, entities);
+        }
+
+        if (BPMNUtil.isParallelGatewayElement(element)) {
+            List<ItemCollection> splitTargets = new ArrayList<>();
+            Map<String, String> splitConditions = new HashMap<>();
+            try {
+                BPMNLinkedFlowIterator<BPMNElementNode> splitElementNavigator = new BPMNLinkedFlowIterator<BPMNElementNode>(
+                        element,
+                        n -> ((BPMNUtil.isImixsTaskElement(n)) || (BPMNUtil.isImixsEventElement(n))));
+                while (splitElementNavigator.hasNext()) {
+                    BPMNElementNode splitNode = splitElementNavigator.next();
+                    splitTargets.add(
+                            entities.computeIfAbsent(splitNode.getId(), id -> BPMNEntityBuilder.build(splitNode)));
+                    for (SequenceFlow flow : flows) {
+                        if (flow.getTargetElement().getId().equals(splitNode.getId()) && isConditional(flow)) {
+                            splitConditions.putIfAbsent(splitNode.getId(), flow.getConditionExpression());
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                // e.g. a link event without a catch event - the gateway is resolved at runtime
+                logger.warning("ParallelGateway " + node.id + " can not be compiled: " + e.getMessage());
+                return index;
+            }
+            node.splitTargets = Collections.unmodifiableList(splitTargets);
+            node.splitConditions = splitConditions;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the target of a sequence flow. A link throw event is resolved to the
+     * element following the corresponding link catch event, in the same way as
+     * the {@link BPMNLinkedFlowIterator} does. A link without a catch event is
+     * not resolved.
+     */
+    private static BPMNElementNode getTargetNode(SequenceFlow flow) {
+        BPMNElementNode nextElement = flow.getTargetElement();
+        if (BPMNUtil.isLinkCatchEventElement(nextElement)) {
+            BPMNElementNode linkTargetElement = new BPMNLinkNavigator().findNext(nextElement);
+            if (linkTargetElement != null) {
+                Set<SequenceFlow> outFlows = linkTargetElement.getOutgoingSequenceFlows();
+                if (outFlows != null && outFlows.size() > 0) {
+                    nextElement = outFlows.iterator().next().getTargetElement();
+                }
+            }
+        }
+        return nextElement;
+    }
+
+    private static boolean isConditional(SequenceFlow flow) {
+        String condition = flow.getConditionExpression();
+        return condition != null && !condition.trim().isEmpty();
+    }
+
+    /**
+     * A compiled Imixs Task with its events
+     */
+    private static final class CompiledTask {
+        private final ItemCollection entity;
+        private final ItemCollection process;
+        private final List<ItemCollection> events;
+        private final IntTable<ItemCollection> eventTable;
+
+        CompiledTask(ModelManager modelManager, Activity activity, Map<String, ItemCollection> entities) {
+            entity = entities.computeIfAbsent(activity.getId(), id -> BPMNEntityBuilder.build(activity));
+            BPMNProcess bpmnProcess = activity.getBpmnProcess();
+            process = new ItemCollection();
+            process.setItemValue("id", bpmnProcess.getId());
+            if (bpmnProcess.hasAttribute("name")) {
+                process.setItemValue("name", bpmnProcess.getAttribute("name"));
+            }
+
+            List<ItemCollection> eventList = new ArrayList<>();
+            Map<Integer, ItemCollection> eventMap = new LinkedHashMap<>();
+            for (BPMNElementNode eventNode : modelManager.lookupEventNodes(activity)) {
+                ItemCollection event = entities.computeIfAbsent(eventNode.getId(),
+                        id -> BPMNEntityBuilder.build(eventNode));
+                eventList.add(event);
+                String id = eventNode.getExtensionAttribute(BPMNUtil.getNamespace(), "activityid");
+                if (id == null || id.isEmpty()) {
+                    continue;
+                }
+                try {
+                    eventMap.putIfAbsent(Integer.parseInt(id), event);
+                } catch (NumberFormatException e) {
+                    logger.warning(
+                            eventNode.getId() + " invalid attribute 'imixs:activityid' = " + id + "  Number expected");
+                }
+            }
+            events = Collections.unmodifiableList(eventList);
+            eventTable = new IntTable<>(eventMap);
+        }
+    }
+
+    /**
+     * A node of the flow graph. The node refers to the target nodes of its
+     * outgoing sequence flows by their index.
+     */
+    private static final class FlowNode {
+        private final String id;
+        private final String name;
+        private final boolean gateway;
+        // entity of an Imixs Task, Imixs Event or ParallelGateway
+        private ItemCollection entity;
+        private int[] targets;
+        private String[] conditions;
+        // targets of a ParallelGateway
+        private List<ItemCollection> splitTargets;
+        private Map<String, String> splitConditions;
+
+        FlowNode(BPMNElementNode element) {
+            id = element.getId();
+            name = element.getName();
+            gateway = element instanceof Gateway;
+        }
+    }
+
+    /**
+     * An immutable open-addressing hash table with primitive int keys.
+     */
+    static final class IntTable<V> {
+        private final int[] keys;
+        private final Object[] values;
+        private final int mask;
+
+        IntTable(Map<Integer, V> source) {
+            int capacity = 2;
+            while (capacity < source.size() * 2) {
+                capacity <<= 1;
+            }
+            keys = new int[capacity];
+            values = new Object[capacity];
+            mask = capacity - 1;
+            for (Map.Entry<Integer, V> entry : source.entrySet()) {
+                int i = hash(entry.getKey()) & mask;
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = entry.getKey();
+                values[i] = entry.getValue();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        V get(int key) {
+            int i = hash(key) & mask;
+            while (values[i] != null) {
+                if (keys[i] == key) {
+                    return (V) values[i];
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+
+        private static int hash(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -28,23 +28,19 @@
 
 package org.imixs.workflow;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.lang.reflect.Array;
 import java.lang.reflect.Type;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
-import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -55,10 +51,11 @@ import java.util.Set;
 import java.util.Vector;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import org.imixs.workflow.exceptions.InvalidAccessException;
+import org.imixs.workflow.util.ItemValueCopier;
+import org.imixs.workflow.util.LazyItemMap;
 import org.imixs.workflow.xml.XMLDocument;
 import org.imixs.workflow.xml.XMLItem;
 
@@ -71,9 +68,9 @@ import org.imixs.workflow.xml.XMLItem;
  * ItemCcollection enables a very flexibly and easy to use data structure.
  * <p>
  * A ItemCollection contains various Items (attributes). Every Item exist of a
- * Name (String) and a list of values (List of Object). Internal every Value is
- * stored inside a Vector Class. All values are stored internally in a Map
- * containing key values pairs.
+ * Name (String) and a list of values (List of Object). All values are stored
+ * internally in a Map containing key values pairs. The default storage layout
+ * is an {@link ItemMap} which stores single values without a value list.
  * <p>
  * NOTE: An ItemCollection is not serializable and can not be stored into
  * another ItemCollection. To serialize a ItemCollection use the
@@ -90,7 +87,11 @@ public class ItemCollection implements Cloneable {
 
     private static final Logger logger = Logger.getLogger(ItemCollection.class.getName());
 
-    private Map<String, List<Object>> hash = new Hashtable<String, List<Object>>();
+    private Map<String, List<Object>> hash = new ItemMap();
+
+    // indicates that the item map is shared with another instance and must be
+    // copied before the first modification
+    private boolean copyOnWrite = false;
 
     /**
      * Creates a new empty ItemCollection
@@ -138,73 +139,76 @@ public class ItemCollection implements Cloneable {
         return reference;
     }
 
+    /**
+     * Creates a new copy-on-write ItemCollection sharing the item map of a given
+     * source ItemCollection. The item map is copied only on the first
+     * modification (e.g. setItemValue, replaceItemValue, removeItem). Until then
+     * the new instance is a read-only view of the source and does not allocate a
+     * copy of the items.
+     * <p>
+     * This method can be used in cases where a cached instance is typically only
+     * read by the client. The source instance must not be modified after a
+     * copy-on-write instance was created.
+     * 
+     * @param source - shared ItemCollection
+     * @return new copy-on-write instance
+     */
+    public static ItemCollection createCopyOnWrite(final ItemCollection source) {
+        ItemCollection view = new ItemCollection();
+        if (source != null) {
+            view.hash = source.hash;
+            view.copyOnWrite = true;
+        }
+        return view;
+    }
+
+    /**
+     * Returns true if the item map of this instance is still shared with the
+     * source of a copy-on-write instance.
+     * 
+     * @return true if the item map was not yet copied
+     */
+    public boolean isCopyOnWrite() {
+        return copyOnWrite;
+    }
+
     /**
      * This method clones the current ItemCollection. The method makes a deep copy
      * of the current instance.
+     * <p>
+     * If the current instance is a copy-on-write instance, the method returns a
+     * new copy-on-write instance sharing the same item map.
      */
     @Override
     public Object clone() {
+        if (copyOnWrite) {
+            return createCopyOnWrite(this);
+        }
         ItemCollection clone = new ItemCollection(this);
         return clone;
     }
 
     /**
      * This method clones the current ItemCollection with a subset of items. The
-     * method makes a deep copy of the current instance and removes items not
-     * defined by the list of itemNames.
+     * method makes a deep copy of all items defined by the list of itemNames.
+     * Other items are not copied.
      * <p>
      * The list of itemNames can contain exact names or a regular expression.
      * <p>
      * A itemName can also be mapped into a new itemName by separating the target
      * name with a | (e.g. name|parentName)
+     * <p>
+     * The item list is compiled into an {@link ItemProjection} which is cached
+     * for further calls with the same list of itemNames.
      * 
      * @param itemNames - list of items to be copied into the clone
      * @return new ItemCollection
      */
     public ItemCollection clone(final List<String> itemNames) {
-        ItemCollection clone = (ItemCollection) this.clone();
-        // remove all undefined items if a list of itemNames is defined.
-        if (itemNames != null && itemNames.size() > 0) {
-            // we build a list with all items to be cloned...
-            List<String> cloneItemList = new ArrayList<String>();
-            Set<String> originItemNameList = hash.keySet();
-            for (String itemPattern : itemNames) {
-                // first test an exact match....
-                if (originItemNameList.contains(itemPattern.toLowerCase())) {
-                    cloneItemList.add(itemPattern.toLowerCase());
-                } else {
-
-                    // if we have a | char than copy the item into a new itemname....
-                    // default behavior without reg ex
-                    if (itemPattern.indexOf('|') > -1) {
-                        String targetItemName = itemPattern.substring(itemPattern.indexOf('|') + 1).trim();
-                        String sourceItemName = itemPattern.substring(0, itemPattern.indexOf('|')).trim();
-                        // dose the sourceItemName exist?
-                        if (clone.hasItem(sourceItemName)) {
-                            clone.replaceItemValue(targetItemName, clone.getItemValue(sourceItemName));
-                            cloneItemList.add(targetItemName);
-                            continue;
-                        }
-                    }
-                    // finally we test if field is a reg ex
-                    Pattern pattern = Pattern.compile(itemPattern);
-                    for (String originItemName : originItemNameList) {
-                        if (pattern.matcher(originItemName).find()) {
-                            cloneItemList.add(originItemName);
-                        }
-                    }
-
-                }
-            }
-            // now we have list with all items to be cloned
-            for (String itemName : originItemNameList) {
-                if (!cloneItemList.contains(itemName)) {
-                    // remove not matching items....
-                    clone.removeItem(itemName);
-                }
-            }
+        if (itemNames == null || itemNames.size() == 0) {
+            return (ItemCollection) this.clone();
         }
-        return clone;
+        return ItemProjection.compile(itemNames).apply(this);
     }
 
     /**
@@ -216,24 +220,41 @@ public class ItemCollection implements Cloneable {
      * @param itemvalue
      * @return
      */
-    @SuppressWarnings("unchecked")
     public void cloneItem(String itemName, ItemCollection source) {
+        copyItem(itemName, source, itemName);
+    }
+
+    /**
+     * Makes a deep copy of a single item value from a given source ItemCollection
+     * into a new item name.
+     * 
+     * @param itemName       - target item name
+     * @param source         - source ItemCollection
+     * @param sourceItemName - item name in the source ItemCollection
+     */
+    @SuppressWarnings("unchecked")
+    void copyItem(String itemName, ItemCollection source, String sourceItemName) {
         try {
-            List<Object> sourceValue = source.getItemValue(itemName);
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            ObjectOutputStream oos = new ObjectOutputStream(bos);
-            // serialize and pass the object
-            oos.writeObject(sourceValue);
-            oos.flush();
-            ByteArrayInputStream bais = new ByteArrayInputStream(bos.toByteArray());
-            ObjectInputStream ois = new ObjectInputStream(bais);
-            List<Object> copy = (List<Object>) ois.readObject();
-            hash.put(itemName, copy);
+            List<Object> sourceValue = source.getItemValue(sourceItemName);
+            List<Object> copy = (List<Object>) ItemValueCopier.deepCopy(sourceValue);
+            copyOnWriteItems();
+            hash.put(ItemMap.normalize(itemName), copy);
         } catch (IOException | ClassNotFoundException e) {
-            logger.log(Level.WARNING, "Unable to clone values of Item ''{0}'' - {1}", new Object[] { itemName, e });
+            logger.log(Level.WARNING, "Unable to clone values of Item ''{0}'' - {1}",
+                    new Object[] { sourceItemName, e });
         }
     }
 
+    /**
+     * Returns the names of all items without copying or sorting. The returned set
+     * must not be modified.
+     * 
+     * @return set of item names
+     */
+    Set<String> getItemNameSet() {
+        return Collections.unmodifiableSet(hash.keySet());
+    }
+
     /**
      * This method compares the values of two item collections by comparing the hash
      * maps. This did not garantie that also embedded arrays are equal.
@@ -365,6 +386,12 @@ public class ItemCollection implements Cloneable {
      * If the item does not exist or has no values, the method returns an empty
      * List.
      * <p>
+     * In case of a copy-on-write instance the method returns a view of the shared
+     * value list. On the first modification of the returned list the items are
+     * copied into this instance and the modification is applied to the copied
+     * value list, so it is visible to the following calls of getItemValue. Values
+     * contained in the list must not be modified in place.
+     * <p>
      * The ItemName is not case sensitive. Use hasItem to verify the existence of an
      * item.
      * 
@@ -376,7 +403,18 @@ public class ItemCollection implements Cloneable {
         if (itemName == null) {
             return null;
         }
-        itemName = itemName.toLowerCase().trim();
+        itemName = ItemMap.normalize(itemName);
+        if (copyOnWrite) {
+            List<?> o = readItemValue(itemName);
+            if (o.isEmpty() && !hash.containsKey(itemName)) {
+                return new ArrayList<>();
+            }
+            if (o.contains(null)) {
+                return copyOfItemValue(itemName, o);
+            }
+            // do not expose the shared value list
+            return new CopyOnChangeList(itemName, o);
+        }
         List<?> o = hash.get(itemName);
         if (o == null)
             return new ArrayList<>();
@@ -408,32 +446,32 @@ public class ItemCollection implements Cloneable {
      */
     @SuppressWarnings("unchecked")
     public <T> T getItemValue(String itemName, Class<T> itemType) {
-        List<?> values = getItemValue(itemName);
-        if (values == null || values.size() == 0) {
+        Object value = readFirstValue(itemName);
+        if (value == null) {
 
             // test for Integer
             if (itemType == Integer.class || itemType == int.class) {
-                return (T) new Integer(0);
+                return (T) Integer.valueOf(0);
             }
             // test for Float
             if (itemType == Float.class || itemType == float.class) {
-                return (T) new Float(0);
+                return (T) Float.valueOf(0);
             }
 
             // test for Long
             if (itemType == Long.class || itemType == long.class) {
-                return (T) new Long(0);
+                return (T) Long.valueOf(0);
             }
 
             // test for Double
             if (itemType == Double.class || itemType == double.class) {
-                return (T) new Double(0);
+                return (T) Double.valueOf(0);
             }
 
             return null;
         }
         // find first value of specified type
-        return convertValue(values.get(0), itemType);
+        return convertValue(value, itemType);
     }
 
     /**
@@ -469,7 +507,8 @@ public class ItemCollection implements Cloneable {
      */
     public void removeItem(String name) {
         if (name != null) {
-            name = name.toLowerCase().trim();
+            name = ItemMap.normalize(name);
+            copyOnWriteItems();
             this.hash.remove(name);
         }
     }
@@ -486,8 +525,7 @@ public class ItemCollection implements Cloneable {
         if (aName == null) {
             return false;
         }
-        aName = aName.toLowerCase().trim();
-        return (hash.get(aName) != null);
+        return hash.containsKey(ItemMap.normalize(aName));
     }
 
     /**
@@ -498,8 +536,8 @@ public class ItemCollection implements Cloneable {
      * @return - true if no value is assigned.
      */
     public boolean isItemEmpty(String itemName) {
-        if (!hasItem(itemName) || getItemValue(itemName).size() == 0
-                || (getItemValue(itemName).size() == 1 && getItemValueString(itemName).isEmpty())) {
+        if (!hasItem(itemName) || readItemValue(itemName).size() == 0
+                || (readItemValue(itemName).size() == 1 && getItemValueString(itemName).isEmpty())) {
             return true;
         }
         return false;
@@ -514,7 +552,7 @@ public class ItemCollection implements Cloneable {
      * 
      */
     public boolean isItemValueInteger(String aName) {
-        List<?> v = getItemValue(aName);
+        List<?> v = readItemValue(aName);
         if (v.size() == 0)
             return false;
         else {
@@ -533,7 +571,7 @@ public class ItemCollection implements Cloneable {
      * 
      */
     public boolean isItemValueLong(String aName) {
-        List<?> v = getItemValue(aName);
+        List<?> v = readItemValue(aName);
         if (v.size() == 0)
             return false;
         else {
@@ -552,7 +590,7 @@ public class ItemCollection implements Cloneable {
      * 
      */
     public boolean isItemValueDouble(String aName) {
-        List<?> v = getItemValue(aName);
+        List<?> v = readItemValue(aName);
         if (v.size() == 0)
             return false;
         else {
@@ -571,7 +609,7 @@ public class ItemCollection implements Cloneable {
      * 
      */
     public boolean isItemValueFloat(String aName) {
-        List<?> v = getItemValue(aName);
+        List<?> v = readItemValue(aName);
         if (v.size() == 0)
             return false;
         else {
@@ -589,7 +627,7 @@ public class ItemCollection implements Cloneable {
      * @return
      */
     public boolean isItemValueNumeric(String aName) {
-        List<?> v = getItemValue(aName);
+        List<?> v = readItemValue(aName);
         if (v.size() == 0)
             return false;
         else {
@@ -607,7 +645,7 @@ public class ItemCollection implements Cloneable {
      * 
      */
     public boolean isItemValueDate(String aName) {
-        List<?> v = getItemValue(aName);
+        List<?> v = readItemValue(aName);
         if (v.size() == 0)
             return false;
         else {
@@ -623,6 +661,7 @@ public class ItemCollection implements Cloneable {
      * @return Map with all Items
      */
     public Map<String, List<Object>> getAllItems() {
+        copyOnWriteItems();
         return hash;
 
     }
@@ -635,6 +674,7 @@ public class ItemCollection implements Cloneable {
      */
     public void setAllItems(Map<String, List<Object>> aHash) {
         hash = aHash;
+        copyOnWrite = false;
 
     }
 
@@ -691,19 +731,11 @@ public class ItemCollection implements Cloneable {
      * 
      */
     public String getItemValueString(String itemName) {
-        List<?> v = (List<?>) getItemValue(itemName);
-        if (v.size() == 0) {
+        Object o = readFirstValue(itemName);
+        if (o == null) {
             return "";
-        } else {
-            // verify if value is null
-            Object o = v.get(0);
-            if (o == null) {
-                return "";
-            } else {
-                return o.toString();
-            }
         }
-
+        return o.toString();
     }
 
     /**
@@ -719,18 +751,23 @@ public class ItemCollection implements Cloneable {
      * @return the integer value of the item
      */
     public int getItemValueInteger(String itemName) {
-        try {
-            List<?> v = getItemValue(itemName);
-            if (v.size() == 0) {
-                return 0;
-            }
-            String sValue = v.get(0).toString();
-            return new Double(sValue).intValue();
-        } catch (NumberFormatException e) {
-            return 0;
-        } catch (ClassCastException e) {
-            return 0;
-        }
+        return getItemValueInteger(itemName, 0);
+    }
+
+    /**
+     * Returns the resolved Integer value of the specified item. If the item has no
+     * value or the value is not convertible to an Integer, the method returns the
+     * given default value. If the item has multiple values, this method returns
+     * the first value.
+     * <p>
+     * Number values are converted without parsing. Only String values are parsed.
+     * 
+     * @param itemName     The name of an item.
+     * @param defaultValue The value returned if the item has no integer value.
+     * @return the integer value of the item
+     */
+    public int getItemValueInteger(String itemName, int defaultValue) {
+        return toInt(readFirstValue(itemName), defaultValue);
     }
 
     /**
@@ -746,18 +783,23 @@ public class ItemCollection implements Cloneable {
      * @return the Long value of the item
      */
     public long getItemValueLong(String itemName) {
-        try {
-            List<?> v = getItemValue(itemName);
-            if (v.size() == 0) {
-                return 0;
-            }
-            String sValue = v.get(0).toString();
-            return new Long(sValue).longValue();
-        } catch (NumberFormatException e) {
-            return 0;
-        } catch (ClassCastException e) {
-            return 0;
-        }
+        return getItemValueLong(itemName, 0);
+    }
+
+    /**
+     * Returns the resolved Long value of the specified item. If the item has no
+     * value or the value is not convertible to a Long, the method returns the
+     * given default value. If the item has multiple values, this method returns
+     * the first value.
+     * <p>
+     * Integral number values are converted without parsing.
+     * 
+     * @param itemName     The name of an item.
+     * @param defaultValue The value returned if the item has no long value.
+     * @return the Long value of the item
+     */
+    public long getItemValueLong(String itemName, long defaultValue) {
+        return toLong(readFirstValue(itemName), defaultValue);
     }
 
     /**
@@ -772,19 +814,11 @@ public class ItemCollection implements Cloneable {
      * @return the Date value of the item
      */
     public Date getItemValueDate(String aName) {
-        try {
-            List<?> v = getItemValue(aName);
-            if (v.size() == 0) {
-                return null;
-            }
-            Object o = v.get(0);
-            if (!(o instanceof Date)) {
-                return null;
-            }
-            return (Date) o;
-        } catch (ClassCastException e) {
+        Object o = readFirstValue(aName);
+        if (!(o instanceof Date)) {
             return null;
         }
+        return (Date) o;
     }
 
     /**
@@ -856,34 +890,32 @@ public class ItemCollection implements Cloneable {
      * @return the double value of the item
      */
     public double getItemValueDouble(String itemName) {
-        try {
-            List<?> v = getItemValue(itemName);
-            if (v.size() == 0)
-                return 0.0;
-            else {
-                // test for object type...
-                Object o = v.get(0);
-                if (o instanceof Double)
-                    return (Double) o;
-
-                if (o instanceof Float)
-                    return (Float) o;
-
-                if (o instanceof Long)
-                    return (Long) o;
-
-                if (o instanceof Integer)
-                    return (Integer) o;
+        return getItemValueDouble(itemName, 0.0);
+    }
 
-                // try to parse string.....
-                try {
-                    return Double.valueOf(v.get(0).toString());
-                } catch (ClassCastException | NumberFormatException e) {
-                    return 0.0;
-                }
-            }
-        } catch (ClassCastException e) {
-            return 0.0;
+    /**
+     * Returns the resolved Double value of the specified item. If the item has no
+     * value or the value is not convertible to a Double, the method returns the
+     * given default value. If the item has multiple values, this method returns
+     * the first value.
+     * 
+     * @param itemName     The name of an item.
+     * @param defaultValue The value returned if the item has no double value.
+     * @return the double value of the item
+     */
+    public double getItemValueDouble(String itemName, double defaultValue) {
+        Object o = readFirstValue(itemName);
+        if (o == null) {
+            return defaultValue;
+        }
+        if (o instanceof Number) {
+            return ((Number) o).doubleValue();
+        }
+        // try to parse string.....
+        try {
+            return Double.parseDouble(o.toString());
+        } catch (NumberFormatException e) {
+            return defaultValue;
         }
     }
 
@@ -900,37 +932,17 @@ public class ItemCollection implements Cloneable {
      * @return the float value of the item
      */
     public float getItemValueFloat(String itemName) {
+        Object o = readFirstValue(itemName);
+        if (o == null) {
+            return (float) 0.0;
+        }
+        if (o instanceof Number) {
+            return ((Number) o).floatValue();
+        }
+        // try to parse string.....
         try {
-            List<?> v = getItemValue(itemName);
-            if (v.size() == 0)
-                return (float) 0.0;
-            else {
-                // test for object type...
-                Object o = v.get(0);
-
-                if (o instanceof Float)
-                    return (Float) o;
-
-                if (o instanceof Double) {
-                    Double d = (Double) o;
-                    return (float) d.doubleValue();
-                }
-
-                if (o instanceof Long)
-                    return (Long) o;
-
-                if (o instanceof Integer)
-                    return (Integer) o;
-
-                // try to parse string.....
-                try {
-                    return Float.valueOf(v.get(0).toString());
-                } catch (ClassCastException | NumberFormatException e) {
-                    return (float) 0.0;
-                }
-
-            }
-        } catch (ClassCastException e) {
+            return Float.parseFloat(o.toString());
+        } catch (NumberFormatException e) {
             return (float) 0.0;
         }
     }
@@ -948,23 +960,34 @@ public class ItemCollection implements Cloneable {
      * @return the boolean value of the item
      */
     public boolean getItemValueBoolean(String itemName) {
-        try {
-            List<?> v = getItemValue(itemName);
-            if (v.size() == 0) {
-                return false;
-            }
-            Object sValue = v.get(0);
-            return Boolean.valueOf(sValue.toString());
-        } catch (ClassCastException e) {
-            return false;
+        return getItemValueBoolean(itemName, false);
+    }
+
+    /**
+     * Returns the resolved Boolean value of the specified item. If the item has no
+     * value, the method returns the given default value. If the item has multiple
+     * values, this method returns the first value.
+     * 
+     * @param itemName     The name of an item.
+     * @param defaultValue The value returned if the item has no value.
+     * @return the boolean value of the item
+     */
+    public boolean getItemValueBoolean(String itemName, boolean defaultValue) {
+        Object o = readFirstValue(itemName);
+        if (o == null) {
+            return defaultValue;
         }
+        if (o instanceof Boolean) {
+            return (Boolean) o;
+        }
+        return Boolean.parseBoolean(o.toString());
     }
 
     /**
      * Replaces all items specified in the map with new items, which are assigned to
      * the specified values inside the map.
      * 
-     * The method makes a deep copy of the source map using serialization. This is
+     * The method makes a deep copy of the source map. This is
      * to make sure, that no object reference is copied. Other wise for example
      * embedded arrays are not cloned. This is also important for JPA to avoid
      * changes of attached entity beans with references in the data of an
@@ -992,7 +1015,7 @@ public class ItemCollection implements Cloneable {
     /**
      * Copies all items of a source ItemCollection.
      * <p>
-     * The method makes a deep copy of the source map using serialization. This is
+     * The method makes a deep copy of the source map. This is
      * to make sure, that no object reference is copied. Other wise for example
      * embedded arrays are not cloned. This is also important for JPA to avoid
      * changes of attached entity beans with references in the data of an
@@ -1010,7 +1033,7 @@ public class ItemCollection implements Cloneable {
      * be copied if the current instance does not have an item with the same name.
      * If you want to copy all item values, use the method replaceAllItems instead.
      * <p>
-     * The method makes a deep copy of the source map using serialization. This is
+     * The method makes a deep copy of the source map. This is
      * to make sure, that no object reference is copied. Other wise for example
      * embedded arrays are not cloned. This is also important for JPA to avoid
      * changes of attached entity beans with references in the data of an
@@ -1533,6 +1556,185 @@ public class ItemCollection implements Cloneable {
         setEventID(activityID);
     }
 
+    /**
+     * Returns the value list of an item for read-only access. In different to the
+     * public method getItemValue the method does not copy the value list of a
+     * copy-on-write instance. The returned list must not be modified or exposed.
+     * 
+     * @param itemName
+     * @return value list or an empty list if the item does not exist
+     */
+    private List<?> readItemValue(String itemName) {
+        if (itemName == null) {
+            return null;
+        }
+        Object o = readItem(ItemMap.normalize(itemName));
+        if (o == null) {
+            return Collections.emptyList();
+        }
+        if (!(o instanceof List)) {
+            // single value slot
+            return Collections.singletonList(o);
+        }
+        List<?> list = (List<?>) o;
+        if (!copyOnWrite) {
+            // remove null values
+            list.removeAll(Collections.singleton(null));
+        }
+        return list;
+    }
+
+    /**
+     * Returns the first value of an item without creating a value list. Null
+     * values are skipped. The method returns null if the item has no value.
+     * 
+     * @param itemName
+     * @return first value or null
+     */
+    private Object readFirstValue(String itemName) {
+        if (itemName == null) {
+            return null;
+        }
+        Object o = readItem(ItemMap.normalize(itemName));
+        if (!(o instanceof List)) {
+            // single value slot
+            return o;
+        }
+        List<?> list = (List<?>) o;
+        for (int i = 0; i < list.size(); i++) {
+            Object value = list.get(i);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the stored value of an item. In case of an ItemMap or a LazyItemMap a
+     * single value is not converted into a value list. So the result is either a
+     * List, a single value or null if the item does not exist.
+     * 
+     * @param itemName - normalized item name
+     * @return List, single value or null
+     */
+    private Object readItem(String itemName) {
+        if (hash instanceof ItemMap) {
+            return ((ItemMap) hash).peekItemValue(itemName);
+        }
+        if (hash instanceof LazyItemMap) {
+            return ((LazyItemMap) hash).peekItemValue(itemName);
+        }
+        return hash.get(itemName);
+    }
+
+    /**
+     * Makes a deep copy of a single value list of a copy-on-write instance. If the
+     * values can not be copied the method copies the complete item map.
+     * 
+     * @param itemName
+     * @param values   - shared value list
+     * @return copy of the value list
+     */
+    @SuppressWarnings("rawtypes")
+    private List copyOfItemValue(String itemName, List<?> values) {
+        try {
+            List copy = (List) ItemValueCopier.deepCopy(values);
+            copy.removeAll(Collections.singleton(null));
+            return copy;
+        } catch (IOException | ClassNotFoundException e) {
+            logger.log(Level.WARNING, "Unable to clone values of Item ''{0}'' - {1}", new Object[] { itemName, e });
+            copyOnWriteItems();
+            return getItemValue(itemName);
+        }
+    }
+
+    /**
+     * A value list of a copy-on-write instance. The list reads from the shared
+     * value list. On the first modification the items of the instance are copied
+     * and the list writes to the value list of the copied item. So the shared
+     * value list is never changed by a client.
+     */
+    @SuppressWarnings("rawtypes")
+    private class CopyOnChangeList extends AbstractList<Object> {
+        private final String itemName;
+        private List<?> values;
+        private List copy = null;
+
+        CopyOnChangeList(String itemName, List<?> values) {
+            this.itemName = itemName;
+            this.values = values;
+        }
+
+        @Override
+        public Object get(int index) {
+            return values.get(index);
+        }
+
+        @Override
+        public int size() {
+            return values.size();
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Object set(int index, Object element) {
+            Object value = values.get(index);
+            if (copy == null && value != null && value.equals(element) && value.getClass() == element.getClass()) {
+                // unchanged value - e.g. getItemValueList with the value type
+                return value;
+            }
+            return changeableValues().set(index, element);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void add(int index, Object element) {
+            changeableValues().add(index, element);
+            modCount++;
+        }
+
+        @Override
+        public Object remove(int index) {
+            Object result = changeableValues().remove(index);
+            modCount++;
+            return result;
+        }
+
+        @SuppressWarnings("unchecked")
+        private List changeableValues() {
+            if (copy == null) {
+                copyOnWriteItems();
+                List current = hash.get(itemName);
+                if (current == null || current == values) {
+                    // item was removed or the values could not be copied
+                    current = new ArrayList<>(copyOfItemValue(itemName, values));
+                    hash.put(itemName, current);
+                }
+                copy = current;
+                values = copy;
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * Copies the shared item map of a copy-on-write instance. The method is called
+     * before the first modification of the item map.
+     */
+    @SuppressWarnings("unchecked")
+    private void copyOnWriteItems() {
+        if (copyOnWrite) {
+            Map<String, List<Object>> copy = (Map<String, List<Object>>) deepCopyOfMap(hash);
+            if (copy == null) {
+                copy = new ItemMap(hash.size());
+                copy.putAll(hash);
+            }
+            hash = copy;
+            copyOnWrite = false;
+        }
+    }
+
     /**
      * This method converts the raw java types String, int, long, float and double.
      * 
@@ -1557,37 +1759,81 @@ public class ItemCollection implements Cloneable {
 
         // test Integer/int
         if (type == Integer.class || type == int.class) {
-            try {
-                if (value == null) {
-                    // return 0 if not present
-                    return (T) Integer.valueOf(0);
-                }
-                int intvalue = new Double(value.toString()).intValue();
-                return (T) Integer.valueOf(intvalue);
-            } catch (NumberFormatException e) {
-                return (T) Integer.valueOf(0);
-            } catch (ClassCastException e) {
-                return (T) Integer.valueOf(0);
-            }
+            return (T) Integer.valueOf(toInt(value, 0));
         }
 
         // test Long/long
         if (type == Long.class || type == long.class) {
-            try {
-                if (value == null) {
-                    // return 0 if not present
-                    return (T) Long.valueOf(0);
+            return (T) Long.valueOf(toLong(value, 0));
+        }
+
+        return null;
+    }
+
+    /**
+     * Converts a value into an int. Integer values are returned directly, other
+     * Number values are converted like a double value. Only String values are
+     * parsed.
+     * 
+     * @param value        - value, can be null
+     * @param defaultValue - returned if the value is not convertible
+     * @return int value
+     */
+    private static int toInt(Object value, int defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).intValue();
+        }
+        if (value instanceof Number) {
+            return (int) ((Number) value).doubleValue();
+        }
+        String s = value.toString();
+        // fast path for plain digit strings
+        int length = s.length();
+        int start = (length > 1 && s.charAt(0) == '-') ? 1 : 0;
+        if (length > start && length - start <= 9) {
+            int result = 0;
+            int i = start;
+            for (; i < length; i++) {
+                char c = s.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
                 }
-                long longvalue = new Long(value.toString()).longValue();
-                return (T) Long.valueOf(longvalue);
-            } catch (NumberFormatException e) {
-                return (T) Long.valueOf(0);
-            } catch (ClassCastException e) {
-                return (T) Long.valueOf(0);
+                result = result * 10 + (c - '0');
+            }
+            if (i == length) {
+                return start == 0 ? result : -result;
             }
         }
+        try {
+            return (int) Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
 
-        return null;
+    /**
+     * Converts a value into a long. Integral Number values are returned directly.
+     * All other values are parsed.
+     * 
+     * @param value        - value, can be null
+     * @param defaultValue - returned if the value is not convertible
+     * @return long value
+     */
+    private static long toLong(Object value, long defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        try {
+            return Long.parseLong(value.toString());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
     }
 
     /**
@@ -1600,11 +1846,13 @@ public class ItemCollection implements Cloneable {
     @SuppressWarnings({ "unchecked", "rawtypes" })
     private void setItemValue(String itemName, Object itemValue, boolean append, boolean unique) {
         List<Object> itemValueList = null;
+        boolean singleValue = false;
 
         if (itemName == null)
             return;
         // lower case itemname
-        itemName = itemName.toLowerCase().trim();
+        itemName = ItemMap.normalize(itemName);
+        copyOnWriteItems();
 
         // test if value is null
         if (itemValue == null) {
@@ -1653,8 +1901,9 @@ public class ItemCollection implements Cloneable {
             }
         } else {
             // create an instance of an ArrayList
-            itemValueList = new ArrayList<Object>();
+            itemValueList = new ArrayList<Object>(1);
             itemValueList.add(itemValue);
+            singleValue = true;
         }
 
         // now we can be sure the itemValue is an instance of List
@@ -1703,6 +1952,9 @@ public class ItemCollection implements Cloneable {
                     uniqueItemValueList.add(entry);
                 }
                 hash.put(itemName, (List<Object>) uniqueItemValueList);
+            } else if (singleValue && hash instanceof ItemMap) {
+                // store a single value without a value list
+                ((ItemMap) hash).putSingleValue(itemName, itemValueList.get(0));
             } else {
                 hash.put(itemName, itemValueList);
             }
@@ -1829,26 +2081,17 @@ public class ItemCollection implements Cloneable {
     }
 
     /**
-     * This helper method makes a deep copy of a map by serializing and
+     * This helper method makes a deep copy of a map. Known item value types are
+     * copied structurally. Only unknown object types are copied by serializing and
      * deserializing.
      * 
-     * It is assumed that all elements in the object's source graph are
-     * serializable.
-     * 
-     * @see http://www.javaworld.com/article/2077578/learn-java/java-tip-76--an-alternative-to-the-deep-copy-technique.html
+     * @see ItemValueCopier
      * @param map
      * @return
      */
     private Object deepCopyOfMap(Map<String, List<Object>> map) {
         try {
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            ObjectOutputStream oos = new ObjectOutputStream(bos);
-            // serialize and pass the object
-            oos.writeObject(map);
-            oos.flush();
-            ByteArrayInputStream bais = new ByteArrayInputStream(bos.toByteArray());
-            ObjectInputStream ois = new ObjectInputStream(bais);
-            return ois.readObject();
+            return ItemValueCopier.deepCopy(map);
         } catch (IOException e) {
             logger.log(Level.WARNING, "Unable to clone values of ItemCollection - {0}", e);
             return null;
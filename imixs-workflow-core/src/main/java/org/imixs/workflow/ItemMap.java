@@ -0,0 +1,675 @@
+/*
+ *  Imixs-Workflow
+ *
+ *  Copyright (C) 2001-2020 Imixs Software Solutions GmbH,
+ *  http://www.imixs.com
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 2
+ *  of the License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You can receive a copy of the GNU General Public
+ *  License at http://www.gnu.org/licenses/gpl.html
+ *
+ *  Project:
+ *      https://www.imixs.org
+ *      https://github.com/imixs/imixs-workflow
+ *
+ *  Contributors:
+ *      Imixs Software Solutions GmbH - Project Management
+ *      Ralph Soika - Software Developer
+ */
+
+package org.imixs.workflow;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The ItemMap is the internal storage layout of an {@link ItemCollection}.
+ * <p>
+ * The ItemMap is a non-synchronized open-addressing hash map. Item names are
+ * stored as canonical lower case String instances, so that many ItemCollections
+ * with the same item names share the same name objects. An item holding only a
+ * single value is stored without a value list. The value list is created only
+ * if a client modifies the list returned by the Map interface. Reading an item
+ * never changes the map.
+ * <p>
+ * The ItemMap implements the Map interface so it can still be used by the
+ * methods {@code getAllItems()} and {@code createByReference()}. An ItemMap is
+ * serialized as a {@code java.util.Hashtable}.
+ * <p>
+ * Note: The ItemMap does not support null keys or null values.
+ *
+ * @author rsoika
+ * @see ItemCollection
+ */
+public class ItemMap extends AbstractMap<String, List<Object>> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // max number of canonical item names
+    private static final int MAX_CANONICAL_NAMES = 10000;
+    private static final Map<String, String> canonicalNames = new ConcurrentHashMap<>();
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private String[] keys;
+    // holds either a List or a single value
+    private Object[] values;
+    private int size;
+
+    /**
+     * Creates a new empty ItemMap
+     */
+    public ItemMap() {
+        this(DEFAULT_CAPACITY / 2);
+    }
+
+    /**
+     * Creates a new empty ItemMap for the expected number of items
+     *
+     * @param expectedSize - expected number of items
+     */
+    public ItemMap(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        keys = new String[capacity];
+        values = new Object[capacity];
+    }
+
+    /**
+     * Returns the normalized item name. All item names are lower cased and
+     * trimmed. If the name is already normalized the method returns the given
+     * instance.
+     *
+     * @param name - item name
+     * @return normalized item name
+     */
+    public static String normalize(String name) {
+        if (name == null) {
+            return null;
+        }
+        int length = name.length();
+        if (length > 0 && name.charAt(0) > ' ' && name.charAt(length - 1) > ' ') {
+            boolean normalized = true;
+            for (int i = 0; i < length; i++) {
+                char c = name.charAt(i);
+                if (c >= 128 || (c >= 'A' && c <= 'Z')) {
+                    normalized = false;
+                    break;
+                }
+            }
+            if (normalized) {
+                return name;
+            }
+        }
+        return name.toLowerCase().trim();
+    }
+
+    /**
+     * Returns the stored value of an item without converting a single value into
+     * a value list. The result is either a List, a single value object or null if
+     * the item does not exist.
+     *
+     * @param key - normalized item name
+     * @return List, single value or null
+     */
+    public Object peekItemValue(String key) {
+        int i = indexOf(key);
+        return i < 0 ? null : values[i];
+    }
+
+    /**
+     * Stores a single item value without creating a value list.
+     *
+     * @param key   - normalized item name
+     * @param value - single value
+     */
+    public void putSingleValue(String key, Object value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        if (value instanceof List) {
+            // a List value always needs a value list
+            List<Object> list = new ArrayList<>(1);
+            list.add(value);
+            store(key, list);
+        } else {
+            store(key, value);
+        }
+    }
+
+    /**
+     * Returns the value list of an item. A single value is converted into a value
+     * list.
+     */
+    @Override
+    public List<Object> get(Object key) {
+        int i = indexOf(key);
+        return i < 0 ? null : listAt(i);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public List<Object> put(String key, List<Object> value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        return asList(store(key, value));
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ? extends List<Object>> map) {
+        if (map instanceof ItemMap) {
+            ItemMap source = (ItemMap) map;
+            for (int i = 0; i < source.keys.length; i++) {
+                if (source.keys[i] != null) {
+                    store(source.keys[i], source.values[i]);
+                }
+            }
+        } else {
+            super.putAll(map);
+        }
+    }
+
+    @Override
+    public List<Object> remove(Object key) {
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        Object old = values[i];
+        deleteSlot(i);
+        return asList(old);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = null;
+            values[i] = null;
+        }
+        size = 0;
+    }
+
+    @Override
+    public Set<Entry<String, List<Object>>> entrySet() {
+        return new EntrySet();
+    }
+
+    /**
+     * Compares the items without converting single values into value lists.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof Map)) {
+            return false;
+        }
+        Map<?, ?> other = (Map<?, ?>) o;
+        if (other.size() != size) {
+            return false;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                Object otherValue = (other instanceof ItemMap) ? ((ItemMap) other).peekItemValue(keys[i])
+                        : other.get(keys[i]);
+                if (otherValue == null || !asReadOnlyList(values[i]).equals(asReadOnlyList(otherValue))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                h += keys[i].hashCode() ^ asReadOnlyList(values[i]).hashCode();
+            }
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                if (sb.length() > 1) {
+                    sb.append(", ");
+                }
+                sb.append(keys[i]).append('=').append(asReadOnlyList(values[i]));
+            }
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * An ItemMap is serialized as a Hashtable.
+     */
+    private Object writeReplace() throws ObjectStreamException {
+        Hashtable<String, List<Object>> result = new Hashtable<>(Math.max(11, size * 2));
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                result.put(keys[i], asList(values[i]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the canonical instance of an item name.
+     */
+    private static String canonicalName(String key) {
+        String canonical = canonicalNames.get(key);
+        if (canonical != null) {
+            return canonical;
+        }
+        if (canonicalNames.size() < MAX_CANONICAL_NAMES) {
+            canonical = canonicalNames.putIfAbsent(key, key);
+            return canonical != null ? canonical : key;
+        }
+        return key;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private int indexOf(Object key) {
+        if (key == null) {
+            return -1;
+        }
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        String k;
+        while ((k = keys[i]) != null) {
+            if (k == key || k.equals(key)) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Stores a List or a single value and returns the previous value.
+     */
+    private Object store(String key, Object value) {
+        if (key == null) {
+            throw new NullPointerException();
+        }
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        String k;
+        while ((k = keys[i]) != null) {
+            if (k == key || k.equals(key)) {
+                Object old = values[i];
+                values[i] = value;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = canonicalName(key);
+        values[i] = value;
+        size++;
+        // keep the load factor below 0.5
+        if (size * 2 > keys.length) {
+            resize(keys.length << 1);
+        }
+        return null;
+    }
+
+    private void resize(int capacity) {
+        String[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new String[capacity];
+        values = new Object[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != null) {
+                int i = hash(oldKeys[j]) & mask;
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * Removes a slot and shifts following entries of the same probe sequence
+     * backwards so that no tombstones are needed.
+     */
+    private void deleteSlot(int i) {
+        int mask = keys.length - 1;
+        keys[i] = null;
+        values[i] = null;
+        size--;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            String k = keys[j];
+            if (k == null) {
+                return;
+            }
+            int home = hash(k) & mask;
+            // move the entry if its home slot is not within (i, j]
+            if ((j > i && (home <= i || home > j)) || (j < i && (home <= i && home > j))) {
+                keys[i] = k;
+                values[i] = values[j];
+                keys[j] = null;
+                values[j] = null;
+                i = j;
+            }
+        }
+    }
+
+    /**
+     * Returns the value list of a slot. A single value is wrapped into a
+     * {@link SingleValueList}, so a read never changes the slot.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Object> listAt(int i) {
+        Object value = values[i];
+        if (value instanceof List) {
+            return (List<Object>) value;
+        }
+        return new SingleValueList(keys[i], value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> asList(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof List) {
+            return (List<Object>) value;
+        }
+        List<Object> list = new ArrayList<>(1);
+        list.add(value);
+        return list;
+    }
+
+    private static List<?> asReadOnlyList(Object value) {
+        if (value instanceof List) {
+            return (List<?>) value;
+        }
+        return Collections.singletonList(value);
+    }
+
+    /**
+     * The EntrySet iterates over a snapshot of the item names. The value list of
+     * an entry is resolved on demand.
+     */
+    private class EntrySet extends AbstractSet<Entry<String, List<Object>>> {
+
+        @Override
+        public Iterator<Entry<String, List<Object>>> iterator() {
+            final String[] snapshot = new String[size];
+            int n = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != null) {
+                    snapshot[n++] = keys[i];
+                }
+            }
+            return new Iterator<Entry<String, List<Object>>>() {
+                private int next = 0;
+                private String current = null;
+
+                @Override
+                public boolean hasNext() {
+                    return next < snapshot.length;
+                }
+
+                @Override
+                public Entry<String, List<Object>> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    current = snapshot[next++];
+                    return new ItemEntry(current);
+                }
+
+                @Override
+                public void remove() {
+                    if (current == null) {
+                        throw new IllegalStateException();
+                    }
+                    ItemMap.this.remove(current);
+                    current = null;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            Object value = peekItemValue((String) e.getKey());
+            return value != null && asReadOnlyList(value).equals(e.getValue());
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (contains(o)) {
+                ItemMap.this.remove(((Entry<?, ?>) o).getKey());
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void clear() {
+            ItemMap.this.clear();
+        }
+    }
+
+    /**
+     * Value list of a single value slot. The list is stored into the slot only on
+     * the first modification, so that concurrent reads of a shared ItemMap have no
+     * side effects. All views of the same single value use the list stored by the
+     * first modification, so no modification is lost.
+     */
+    private class SingleValueList extends AbstractList<Object> implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final String key;
+        private final Object value;
+        private List<Object> list = null;
+
+        SingleValueList(String key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public Object get(int index) {
+            List<Object> values = convertedList();
+            if (values != null) {
+                return values.get(index);
+            }
+            if (index != 0) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: 1");
+            }
+            return value;
+        }
+
+        @Override
+        public int size() {
+            List<Object> values = convertedList();
+            return values != null ? values.size() : 1;
+        }
+
+        @Override
+        public Object set(int index, Object element) {
+            return modifiableList().set(index, element);
+        }
+
+        @Override
+        public void add(int index, Object element) {
+            modifiableList().add(index, element);
+            modCount++;
+        }
+
+        @Override
+        public Object remove(int index) {
+            Object result = modifiableList().remove(index);
+            modCount++;
+            return result;
+        }
+
+        /**
+         * Returns the list stored into the slot by the modification of a view of
+         * this single value or null if the slot was not converted.
+         */
+        private List<Object> convertedList() {
+            if (list == null) {
+                int i = ItemMap.this.indexOf(key);
+                if (i >= 0 && values[i] instanceof ConvertedList && ((ConvertedList) values[i]).value == value) {
+                    list = (ConvertedList) values[i];
+                }
+            }
+            return list;
+        }
+
+        private List<Object> modifiableList() {
+            if (convertedList() == null) {
+                ConvertedList convertedList = new ConvertedList(value);
+                // replace the single value only if the slot was not changed
+                int i = ItemMap.this.indexOf(key);
+                if (i >= 0 && values[i] == value) {
+                    values[i] = convertedList;
+                }
+                list = convertedList;
+            }
+            return list;
+        }
+
+        /**
+         * A SingleValueList is serialized as an ArrayList.
+         */
+        private Object writeReplace() throws ObjectStreamException {
+            return new ArrayList<>(this);
+        }
+    }
+
+    /**
+     * Value list stored into a single value slot by a {@link SingleValueList}.
+     * The list keeps the former single value to be found by other views of the
+     * same value.
+     */
+    private static class ConvertedList extends ArrayList<Object> {
+        private static final long serialVersionUID = 1L;
+        private final transient Object value;
+
+        ConvertedList(Object value) {
+            super(2);
+            this.value = value;
+            add(value);
+        }
+
+        /**
+         * A ConvertedList is serialized as an ArrayList.
+         */
+        private Object writeReplace() throws ObjectStreamException {
+            return new ArrayList<>(this);
+        }
+    }
+
+    /**
+     * Map entry of an item resolving the value list on demand.
+     */
+    private class ItemEntry implements Entry<String, List<Object>> {
+        private final String key;
+
+        ItemEntry(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public List<Object> getValue() {
+            return get(key);
+        }
+
+        @Override
+        public List<Object> setValue(List<Object> value) {
+            return put(key, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            Object value = peekItemValue(key);
+            return key.equals(e.getKey()) && value != null && asReadOnlyList(value).equals(e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            Object value = peekItemValue(key);
+            return key.hashCode() ^ (value == null ? 0 : asReadOnlyList(value).hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + asReadOnlyList(peekItemValue(key));
+        }
+    }
+
+}
@@ -0,0 +1,283 @@
+/*
+ *  Imixs-Workflow
+ *
+ *  Copyright (C) 2001-2020 Imixs Software Solutions GmbH,
+ *  http://www.imixs.com
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 2
+ *  of the License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You can receive a copy of the GNU General Public
+ *  License at http://www.gnu.org/licenses/gpl.html
+ *
+ *  Project:
+ *      https://www.imixs.org
+ *      https://github.com/imixs/imixs-workflow
+ *
+ *  Contributors:
+ *      Imixs Software Solutions GmbH - Project Management
+ *      Ralph Soika - Software Developer
+ */
+
+package org.imixs.workflow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * An ItemProjection defines a subset of items to be copied from one
+ * ItemCollection into another. The projection is compiled once from a list of
+ * item patterns and can be reused for any number of ItemCollections. An
+ * ItemProjection is immutable and thread-safe.
+ * <p>
+ * An item pattern can be an exact item name, a regular expression or a
+ * mapping of an item into a new item name separated by a | (e.g.
+ * {@code name|parentName}).
+ * <p>
+ * The method {@link #apply(ItemCollection)} creates a new ItemCollection
+ * containing only the matching items. Only these items are copied. The method
+ * {@link #copy(ItemCollection, ItemCollection)} copies the items into an
+ * existing ItemCollection.
+ * <p>
+ * The static method {@link #compile(String)} returns a cached projection for a
+ * comma separated item list as typically provided by the query parameter
+ * 'items' of the Rest API. The method {@link #compile(List)} returns a cached
+ * projection for a list of item patterns.
+ * 
+ * @see ItemCollection#clone(List)
+ * @author rsoika
+ */
+public final class ItemProjection {
+
+    private static final int CACHE_SIZE = 256;
+
+    // cached projections keyed by the raw item string or a copy of the item list
+    private static final Map<Object, ItemProjection> cache = Collections
+            .synchronizedMap(new LinkedHashMap<Object, ItemProjection>(64, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Object, ItemProjection> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
+    private final List<String> itemNames;
+    private final Entry[] entries;
+
+    /**
+     * Compiles a new ItemProjection from a list of item patterns.
+     * 
+     * @param itemNames - list of exact item names, regular expressions or
+     *                  mappings (name|newName)
+     */
+    public ItemProjection(List<String> itemNames) {
+        List<String> names = new ArrayList<>();
+        List<Entry> list = new ArrayList<>();
+        if (itemNames != null) {
+            for (String itemPattern : itemNames) {
+                if (itemPattern != null) {
+                    names.add(itemPattern);
+                    list.add(new Entry(itemPattern));
+                }
+            }
+        }
+        this.itemNames = Collections.unmodifiableList(names);
+        this.entries = list.toArray(new Entry[list.size()]);
+    }
+
+    /**
+     * Returns a compiled ItemProjection for a comma separated list of item
+     * patterns. The projections are cached by the given item list.
+     * <p>
+     * Example: {@code txtworkflowstatus,$taskid,txtname|name}
+     * 
+     * @param items - comma separated list of item patterns
+     * @return ItemProjection or null if no items are defined
+     */
+    public static ItemProjection compile(String items) {
+        if (items == null || items.isEmpty()) {
+            return null;
+        }
+        ItemProjection projection = cache.get(items);
+        if (projection == null) {
+            List<String> itemNames = new ArrayList<>();
+            StringTokenizer st = new StringTokenizer(items, ",");
+            while (st.hasMoreTokens()) {
+                itemNames.add(st.nextToken());
+            }
+            projection = new ItemProjection(itemNames);
+            cache.put(items, projection);
+        }
+        return projection;
+    }
+
+    /**
+     * Returns a compiled ItemProjection for a list of item patterns. The
+     * projections are cached by the content of the list, so the patterns of a
+     * list used repeatedly are compiled only once.
+     * 
+     * @param itemNames - list of exact item names, regular expressions or
+     *                  mappings (name|newName)
+     * @return ItemProjection or null if no items are defined
+     */
+    public static ItemProjection compile(List<String> itemNames) {
+        if (itemNames == null || itemNames.isEmpty()) {
+            return null;
+        }
+        List<String> key = new ArrayList<>(itemNames);
+        ItemProjection projection = cache.get(key);
+        if (projection == null) {
+            projection = new ItemProjection(key);
+            cache.put(key, projection);
+        }
+        return projection;
+    }
+
+    /**
+     * Returns the list of item patterns this projection was compiled from.
+     * 
+     * @return unmodifiable list of item patterns
+     */
+    public List<String> getItemNames() {
+        return itemNames;
+    }
+
+    /**
+     * Returns true if the projection does not define any item.
+     */
+    public boolean isEmpty() {
+        return entries.length == 0;
+    }
+
+    /**
+     * Creates a new ItemCollection with a deep copy of all items matching this
+     * projection. Items not matching the projection are not copied.
+     * <p>
+     * An item pattern is first tested as an exact item name. If no item with
+     * this name exists and the pattern defines a mapping (name|newName) the
+     * source item is copied into the new item name. Otherwise the pattern is
+     * evaluated as a regular expression against all item names of the source.
+     * This is the behavior of the method {@link ItemCollection#clone(List)}.
+     * 
+     * @param source - ItemCollection to copy the items from
+     * @return new ItemCollection
+     */
+    public ItemCollection apply(ItemCollection source) {
+        ItemCollection result = new ItemCollection();
+        for (Entry entry : entries) {
+            // first test an exact match....
+            if (source.hasItem(entry.name)) {
+                if (!result.hasItem(entry.name)) {
+                    result.copyItem(entry.name, source, entry.name);
+                }
+                continue;
+            }
+            // if we have a | char than copy the item into a new item name....
+            if (entry.targetName != null && source.hasItem(entry.sourceName)) {
+                result.copyItem(entry.targetName, source, entry.sourceName);
+                continue;
+            }
+            // finally we test if the pattern is a reg ex
+            Pattern pattern = entry.getPattern();
+            for (String itemName : source.getItemNameSet()) {
+                if (!result.hasItem(itemName) && pattern.matcher(itemName).find()) {
+                    result.copyItem(itemName, source, itemName);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Copies the items matching this projection from a source into a target
+     * ItemCollection. The values are copied by reference.
+     * <p>
+     * In different to the method {@link #apply(ItemCollection)} only item
+     * patterns enclosed in brackets are evaluated as regular expressions (e.g.
+     * {@code (^artikel$|^invoice$)}). An exact item name or mapping
+     * (name|newName) is copied even if the source does not contain the item.
+     * 
+     * @param source - ItemCollection to copy the items from
+     * @param target - ItemCollection to copy the items into
+     */
+    public void copy(ItemCollection source, ItemCollection target) {
+        for (Entry entry : entries) {
+            if (entry.regex) {
+                Pattern pattern = entry.getPattern();
+                for (String itemName : new ArrayList<>(source.getItemNameSet())) {
+                    if (pattern.matcher(itemName).find()) {
+                        target.replaceItemValue(itemName, source.getItemValue(itemName));
+                    }
+                }
+            } else if (entry.targetName != null) {
+                target.replaceItemValue(entry.targetName, source.getItemValue(entry.sourceName));
+            } else {
+                target.replaceItemValue(entry.name, source.getItemValue(entry.name));
+            }
+        }
+    }
+
+    /**
+     * A single compiled item pattern.
+     */
+    private static class Entry {
+        private final String itemPattern;
+        // normalized item name
+        private final String name;
+        // mapping name|newName
+        private final String sourceName;
+        private final String targetName;
+        // true if the pattern is enclosed in brackets
+        private final boolean regex;
+        // null if the pattern is not a valid regular expression
+        private final Pattern pattern;
+
+        Entry(String itemPattern) {
+            this.itemPattern = itemPattern;
+            String trimmed = itemPattern.trim();
+            this.name = ItemMap.normalize(itemPattern);
+            this.regex = trimmed.startsWith("(") && trimmed.endsWith(")");
+            int pos = itemPattern.indexOf('|');
+            if (pos > -1 && !regex) {
+                this.sourceName = ItemMap.normalize(itemPattern.substring(0, pos));
+                this.targetName = ItemMap.normalize(itemPattern.substring(pos + 1));
+            } else {
+                this.sourceName = null;
+                this.targetName = null;
+            }
+            Pattern p;
+            try {
+                p = Pattern.compile(regex ? trimmed : itemPattern);
+            } catch (PatternSyntaxException e) {
+                // the pattern is only evaluated if no item matches
+                p = null;
+            }
+            this.pattern = p;
+        }
+
+        /**
+         * Returns the compiled regular expression. If the pattern is not a valid
+         * regular expression the method throws a PatternSyntaxException.
+         */
+        Pattern getPattern() {
+            if (pattern == null) {
+                return Pattern.compile(itemPattern);
+            }
+            return pattern;
+        }
+    }
+}
@@ -1,13 +1,15 @@
 package org.imixs.workflow;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
@@ -43,6 +45,19 @@ import org.w3c.dom.Element;
  * corresponding model and get the Tasks and Events from the ModelManager to
  * process the workitem and assign the workitem to the next Task defined by the
  * BPMN Model.
+ * <p>
+ * A ModelManager can be shared by concurrent processing threads. The DOM of a
+ * BPMNModel is not thread-safe, even for read access. For this reason all
+ * methods navigating the model graph hold a lock per model. Conditions are
+ * evaluated outside of this lock by the RuleEngine, which uses a pooled script
+ * context per evaluation.
+ * <p>
+ * A model version can also be registered together with a {@link ModelLoader}.
+ * In this case the BPMNModel is loaded on first access of the version.
+ * <p>
+ * The number of models held in the model store can be limited by a capacity.
+ * If the capacity is exceeded, the least recently used model version which can
+ * be reloaded by its ModelLoader is evicted together with its caches.
  * 
  */
 public class ModelManager {
@@ -56,12 +71,26 @@ public class ModelManager {
     // Model store
     private final Map<String, BPMNModel> modelStore = new ConcurrentHashMap<>();
 
-    // cache
-    private final Map<String, ItemCollection> bpmnEntityCache = new ConcurrentHashMap<>();
-    private final Map<String, BPMNElement> bpmnElementCache = new ConcurrentHashMap<>();
-    private final Map<String, Set<String>> groupCache = new ConcurrentHashMap<>();
+    // compiled model and caches per model version
+    private final Map<String, ModelCache> modelCaches = new ConcurrentHashMap<>();
+
+    // model versions loaded on first access
+    private final Map<String, LazyModel> lazyModels = new ConcurrentHashMap<>();
+
+    // guards modifications of the model store, caches and registrations
+    private final Object storeLock = new Object();
+    private volatile int capacity = 0;
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong reloadCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private volatile ModelListener modelListener = null;
+
+    // DOM locks and versions per model instance
+    private final Map<BPMNModel, ReentrantLock> modelLocks = Collections.synchronizedMap(new WeakHashMap<>());
+    private final Map<BPMNModel, String> modelVersions = Collections.synchronizedMap(new WeakHashMap<>());
 
-    private RuleEngine ruleEngine = null;
+    // the RuleEngine never binds a context and can be shared by all threads
+    private final RuleEngine ruleEngine;
 
     /**
      * Private constructor to prevent instantiation
@@ -71,7 +100,9 @@ public class ModelManager {
     }
 
     /**
-     * Returns the internal ModelStore holding all BPMNModels by version.
+     * Returns the internal ModelStore holding all loaded BPMNModels by version.
+     * Model versions registered with a {@link ModelLoader} are not part of the
+     * ModelStore until they are loaded.
      * 
      * @return
      */
@@ -80,40 +111,226 @@ public class ModelManager {
     }
 
     /**
-     * Adds a new model into the local model store
+     * Returns the maximum number of model versions held in the model store. A
+     * capacity of 0 means that the model store is not limited.
+     * 
+     * @return capacity of the model store
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Limits the number of model versions held in the model store. If the
+     * capacity is exceeded, the least recently used model versions registered
+     * with a {@link ModelLoader} are evicted. A model version added without a
+     * ModelLoader is never evicted. A capacity of 0 disables the eviction.
+     * 
+     * @param capacity - maximum number of loaded model versions
+     */
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+        synchronized (storeLock) {
+            evictModels(null);
+        }
+    }
+
+    /**
+     * Returns the number of model versions loaded by a {@link ModelLoader}.
+     * 
+     * @return load count
+     */
+    public long getLoadCount() {
+        return loadCount.get();
+    }
+
+    /**
+     * Returns the number of model versions loaded again after they were evicted
+     * from the model store.
+     * 
+     * @return reload count
+     */
+    public long getReloadCount() {
+        return reloadCount.get();
+    }
+
+    /**
+     * Returns the number of model versions evicted from the model store.
+     * 
+     * @return eviction count
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Sets a ModelListener notified about the model versions loaded by a
+     * {@link ModelLoader} and evicted from the model store. A null value removes
+     * the listener.
+     * 
+     * @param modelListener
+     */
+    public void setModelListener(ModelListener modelListener) {
+        this.modelListener = modelListener;
+    }
+
+    /**
+     * Adds a new model into the local model store.
+     * <p>
+     * Before the model is added, all conditions and business rules of the model
+     * are prepared by the RuleEngine. If a script contains a syntax error the
+     * method throws a ModelException.
+     * <p>
+     * The model is compiled into a {@link CompiledModel} used to lookup tasks
+     * and events and to navigate the sequence flows during the processing life
+     * cycle.
+     * <p>
+     * The compiled model and the caches of a model version are replaced as a
+     * whole after the new model was compiled. Concurrent threads use the
+     * previous model version until then. The caches of other model versions are
+     * not affected.
+     * <p>
+     * A model added by this method is never evicted from the model store.
      */
     public void addModel(BPMNModel model) throws ModelException {
-        String version = BPMNUtil.getVersion(model);
-        modelStore.put(version, model);
-        clearCache();
+        addModel(model, null);
+    }
+
+    /**
+     * Adds a new model into the local model store. The model can be evicted from
+     * the model store if the capacity of the store is exceeded. In this case the
+     * model is reloaded by the given {@link ModelLoader} on the next access.
+     * 
+     * @param model  - the BPMNModel
+     * @param loader - ModelLoader to reload the model or null if the model can
+     *               not be evicted
+     * @throws ModelException if a script contains a syntax error
+     */
+    public void addModel(BPMNModel model, ModelLoader loader) throws ModelException {
+        String version = getVersion(model);
+        ModelCache modelCache;
+        ReentrantLock lock = lockModel(model);
+        try {
+            prepareScripts(model);
+            modelCache = new ModelCache(model, new CompiledModel(this, model, version));
+            modelCache.groups = lookupGroups(model);
+        } finally {
+            lock.unlock();
+        }
+        synchronized (storeLock) {
+            modelCaches.put(version, modelCache);
+            modelStore.put(version, model);
+            LazyModel lazyModel = lazyModels.get(version);
+            if (loader == null) {
+                lazyModels.remove(version);
+            } else if (lazyModel != null && lazyModel.loader == loader) {
+                lazyModel.groups = Set.copyOf(modelCache.groups);
+            } else {
+                lazyModels.put(version, new LazyModel(modelCache.groups, loader));
+            }
+            evictModels(version);
+        }
+    }
+
+    /**
+     * Registers a model version which is loaded by the given {@link ModelLoader}
+     * on first access. Until then the model version is only known by its version
+     * and its workflow groups.
+     * <p>
+     * If the workflow groups are unknown (null), the model is loaded to resolve
+     * the model version by a workflow group.
+     * 
+     * @param version - the model version
+     * @param groups  - the workflow groups of the model or null if unknown
+     * @param loader  - ModelLoader to load the model
+     */
+    public void addModel(String version, Set<String> groups, ModelLoader loader) {
+        synchronized (storeLock) {
+            lazyModels.put(version, new LazyModel(groups, loader));
+        }
     }
 
     /**
      * Removes a BPMNModel form the local model store
      */
     public void removeModel(String version) {
-        modelStore.remove(version);
-        clearCache();
+        BPMNModel model;
+        synchronized (storeLock) {
+            lazyModels.remove(version);
+            model = modelStore.remove(version);
+            modelCaches.remove(version);
+        }
+        if (model != null) {
+            modelVersions.remove(model);
+        }
     }
 
     /**
-     * Returns a BPMNModel by its version from the local model store
+     * Returns the CompiledModel of a BPMNModel added to the model store. The
+     * method returns null if the given model instance is not part of the model
+     * store.
+     * 
+     * @param model - a BPMNModel instance
+     * @return the CompiledModel or null
+     */
+    public CompiledModel getCompiledModel(BPMNModel model) {
+        if (model == null) {
+            return null;
+        }
+        ModelCache modelCache = modelCaches.get(getVersion(model));
+        if (modelCache != null && modelCache.model == model) {
+            return modelCache.compiledModel;
+        }
+        return null;
+    }
+
+    /**
+     * Returns a BPMNModel by its version from the local model store. A model
+     * version registered with a {@link ModelLoader} is loaded on first access and
+     * reloaded after it was evicted from the model store.
      * 
      * @param version - a bpmn model version ($modelVersion)
      * @return a BPMNModel instance.
+     * @throws ModelException if a registered model version can not be loaded
      */
     public BPMNModel getModel(String version) throws ModelException {
-        return modelStore.get(version);
+        if (version == null) {
+            return null;
+        }
+        BPMNModel model = modelStore.get(version);
+        if (model == null) {
+            LazyModel lazyModel = lazyModels.get(version);
+            if (lazyModel != null) {
+                model = loadModel(version, lazyModel);
+            }
+        } else if (capacity > 0) {
+            // track the last access for the eviction
+            ModelCache modelCache = modelCaches.get(version);
+            if (modelCache != null) {
+                modelCache.lastAccess = System.nanoTime();
+            }
+        }
+        return model;
     }
 
     /**
-     * Returns a List with all BPMNModel instances
+     * Returns a List with all BPMNModel instances. Model versions registered with
+     * a {@link ModelLoader} are loaded.
      * 
      * @return
      */
     public List<BPMNModel> getAllModels() {
         List<BPMNModel> result = new ArrayList<>();
-        result.addAll(modelStore.values());
+        for (String version : getVersions()) {
+            try {
+                BPMNModel model = getModel(version);
+                if (model != null) {
+                    result.add(model);
+                }
+            } catch (ModelException e) {
+                logger.warning(e.getMessage());
+            }
+        }
         return result;
     }
 
@@ -136,11 +353,21 @@ public class ModelManager {
      * @throws ModelException if no event was found
      */
     public ItemCollection loadDefinition(BPMNModel model) throws ModelException {
-        String key = BPMNUtil.getVersion(model);
-        ItemCollection result = (ItemCollection) bpmnEntityCache.computeIfAbsent(key, k -> lookupDefinition(model));
-        // clone instance to protect for manipulation
+        CompiledModel compiledModel = getCompiledModel(model);
+        if (compiledModel != null) {
+            return ItemCollection.createCopyOnWrite(compiledModel.getDefinition());
+        }
+        ModelCache modelCache = getModelCache(model);
+        ItemCollection result;
+        ReentrantLock lock = lockModel(model);
+        try {
+            result = modelCache.entityCache.computeIfAbsent("definition", k -> lookupDefinition(model));
+        } finally {
+            lock.unlock();
+        }
+        // return a copy-on-write instance to protect for manipulation
         if (result != null) {
-            return (ItemCollection) result.clone();
+            return ItemCollection.createCopyOnWrite(result);
         }
         return null;
     }
@@ -163,17 +390,26 @@ public class ModelManager {
      */
     public ItemCollection loadProcess(ItemCollection workitem) throws ModelException {
         BPMNModel model = findModelByWorkitem(workitem);
-        String key = BPMNUtil.getVersion(model) + "~" + workitem.getTaskID();
-        Activity task = (Activity) bpmnElementCache.computeIfAbsent(key,
-                k -> lookupTaskElementByID(model, workitem.getTaskID()));
-        BPMNProcess process = task.getBpmnProcess();
-        ItemCollection result = new ItemCollection();
-        result.setItemValue("id", process.getId());
-        if (process.hasAttribute("name")) {
-            result.setItemValue("name", process.getAttribute("name"));
+        CompiledModel compiledModel = getCompiledModel(model);
+        if (compiledModel != null && compiledModel.hasTask(workitem.getTaskID())) {
+            return ItemCollection.createCopyOnWrite(compiledModel.getProcess(workitem.getTaskID()));
         }
+        ModelCache modelCache = getModelCache(model);
+        ReentrantLock lock = lockModel(model);
+        try {
+            Activity task = (Activity) modelCache.elementCache.computeIfAbsent(String.valueOf(workitem.getTaskID()),
+                    k -> lookupTaskElementByID(model, workitem.getTaskID()));
+            BPMNProcess process = task.getBpmnProcess();
+            ItemCollection result = new ItemCollection();
+            result.setItemValue("id", process.getId());
+            if (process.hasAttribute("name")) {
+                result.setItemValue("name", process.getAttribute("name"));
+            }
 
-        return result;
+            return result;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -223,9 +459,11 @@ public class ModelManager {
         BPMNModel model = findModelByWorkitem(workitem);
         // logger.info("...loadEvent " + workitem.getTaskID() + "." +
         // workitem.getEventID());
+        CompiledModel compiledModel = getCompiledModel(model);
         ItemCollection event = findEventByID(model, workitem.getTaskID(), workitem.getEventID());
         // verify if the event is a valid processing event?
-        if (event != null) {
+        // (the events of a compiled model are always assigned to the task)
+        if (event != null && compiledModel == null) {
             List<ItemCollection> allowedEvents = findEventsByTask(model, workitem.getTaskID());
             boolean found = false;
             for (ItemCollection allowedEvent : allowedEvents) {
@@ -267,21 +505,34 @@ public class ModelManager {
             throws ModelException {
         long l = System.currentTimeMillis();
         BPMNModel model = findModelByWorkitem(workitem);
-        // lookup the current BPMN event element by its ID
+        String version = getVersion(model);
         String id = event.getItemValueString("id");
-        Event eventElement = (Event) model.findElementNodeById(id);
-        String version = BPMNUtil.getVersion(model);
-        String key = version + "~" + workitem.getTaskID() + "." + workitem.getEventID();
-
-        // find next task or event.....
-        BPMNLinkedFlowIterator<BPMNElementNode> elementNavigator;
+        CompiledModel compiledModel = getCompiledModel(model);
+        if (compiledModel != null) {
+            List<ItemCollection> nextElements = compiledModel.findNextElements(id,
+                    condition -> evaluateCondition(condition, workitem));
+            if (nextElements != null) {
+                if (nextElements.size() > 1) {
+                    throw new ModelException(ModelException.INVALID_MODEL,
+                            "$modelversion " + version + " ambiguous sequence flow: " + workitem.getTaskID() + "."
+                                    + workitem.getEventID());
+                }
+                return nextElements.isEmpty() ? null : ItemCollection.createCopyOnWrite(nextElements.get(0));
+            }
+        }
+        ReentrantLock lock = lockModel(model);
         try {
-            elementNavigator = new BPMNLinkedFlowIterator<BPMNElementNode>(
+            // lookup the current BPMN event element by its ID
+            Event eventElement = (Event) model.findElementNodeById(id);
+            String key = version + "~" + workitem.getTaskID() + "." + workitem.getEventID();
+
+            // find next task or event.....
+            BPMNLinkedFlowIterator<BPMNElementNode> elementNavigator = new BPMNLinkedFlowIterator<BPMNElementNode>(
                     eventElement,
                     node -> ((BPMNUtil.isImixsTaskElement(node))
                             || (BPMNUtil.isImixsEventElement(node))
                             || (BPMNUtil.isParallelGatewayElement(node))),
-                    condition -> evaluateCondition(condition, workitem));
+                    condition -> evaluateCondition(condition, workitem, lock));
 
             while (elementNavigator.hasNext()) {
                 BPMNElementNode nextElement = elementNavigator.next();
@@ -292,13 +543,17 @@ public class ModelManager {
                             "$modelversion " + version + " ambiguous sequence flow: " + workitem.getTaskID() + "."
                                     + workitem.getEventID());
                 }
-                logger.info("nextModelElement " + key + " took " + (System.currentTimeMillis() - l) + "ms");
+                if (logger.isLoggable(Level.FINE)) {
+                    logger.fine("nextModelElement " + key + " took " + (System.currentTimeMillis() - l) + "ms");
+                }
                 return BPMNEntityBuilder.build(nextElement);
 
             }
         } catch (BPMNValidationException e) {
             throw new ModelException(ModelException.INVALID_MODEL,
                     "$modelversion " + version + " invalid condition: " + e.getMessage());
+        } finally {
+            lock.unlock();
         }
         return null;
     }
@@ -309,11 +564,12 @@ public class ModelManager {
      * @return
      */
     public List<String> getVersions() {
-        Set<String> versions = modelStore.keySet();
+        Set<String> versions = new TreeSet<>(Collections.reverseOrder());
+        versions.addAll(modelStore.keySet());
+        versions.addAll(lazyModels.keySet());
         // convert to List
         List<String> result = new ArrayList<>();
         result.addAll(versions);
-        Collections.sort(result, Collections.reverseOrder());
         return result;
     }
 
@@ -331,7 +587,7 @@ public class ModelManager {
         String version = workitem.getModelVersion();
         // first try a direct fetch....
         if (version != null && !version.isEmpty()) {
-            result = modelStore.get(version);
+            result = getModel(version);
         }
         if (result != null) {
             return result;
@@ -340,7 +596,7 @@ public class ModelManager {
             if (version != null && !version.isEmpty()) {
                 Set<String> matchingVersions = findVersionsByRegEx(version);
                 for (String matchingVersion : matchingVersions) {
-                    result = modelStore.get(matchingVersion);
+                    result = getModel(matchingVersion);
                     if (result != null) {
                         // match
                         // update $modelVersion
@@ -364,7 +620,7 @@ public class ModelManager {
                     }
                     // update $modelVersion
                     workitem.model(newVersion);
-                    result = modelStore.get(newVersion);
+                    result = getModel(newVersion);
                     return result;
                 }
             }
@@ -394,35 +650,20 @@ public class ModelManager {
                     "model is null!");
         }
         // test cache
-        String version = BPMNUtil.getVersion(_model);
-        result = groupCache.get(version);
+        ModelCache modelCache = getModelCache(_model);
+        result = modelCache.groups;
         if (result == null) {
-            result = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
-
-            Set<BPMNProcess> processList = _model.getProcesses();
-            for (BPMNProcess _process : processList) {
-                String groupName = _process.getName();
-                if (_model.isCollaborationDiagram()) {
-                    // collaboration diagram - only add private processes (Pools)
-                    if (BPMNTypes.PROCESS_TYPE_PRIVATE.equals(_process.getProcessType())) {
-                        // add only private process types
-                        result.add(groupName);
-                    }
-                } else {
-                    // if it is not a collaboration diagram we return the name of the first Public
-                    // Process
-                    if (BPMNTypes.PROCESS_TYPE_PUBLIC.equals(_process.getProcessType())) {
-                        result.add(groupName);
-                        break;
-                    }
+            ReentrantLock lock = lockModel(_model);
+            try {
+                result = modelCache.groups;
+                if (result == null) {
+                    result = lookupGroups(_model);
+                    // finally cache the new group set
+                    modelCache.groups = result;
                 }
+            } finally {
+                lock.unlock();
             }
-            if (result.size() == 0) {
-                logger.warning("Model " + BPMNUtil.getVersion(_model)
-                        + " does not contain valid process elements! Please check your model file!");
-            }
-            // finally cache the new group set
-            groupCache.put(version, result);
         }
 
         // Create an immutable set from the sorted set
@@ -442,8 +683,8 @@ public class ModelManager {
      */
     public Set<String> findAllGroups() throws ModelException {
         Set<String> result = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
-        for (BPMNModel model : modelStore.values()) {
-            result.addAll(findAllGroupsByModel(model));
+        for (String version : getVersions()) {
+            result.addAll(findAllGroupsByVersion(version));
         }
         return result;
     }
@@ -465,11 +706,10 @@ public class ModelManager {
             logger.log(Level.FINEST, "......searching model versions for workflowgroup ''{0}''...", group);
         }
         // try to find matching model version by group
-        Collection<BPMNModel> models = modelStore.values();
-        for (BPMNModel _model : models) {
-            Set<String> allGroups = findAllGroupsByModel(_model);
+        for (String version : getVersions()) {
+            Set<String> allGroups = findAllGroupsByVersion(version);
             if (allGroups.contains(group)) {
-                result.add(BPMNUtil.getVersion(_model));
+                result.add(version);
             }
         }
 
@@ -515,10 +755,9 @@ public class ModelManager {
             logger.log(Level.FINEST, "......searching model versions for regex ''{0}''...", modelRegex);
         }
         // try to find matching model version by regex
-        Collection<BPMNModel> models = modelStore.values();
-        for (BPMNModel amodel : models) {
-            String _version = BPMNUtil.getVersion(amodel);
-            if (Pattern.compile(modelRegex).matcher(_version).find()) {
+        Pattern pattern = Pattern.compile(modelRegex);
+        for (String _version : getVersions()) {
+            if (pattern.matcher(_version).find()) {
                 result.add(_version);
             }
         }
@@ -527,8 +766,9 @@ public class ModelManager {
 
     /**
      * This method finds a Imixs task element by its ID (imixs:activityid).
-     * The method returns a cloned Instance of the model entity to avoid
-     * manipulation by the client.
+     * The method returns a copy-on-write Instance of the model entity to avoid
+     * manipulation by the client. The cached entity is shared until the client
+     * modifies the returned instance.
      * <p>
      * The method implements an effectively generic, thread-safe way of a
      * compute-once, cache-for-later pattern.
@@ -538,40 +778,66 @@ public class ModelManager {
      * @return
      */
     public ItemCollection findTaskByID(final BPMNModel model, int taskID) {
-        String key = BPMNUtil.getVersion(model) + "~" + taskID;
-        // Avoid recursive call chains and do not use computeIfAbsent here!
-        if (bpmnEntityCache.containsKey(key)) {
-            return (ItemCollection) bpmnEntityCache.get(key).clone();
+        CompiledModel compiledModel = getCompiledModel(model);
+        if (compiledModel != null) {
+            ItemCollection task = compiledModel.getTask(taskID);
+            return task == null ? null : ItemCollection.createCopyOnWrite(task);
         }
-        ItemCollection result = lookupTaskByID(model, taskID);
-        if (result != null) {
-            bpmnEntityCache.put(key, result);
-            return (ItemCollection) result.clone();
+        ModelCache modelCache = getModelCache(model);
+        String key = String.valueOf(taskID);
+        ReentrantLock lock = lockModel(model);
+        try {
+            // Avoid recursive call chains and do not use computeIfAbsent here!
+            if (modelCache.entityCache.containsKey(key)) {
+                return ItemCollection.createCopyOnWrite(modelCache.entityCache.get(key));
+            }
+            ItemCollection result = lookupTaskByID(model, modelCache, taskID);
+            if (result != null) {
+                modelCache.entityCache.put(key, result);
+                return ItemCollection.createCopyOnWrite(result);
+            }
+            return null;
+        } finally {
+            lock.unlock();
         }
-        return null;
     }
 
     /**
      * This method finds a Imixs Event element by its ID (imixs:activityid)
-     * associated with a given Task. The method returns a cloned Instance of the
-     * model entity to avoid manipulation by the client.
+     * associated with a given Task. The method returns a copy-on-write Instance of
+     * the model entity to avoid manipulation by the client. The cached entity is
+     * shared until the client modifies the returned instance.
      * <p>
      * The method implements an effectively generic, thread-safe way of a
      * compute-once, cache-for-later pattern.
      * 
      */
     public ItemCollection findEventByID(final BPMNModel model, int taskID, int eventID) {
-        String key = BPMNUtil.getVersion(model) + "~" + taskID + "." + eventID;
-        // Avoid recursive call chains and do not use computeIfAbsent here!
-        if (bpmnEntityCache.containsKey(key)) {
-            return (ItemCollection) bpmnEntityCache.get(key).clone();
+        CompiledModel compiledModel = getCompiledModel(model);
+        if (compiledModel != null) {
+            ItemCollection event = compiledModel.getEvent(taskID, eventID);
+            if (event == null && !compiledModel.hasTask(taskID)) {
+                logger.warning("TaskID: " + taskID + " does not exist in model '" + compiledModel.getVersion() + "'!");
+            }
+            return event == null ? null : ItemCollection.createCopyOnWrite(event);
         }
-        ItemCollection result = lookupEventByID(model, taskID, eventID);
-        if (result != null) {
-            bpmnEntityCache.put(key, result);
-            return (ItemCollection) result.clone();
+        ModelCache modelCache = getModelCache(model);
+        String key = taskID + "." + eventID;
+        ReentrantLock lock = lockModel(model);
+        try {
+            // Avoid recursive call chains and do not use computeIfAbsent here!
+            if (modelCache.entityCache.containsKey(key)) {
+                return ItemCollection.createCopyOnWrite(modelCache.entityCache.get(key));
+            }
+            ItemCollection result = lookupEventByID(model, modelCache, taskID, eventID);
+            if (result != null) {
+                modelCache.entityCache.put(key, result);
+                return ItemCollection.createCopyOnWrite(result);
+            }
+            return null;
+        } finally {
+            lock.unlock();
         }
-        return null;
     }
 
     /**
@@ -587,17 +853,49 @@ public class ModelManager {
      * @throws BPMNModelException
      */
     public List<ItemCollection> findTasks(final BPMNModel model, String processGroup) throws ModelException {
-        List<ItemCollection> result = new ArrayList<>();
-        BPMNProcess process = null;
-
         if (model == null) {
             throw new ModelException(ModelException.INVALID_MODEL,
                     "model is null!");
         }
         if (processGroup == null || processGroup.isEmpty()) {
             logger.warning("findEndTasks processGroup is empty!");
-            return result;
+            return new ArrayList<>();
+        }
+
+        CompiledModel compiledModel = getCompiledModel(model);
+        if (compiledModel != null) {
+            return copyOnWrite(compiledModel.getTasks(processGroup));
         }
+        ReentrantLock lock = lockModel(model);
+        try {
+            return lookupTasks(model, processGroup);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a list of copy-on-write views of the given compiled entities. The
+     * entities of a CompiledModel are shared between all callers and must not be
+     * returned directly.
+     */
+    private static List<ItemCollection> copyOnWrite(List<ItemCollection> entities) {
+        List<ItemCollection> result = new ArrayList<>();
+        if (entities != null) {
+            for (ItemCollection entity : entities) {
+                result.add(ItemCollection.createCopyOnWrite(entity));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Navigates the model to collect the entities returned by
+     * {@link #findTasks(BPMNModel, String)}. The caller must hold the model lock.
+     */
+    List<ItemCollection> lookupTasks(final BPMNModel model, String processGroup) throws ModelException {
+        List<ItemCollection> result = new ArrayList<>();
+        BPMNProcess process = null;
 
         // find Process containing matching the process group
         if (model.isCollaborationDiagram()) {
@@ -641,17 +939,34 @@ public class ModelManager {
      * @throws BPMNModelException
      */
     public List<ItemCollection> findStartTasks(final BPMNModel model, String processGroup) throws ModelException {
-        List<ItemCollection> result = new ArrayList<>();
-        BPMNProcess process = null;
-
         if (model == null) {
             throw new ModelException(ModelException.INVALID_MODEL,
                     "model is null!");
         }
         if (processGroup == null || processGroup.isEmpty()) {
             logger.warning("findEndTasks processGroup is empty!");
-            return result;
+            return new ArrayList<>();
+        }
+
+        CompiledModel compiledModel = getCompiledModel(model);
+        if (compiledModel != null) {
+            return copyOnWrite(compiledModel.getStartTasks(processGroup));
+        }
+        ReentrantLock lock = lockModel(model);
+        try {
+            return lookupStartTasks(model, processGroup);
+        } finally {
+            lock.unlock();
         }
+    }
+
+    /**
+     * Navigates the model to collect the entities returned by
+     * {@link #findStartTasks(BPMNModel, String)}. The caller must hold the model lock.
+     */
+    List<ItemCollection> lookupStartTasks(final BPMNModel model, String processGroup) throws ModelException {
+        List<ItemCollection> result = new ArrayList<>();
+        BPMNProcess process = null;
 
         // find Process containing matching the process group
         if (model.isCollaborationDiagram()) {
@@ -692,18 +1007,35 @@ public class ModelManager {
      * @throws BPMNModelException
      */
     public List<ItemCollection> findEndTasks(final BPMNModel model, String processGroup) throws ModelException {
-        List<ItemCollection> result = new ArrayList<>();
-        BPMNProcess process = null;
-
         if (model == null) {
             throw new ModelException(ModelException.INVALID_MODEL,
                     "model is null!");
         }
         if (processGroup == null || processGroup.isEmpty()) {
             logger.warning("findEndTasks processGroup is empty!");
-            return result;
+            return new ArrayList<>();
         }
 
+        CompiledModel compiledModel = getCompiledModel(model);
+        if (compiledModel != null) {
+            return copyOnWrite(compiledModel.getEndTasks(processGroup));
+        }
+        ReentrantLock lock = lockModel(model);
+        try {
+            return lookupEndTasks(model, processGroup);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Navigates the model to collect the entities returned by
+     * {@link #findEndTasks(BPMNModel, String)}. The caller must hold the model lock.
+     */
+    List<ItemCollection> lookupEndTasks(final BPMNModel model, String processGroup) throws ModelException {
+        List<ItemCollection> result = new ArrayList<>();
+        BPMNProcess process = null;
+
         // find Process containing matching the process group
         if (model.isCollaborationDiagram()) {
             Set<Participant> poolList = model.getParticipants();
@@ -730,7 +1062,6 @@ public class ModelManager {
                 result.add(BPMNEntityBuilder.build(endElements.next()));
             }
         }
-
         return result;
     }
 
@@ -746,21 +1077,43 @@ public class ModelManager {
      */
     public List<ItemCollection> findEventsByTask(final BPMNModel model, int taskID) {
         List<ItemCollection> result = new ArrayList<>();
-        Activity taskElement = lookupTaskElementByID(model, taskID);
-        if (taskElement != null) {
-            BPMNLinkedFlowIterator<BPMNElementNode> elementNavigator = new BPMNLinkedFlowIterator<BPMNElementNode>(
-                    taskElement,
-                    node -> ((BPMNUtil.isImixsEventElement(node))));
-
-            while (elementNavigator.hasNext()) {
-                result.add(BPMNEntityBuilder.build(elementNavigator.next()));
+        CompiledModel compiledModel = getCompiledModel(model);
+        if (compiledModel != null) {
+            for (ItemCollection event : compiledModel.getEvents(taskID)) {
+                result.add(ItemCollection.createCopyOnWrite(event));
             }
-            // next we also add all initEvent nodes
-            List<BPMNElementNode> initEventNodes = findInitEventNodes(taskElement);
-            for (BPMNElementNode element : initEventNodes) {
-                result.add(BPMNEntityBuilder.build(element));
+            return result;
+        }
+        ReentrantLock lock = lockModel(model);
+        try {
+            Activity taskElement = lookupTaskElementByID(model, taskID);
+            if (taskElement != null) {
+                for (BPMNElementNode element : lookupEventNodes(taskElement)) {
+                    result.add(BPMNEntityBuilder.build(element));
+                }
             }
+        } finally {
+            lock.unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Returns all Event elements assigned to a Task element. These are the events
+     * connected by outgoing sequence flows followed by the init-event-nodes. The
+     * caller must hold the model lock.
+     */
+    List<BPMNElementNode> lookupEventNodes(Activity taskElement) {
+        List<BPMNElementNode> result = new ArrayList<>();
+        BPMNLinkedFlowIterator<BPMNElementNode> elementNavigator = new BPMNLinkedFlowIterator<BPMNElementNode>(
+                taskElement,
+                node -> ((BPMNUtil.isImixsEventElement(node))));
+
+        while (elementNavigator.hasNext()) {
+            result.add(elementNavigator.next());
         }
+        // next we also add all initEvent nodes
+        result.addAll(findInitEventNodes(taskElement));
         return result;
     }
 
@@ -829,35 +1182,386 @@ public class ModelManager {
             return true;
         }
         // find SequenceFlow
-        Set<SequenceFlow> outFlows = gatewayNode.getOutgoingSequenceFlows();
-        for (SequenceFlow outFlow : outFlows) {
-            if (outFlow.getTargetElement().getId().equals(targetNode.getId())) {
-                String condition = outFlow.getConditionExpression();
-                if (condition != null && !condition.isEmpty()) {
-                    try {
-                        // RuleEngine ruleEngine = new RuleEngine();
-                        boolean conditionResult = ruleEngine.evaluateBooleanExpression(condition, workitem);
-                        if (conditionResult == true) {
-                            return true;
-                        }
-                    } catch (PluginException e) {
-                        logger.severe("Failed to evaluate Condition of SplitEvent '" + gatewayNode.getId() + "': "
-                                + e.getMessage());
+        String condition = null;
+        ReentrantLock lock = lockModel(gatewayNode.getModel());
+        try {
+            Set<SequenceFlow> outFlows = gatewayNode.getOutgoingSequenceFlows();
+            for (SequenceFlow outFlow : outFlows) {
+                if (outFlow.getTargetElement().getId().equals(targetNode.getId())) {
+                    condition = outFlow.getConditionExpression();
+                    if (condition != null && !condition.isEmpty()) {
+                        break;
                     }
-                    return false;
                 }
             }
+        } finally {
+            lock.unlock();
+        }
+        // evaluate the condition outside of the model lock
+        if (condition != null && !condition.isEmpty()) {
+            try {
+                return ruleEngine.evaluateBooleanExpression(condition, workitem);
+            } catch (PluginException e) {
+                logger.severe("Failed to evaluate Condition of SplitEvent '" + gatewayNode.getId() + "': "
+                        + e.getMessage());
+            }
         }
         return false;
     }
 
     /**
-     * Reset the internal BPMN Element cache
+     * Returns the Task and Event entities following a ParallelGateway. The entities
+     * are returned in the order of the outgoing sequence flows of the gateway.
+     * 
+     * @param model           - the BPMN model
+     * @param parallelGateway - ParallelGateway entity
+     * @return list of Task and Event entities
+     */
+    public List<ItemCollection> findParallelGatewayTargets(BPMNModel model, ItemCollection parallelGateway) {
+        String id = parallelGateway.getItemValueString("id");
+        List<ItemCollection> result = new ArrayList<>();
+        CompiledModel compiledModel = getCompiledModel(model);
+        if (compiledModel != null) {
+            List<ItemCollection> splitTargets = compiledModel.getSplitTargets(id);
+            if (splitTargets != null) {
+                for (ItemCollection target : splitTargets) {
+                    result.add(ItemCollection.createCopyOnWrite(target));
+                }
+                return result;
+            }
+        }
+        ReentrantLock lock = lockModel(model);
+        try {
+            BPMNElementNode gatewayNode = model.findElementNodeById(id);
+            BPMNLinkedFlowIterator<BPMNElementNode> splitElementNavigator = new BPMNLinkedFlowIterator<BPMNElementNode>(
+                    gatewayNode,
+                    node -> ((BPMNUtil.isImixsTaskElement(node)) || (BPMNUtil.isImixsEventElement(node))));
+            while (splitElementNavigator.hasNext()) {
+                result.add(BPMNEntityBuilder.build(splitElementNavigator.next()));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Evaluates the outgoing sequenceFlows of a ParallelGateway based on the
+     * entities returned by {@link #findParallelGatewayTargets(BPMNModel,
+     * ItemCollection)}.
+     * 
+     * @param model           - the BPMN model
+     * @param parallelGateway - ParallelGateway entity
+     * @param target          - Target entity (either a Task or a Event)
+     * @param workitem        - current workitem
+     * @return true if the target defines the main flow
+     * @see #isMainParallelGatewayFlow(BPMNElementNode, BPMNElementNode,
+     *      ItemCollection)
+     */
+    public boolean isMainParallelGatewayFlow(BPMNModel model, ItemCollection parallelGateway,
+            ItemCollection target, ItemCollection workitem) {
+        if (ModelManager.TASK_ELEMENT.equals(target.getType())) {
+            return true;
+        }
+        String gatewayId = parallelGateway.getItemValueString("id");
+        CompiledModel compiledModel = getCompiledModel(model);
+        if (compiledModel != null && compiledModel.getSplitTargets(gatewayId) != null) {
+            String condition = compiledModel.getSplitCondition(gatewayId, target.getItemValueString("id"));
+            if (condition != null) {
+                try {
+                    return ruleEngine.evaluateBooleanExpression(condition, workitem);
+                } catch (PluginException e) {
+                    logger.severe("Failed to evaluate Condition of SplitEvent '" + gatewayId + "': "
+                            + e.getMessage());
+                }
+            }
+            return false;
+        }
+        BPMNElementNode gatewayNode;
+        BPMNElementNode targetNode;
+        ReentrantLock lock = lockModel(model);
+        try {
+            gatewayNode = model.findElementNodeById(gatewayId);
+            targetNode = model.findElementNodeById(target.getItemValueString("id"));
+        } finally {
+            lock.unlock();
+        }
+        return isMainParallelGatewayFlow(gatewayNode, targetNode, workitem);
+    }
+
+    /**
+     * Evaluates a condition while navigating the model graph. The model lock held
+     * by the current thread is released during the evaluation so that other
+     * threads can navigate the model in the meantime.
+     */
+    private boolean evaluateCondition(String expression, ItemCollection workitem, ReentrantLock lock) {
+        int holdCount = lock.getHoldCount();
+        for (int i = 0; i < holdCount; i++) {
+            lock.unlock();
+        }
+        try {
+            return evaluateCondition(expression, workitem);
+        } finally {
+            for (int i = 0; i < holdCount; i++) {
+                lock.lock();
+            }
+        }
+    }
+
+    /**
+     * Acquires the lock guarding the DOM of a model. The DOM implementation is not
+     * thread-safe, even for read access. The caller has to release the returned
+     * lock.
+     * 
+     * @param model
+     * @return the acquired lock
+     */
+    ReentrantLock lockModel(BPMNModel model) {
+        ReentrantLock lock = modelLocks.computeIfAbsent(model, m -> new ReentrantLock());
+        lock.lock();
+        return lock;
+    }
+
+    /**
+     * Returns the version of a model. The version is resolved once per model
+     * instance.
+     * 
+     * @param model
+     * @return model version
+     */
+    private String getVersion(BPMNModel model) {
+        String version = modelVersions.get(model);
+        if (version == null) {
+            ReentrantLock lock = lockModel(model);
+            try {
+                version = BPMNUtil.getVersion(model);
+            } finally {
+                lock.unlock();
+            }
+            if (version != null) {
+                modelVersions.put(model, version);
+            }
+        }
+        return version;
+    }
+
+    /**
+     * Collects all conditions of sequence flows and all business rules of Imixs
+     * events of a model and prepares the scripts by the RuleEngine. The parsed
+     * scripts are cached by the RuleEngine so that they can be evaluated later
+     * without parsing them again.
+     * 
+     * @param model
+     * @throws ModelException if a script contains a syntax error
+     */
+    private void prepareScripts(BPMNModel model) throws ModelException {
+        long l = System.currentTimeMillis();
+        String version = getVersion(model);
+        List<String> errors = new ArrayList<>();
+        int count = 0;
+        for (BPMNProcess _process : model.getProcesses()) {
+            BPMNProcess process;
+            try {
+                process = model.openProcess(_process.getId());
+            } catch (BPMNModelException e) {
+                throw new ModelException(ModelException.INVALID_MODEL,
+                        "$modelversion " + version + " invalid process: " + e.getMessage());
+            }
+            if (process == null) {
+                continue;
+            }
+            // conditions
+            for (SequenceFlow flow : process.getSequenceFlows()) {
+                String condition = flow.getConditionExpression();
+                if (condition == null || condition.isEmpty()) {
+                    continue;
+                }
+                try {
+                    ruleEngine.prepareScript(condition);
+                    count++;
+                } catch (PluginException e) {
+                    errors.add("condition of SequenceFlow '" + flow.getId() + "': " + e.getMessage());
+                }
+            }
+            // business rules
+            for (Event event : process.getEvents()) {
+                if (!BPMNUtil.isImixsEventElement(event)) {
+                    continue;
+                }
+                ItemCollection eventEntity = BPMNEntityBuilder.build(event);
+                String script = eventEntity.getItemValueString(BPMNUtil.EVENT_ITEM_RULE_DEFINITION);
+                if (script.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    new RuleEngine(eventEntity.getItemValueString(BPMNUtil.EVENT_ITEM_RULE_ENGINE))
+                            .prepareScript(script);
+                    count++;
+                } catch (PluginException e) {
+                    errors.add("business rule of Event '" + event.getId() + "': " + e.getMessage());
+                }
+            }
+        }
+        if (!errors.isEmpty()) {
+            for (String error : errors) {
+                logger.warning("$modelversion " + version + " invalid " + error);
+            }
+            throw new ModelException(ModelException.INVALID_MODEL,
+                    "$modelversion " + version + " invalid " + errors.get(0));
+        }
+        logger.log(Level.FINE, "...prepared {0} scripts of model ''{1}'' in {2}ms",
+                new Object[] { count, version, System.currentTimeMillis() - l });
+    }
+
+    /**
+     * Returns the workflow groups of a model version. The groups of a model
+     * version registered with a {@link ModelLoader} are returned without loading
+     * the model if known.
+     * 
+     * @param version
+     * @return workflow groups
+     * @throws ModelException
+     */
+    private Set<String> findAllGroupsByVersion(String version) throws ModelException {
+        BPMNModel model = modelStore.get(version);
+        if (model == null) {
+            LazyModel lazyModel = lazyModels.get(version);
+            if (lazyModel != null && lazyModel.groups != null) {
+                return lazyModel.groups;
+            }
+            model = getModel(version);
+            if (model == null) {
+                return Collections.emptySet();
+            }
+        }
+        return findAllGroupsByModel(model);
+    }
+
+    /**
+     * Loads a registered model version by its ModelLoader and adds the model into
+     * the model store. Concurrent threads accessing the same model version wait
+     * until the model was loaded.
+     * 
+     * @param version
+     * @param lazyModel
+     * @return the loaded model
+     * @throws ModelException if the model can not be loaded
+     */
+    private BPMNModel loadModel(String version, LazyModel lazyModel) throws ModelException {
+        synchronized (lazyModel) {
+            BPMNModel model = modelStore.get(version);
+            if (model == null) {
+                long l = System.currentTimeMillis();
+                model = lazyModel.loader.loadModel(version);
+                if (model == null || !version.equals(getVersion(model))) {
+                    throw new ModelException(ModelException.INVALID_MODEL,
+                            "$modelversion '" + version + "' could not be loaded");
+                }
+                addModel(model, lazyModel.loader);
+                loadCount.incrementAndGet();
+                if (lazyModel.evicted) {
+                    reloadCount.incrementAndGet();
+                }
+                ModelListener listener = modelListener;
+                if (listener != null) {
+                    listener.onModelLoad(version, lazyModel.evicted);
+                }
+                logger.log(Level.INFO, "...loaded model version ''{0}'' in {1}ms",
+                        new Object[] { version, System.currentTimeMillis() - l });
+            }
+            return model;
+        }
+    }
+
+    /**
+     * Evicts the least recently used model versions registered with a
+     * ModelLoader until the number of loaded model versions does not exceed the
+     * capacity. The caller must hold the store lock.
+     * 
+     * @param keepVersion - model version which must not be evicted or null
+     */
+    private void evictModels(String keepVersion) {
+        while (capacity > 0 && modelStore.size() > capacity) {
+            String eldestVersion = null;
+            long eldestAccess = Long.MAX_VALUE;
+            for (String version : modelStore.keySet()) {
+                ModelCache modelCache = modelCaches.get(version);
+                if (!version.equals(keepVersion) && lazyModels.containsKey(version) && modelCache != null
+                        && modelCache.lastAccess < eldestAccess) {
+                    eldestVersion = version;
+                    eldestAccess = modelCache.lastAccess;
+                }
+            }
+            if (eldestVersion == null) {
+                // no model version can be evicted
+                return;
+            }
+            modelStore.remove(eldestVersion);
+            modelCaches.remove(eldestVersion);
+            lazyModels.get(eldestVersion).evicted = true;
+            evictionCount.incrementAndGet();
+            ModelListener listener = modelListener;
+            if (listener != null) {
+                listener.onModelEviction(eldestVersion);
+            }
+            logger.log(Level.FINE, "...evicted model version ''{0}''", eldestVersion);
+        }
+    }
+
+    /**
+     * Returns the ModelCache of a model. Only models of the model store are
+     * cached. For any other model instance the method returns a new empty
+     * ModelCache.
+     * 
+     * @param model
+     * @return ModelCache of the model version
      */
-    private void clearCache() {
-        bpmnEntityCache.clear();
-        bpmnElementCache.clear();
-        groupCache.clear();
+    private ModelCache getModelCache(BPMNModel model) {
+        String version = getVersion(model);
+        ModelCache modelCache = modelCaches.get(version);
+        if (modelCache == null) {
+            // a model put into the model store directly
+            modelCache = modelCaches.computeIfAbsent(version,
+                    v -> modelStore.get(v) == model ? new ModelCache(model, null) : null);
+        }
+        if (modelCache == null || modelCache.model != model) {
+            return new ModelCache(model, null);
+        }
+        return modelCache;
+    }
+
+    /**
+     * This method lookups the workflow groups of a model. The caller must hold
+     * the model lock.
+     * 
+     * @param model
+     * @return sorted set of workflow groups
+     */
+    private Set<String> lookupGroups(final BPMNModel model) {
+        Set<String> result = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        Set<BPMNProcess> processList = model.getProcesses();
+        for (BPMNProcess _process : processList) {
+            String groupName = _process.getName();
+            if (model.isCollaborationDiagram()) {
+                // collaboration diagram - only add private processes (Pools)
+                if (BPMNTypes.PROCESS_TYPE_PRIVATE.equals(_process.getProcessType())) {
+                    // add only private process types
+                    result.add(groupName);
+                }
+            } else {
+                // if it is not a collaboration diagram we return the name of the first Public
+                // Process
+                if (BPMNTypes.PROCESS_TYPE_PUBLIC.equals(_process.getProcessType())) {
+                    result.add(groupName);
+                    break;
+                }
+            }
+        }
+        if (result.size() == 0) {
+            logger.warning("Model " + getVersion(model)
+                    + " does not contain valid process elements! Please check your model file!");
+        }
+        return result;
     }
 
     /**
@@ -870,7 +1574,7 @@ public class ModelManager {
      * @param taskID
      * @return
      */
-    private ItemCollection lookupDefinition(final BPMNModel model) {
+    ItemCollection lookupDefinition(final BPMNModel model) {
         long l = System.currentTimeMillis();
         ItemCollection result = new ItemCollection();
         Element definition = model.getDefinitions();
@@ -935,9 +1639,9 @@ public class ModelManager {
      * @param taskID
      * @return
      */
-    private ItemCollection lookupTaskByID(final BPMNModel model, int taskID) {
-        String key = BPMNUtil.getVersion(model) + "~" + taskID;
-        Activity activity = (Activity) bpmnElementCache.computeIfAbsent(key, k -> lookupTaskElementByID(model, taskID));
+    private ItemCollection lookupTaskByID(final BPMNModel model, ModelCache modelCache, int taskID) {
+        Activity activity = (Activity) modelCache.elementCache.computeIfAbsent(String.valueOf(taskID),
+                k -> lookupTaskElementByID(model, taskID));
         if (activity != null) {
             return BPMNEntityBuilder.build(activity);
         } else {
@@ -954,17 +1658,17 @@ public class ModelManager {
      * @param eventID
      * @return
      */
-    private ItemCollection lookupEventByID(final BPMNModel model, int taskID, int eventID) {
+    private ItemCollection lookupEventByID(final BPMNModel model, ModelCache modelCache, int taskID, int eventID) {
         Event event = null;
-        String key = BPMNUtil.getVersion(model) + "~" + taskID + "." + eventID;
+        String key = taskID + "." + eventID;
         // Avoid recursive call chains and do not use computeIfAbsent here!
-        if (bpmnElementCache.containsKey(key)) {
-            event = (Event) bpmnElementCache.get(key);
+        if (modelCache.elementCache.containsKey(key)) {
+            event = (Event) modelCache.elementCache.get(key);
             return BPMNEntityBuilder.build(event);
         }
-        event = lookupEventElementByID(model, taskID, eventID);
+        event = lookupEventElementByID(model, modelCache, taskID, eventID);
         if (event != null) {
-            bpmnElementCache.put(key, event);
+            modelCache.elementCache.put(key, event);
             return BPMNEntityBuilder.build(event);
         }
         return null;
@@ -981,12 +1685,12 @@ public class ModelManager {
      * @param eventID
      * @return
      */
-    private Event lookupEventElementByID(final BPMNModel model, int taskID, int eventID) {
+    private Event lookupEventElementByID(final BPMNModel model, ModelCache modelCache, int taskID, int eventID) {
         long l = System.currentTimeMillis();
-        String version = BPMNUtil.getVersion(model);
-        String keyTask = version + "~" + taskID;
+        String version = getVersion(model);
         String keyEvent = version + "~" + taskID + "." + eventID;
-        Activity task = (Activity) bpmnElementCache.computeIfAbsent(keyTask, k -> lookupTaskElementByID(model, taskID));
+        Activity task = (Activity) modelCache.elementCache.computeIfAbsent(String.valueOf(taskID),
+                k -> lookupTaskElementByID(model, taskID));
         if (task == null) {
             logger.warning("TaskID: " + taskID + " does not exist in model '" + version + "'!");
             return null;
@@ -1074,4 +1778,70 @@ public class ModelManager {
         }
         return collector;
     }
+
+    /**
+     * Holds the CompiledModel and the caches of one model version. A ModelCache
+     * is replaced as a whole if a new model is added for the version.
+     */
+    private static final class ModelCache {
+        private final BPMNModel model;
+        private final CompiledModel compiledModel;
+        private final Map<String, ItemCollection> entityCache = new ConcurrentHashMap<>();
+        private final Map<String, BPMNElement> elementCache = new ConcurrentHashMap<>();
+        private volatile Set<String> groups;
+        private volatile long lastAccess = System.nanoTime();
+
+        ModelCache(BPMNModel model, CompiledModel compiledModel) {
+            this.model = model;
+            this.compiledModel = compiledModel;
+        }
+    }
+
+    /**
+     * A ModelLoader loads the BPMNModel of a model version registered by the
+     * method {@link ModelManager#addModel(String, Set, ModelLoader)} and reloads
+     * a model version evicted from the model store.
+     */
+    @FunctionalInterface
+    public interface ModelLoader {
+        BPMNModel loadModel(String version) throws ModelException;
+    }
+
+    /**
+     * A ModelListener is notified when a model version registered with a
+     * ModelLoader is loaded into or evicted from the model store. The methods are
+     * called by the thread loading or evicting the model version and must return
+     * quickly.
+     */
+    public interface ModelListener {
+
+        /**
+         * Called after a model version was loaded by its ModelLoader.
+         * 
+         * @param version - the model version
+         * @param reload  - true if the model version was evicted before
+         */
+        void onModelLoad(String version, boolean reload);
+
+        /**
+         * Called after a model version was evicted from the model store.
+         * 
+         * @param version - the model version
+         */
+        void onModelEviction(String version);
+    }
+
+    /**
+     * A model version registered with a ModelLoader
+     */
+    private static final class LazyModel {
+        private volatile Set<String> groups;
+        private final ModelLoader loader;
+        private volatile boolean evicted;
+
+        LazyModel(Set<String> groups, ModelLoader loader) {
+            this.groups = groups == null ? null : Set.copyOf(groups);
+            this.loader = loader;
+        }
+    }
 }
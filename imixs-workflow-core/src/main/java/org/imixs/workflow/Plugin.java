@@ -57,6 +57,19 @@ public interface Plugin {
      */
     public void init(WorkflowContext workflowContext) throws PluginException;
 
+    /**
+     * This method is called before a plugin instance is reused for a new
+     * processing cycle, before the method init() is called. A plugin supporting
+     * the reuse must reset the state of the previous processing cycle and return
+     * true. If the method returns false a new plugin instance is created for the
+     * processing cycle. The default implementation returns false.
+     * 
+     * @return true if the plugin instance was reset and can be reused
+     */
+    public default boolean reset() {
+        return false;
+    }
+
     /**
      * @param document the workitem to be processed
      * @param event    the workflow event containing the processing instructions
@@ -32,19 +32,30 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Deque;
 import java.util.GregorianCalendar;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
 import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
 import org.graalvm.polyglot.Value;
 import org.imixs.workflow.exceptions.PluginException;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.inject.Named;
 
@@ -69,6 +80,26 @@ import jakarta.inject.Named;
  * The CDI bean can be replaced by an alternative CDI implementation to provide
  * an extended functionality.
  * <p>
+ * All RuleEngine instances share one polyglot Engine. JavaScript contexts are
+ * taken from a pool and returned after a script was evaluated. Before a
+ * context is returned into the pool, all members defined by a script are
+ * removed or reset. Parsed scripts are cached as Source objects so that the
+ * compiled code can be reused across contexts.
+ * <p>
+ * A context is only returned into the pool if the built-in objects are
+ * unchanged. The first evaluation of a script verifies that the script does not
+ * change a built-in object (e.g. Object.prototype or Math.random). Contexts
+ * used by a script which changes a built-in object or declares a top level
+ * let or const variable are closed and not reused. Contexts of other languages
+ * are not pooled.
+ * <p>
+ * Simple boolean expressions (item reads, comparisons and logical operators)
+ * are compiled by the {@link RuleEngineExpressionCompiler} and evaluated
+ * without a script context.
+ * <p>
+ * A context requested by {@link #getContext()} is bound to the RuleEngine
+ * instance until the method {@link #close()} is called.
+ * <p>
  * NOTE: The implementation replaces the old RuleEngien which was based on the
  * Nashorn Script Engine. The engine to detect deprecated scripts and convert
  * them automatically into the new format. It is recommended to replace
@@ -83,11 +114,100 @@ import jakarta.inject.Named;
 public class RuleEngine {
     public static final String DEFAULT_LANGUAGE_ID = "js";
     public static final String INVALID_SCRIPT = "INVALID_SCRIPT";
+    public static final int POOL_SIZE = 16;
+    public static final int SOURCE_CACHE_SIZE = 512;
     private static final HashSet<Class<?>> BASIC_OBJECT_TYPES = getBasicObjectTypes();
 
     private static final Logger logger = Logger.getLogger(RuleEngine.class.getName());
 
-    private Context _context = null;
+    // pooled contexts per languageId
+    private static final Map<String, Deque<PooledContext>> contextPool = new ConcurrentHashMap<>();
+    private static final AtomicInteger pooledContexts = new AtomicInteger();
+    // parsed scripts per languageId
+    private static final Map<String, Map<String, Source>> sourceCache = new ConcurrentHashMap<>();
+    // deprecated scripts rewritten by the RuleEngineNashornConverter
+    private static final Map<String, String> rewrittenScripts = Collections
+            .synchronizedMap(new LinkedHashMap<String, String>(64, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > SOURCE_CACHE_SIZE;
+                }
+            });
+    // boolean expressions compiled by the RuleEngineExpressionCompiler
+    private static final Predicate<ItemCollection> NOT_COMPILED = workitem -> false;
+    private static final Map<String, Predicate<ItemCollection>> compiledExpressions = Collections
+            .synchronizedMap(new LinkedHashMap<String, Predicate<ItemCollection>>(64, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Predicate<ItemCollection>> eldest) {
+                    return size() > SOURCE_CACHE_SIZE;
+                }
+            });
+    // JavaScript helper functions to verify the built-in objects of a context
+    private static final Source BUILTINS_VERIFIER = Source.create(DEFAULT_LANGUAGE_ID, String.join("\n", //
+            "(function (g) {", //
+            "  var gopd = Reflect.getOwnPropertyDescriptor, ownKeys = Reflect.ownKeys;", //
+            "  var getProto = Reflect.getPrototypeOf, isExtensible = Reflect.isExtensible;", //
+            "  var globalKeys = ownKeys(g);", //
+            "  function state(t, keys) {", //
+            "    var s = [getProto(t), isExtensible(t), keys.length];", //
+            "    for (var i = 0; i < keys.length; i++) {", //
+            "      var d = gopd(t, keys[i]);", //
+            "      s.push(keys[i], d && d.value, d && d.get, d && d.set);", //
+            "    }", //
+            "    return s;", //
+            "  }", //
+            "  function equal(a, b) {", //
+            "    if (a.length !== b.length) { return false; }", //
+            "    for (var i = 0; i < a.length; i++) {", //
+            "      if (a[i] !== b[i] && (a[i] === a[i] || b[i] === b[i])) { return false; }", //
+            "    }", //
+            "    return true;", //
+            "  }", //
+            "  return {", //
+            "    isGlobalProperty: function (key) { return gopd(g, key) !== undefined; },", //
+            "    snapshot: function () {", //
+            "      var targets = [], states = [], seen = new Set();", //
+            "      function add(v) {", //
+            "        if (v === null || (typeof v !== 'object' && typeof v !== 'function') || seen.has(v)) { return; }", //
+            "        seen.add(v);", //
+            "        try { states.push(state(v, ownKeys(v))); targets.push(v); } catch (e) { return; }", //
+            "        var p = gopd(v, 'prototype');", //
+            "        if (p !== undefined) { add(p.value); }", //
+            "        add(getProto(v));", //
+            "      }", //
+            "      for (var i = 0; i < globalKeys.length; i++) {", //
+            "        var d = gopd(g, globalKeys[i]);", //
+            "        if (d !== undefined && d.value !== g) { add(d.value); }", //
+            "      }", //
+            "      var globalState = state(g, globalKeys);", //
+            "      return function () {", //
+            "        if (!equal(state(g, globalKeys), globalState)) { return false; }", //
+            "        for (var i = 0; i < targets.length; i++) {", //
+            "          if (!equal(state(targets[i], ownKeys(targets[i])), states[i])) { return false; }", //
+            "        }", //
+            "        return true;", //
+            "      };", //
+            "    }", //
+            "  };", //
+            "})(globalThis)"));
+    // result of the deprecated script detection
+    private static final Map<String, Boolean> deprecatedScripts = Collections
+            .synchronizedMap(new LinkedHashMap<String, Boolean>(64, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > SOURCE_CACHE_SIZE;
+                }
+            });
+
+    private PooledContext _context = null;
+    // pooled context of the current evaluation - see evaluate()
+    private final ThreadLocal<PooledContext> evaluationContext = new ThreadLocal<>();
     private String languageId;
 
     /**
@@ -129,6 +249,10 @@ public class RuleEngine {
      * This method implements a lazy initialization of the context. 
      * See Issue #822
      * 
+     * The context is taken from the context pool and bound to this instance
+     * until the method close() is called. During the evaluation of a script the
+     * method returns the context of the evaluation.
+     * 
      * We also set the option 'WarnInterpreterOnly' to false.
      * See also here: https://www.graalvm.org/22.0/reference-manual/js/FAQ/
      * 
@@ -136,16 +260,28 @@ public class RuleEngine {
      * @return
      */
     public Context getContext() {
+        // called during the evaluation of a script?
+        PooledContext pooledContext = evaluationContext.get();
+        if (pooledContext != null) {
+            return pooledContext.context;
+        }
         // init context the first time?
-        if (_context==null) {
-            long l=System.currentTimeMillis();
-            _context = Context.newBuilder(languageId) //
-                .option("engine.WarnInterpreterOnly", "false") //
-                .allowAllAccess(true) //
-                .build();
-            logger.log(Level.INFO, "...init RuleEngine took {0}ms", System.currentTimeMillis()-l);
+        if (_context == null) {
+            _context = acquireContext(languageId);
+        }
+        return _context.context;
+    }
+
+    /**
+     * Returns the context bound to this instance into the context pool. The
+     * method is called by the CDI container at the end of a request.
+     */
+    @PreDestroy
+    public void close() {
+        if (_context != null) {
+            releaseContext(_context);
+            _context = null;
         }
-        return _context;
     }
 
     /**
@@ -160,10 +296,110 @@ public class RuleEngine {
     }
 
     public Value eval(String script) {
-        Value result = getContext().eval(languageId, script);
+        Value result = getContext().eval(getSource(languageId, script));
         return result;
     }
 
+    /**
+     * Evaluates a script with the context bound to this instance or with a
+     * pooled context. The members are set before the script is evaluated.
+     * <p>
+     * A pooled context is bound to the current thread until the result was
+     * converted, so the converter can access the context by getContext(). The
+     * context is returned into the pool only if the built-in objects are unchanged
+     * after the evaluation. This is verified for each evaluation, because a script
+     * may change the built-in objects depending on its input data.
+     * <p>
+     * If a reused pooled context rejects the script with a syntax error (e.g. a
+     * script declares a lexical variable with the name of a former var
+     * declaration) the script is evaluated again with a new context.
+     * 
+     * @return the evaluation result or null if the script was evaluated by a
+     *         pooled context and did not provide a result.
+     */
+    private <T> T evaluate(String script, Map<String, Object> members, ResultConverter<T> converter) {
+        if (_context != null) {
+            // a context is bound to this instance
+            putMembers(_context.context, members);
+            return converter.convert(_context.context, _context.context.eval(getSource(languageId, script)));
+        }
+        Source source = getSource(languageId, script);
+        PooledContext pooledContext = acquireContext(languageId);
+        try {
+            evaluationContext.set(pooledContext);
+            try {
+                putMembers(pooledContext.context, members);
+                return converter.convert(pooledContext.context, pooledContext.context.eval(source));
+            } catch (PolyglotException e) {
+                if (!e.isSyntaxError() || !pooledContext.reused) {
+                    throw e;
+                }
+                // retry with a new context
+                pooledContext.context.close();
+                pooledContext = newContext(languageId);
+                evaluationContext.set(pooledContext);
+                putMembers(pooledContext.context, members);
+                return converter.convert(pooledContext.context, pooledContext.context.eval(source));
+            }
+        } finally {
+            evaluationContext.remove();
+            releaseContext(pooledContext);
+        }
+    }
+
+    private void putMembers(Context context, Map<String, Object> members) {
+        Value bindings = context.getBindings(languageId);
+        for (Map.Entry<String, Object> member : members.entrySet()) {
+            bindings.putMember(member.getKey(), member.getValue());
+        }
+    }
+
+    /**
+     * Converts the result of a script evaluation before the context is
+     * released.
+     */
+    private interface ResultConverter<T> {
+        T convert(Context context, Value value);
+    }
+
+    /**
+     * Prepares a script for the evaluation. The script is parsed without being
+     * evaluated so that syntax errors are detected early and the parsed code is
+     * cached by the shared engine.
+     * <p>
+     * Deprecated scripts are not parsed because they can only be rewritten
+     * together with the workitem at evaluation time. Scripts of a language not
+     * provided by the engine are also skipped.
+     * 
+     * @param script
+     * @return true if the script was parsed
+     * @throws PluginException if the script contains a syntax error
+     */
+    public boolean prepareScript(String script) throws PluginException {
+        if (script == null || script.trim().isEmpty() || isDeprecatedScript(script)) {
+            return false;
+        }
+        if (getCompiledExpression(script) != null) {
+            // no script context needed
+            return true;
+        }
+        if (!SharedEngine.INSTANCE.getLanguages().containsKey(languageId)) {
+            logger.log(Level.WARNING, "...script language ''{0}'' is not supported", languageId);
+            return false;
+        }
+        Source source = getSource(languageId, script);
+        PooledContext pooledContext = acquireContext(languageId);
+        try {
+            pooledContext.context.parse(source);
+            return true;
+        } catch (PolyglotException e) {
+            throw new PluginException(RuleEngine.class.getSimpleName(), INVALID_SCRIPT,
+                    "BusinessRule contains invalid script:" + e.getMessage(), e);
+        } finally {
+            releaseContext(pooledContext);
+        }
+    }
+
     /**
      * This method evaluates a boolean expression. An optional documentContext can
      * be provided as member Variables to be used by the script
@@ -178,36 +414,39 @@ public class RuleEngine {
         if ("".equals(script.trim()))
             return false; // nothing to do
 
-        // set member variables...
-        if (workitem != null) {
-            putMember("workitem", workitem);
-        }
-
         if (debug) {
             logger.log(Level.FINEST, "......SCRIPT:{0}", script);
         }
 
         // Test if we have a deprecated Script...
-        if (RuleEngineNashornConverter.isDeprecatedScript(script)) {
+        if (isDeprecatedScript(script)) {
             // here we rewrite the script as best as we can.
-            script = RuleEngineNashornConverter.rewrite(script, workitem, null);            
+            script = rewrite(script, workitem, null);            
+        }
+
+        // fast path for simple expressions
+        if (workitem != null && _context == null) {
+            Predicate<ItemCollection> expression = getCompiledExpression(script);
+            if (expression != null) {
+                return expression.test(workitem);
+            }
+        }
+
+        // set member variables...
+        Map<String, Object> members = new LinkedHashMap<>(2);
+        if (workitem != null) {
+            members.put("workitem", workitem);
         }
 
-        Value result = null;
         try {
-            result = eval(script);
+            return evaluate(script, members,
+                    (context, result) -> result.isBoolean() ? result.asBoolean() : false);
         } catch (PolyglotException e) {
             logger.log(Level.WARNING, "Script Error in: {0}", script);
             // script not valid
             throw new PluginException(RuleEngine.class.getSimpleName(), INVALID_SCRIPT,
                     "BusinessRule contains invalid script:" + e.getMessage(), e);
         }
-
-        if (result.isBoolean()) {
-            return result.asBoolean();
-        } else {
-            return false;
-        }
     }
 
     /**
@@ -231,11 +470,12 @@ public class RuleEngine {
             return null; // nothing to do
 
         // set member variables...
+        Map<String, Object> members = new LinkedHashMap<>(2);
         if (workitem != null) {
-            putMember("workitem", workitem);
+            members.put("workitem", workitem);
         }
         if (event != null) {
-            putMember("event", event);
+            members.put("event", event);
         }
 
         if (debug) {
@@ -243,17 +483,15 @@ public class RuleEngine {
         }
 
         // Test if we have a deprecated Script...
-        if (RuleEngineNashornConverter.isDeprecatedScript(script)) {
+        if (isDeprecatedScript(script)) {
             // here we rewrite the script as best as we can.
-            script = RuleEngineNashornConverter.rewrite(script, workitem, event);
+            script = rewrite(script, workitem, event);
         }
 
         // evaluate the script....
         try {
-            eval(script);
             // try to convert the result object, if provided...
-            ItemCollection result = convertResult();
-            return result;
+            return evaluate(script, members, (context, value) -> convertResult());
         } catch (PolyglotException e) {
             logger.log(Level.WARNING, "Script Error: {0} in: {1}", new Object[]{e.getMessage(), script});
             // script not valid
@@ -269,6 +507,9 @@ public class RuleEngine {
      * holding the values of the map.
      * 
      * <code> var result={};result.name='xxx';result.count=42; <code>
+     * <p>
+     * The method is called by evaluateBusinessRule while the context of the
+     * evaluation is bound to the current thread.
      * 
      * @param engine
      * @return ItemCollection holding the item values of the variable or null if no
@@ -276,10 +517,11 @@ public class RuleEngine {
      *         properties.
      */
     public ItemCollection convertResult() {
+        Context context = getContext();
 
         // do we have a result object?
-        Value resultValue = getContext().getBindings(languageId).getMember("result");
-        if (resultValue == null) {
+        Value resultValue = context.getBindings(languageId).getMember("result");
+        if (resultValue == null || resultValue.isNull()) {
             return null;
         }
 
@@ -318,6 +560,219 @@ public class RuleEngine {
         return result;
     }
 
+    /**
+     * Returns true if the script is a deprecated Nashorn script. The result of the
+     * detection is cached.
+     */
+    private static boolean isDeprecatedScript(String script) {
+        Boolean deprecated = deprecatedScripts.get(script);
+        if (deprecated == null) {
+            deprecated = RuleEngineNashornConverter.isDeprecatedScript(script);
+            deprecatedScripts.put(script, deprecated);
+        }
+        return deprecated;
+    }
+
+    /**
+     * Returns the compiled form of a boolean expression or null if the expression
+     * is not supported by the RuleEngineExpressionCompiler. Only JavaScript
+     * expressions are compiled.
+     */
+    private Predicate<ItemCollection> getCompiledExpression(String script) {
+        if (!DEFAULT_LANGUAGE_ID.equals(languageId)) {
+            return null;
+        }
+        Predicate<ItemCollection> expression = compiledExpressions.get(script);
+        if (expression == null) {
+            expression = RuleEngineExpressionCompiler.compile(script);
+            if (expression == null) {
+                expression = NOT_COMPILED;
+            }
+            compiledExpressions.put(script, expression);
+        }
+        return (expression == NOT_COMPILED) ? null : expression;
+    }
+
+    /**
+     * Rewrites a deprecated script. The rewritten script is cached by the rewrite
+     * key of the RuleEngineNashornConverter.
+     */
+    private static String rewrite(String script, ItemCollection workitem, ItemCollection event) {
+        String key = RuleEngineNashornConverter.getRewriteKey(script, workitem, event);
+        if (key == null) {
+            return RuleEngineNashornConverter.rewrite(script, workitem, event);
+        }
+        String result = rewrittenScripts.get(key);
+        if (result == null) {
+            result = RuleEngineNashornConverter.rewrite(script, workitem, event);
+            rewrittenScripts.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a cached Source object for a script. The Source objects are shared
+     * by all contexts of the common engine. This allows the engine to reuse the
+     * parsed and compiled code.
+     */
+    private static Source getSource(String languageId, String script) {
+        Map<String, Source> sources = sourceCache.computeIfAbsent(languageId,
+                k -> Collections.synchronizedMap(new LinkedHashMap<String, Source>(64, 0.75f, true) {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, Source> eldest) {
+                        return size() > SOURCE_CACHE_SIZE;
+                    }
+                }));
+        Source source = sources.get(script);
+        if (source == null) {
+            source = Source.create(languageId, script);
+            sources.put(script, source);
+        }
+        return source;
+    }
+
+    /**
+     * Takes a context from the pool or creates a new context.
+     */
+    private static PooledContext acquireContext(String languageId) {
+        Deque<PooledContext> pool = contextPool.get(languageId);
+        PooledContext pooledContext = (pool == null) ? null : pool.pollFirst();
+        if (pooledContext != null) {
+            pooledContexts.decrementAndGet();
+            pooledContext.reused = true;
+            return pooledContext;
+        }
+        return newContext(languageId);
+    }
+
+    private static PooledContext newContext(String languageId) {
+        long l = System.currentTimeMillis();
+        Context context = Context.newBuilder(languageId) //
+                .engine(SharedEngine.INSTANCE) //
+                .allowAllAccess(true) //
+                .build();
+        Value verifier = null;
+        if (DEFAULT_LANGUAGE_ID.equals(languageId)) {
+            verifier = context.eval(BUILTINS_VERIFIER);
+        }
+        PooledContext pooledContext = new PooledContext(languageId, context, verifier);
+        logger.log(Level.FINE, "...init RuleEngine context took {0}ms", System.currentTimeMillis() - l);
+        return pooledContext;
+    }
+
+    /**
+     * Resets a context and returns it into the pool. The context is closed if it
+     * can not be reused or the pool is full.
+     */
+    private static void releaseContext(PooledContext pooledContext) {
+        if (pooledContext.verify() && pooledContext.reset()) {
+            if (pooledContexts.incrementAndGet() <= POOL_SIZE) {
+                contextPool.computeIfAbsent(pooledContext.languageId, k -> new ConcurrentLinkedDeque<>())
+                        .offerFirst(pooledContext);
+                return;
+            }
+            pooledContexts.decrementAndGet();
+        }
+        pooledContext.context.close();
+    }
+
+    /**
+     * A pooled context with the member keys available after the context was
+     * created. The verifier provides the JavaScript helper functions to verify
+     * the built-in objects. Only contexts with a verifier can be reused.
+     * <p>
+     * The snapshot of the built-in objects is taken once when the context is
+     * created. As a context is only reused if its built-in objects are unchanged,
+     * the snapshot stays valid for all following evaluations.
+     */
+    private static class PooledContext {
+        final String languageId;
+        final Context context;
+        final Set<String> initialMembers;
+        final Value verifier;
+        // verifies the built-in objects against the snapshot
+        final Value unchanged;
+        boolean reused = false;
+        boolean reusable;
+
+        PooledContext(String languageId, Context context, Value verifier) {
+            this.languageId = languageId;
+            this.context = context;
+            this.verifier = verifier;
+            this.reusable = (verifier != null);
+            this.unchanged = reusable ? verifier.getMember("snapshot").execute() : null;
+            this.initialMembers = new HashSet<>(context.getBindings(languageId).getMemberKeys());
+        }
+
+        /**
+         * Returns true if the context can be reused. The built-in objects are
+         * compared with the snapshot taken when the context was created.
+         */
+        boolean verify() {
+            if (reusable) {
+                try {
+                    reusable = unchanged.execute().asBoolean();
+                } catch (RuntimeException e) {
+                    reusable = false;
+                }
+                if (!reusable) {
+                    logger.log(Level.FINEST, "......built-in objects changed, context will not be reused");
+                }
+            }
+            return reusable;
+        }
+
+        /**
+         * Removes all members added since the context was created. Members which
+         * can not be removed (e.g. variables declared by a script) are set to
+         * undefined. Returns false if a member can not be reset or is a lexical
+         * declaration (let, const, class) which would conflict with the next
+         * script.
+         */
+        boolean reset() {
+            try {
+                Value bindings = context.getBindings(languageId);
+                Value undefined = null;
+                for (String key : new ArrayList<>(bindings.getMemberKeys())) {
+                    if (initialMembers.contains(key)) {
+                        continue;
+                    }
+                    if (!verifier.getMember("isGlobalProperty").execute(key).asBoolean()) {
+                        // a lexical declaration can not be removed
+                        return false;
+                    }
+                    try {
+                        if (bindings.removeMember(key)) {
+                            continue;
+                        }
+                    } catch (UnsupportedOperationException e) {
+                        // not removable
+                    }
+                    if (undefined == null) {
+                        undefined = bindings.getMember("undefined");
+                    }
+                    bindings.putMember(key, undefined);
+                }
+                return true;
+            } catch (RuntimeException e) {
+                // e.g. a constant - the context can not be reused
+                logger.log(Level.FINEST, "......context can not be reset: {0}", e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Lazy holder of the polyglot engine shared by all contexts.
+     */
+    private static class SharedEngine {
+        static final Engine INSTANCE = Engine.newBuilder() //
+                .option("engine.WarnInterpreterOnly", "false") //
+                .build();
+    }
+
     private static boolean isBasicObjectType(Class<?> clazz) {
         return BASIC_OBJECT_TYPES.contains(clazz);
     }
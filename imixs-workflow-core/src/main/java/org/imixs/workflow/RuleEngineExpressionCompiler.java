@@ -0,0 +1,594 @@
+/*
+ *  Imixs-Workflow
+ *
+ *  Copyright (C) 2001-2020 Imixs Software Solutions GmbH,
+ *  http://www.imixs.com
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 2
+ *  of the License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You can receive a copy of the GNU General Public
+ *  License at http://www.gnu.org/licenses/gpl.html
+ *
+ *  Project:
+ *      https://www.imixs.org
+ *      https://github.com/imixs/imixs-workflow
+ *
+ *  Contributors:
+ *      Imixs Software Solutions GmbH - Project Management
+ *      Ralph Soika - Software Developer
+ */
+
+package org.imixs.workflow;
+
+import java.math.BigInteger;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * The RuleEngineExpressionCompiler compiles simple boolean expressions into a
+ * Java Predicate. A compiled expression is evaluated directly on the
+ * ItemCollection without a script context. The RuleEngine uses compiled
+ * expressions as a fast path for conditions.
+ * <p>
+ * The compiler supports the following subset of JavaScript:
+ * <ul>
+ * <li>item reads like {@code workitem.getItemValueString('name')} with the
+ * methods getItemValueString, getItemValueInteger, getItemValueLong,
+ * getItemValueFloat, getItemValueDouble, getItemValueBoolean, hasItem,
+ * isItemEmpty and isItemValueInteger/Long/Float/Double/Numeric/Date</li>
+ * <li>string, number, boolean and null literals</li>
+ * <li>the comparison operators ==, !=, ===, !==, &lt;, &lt;=, &gt; and
+ * &gt;=</li>
+ * <li>the logical operators &amp;&amp;, || and ! and parentheses</li>
+ * </ul>
+ * The operators follow the JavaScript semantics for type conversion. For all
+ * other scripts the method {@link #compile(String)} returns null and the
+ * script has to be evaluated by the script engine.
+ * 
+ * @author rsoika
+ * @version 1.0
+ */
+public class RuleEngineExpressionCompiler {
+
+    private static final Pattern DECIMAL_PATTERN = Pattern
+            .compile("[+-]?(?:(?:\\d+\\.?\\d*|\\.\\d+)(?:[eE][+-]?\\d+)?|Infinity)");
+    private static final Pattern HEX_PATTERN = Pattern.compile("0[xX][0-9a-fA-F]+");
+    private static final Pattern OCTAL_PATTERN = Pattern.compile("0[oO][0-7]+");
+    private static final Pattern BINARY_PATTERN = Pattern.compile("0[bB][01]+");
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private RuleEngineExpressionCompiler() {
+    }
+
+    /**
+     * Compiles a boolean expression into a Predicate. The predicate returns true
+     * only if the expression evaluates to the boolean value true.
+     * 
+     * @param script - boolean expression
+     * @return compiled predicate or null if the script is not supported
+     */
+    public static Predicate<ItemCollection> compile(String script) {
+        if (script == null) {
+            return null;
+        }
+        Expression expression = new Parser(script).parse();
+        if (expression == null) {
+            return null;
+        }
+        return workitem -> Boolean.TRUE.equals(expression.evaluate(workitem));
+    }
+
+    /**
+     * A compiled expression. Values are represented as String, Double, Boolean
+     * or null.
+     */
+    @FunctionalInterface
+    private interface Expression {
+        Object evaluate(ItemCollection workitem);
+    }
+
+    /**
+     * Thrown by the parser if a script is not supported.
+     */
+    private static class UnsupportedExpressionException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedExpressionException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * A recursive descent parser building the compiled expression.
+     */
+    private static class Parser {
+        private final String script;
+        private int pos = 0;
+
+        Parser(String script) {
+            this.script = script;
+        }
+
+        /**
+         * Returns the compiled expression or null if the script is not supported.
+         */
+        Expression parse() {
+            try {
+                Expression expression = parseOr();
+                skipWhitespace();
+                if (pos < script.length() && script.charAt(pos) == ';') {
+                    pos++;
+                    skipWhitespace();
+                }
+                if (pos < script.length()) {
+                    return null;
+                }
+                return expression;
+            } catch (UnsupportedExpressionException e) {
+                return null;
+            }
+        }
+
+        private Expression parseOr() {
+            Expression left = parseAnd();
+            while (match("||")) {
+                Expression first = left;
+                Expression second = parseAnd();
+                left = workitem -> {
+                    Object value = first.evaluate(workitem);
+                    return toBoolean(value) ? value : second.evaluate(workitem);
+                };
+            }
+            return left;
+        }
+
+        private Expression parseAnd() {
+            Expression left = parseEquality();
+            while (match("&&")) {
+                Expression first = left;
+                Expression second = parseEquality();
+                left = workitem -> {
+                    Object value = first.evaluate(workitem);
+                    return toBoolean(value) ? second.evaluate(workitem) : value;
+                };
+            }
+            return left;
+        }
+
+        private Expression parseEquality() {
+            Expression left = parseRelational();
+            while (true) {
+                Expression first = left;
+                if (match("===")) {
+                    Expression second = parseRelational();
+                    left = workitem -> strictEquals(first.evaluate(workitem), second.evaluate(workitem));
+                } else if (match("!==")) {
+                    Expression second = parseRelational();
+                    left = workitem -> !strictEquals(first.evaluate(workitem), second.evaluate(workitem));
+                } else if (match("==")) {
+                    Expression second = parseRelational();
+                    left = workitem -> looseEquals(first.evaluate(workitem), second.evaluate(workitem));
+                } else if (match("!=")) {
+                    Expression second = parseRelational();
+                    left = workitem -> !looseEquals(first.evaluate(workitem), second.evaluate(workitem));
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private Expression parseRelational() {
+            Expression left = parseUnary();
+            while (true) {
+                skipWhitespace();
+                if (pos >= script.length()) {
+                    return left;
+                }
+                char c = script.charAt(pos);
+                if (c != '<' && c != '>') {
+                    return left;
+                }
+                char next = pos + 1 < script.length() ? script.charAt(pos + 1) : 0;
+                if (next == c) {
+                    // shift operator
+                    throw new UnsupportedExpressionException();
+                }
+                boolean orEqual = next == '=';
+                pos += orEqual ? 2 : 1;
+                Expression first = left;
+                Expression second = parseUnary();
+                int sign = (c == '<') ? -1 : 1;
+                left = workitem -> compare(first.evaluate(workitem), second.evaluate(workitem), sign, orEqual);
+            }
+        }
+
+        private Expression parseUnary() {
+            skipWhitespace();
+            if (pos < script.length() && script.charAt(pos) == '!' && !script.startsWith("!=", pos)) {
+                pos++;
+                Expression operand = parseUnary();
+                return workitem -> !toBoolean(operand.evaluate(workitem));
+            }
+            return parsePrimary();
+        }
+
+        private Expression parsePrimary() {
+            skipWhitespace();
+            if (pos >= script.length()) {
+                throw new UnsupportedExpressionException();
+            }
+            char c = script.charAt(pos);
+            if (c == '(') {
+                pos++;
+                Expression expression = parseOr();
+                expect(')');
+                return expression;
+            }
+            if (c == '\'' || c == '"') {
+                String value = readString();
+                return workitem -> value;
+            }
+            if (c == '-' || c == '.' || (c >= '0' && c <= '9')) {
+                Double value = readNumber();
+                return workitem -> value;
+            }
+            String identifier = readIdentifier();
+            switch (identifier) {
+            case "true":
+                return workitem -> Boolean.TRUE;
+            case "false":
+                return workitem -> Boolean.FALSE;
+            case "null":
+                return workitem -> null;
+            case "workitem":
+                return parseItemRead();
+            default:
+                throw new UnsupportedExpressionException();
+            }
+        }
+
+        /**
+         * Parses a method call like {@code .getItemValueString('name')}
+         */
+        private Expression parseItemRead() {
+            expect('.');
+            skipWhitespace();
+            String method = readIdentifier();
+            expect('(');
+            skipWhitespace();
+            if (pos >= script.length() || (script.charAt(pos) != '\'' && script.charAt(pos) != '"')) {
+                throw new UnsupportedExpressionException();
+            }
+            String itemName = readString();
+            expect(')');
+            switch (method) {
+            case "getItemValueString":
+                return workitem -> workitem.getItemValueString(itemName);
+            case "getItemValueInteger":
+                return workitem -> Double.valueOf(workitem.getItemValueInteger(itemName));
+            case "getItemValueLong":
+                return workitem -> Double.valueOf(workitem.getItemValueLong(itemName));
+            case "getItemValueFloat":
+                return workitem -> Double.valueOf(workitem.getItemValueFloat(itemName));
+            case "getItemValueDouble":
+                return workitem -> Double.valueOf(workitem.getItemValueDouble(itemName));
+            case "getItemValueBoolean":
+                return workitem -> workitem.getItemValueBoolean(itemName);
+            case "hasItem":
+                return workitem -> workitem.hasItem(itemName);
+            case "isItemEmpty":
+                return workitem -> workitem.isItemEmpty(itemName);
+            case "isItemValueInteger":
+                return workitem -> workitem.isItemValueInteger(itemName);
+            case "isItemValueLong":
+                return workitem -> workitem.isItemValueLong(itemName);
+            case "isItemValueFloat":
+                return workitem -> workitem.isItemValueFloat(itemName);
+            case "isItemValueDouble":
+                return workitem -> workitem.isItemValueDouble(itemName);
+            case "isItemValueNumeric":
+                return workitem -> workitem.isItemValueNumeric(itemName);
+            case "isItemValueDate":
+                return workitem -> workitem.isItemValueDate(itemName);
+            default:
+                throw new UnsupportedExpressionException();
+            }
+        }
+
+        private String readIdentifier() {
+            int start = pos;
+            while (pos < script.length()) {
+                char c = script.charAt(pos);
+                if (Character.isLetterOrDigit(c) || c == '_' || c == '$') {
+                    pos++;
+                } else {
+                    break;
+                }
+            }
+            if (pos == start || Character.isDigit(script.charAt(start))) {
+                throw new UnsupportedExpressionException();
+            }
+            return script.substring(start, pos);
+        }
+
+        /**
+         * Reads a decimal number literal. An optional minus sign is part of the
+         * literal.
+         */
+        private Double readNumber() {
+            int start = pos;
+            if (script.charAt(pos) == '-') {
+                pos++;
+                skipWhitespace();
+            }
+            int digits = pos;
+            while (pos < script.length() && Character.isDigit(script.charAt(pos))) {
+                pos++;
+            }
+            if (pos - digits > 1 && script.charAt(digits) == '0') {
+                // legacy octal literal
+                throw new UnsupportedExpressionException();
+            }
+            if (pos < script.length() && script.charAt(pos) == '.') {
+                pos++;
+                while (pos < script.length() && Character.isDigit(script.charAt(pos))) {
+                    pos++;
+                }
+            }
+            if (pos < script.length() && (script.charAt(pos) == 'e' || script.charAt(pos) == 'E')) {
+                pos++;
+                if (pos < script.length() && (script.charAt(pos) == '+' || script.charAt(pos) == '-')) {
+                    pos++;
+                }
+                while (pos < script.length() && Character.isDigit(script.charAt(pos))) {
+                    pos++;
+                }
+            }
+            if (pos < script.length()) {
+                char c = script.charAt(pos);
+                if (Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '.') {
+                    throw new UnsupportedExpressionException();
+                }
+            }
+            String literal = script.substring(digits, pos);
+            if (!DECIMAL_PATTERN.matcher(literal).matches() || literal.startsWith("+")
+                    || literal.startsWith("-")) {
+                throw new UnsupportedExpressionException();
+            }
+            double value = Double.parseDouble(literal);
+            return (script.charAt(start) == '-') ? -value : value;
+        }
+
+        /**
+         * Reads a string literal in single or double quotes.
+         */
+        private String readString() {
+            char quote = script.charAt(pos++);
+            StringBuilder value = new StringBuilder();
+            while (pos < script.length()) {
+                char c = script.charAt(pos++);
+                if (c == quote) {
+                    return value.toString();
+                }
+                if (c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029') {
+                    throw new UnsupportedExpressionException();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (pos >= script.length()) {
+                    break;
+                }
+                c = script.charAt(pos++);
+                switch (c) {
+                case '\\':
+                case '\'':
+                case '"':
+                    value.append(c);
+                    break;
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'v':
+                    value.append('\u000B');
+                    break;
+                case 'u':
+                    if (pos + 4 > script.length()) {
+                        throw new UnsupportedExpressionException();
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(script.substring(pos, pos + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw new UnsupportedExpressionException();
+                    }
+                    pos += 4;
+                    break;
+                default:
+                    throw new UnsupportedExpressionException();
+                }
+            }
+            // unterminated string
+            throw new UnsupportedExpressionException();
+        }
+
+        private boolean match(String operator) {
+            skipWhitespace();
+            if (script.startsWith(operator, pos)) {
+                pos += operator.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            skipWhitespace();
+            if (pos >= script.length() || script.charAt(pos) != c) {
+                throw new UnsupportedExpressionException();
+            }
+            pos++;
+        }
+
+        private void skipWhitespace() {
+            while (pos < script.length()) {
+                char c = script.charAt(pos);
+                if (isWhitespace(c)) {
+                    pos++;
+                } else {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true for JavaScript white space and line terminators
+     */
+    static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\u000B' || c == '\f' || c == '\u00A0'
+                || c == '\uFEFF' || c == '\u2028' || c == '\u2029'
+                || Character.getType(c) == Character.SPACE_SEPARATOR;
+    }
+
+    /**
+     * Converts a value into a boolean (JavaScript ToBoolean)
+     */
+    static boolean toBoolean(Object value) {
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof Double) {
+            double d = (Double) value;
+            return d != 0 && !Double.isNaN(d);
+        }
+        return !((String) value).isEmpty();
+    }
+
+    /**
+     * Converts a value into a number (JavaScript ToNumber)
+     */
+    static double toNumber(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Double) {
+            return (Double) value;
+        }
+        if (value instanceof Boolean) {
+            return ((Boolean) value) ? 1 : 0;
+        }
+        String s = (String) value;
+        int start = 0;
+        int end = s.length();
+        while (start < end && isWhitespace(s.charAt(start))) {
+            start++;
+        }
+        while (end > start && isWhitespace(s.charAt(end - 1))) {
+            end--;
+        }
+        s = s.substring(start, end);
+        if (s.isEmpty()) {
+            return 0;
+        }
+        if (DECIMAL_PATTERN.matcher(s).matches()) {
+            return Double.parseDouble(s);
+        }
+        if (HEX_PATTERN.matcher(s).matches()) {
+            return new BigInteger(s.substring(2), 16).doubleValue();
+        }
+        if (OCTAL_PATTERN.matcher(s).matches()) {
+            return new BigInteger(s.substring(2), 8).doubleValue();
+        }
+        if (BINARY_PATTERN.matcher(s).matches()) {
+            return new BigInteger(s.substring(2), 2).doubleValue();
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * The JavaScript operator ===
+     */
+    static boolean strictEquals(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        if (a.getClass() != b.getClass()) {
+            return false;
+        }
+        if (a instanceof Double) {
+            return ((Double) a).doubleValue() == ((Double) b).doubleValue();
+        }
+        return a.equals(b);
+    }
+
+    /**
+     * The JavaScript operator ==
+     */
+    static boolean looseEquals(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        if (a.getClass() == b.getClass()) {
+            return strictEquals(a, b);
+        }
+        if (a instanceof Boolean) {
+            return looseEquals(toNumber(a), b);
+        }
+        if (b instanceof Boolean) {
+            return looseEquals(a, toNumber(b));
+        }
+        // number and string
+        return toNumber(a) == toNumber(b);
+    }
+
+    /**
+     * The JavaScript relational operators. Two strings are compared by their
+     * UTF-16 code units, all other values are compared as numbers.
+     * 
+     * @param sign    - -1 for &lt; and 1 for &gt;
+     * @param orEqual - true for &lt;= and &gt;=
+     */
+    static boolean compare(Object a, Object b, int sign, boolean orEqual) {
+        if (a instanceof String && b instanceof String) {
+            int result = Integer.signum(((String) a).compareTo((String) b));
+            return result == sign || (orEqual && result == 0);
+        }
+        double x = toNumber(a);
+        double y = toNumber(b);
+        if (Double.isNaN(x) || Double.isNaN(y)) {
+            return false;
+        }
+        int result = Double.compare(x, y);
+        if (x == y) {
+            // -0 and 0
+            result = 0;
+        }
+        return result == sign || (orEqual && result == 0);
+    }
+
+}
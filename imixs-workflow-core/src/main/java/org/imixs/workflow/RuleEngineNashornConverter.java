@@ -30,6 +30,8 @@ package org.imixs.workflow;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -45,6 +47,7 @@ import java.util.regex.Pattern;
 public class RuleEngineNashornConverter {
 
     private static final Logger logger = Logger.getLogger(RuleEngineNashornConverter.class.getName());
+    private static final Pattern ITEM_ACCESS_PATTERN = Pattern.compile("workitem\\['[._\\w]+'\\]");
 
     /**
      * This method returns true if the script is detected as deprecated. A
@@ -90,9 +93,7 @@ public class RuleEngineNashornConverter {
 
         // test for things like  workitem['space.team']  or  workitem['space.team'][0]
         // workitem\['\w+'\]
-        String regex = "workitem\\['[._\\w]+'\\]";
-        Pattern pattern = Pattern.compile(regex);
-        Matcher matcher = pattern.matcher(script);
+        Matcher matcher = ITEM_ACCESS_PATTERN.matcher(script);
         if (matcher.find()) {
             return true;
         }
@@ -138,6 +139,78 @@ public class RuleEngineNashornConverter {
 
     }
 
+    /**
+     * Returns a key identifying the result of the method rewrite for a script and
+     * the given workitem and event. The result of a rewrite only depends on the
+     * script and the names and types of the items referred by the script. So two
+     * calls with the same key return the same rewritten script.
+     * <p>
+     * The method returns null if the result can not be identified by a key.
+     * 
+     * @param script
+     * @param workitem
+     * @param event
+     * @return key or null
+     */
+    public static String getRewriteKey(String script, ItemCollection workitem, ItemCollection event) {
+        if (script.contains("workitem.get(") || script.contains("event.get(")) {
+            // depends on the first item of the context
+            return null;
+        }
+        StringBuilder key = new StringBuilder(script);
+        appendRewriteKey(key, script, workitem, "workitem");
+        appendRewriteKey(key, script, event, "event");
+        return key.toString();
+    }
+
+    /**
+     * Appends the names and types of all items referred by the script.
+     */
+    private static void appendRewriteKey(StringBuilder key, String script, ItemCollection documentContext,
+            String contextName) {
+        if (documentContext == null) {
+            return;
+        }
+        key.append('\n').append(contextName);
+        if (!script.contains(contextName)) {
+            return;
+        }
+        String dotPrefix = contextName + ".";
+        String bracketPrefix = contextName + "['";
+        Set<String> itemNames = new TreeSet<>();
+        for (String itemName : documentContext.getItemNameSet()) {
+            if (isReferred(script, itemName, dotPrefix, bracketPrefix)) {
+                itemNames.add(itemName);
+            }
+        }
+        for (String itemName : itemNames) {
+            key.append('|').append(itemName).append(documentContext.isItemValueNumeric(itemName) ? '#' : '$');
+        }
+    }
+
+    /**
+     * Returns true if the script contains the phrase {@code workitem.itemName} or
+     * {@code workitem['itemName']}. The method avoids to build the phrases for
+     * each item name.
+     */
+    private static boolean isReferred(String script, String itemName, String dotPrefix, String bracketPrefix) {
+        if (itemName.isEmpty()) {
+            return script.contains(dotPrefix) || script.contains(bracketPrefix + "']");
+        }
+        int i = script.indexOf(itemName);
+        while (i >= 0) {
+            if (script.startsWith(dotPrefix, i - dotPrefix.length())) {
+                return true;
+            }
+            if (script.startsWith(bracketPrefix, i - bracketPrefix.length())
+                    && script.startsWith("']", i + itemName.length())) {
+                return true;
+            }
+            i = script.indexOf(itemName, i + 1);
+        }
+        return false;
+    }
+
     /**
      * This is a helper method to convert a ItemCollection into a java script object
      * according to the deprecated JavaScript engine Nashorn
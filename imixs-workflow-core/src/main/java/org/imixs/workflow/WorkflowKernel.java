@@ -42,11 +42,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.Vector;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.imixs.workflow.bpmn.BPMNEntityBuilder;
-import org.imixs.workflow.bpmn.BPMNLinkedFlowIterator;
 import org.imixs.workflow.bpmn.BPMNUtil;
 import org.imixs.workflow.exceptions.AdapterException;
 import org.imixs.workflow.exceptions.ModelException;
@@ -217,6 +217,23 @@ public class WorkflowKernel {
         pluginRegistry.add(plugin);
     }
 
+    /**
+     * This method registers a list of plugins which were already validated by a
+     * previous registration. Each plugin is initialized with the current
+     * WorkflowContext. The method can be used to reuse the plugin instances of a
+     * previous processing cycle. The caller is responsible to reset a reused
+     * plugin instance (see {@link Plugin#reset()}).
+     * 
+     * @param plugins - list of validated plugins
+     * @throws PluginException
+     */
+    public void registerPlugins(final List<Plugin> plugins) throws PluginException {
+        for (Plugin plugin : plugins) {
+            plugin.init(ctx);
+            pluginRegistry.add(plugin);
+        }
+    }
+
     /**
      * Returns true if the plugin with the classname is already registered.
      * 
@@ -256,17 +273,27 @@ public class WorkflowKernel {
         if ((pluginClass != null) && (!"".equals(pluginClass))) {
             if (logger.isLoggable(Level.FINEST))
                 logger.log(Level.FINEST, "......register plugin class: {0}...", pluginClass);
+            registerPlugin(createPlugin(pluginClass));
+        }
+    }
 
-            Class<?> clazz = null;
-            try {
-                clazz = Class.forName(pluginClass);
-                Plugin plugin = (Plugin) clazz.getDeclaredConstructor().newInstance();
-                registerPlugin(plugin);
-            } catch (ClassNotFoundException | NoSuchMethodException | SecurityException | InstantiationException
-                    | IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-                throw new PluginException(WorkflowKernel.class.getSimpleName(), PLUGIN_NOT_CREATEABLE,
-                        "unable to register plugin: " + pluginClass + " - reason: " + e.toString(), e);
-            }
+    /**
+     * This method creates a new plugin instance by its class name. The plugin is
+     * not registered. The method throws a PluginException if the plugin class can
+     * not be created.
+     * 
+     * @param pluginClass
+     * @return new plugin instance
+     * @throws PluginException
+     */
+    public Plugin createPlugin(final String pluginClass) throws PluginException {
+        try {
+            Class<?> clazz = Class.forName(pluginClass);
+            return (Plugin) clazz.getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException | NoSuchMethodException | SecurityException | InstantiationException
+                | IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+            throw new PluginException(WorkflowKernel.class.getSimpleName(), PLUGIN_NOT_CREATEABLE,
+                    "unable to register plugin: " + pluginClass + " - reason: " + e.toString(), e);
         }
     }
 
@@ -515,23 +542,20 @@ public class WorkflowKernel {
                     "BPMN Model Parallel Gateway expected!");
         }
 
-        // We need the follow Up Task and Event Nodes now to create the split Events
-        BPMNElementNode gatewayNode = model.findElementNodeById(parallelGateway.getItemValueString("id"));
-        BPMNLinkedFlowIterator<BPMNElementNode> splitElementNavigator = new BPMNLinkedFlowIterator<BPMNElementNode>(
-                gatewayNode,
-                node -> ((BPMNUtil.isImixsTaskElement(node)) || (BPMNUtil.isImixsEventElement(node))));
+        // We need the follow Up Task and Event Nodes now to create the split Events.
+        ModelManager modelManager = this.ctx.getModelManager();
+        String gatewayID = parallelGateway.getItemValueString("id");
+        List<ItemCollection> splitEntities = modelManager.findParallelGatewayTargets(model, parallelGateway);
         // now iterate all targets....
         boolean foundMainTask = false;
-        while (splitElementNavigator.hasNext()) {
-            BPMNElementNode nextSplitNode = splitElementNavigator.next();
-            ItemCollection splitItemCol = BPMNEntityBuilder.build(nextSplitNode);
+        for (ItemCollection splitItemCol : splitEntities) {
             // Test if the flow is a the Main SequenceFlow of the ParallelGateway.
-            boolean bMainFlow = this.ctx.getModelManager().isMainParallelGatewayFlow(gatewayNode, nextSplitNode,
+            boolean bMainFlow = modelManager.isMainParallelGatewayFlow(model, parallelGateway, splitItemCol,
                     workitem);
             if (bMainFlow) {
                 if (foundMainTask == true) {
                     throw new ModelException(ModelException.INVALID_MODEL_ENTRY,
-                            "BPMN Model Error: Parallel Gateway: " + gatewayNode.getId()
+                            "BPMN Model Error: Parallel Gateway: " + gatewayID
                                     + " - only one outcome can be directly linked to a task element! Missing Event element.");
                 }
                 foundMainTask = true;
@@ -562,7 +586,7 @@ public class WorkflowKernel {
         // if we did not have found a SplitEvent we throw a Model Exception!
         if (foundMainTask == false) {
             throw new ModelException(ModelException.INVALID_MODEL_ENTRY,
-                    "BPMN Model Error: Parallel Gateway: " + gatewayNode.getId()
+                    "BPMN Model Error: Parallel Gateway: " + gatewayID
                             + " - At least one outcome must be connected directly to a Task Element or evaluate to 'true'!");
         }
         // continue with normal flow
@@ -622,8 +646,13 @@ public class WorkflowKernel {
         String intermediateEventElementID = workitem.getItemValueString(WorkflowKernel.INTERMEDIATE_EVENT_ELEMENTID);
         int intermediateEvent = workitem.getItemValueInteger(WorkflowKernel.INTERMEDIATE_EVENTID);
         if (intermediateEvent > 0) {
-            BPMNElementNode intermediateEventElement = model.findElementNodeById(intermediateEventElementID);
-            event = BPMNEntityBuilder.build(intermediateEventElement);
+            ReentrantLock lock = this.ctx.getModelManager().lockModel(model);
+            try {
+                BPMNElementNode intermediateEventElement = model.findElementNodeById(intermediateEventElementID);
+                event = BPMNEntityBuilder.build(intermediateEventElement);
+            } finally {
+                lock.unlock();
+            }
         } else {
             event = this.ctx.getModelManager().loadEvent(workitem);
         }
@@ -30,21 +30,37 @@ package org.imixs.workflow.services.rest;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.net.HttpURLConnection;
+import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * The Imixs RestClient is a helper class for a Rest based communication without
@@ -56,16 +72,47 @@ import java.util.logging.Logger;
  * <p>
  * For a convinient way to access the Imixs-Rest API use the Imixs-Melman
  * project on Github.
+ * <p>
+ * By default each request opens a new HttpURLConnection. With the transport
+ * {@link Transport#HTTP_CLIENT} the client uses a shared
+ * java.net.http.HttpClient instead. The shared client keeps connections alive
+ * and reuses them across requests and RestClient instances, negotiates HTTP/2
+ * for https endpoints and accepts gzip compressed responses. In this mode the
+ * client also supports gzip compressed request bodies (see
+ * {@link #setGzipRequest(boolean)}) and asynchronous requests (see
+ * {@link #getAsync(String)} and {@link #postAsync(String, byte[], String, String)}).
+ * <p>
+ * Registered RequestFilters are supported by both transports.
  * 
  * @author Ralph Soika
  */
 public class RestClient {
 
+    /**
+     * The transport used to send a request.
+     */
+    public enum Transport {
+        /** a new HttpURLConnection for each request (default) */
+        URL_CONNECTION,
+        /** a shared java.net.http.HttpClient with keep-alive connections */
+        HTTP_CLIENT
+    }
+
+    public static final int CONNECT_TIMEOUT = 30;
+    public static final int REQUEST_TIMEOUT = 60;
+
+    // headers managed by the HttpClient
+    private static final Set<String> RESTRICTED_HEADERS = new HashSet<>(
+            Arrays.asList("connection", "content-length", "expect", "host", "upgrade"));
+
     private String serviceEndpoint;
     private Map<String, String> requestProperties = null;
     private String encoding = "UTF-8";
     private int iLastHTTPResult = 0;
     private String rootURL = null;
+    private Transport transport = Transport.URL_CONNECTION;
+    private boolean gzipRequest = false;
+    private int requestTimeout = REQUEST_TIMEOUT;
     private final static Logger logger = Logger.getLogger(RestClient.class.getName());
 
     protected List<RequestFilter> requestFilterList;
@@ -108,6 +155,62 @@ public class RestClient {
         return serviceEndpoint;
     }
 
+    public Transport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Set the transport used to send requests. The default transport is
+     * {@link Transport#URL_CONNECTION}.
+     * 
+     * @param transport
+     */
+    public void setTransport(Transport transport) {
+        this.transport = (transport == null) ? Transport.URL_CONNECTION : transport;
+    }
+
+    public boolean isGzipRequest() {
+        return gzipRequest;
+    }
+
+    /**
+     * If set to true, post requests send with the transport
+     * {@link Transport#HTTP_CLIENT} are gzip compressed. The server must support
+     * the request header 'Content-Encoding: gzip'.
+     * 
+     * @param gzipRequest
+     */
+    public void setGzipRequest(boolean gzipRequest) {
+        this.gzipRequest = gzipRequest;
+    }
+
+    public int getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    /**
+     * Set the timeout in seconds for a request send with the shared HttpClient
+     * (transport {@link Transport#HTTP_CLIENT} and asynchronous requests). If the
+     * response is not received within the timeout, the request fails with a
+     * RestAPIException. A value of 0 disables the timeout. The default timeout
+     * is 60 seconds.
+     * 
+     * @param requestTimeout - timeout in seconds
+     */
+    public void setRequestTimeout(int requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Returns the HttpClient shared by all RestClient instances using the
+     * transport {@link Transport#HTTP_CLIENT}.
+     * 
+     * @return shared HttpClient
+     */
+    public static HttpClient getHttpClient() {
+        return SharedHttpClient.INSTANCE;
+    }
+
     /**
      * This method builds the serviceEndpoint based on a given URI . The method
      * prafix the URI with the root uri if the uri starts with /
@@ -193,6 +296,16 @@ public class RestClient {
             acceptType = contentType;
         }
 
+        if (transport == Transport.HTTP_CLIENT) {
+            serviceEndpoint = uri;
+            iLastHTTPResult = 500;
+            try {
+                return send("POST", uri, dataString.getBytes(encoding), contentType, acceptType, false);
+            } catch (IOException ioe) {
+                throw postError(uri, ioe);
+            }
+        }
+
         HttpURLConnection urlConnection = null;
         try {
             serviceEndpoint = uri;
@@ -242,10 +355,7 @@ public class RestClient {
             }
 
         } catch (IOException ioe) {
-            String error = new StringBuilder("Error POST request '").append(uri).append(" - ")
-                    .append(ioe.getMessage()).toString();
-            logger.warning(error);
-            throw new RestAPIException(500, error, ioe);
+            throw postError(uri, ioe);
         } finally {
             // Release current connection
             if (printWriter != null)
@@ -296,6 +406,16 @@ public class RestClient {
             acceptType = contentType;
         }
 
+        if (transport == Transport.HTTP_CLIENT) {
+            serviceEndpoint = uri;
+            iLastHTTPResult = 500;
+            try {
+                return send("POST", uri, data, contentType, acceptType, true);
+            } catch (IOException ioe) {
+                throw postError(uri, ioe);
+            }
+        }
+
         HttpURLConnection urlConnection = null;
         try {
             serviceEndpoint = uri;
@@ -348,12 +468,7 @@ public class RestClient {
             }
 
         } catch (IOException ioe) {
-            String error = new StringBuilder("Error POST request '")
-                    .append(uri).append(" - ").append(ioe.getMessage()).toString();
-            logger.warning(error);
-            throw new RestAPIException(500, error, ioe);
-        } finally {
-
+            throw postError(uri, ioe);
         }
     }
 
@@ -377,6 +492,9 @@ public class RestClient {
 
         setServiceEndpoint(uri);
         try {
+            if (transport == Transport.HTTP_CLIENT) {
+                return send("GET", serviceEndpoint, null, null, null, true);
+            }
             HttpURLConnection urlConnection = (HttpURLConnection) new URL(serviceEndpoint).openConnection();
 
             // optional default is GET
@@ -410,14 +528,281 @@ public class RestClient {
                 throw new RestAPIException(iLastHTTPResult, error);
             }
         } catch (IOException e) {
-            String error = new StringBuilder("Error GET request from '")
-                    .append(uri).append(" - ").append(e.getMessage()).toString();
-            logger.warning(error);
-            throw new RestAPIException(0, error, e);
+            throw getError(uri, e);
+        }
+    }
+
+    /**
+     * Opens a GET request to a Rest Service URI Endpoint and returns the response
+     * body as a stream. In difference to the method {@link #get(String)} the
+     * response is not buffered in memory. The caller is responsible to close the
+     * stream.
+     * 
+     * @param uri - Rest Endpoint RUI
+     * @return response stream
+     * @throws RestAPIException
+     */
+    public InputStream getInputStream(String uri) throws RestAPIException {
+        setServiceEndpoint(uri);
+        try {
+            if (transport == Transport.HTTP_CLIENT) {
+                HttpResponse<InputStream> response = execute(
+                        buildRequest("GET", serviceEndpoint, null, null, null, true));
+                iLastHTTPResult = response.statusCode();
+                InputStream in = getResponseStream(response.headers(), response.body());
+                if (iLastHTTPResult < 200 || iLastHTTPResult > 299) {
+                    in.close();
+                    throw httpError("GET", uri, iLastHTTPResult);
+                }
+                return in;
+            }
 
+            HttpURLConnection urlConnection = (HttpURLConnection) new URL(serviceEndpoint).openConnection();
+            urlConnection.setRequestMethod("GET");
+            urlConnection.setDoInput(true);
+            urlConnection.setAllowUserInteraction(false);
+            if (requestProperties != null) {
+                for (Map.Entry<String, String> entry : requestProperties.entrySet()) {
+                    urlConnection.setRequestProperty(entry.getKey(), entry.getValue());
+                }
+            }
+            for (RequestFilter filter : requestFilterList) {
+                filter.filter(urlConnection);
+            }
+            iLastHTTPResult = urlConnection.getResponseCode();
+            if (iLastHTTPResult < 200 || iLastHTTPResult > 299) {
+                urlConnection.disconnect();
+                throw httpError("GET", uri, iLastHTTPResult);
+            }
+            return urlConnection.getInputStream();
+        } catch (IOException e) {
+            throw getError(uri, e);
         }
     }
 
+    /**
+     * Sends an asynchronous GET request to a Rest Service URI Endpoint using the
+     * shared HttpClient. The request is send independent from the configured
+     * transport. In case of an error the returned future completes exceptionally
+     * with a RestAPIException.
+     * <p>
+     * Note: the method does not update the last HTTP result.
+     * 
+     * @param uri - Rest Endpoint RUI
+     * @return future completed with the content
+     * @throws RestAPIException if the request can not be build
+     */
+    public CompletableFuture<String> getAsync(String uri) throws RestAPIException {
+        setServiceEndpoint(uri);
+        try {
+            return executeAsync(buildRequest("GET", serviceEndpoint, null, null, null, true), "GET", uri);
+        } catch (IOException e) {
+            throw getError(uri, e);
+        }
+    }
+
+    /**
+     * Sends an asynchronous POST request with a byte array to a Rest Service URI
+     * Endpoint using the shared HttpClient. The request is send independent from
+     * the configured transport. In case of an error the returned future completes
+     * exceptionally with a RestAPIException.
+     * <p>
+     * Note: the method does not update the last HTTP result.
+     * 
+     * @param uri         - Rest Endpoint URI
+     * @param data        - content
+     * @param contentType - request MediaType
+     * @param acceptType  - accept MediaType
+     * @return future completed with the content
+     * @throws RestAPIException if the request can not be build
+     */
+    public CompletableFuture<String> postAsync(String uri, byte[] data, String contentType, String acceptType)
+            throws RestAPIException {
+        if (contentType == null || contentType.isEmpty()) {
+            contentType = "application/xml";
+        }
+        if (acceptType == null || acceptType.isEmpty()) {
+            acceptType = contentType;
+        }
+        try {
+            return executeAsync(buildRequest("POST", uri, data, contentType, acceptType, true), "POST", uri);
+        } catch (IOException ioe) {
+            throw postError(uri, ioe);
+        }
+    }
+
+    /**
+     * Sends a request with the shared HttpClient and returns the content.
+     */
+    private String send(String method, String uri, byte[] data, String contentType, String acceptType,
+            boolean applyRequestProperties) throws IOException, RestAPIException {
+        HttpResponse<InputStream> response = execute(
+                buildRequest(method, uri, data, contentType, acceptType, applyRequestProperties));
+        iLastHTTPResult = response.statusCode();
+        logger.log(Level.FINEST, "......Sending ''{0}'' request to URL : {1}", new Object[] { method, uri });
+        logger.log(Level.FINEST, "......Response Code : {0}", iLastHTTPResult);
+        try (InputStream in = getResponseStream(response.headers(), response.body())) {
+            if (iLastHTTPResult >= 200 && iLastHTTPResult <= 299) {
+                return readResponse(in, getCharset(response.headers()));
+            }
+        }
+        throw httpError(method, uri, iLastHTTPResult);
+    }
+
+    private HttpResponse<InputStream> execute(HttpRequest request) throws IOException {
+        try {
+            return getHttpClient().send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("request interrupted", e);
+        }
+    }
+
+    /**
+     * Sends an asynchronous request. Transport errors like a refused connection
+     * or a timeout are mapped to a RestAPIException.
+     */
+    private CompletableFuture<String> executeAsync(HttpRequest request, String method, String uri) {
+        return getHttpClient().sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).thenApply(response -> {
+            int status = response.statusCode();
+            if (status < 200 || status > 299) {
+                throw new CompletionException(httpError(method, uri, status));
+            }
+            try {
+                return readResponse(getResponseStream(response.headers(), new ByteArrayInputStream(response.body())),
+                        getCharset(response.headers()));
+            } catch (IOException e) {
+                throw new CompletionException("GET".equals(method) ? getError(uri, e) : postError(uri, e));
+            }
+        }).exceptionally(e -> {
+            Throwable cause = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+            if (cause instanceof RestAPIException) {
+                throw new CompletionException(cause);
+            }
+            IOException ioe = (cause instanceof IOException) ? (IOException) cause
+                    : new IOException(cause.getMessage(), cause);
+            throw new CompletionException("GET".equals(method) ? getError(uri, ioe) : postError(uri, ioe));
+        });
+    }
+
+    /**
+     * Builds a HttpRequest for the shared HttpClient. The request headers are
+     * collected on an unconnected HttpURLConnection so that all registered
+     * RequestFilters can be applied unchanged.
+     */
+    private HttpRequest buildRequest(String method, String uri, byte[] data, String contentType,
+            String acceptType, boolean applyRequestProperties) throws IOException {
+        HttpRequest.Builder builder;
+        try {
+            builder = HttpRequest.newBuilder(URI.create(uri));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("invalid uri: " + e.getMessage(), e);
+        }
+        if (uri.startsWith("http:")) {
+            // HTTP/2 is negotiated for https only, avoid a h2c upgrade
+            builder.version(HttpClient.Version.HTTP_1_1);
+        }
+        if (requestTimeout > 0) {
+            builder.timeout(Duration.ofSeconds(requestTimeout));
+        }
+
+        HttpURLConnection headers = new RequestHeaders(new URL(uri));
+        if (contentType != null) {
+            headers.setRequestProperty("Content-Type", contentType + "; charset=" + encoding);
+            headers.setRequestProperty("Accept-Charset", encoding);
+            headers.setRequestProperty("Accept", acceptType);
+        }
+        if (applyRequestProperties && requestProperties != null) {
+            for (Map.Entry<String, String> entry : requestProperties.entrySet()) {
+                headers.setRequestProperty(entry.getKey(), entry.getValue());
+            }
+        }
+        // process filters....
+        for (RequestFilter filter : requestFilterList) {
+            filter.filter(headers);
+        }
+        boolean acceptEncoding = false;
+        for (Map.Entry<String, List<String>> header : headers.getRequestProperties().entrySet()) {
+            String name = header.getKey();
+            if (name == null || RESTRICTED_HEADERS.contains(name.toLowerCase())) {
+                continue;
+            }
+            if ("accept-encoding".equalsIgnoreCase(name)) {
+                acceptEncoding = true;
+            }
+            for (String value : header.getValue()) {
+                builder.header(name, value);
+            }
+        }
+        if (!acceptEncoding) {
+            builder.header("Accept-Encoding", "gzip");
+        }
+
+        if (data == null) {
+            builder.method(method, HttpRequest.BodyPublishers.noBody());
+        } else {
+            if (gzipRequest) {
+                ByteArrayOutputStream bos = new ByteArrayOutputStream(data.length / 4 + 64);
+                try (GZIPOutputStream gzip = new GZIPOutputStream(bos)) {
+                    gzip.write(data);
+                }
+                data = bos.toByteArray();
+                builder.header("Content-Encoding", "gzip");
+            }
+            builder.method(method, HttpRequest.BodyPublishers.ofByteArray(data));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the response body stream. A gzip compressed body is decompressed.
+     */
+    private InputStream getResponseStream(HttpHeaders headers, InputStream body) throws IOException {
+        String contentEncoding = headers.firstValue("Content-Encoding").orElse(null);
+        if ("gzip".equalsIgnoreCase(contentEncoding)) {
+            return new GZIPInputStream(body);
+        }
+        return body;
+    }
+
+    /**
+     * Returns the charset of the response Content-Type or the client encoding.
+     */
+    private String getCharset(HttpHeaders headers) {
+        String contentType = headers.firstValue("Content-Type").orElse(null);
+        if (contentType != null) {
+            for (String param : contentType.split(";")) {
+                param = param.trim();
+                if (param.regionMatches(true, 0, "charset=", 0, 8)) {
+                    return param.substring(8).replace("\"", "").trim();
+                }
+            }
+        }
+        return encoding;
+    }
+
+    private RestAPIException httpError(String method, String uri, int status) {
+        String error = new StringBuilder("Error ").append(status)
+                .append("GET".equals(method) ? " - failed GET request from '" : " - failed POST request: '")
+                .append(uri).append("'").toString();
+        logger.warning(error);
+        return new RestAPIException(status, error);
+    }
+
+    private RestAPIException getError(String uri, IOException e) {
+        String error = new StringBuilder("Error GET request from '")
+                .append(uri).append(" - ").append(e.getMessage()).toString();
+        logger.warning(error);
+        return new RestAPIException(0, error, e);
+    }
+
+    private RestAPIException postError(String uri, IOException ioe) {
+        String error = new StringBuilder("Error POST request '")
+                .append(uri).append(" - ").append(ioe.getMessage()).toString();
+        logger.warning(error);
+        return new RestAPIException(500, error, ioe);
+    }
+
     /**
      * Reads the response from a http request.
      * 
@@ -425,24 +810,34 @@ public class RestClient {
      * @throws IOException
      */
     private String readResponse(URLConnection urlConnection) throws IOException {
+        // test if content encoding is provided
+        String sContentEncoding = urlConnection.getContentEncoding();
+        if (sContentEncoding == null || sContentEncoding.isEmpty()) {
+            // no so lets see if the client has defined an encoding..
+            if (encoding != null && !encoding.isEmpty())
+                sContentEncoding = encoding;
+        }
+        return readResponse(urlConnection.getInputStream(), sContentEncoding);
+    }
+
+    /**
+     * Reads the response from a stream with a given charset.
+     * 
+     * @param inputStream
+     * @param charset     - optional
+     * @throws IOException
+     */
+    private String readResponse(InputStream inputStream, String charset) throws IOException {
         // get content of result
         logger.finest("......readResponse....");
         StringWriter writer = new StringWriter();
         BufferedReader in = null;
         try {
-            // test if content encoding is provided
-            String sContentEncoding = urlConnection.getContentEncoding();
-            if (sContentEncoding == null || sContentEncoding.isEmpty()) {
-                // no so lets see if the client has defined an encoding..
-                if (encoding != null && !encoding.isEmpty())
-                    sContentEncoding = encoding;
-            }
-
             // if an encoding is provided read stream with encoding.....
-            if (sContentEncoding != null && !sContentEncoding.isEmpty())
-                in = new BufferedReader(new InputStreamReader(urlConnection.getInputStream(), sContentEncoding));
+            if (charset != null && !charset.isEmpty())
+                in = new BufferedReader(new InputStreamReader(inputStream, charset));
             else
-                in = new BufferedReader(new InputStreamReader(urlConnection.getInputStream()));
+                in = new BufferedReader(new InputStreamReader(inputStream));
             String inputLine;
             while ((inputLine = in.readLine()) != null) {
                 logger.log(Level.FINEST, "......{0}", inputLine);
@@ -459,4 +854,42 @@ public class RestClient {
 
     }
 
+    /**
+     * An unconnected HttpURLConnection collecting the request headers set by the
+     * RequestFilters. In difference to the platform implementation all headers
+     * including 'Authorization' are returned by getRequestProperties().
+     */
+    private static class RequestHeaders extends HttpURLConnection {
+
+        RequestHeaders(URL url) {
+            super(url);
+        }
+
+        @Override
+        public void connect() throws IOException {
+            throw new IOException("connection not supported");
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public boolean usingProxy() {
+            return false;
+        }
+    }
+
+    /**
+     * Lazy holder of the shared HttpClient. The client pools and reuses
+     * connections across all RestClient instances.
+     */
+    private static class SharedHttpClient {
+        static final HttpClient INSTANCE = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(CONNECT_TIMEOUT))
+                .build();
+    }
+
 }
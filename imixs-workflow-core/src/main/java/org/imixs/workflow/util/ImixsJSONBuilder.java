@@ -28,7 +28,10 @@
 
 package org.imixs.workflow.util;
 
+import java.io.OutputStream;
+import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.text.ParseException;
@@ -36,7 +39,13 @@ import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
+
 import org.imixs.workflow.ItemCollection;
+import org.imixs.workflow.ItemProjection;
+
+import jakarta.json.Json;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonGeneratorFactory;
 
 /**
  * The ImixsJSONBuilder is an utility class to generate a typed json string from
@@ -44,6 +53,9 @@ import org.imixs.workflow.ItemCollection;
  * <p>
  * The result can be converted back into a ItemCollection by using the
  * ImixsJSONParser class.
+ * <p>
+ * The 'write' methods stream the JSON representation of one or many
+ * ItemCollections directly into an OutputStream or Writer.
  * 
  * @See ImixsJSONParser
  * @author rsoika
@@ -76,138 +88,236 @@ public class ImixsJSONBuilder {
      * @throws ParseException
      * @throws UnsupportedEncodingException
      */
-    @SuppressWarnings("unchecked")
     public final static String build(final ItemCollection workitem)
             throws ParseException, UnsupportedEncodingException {
+        StringWriter writer = new StringWriter();
+        write(workitem, writer);
+        return writer.toString();
+    }
 
-        StringBuffer out = new StringBuffer();
-        out.append("{\"item\":[");
+    /**
+     * This method writes a typed JSON representation of a Imixs ItemCollection
+     * directly into an OutputStream (UTF-8). The output format is the same as
+     * provided by the method {@link #build(ItemCollection)}.
+     * <p>
+     * The OutputStream is flushed but not closed.
+     * 
+     * @param workitem - ItemCollection to be translated into JSON
+     * @param out      - output stream
+     */
+    public static void write(final ItemCollection workitem, final OutputStream out) {
+        JsonGenerator generator = getGeneratorFactory().createGenerator(out);
+        writeDocument(generator, workitem, new SimpleDateFormat(ISO8601DATEFORMAT));
+        generator.flush();
+    }
 
-        // iterate over all items...
-        List<String> itemNames = workitem.getItemNames();
+    /**
+     * This method writes a typed JSON representation of a Imixs ItemCollection
+     * directly into a Writer.
+     * <p>
+     * The Writer is flushed but not closed.
+     * 
+     * @param workitem - ItemCollection to be translated into JSON
+     * @param writer   - writer
+     */
+    public static void write(final ItemCollection workitem, final Writer writer) {
+        JsonGenerator generator = getGeneratorFactory().createGenerator(writer);
+        writeDocument(generator, workitem, new SimpleDateFormat(ISO8601DATEFORMAT));
+        generator.flush();
+    }
 
-        for (int i = 0; i < itemNames.size(); i++) {
+    /**
+     * This method writes a collection of ItemCollections as a data element
+     * directly into an OutputStream (UTF-8). Each document is written as soon as
+     * it is provided by the Iterable. So the full JSON text is never held in
+     * memory.
+     * <p>
+     * An optional ItemProjection defines the items to be written for each
+     * document.
+     * <p>
+     * Example Output: <code>
+     * {"data":[
+     *   {"item":[
+     *      {"name":"$readaccess","value":{"@type":"xs:string","$":"Anna"}}
+     *   ]},
+     *   {"item":[
+     *      {"name":"$readaccess","value":{"@type":"xs:string","$":"Tom"}}
+     *   ]}
+     * ]}
+     * </code>
+     * <p>
+     * The OutputStream is flushed but not closed.
+     * 
+     * @param documents  - documents to be translated into JSON
+     * @param projection - optional item projection, can be null
+     * @param out        - output stream
+     */
+    public static void write(final Iterable<ItemCollection> documents, final ItemProjection projection,
+            final OutputStream out) {
+        JsonGenerator generator = getGeneratorFactory().createGenerator(out);
+        writeDocuments(generator, documents, projection);
+        generator.flush();
+    }
+
+    /**
+     * This method writes a collection of ItemCollections as a data element
+     * directly into a Writer.
+     * <p>
+     * The Writer is flushed but not closed.
+     * 
+     * @see #write(Iterable, ItemProjection, OutputStream)
+     * @param documents  - documents to be translated into JSON
+     * @param projection - optional item projection, can be null
+     * @param writer     - writer
+     */
+    public static void write(final Iterable<ItemCollection> documents, final ItemProjection projection,
+            final Writer writer) {
+        JsonGenerator generator = getGeneratorFactory().createGenerator(writer);
+        writeDocuments(generator, documents, projection);
+        generator.flush();
+    }
+
+    /**
+     * Writes a data element with all documents.
+     */
+    private static void writeDocuments(JsonGenerator generator, Iterable<ItemCollection> documents,
+            ItemProjection projection) {
+        SimpleDateFormat dateFormat = new SimpleDateFormat(ISO8601DATEFORMAT);
+        generator.writeStartObject();
+        generator.writeStartArray(ImixsJSONParser.DATA_ELEMENT);
+        if (documents != null) {
+            for (ItemCollection document : documents) {
+                if (document == null) {
+                    continue;
+                }
+                if (projection != null && !projection.isEmpty()) {
+                    document = projection.apply(document);
+                }
+                writeDocument(generator, document, dateFormat);
+            }
+        }
+        generator.writeEnd();
+        generator.writeEnd();
+    }
 
-            String itemName = itemNames.get(i);
-            List<Object> values = workitem.getItemValue(itemName);
+    /**
+     * Writes a single document as an item element. Items without a value are
+     * skipped.
+     */
+    private static void writeDocument(JsonGenerator generator, ItemCollection document,
+            SimpleDateFormat dateFormat) {
+        generator.writeStartObject();
+        generator.writeStartArray(ImixsJSONParser.ITEM_ELEMENT);
+        // iterate over all items...
+        for (String itemName : document.getItemNames()) {
+            List<?> values = document.getItemValue(itemName);
             if (values == null || values.size() == 0) {
                 continue;
             }
-            out.append("{\"name\":\"" + itemName + "\",\"value\":");
-            buildValues(values, out);
-
-            // add comma?
-            if (i < (itemNames.size() - 1)) {
-                out.append(",");
+            generator.writeStartObject();
+            generator.write(ImixsJSONParser.NAME_ELEMENT, itemName);
+            // In case values contains more than one item the values are ordered into a
+            // json array.
+            if (values.size() > 1) {
+                generator.writeStartArray(ImixsJSONParser.VALUE_ELEMENT);
+                for (Object value : values) {
+                    generator.writeStartObject();
+                    writeValue(generator, value, dateFormat);
+                    generator.writeEnd();
+                }
+                generator.writeEnd();
+            } else {
+                generator.writeStartObject(ImixsJSONParser.VALUE_ELEMENT);
+                writeValue(generator, values.get(0), dateFormat);
+                generator.writeEnd();
             }
+            generator.writeEnd();
         }
-        out.append("]}");
-
-        return out.toString();
+        generator.writeEnd();
+        generator.writeEnd();
     }
 
     /**
-     * This helper method converts a value list into a json string
-     * <p>
-     * In case values contains more than one item the values are ordered into a json
-     * array.
+     * This helper method writes the type and the string representation of a
+     * single value.
      * <p>
      * e.g.
      * <p>
      * <code>
-     * {"name":"$isauthor","value":{"@type":"xs:boolean","$":true}},
-     * {"name":"$readaccess","value":{"@type":"xs:string","$":"Anna"}},
-     * {"name":"txtmessage","value":{"@type":"xs:string","$":"worklist"}},
-     * {"name":"$activityid","value":{"@type":"xs:int","$":10}},
-     * {"name":"$processid","value":{"@type":"xs:int","$":100}}
+     * "@type":"xs:string","$":"worklist"
      *  </code>
-     * 
-     * @param token
-     * @throws ParseException
      */
-    private static void buildValues(List<Object> values, StringBuffer out) {
-        if (values == null || values.size() == 0) {
-            out.append("{}");
+    private static void writeValue(JsonGenerator generator, Object valueObject, SimpleDateFormat dateFormat) {
+        if (valueObject == null) {
+            generator.writeNull("$");
             return;
         }
-        if (values.size() > 1) {
-            out.append("[");
+        String type = getType(valueObject);
+        if (type != null) {
+            generator.write("@type", type);
         }
-
-        // print each output...
-        for (int i = 0; i < values.size(); i++) {
-            out.append("{");
-            // {"@type":"xs:string","$":"worklist"}
-            Object valueObject = values.get(i);
-            String type = "";
-            // test raw types first
-            if (valueObject instanceof String) {
-                type = "\"@type\":\"xs:string\"";
-            }
-            if (valueObject instanceof Boolean) {
-                type = "\"@type\":\"xs:boolean\"";
-            }
-            if (valueObject instanceof Short) {
-                type = "\"@type\":\"xs:short\"";
-            }
-            if (valueObject instanceof Integer) {
-                type = "\"@type\":\"xs:int\"";
-            }
-            if (valueObject instanceof Long) {
-                type = "\"@type\":\"xs:long\"";
-            }
-            if (valueObject instanceof Float) {
-                type = "\"@type\":\"xs:float\"";
-            }
-            if (valueObject instanceof Double) {
-                type = "\"@type\":\"xs:double\"";
-            }
-            if (valueObject instanceof Date || valueObject instanceof Calendar) {
-                type = "\"@type\":\"xs:dateTime\"";
-            }
-            if (valueObject instanceof BigInteger) {
-                type = "\"@type\":\"xs:integer\"";
-            }
-            if (valueObject instanceof BigDecimal) {
-                type = "\"@type\":\"xs:decimal\"";
-            }
-
-            out.append(type + ",");
-
-            // print the value...
-            // "$":"worklist"}
-            String valueString = null;
-            if (valueObject instanceof Date || valueObject instanceof Calendar) {
-                // convert 2013-10-07T22:18:55.476+02:00
-                Date date = null;
-                if (valueObject instanceof Calendar) {
-                    date = ((Calendar) valueObject).getTime();
-                } else {
-                    date = (Date) valueObject;
-                }
-                SimpleDateFormat sdf = new SimpleDateFormat(ISO8601DATEFORMAT);
-                // sdf.setTimeZone(TimeZone.getTimeZone("CET"));
-                valueString = sdf.format(date);
+        if (valueObject instanceof Date || valueObject instanceof Calendar) {
+            // convert 2013-10-07T22:18:55.476+02:00
+            Date date = null;
+            if (valueObject instanceof Calendar) {
+                date = ((Calendar) valueObject).getTime();
             } else {
-                // simple convert to string
-                valueString = valueObject.toString();
-            }
-
-            out.append("\"$\":\"" + valueString + "\"");
-
-            out.append("}");
-            // add comma?
-            if ((i) < (values.size() - 1)) {
-                out.append(",");
+                date = (Date) valueObject;
             }
+            generator.write("$", dateFormat.format(date));
+        } else {
+            // simple convert to string
+            generator.write("$", valueObject.toString());
         }
+    }
 
-        if (values.size() > 1) {
-            out.append("]");
-
+    /**
+     * Returns the xml schema type of a value or null if the type is unknown.
+     */
+    private static String getType(Object valueObject) {
+        if (valueObject instanceof String) {
+            return "xs:string";
+        }
+        if (valueObject instanceof Boolean) {
+            return "xs:boolean";
+        }
+        if (valueObject instanceof Short) {
+            return "xs:short";
+        }
+        if (valueObject instanceof Integer) {
+            return "xs:int";
+        }
+        if (valueObject instanceof Long) {
+            return "xs:long";
         }
+        if (valueObject instanceof Float) {
+            return "xs:float";
+        }
+        if (valueObject instanceof Double) {
+            return "xs:double";
+        }
+        if (valueObject instanceof Date || valueObject instanceof Calendar) {
+            return "xs:dateTime";
+        }
+        if (valueObject instanceof BigInteger) {
+            return "xs:integer";
+        }
+        if (valueObject instanceof BigDecimal) {
+            return "xs:decimal";
+        }
+        return null;
+    }
+
+    /**
+     * Returns the shared JsonGeneratorFactory. The factory is created on first
+     * use, so that the lookup of the JSON provider is done only once.
+     */
+    private static JsonGeneratorFactory getGeneratorFactory() {
+        return GeneratorFactoryHolder.FACTORY;
+    }
 
-        out.append("}");
+    private static class GeneratorFactoryHolder {
+        static final JsonGeneratorFactory FACTORY = Json.createGeneratorFactory(null);
     }
 
 }
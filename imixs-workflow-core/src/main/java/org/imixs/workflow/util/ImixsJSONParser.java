@@ -32,8 +32,15 @@ import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.imixs.workflow.ItemCollection;
 
@@ -49,6 +56,10 @@ import jakarta.json.stream.JsonParser.Event;
  * <p>
  * The method 'parse()' returns in any case a collection of ItemCollection.
  * <p>
+ * To parse a large number of documents the methods 'parse(InputStream,
+ * Consumer)', 'iterator()' and 'stream()' provide each document as soon as it
+ * is parsed without collecting all documents in memory.
+ * <p>
  * 
  * @author rsoika
  */
@@ -112,70 +123,189 @@ public class ImixsJSONParser {
      */
     public final static List<ItemCollection> parse(final InputStream jsonDataStream)
             throws ParseException, UnsupportedEncodingException {
-        boolean isarray = false;
+        if (jsonDataStream == null) {
+            return null;
+        }
         List<ItemCollection> result = null;
+        DocumentReader reader = new DocumentReader(Json.createParser(jsonDataStream));
+        ItemCollection document;
+        while ((document = reader.readDocument()) != null) {
+            // late init of collection?
+            if (result == null) {
+                result = new ArrayList<ItemCollection>();
+            }
+            result.add(document);
+        }
+        if (reader.incomplete) {
+            return null;
+        }
+        if (result == null && reader.dataElement) {
+            // empty data element
+            result = new ArrayList<ItemCollection>();
+        }
+        return result;
+    }
 
+    /**
+     * This method parses an Imixs JSON input stream and passes each document to
+     * the given consumer as soon as the document is parsed. In different to the
+     * method {@link #parse(InputStream)} the documents are not collected. So the
+     * memory usage does not depend on the size of the input stream. The method
+     * can be used to import a large number of documents.
+     * <p>
+     * The method supports both - a single document (item element) or a collection
+     * of documents (data element).
+     * 
+     * @param jsonDataStream - JSON input stream
+     * @param consumer       - callback for each parsed document
+     * @return number of parsed documents
+     * @throws ParseException if the JSON data structure is invalid
+     */
+    public final static int parse(final InputStream jsonDataStream, final Consumer<ItemCollection> consumer)
+            throws ParseException {
         if (jsonDataStream == null) {
-            return null;
+            return 0;
+        }
+        int count = 0;
+        DocumentReader reader = new DocumentReader(Json.createParser(jsonDataStream));
+        ItemCollection document;
+        while ((document = reader.readDocument()) != null) {
+            consumer.accept(document);
+            count++;
         }
+        return count;
+    }
 
-        JsonParser parser = Json.createParser(jsonDataStream);
-        Event event = null;
-        while (true) {
+    /**
+     * Returns an Iterator of the documents of an Imixs JSON input stream. Each
+     * document is parsed when the iterator is advanced. An invalid JSON data
+     * structure causes an IllegalStateException thrown by the iterator.
+     * 
+     * @see #parse(InputStream, Consumer)
+     * @param jsonDataStream - JSON input stream
+     * @return iterator of ItemCollection instances
+     */
+    public final static Iterator<ItemCollection> iterator(final InputStream jsonDataStream) {
+        if (jsonDataStream == null) {
+            return Collections.emptyIterator();
+        }
+        return new DocumentReader(Json.createParser(jsonDataStream));
+    }
 
-            try {
-                event = parser.next(); // START_OBJECT
+    /**
+     * Returns a sequential Stream of the documents of an Imixs JSON input stream.
+     * Each document is parsed when the stream requests the next element. Closing
+     * the Stream closes the JSON parser and the input stream.
+     * 
+     * @see #iterator(InputStream)
+     * @param jsonDataStream - JSON input stream
+     * @return stream of ItemCollection instances
+     */
+    public final static Stream<ItemCollection> stream(final InputStream jsonDataStream) {
+        if (jsonDataStream == null) {
+            return Stream.empty();
+        }
+        DocumentReader reader = new DocumentReader(Json.createParser(jsonDataStream));
+        return StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(reader, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(reader.parser::close);
+    }
+
+    /**
+     * The DocumentReader reads the documents of a JSON stream one by one. Only the
+     * current document is held in memory.
+     */
+    private static class DocumentReader implements Iterator<ItemCollection> {
+        private final JsonParser parser;
+        private boolean isarray = false;
+        private boolean dataElement = false;
+        private boolean documentFound = false;
+        private boolean finished = false;
+        // true if the stream ended unexpectedly
+        private boolean incomplete = false;
+        private ItemCollection next = null;
+
+        DocumentReader(JsonParser parser) {
+            this.parser = parser;
+        }
+
+        /**
+         * Returns the next document or null if no more documents are available.
+         */
+        ItemCollection readDocument() throws ParseException {
+            while (!finished) {
+                Event event = null;
+                try {
+                    event = parser.next(); // START_OBJECT
+                } catch (NoSuchElementException e) {
+                    event = null;
+                }
                 if (event == null) {
-                    return null;
+                    incomplete = true;
+                    finished = true;
+                    break;
                 }
 
-                if (event.name().equals(Event.START_ARRAY.toString())) {
+                if (event == Event.START_ARRAY) {
                     isarray = true;
                     continue;
                 }
 
-                if (event.name().equals(Event.KEY_NAME.toString())) {
+                if (event == Event.KEY_NAME) {
                     String jsonkey = parser.getString();
                     // data element?
                     if (DATA_ELEMENT.equals(jsonkey)) {
-                        if (result != null) {
+                        if (dataElement || documentFound) {
                             // we do not expect a second data element!
                             JsonLocation location = parser.getLocation();
                             throw new ParseException(
                                     "Invalid JSON Data Structure - element 'data' not expected (line: "
                                             + location.getLineNumber() + " column: " + location.getColumnNumber() + ")",
                                     (int) location.getStreamOffset());
-                        } else {
-                            // create result List
-                            result = new ArrayList<ItemCollection>();
                         }
+                        dataElement = true;
                     }
 
                     // item element?
                     if (ITEM_ELEMENT.equals(jsonkey)) {
                         ItemCollection document = new ItemCollection();
                         parseDocument(parser, document);
-                        // late init of collection?
-                        if (result == null) {
-                            result = new ArrayList<ItemCollection>();
-                        }
-                        result.add(document);
+                        documentFound = true;
+                        return document;
                     }
                 }
 
-                if (isarray && event.name().equals(Event.END_ARRAY.toString())) {
-                    break;
+                if (isarray && event == Event.END_ARRAY) {
+                    finished = true;
                 }
-                if (!isarray && event.name().equals(Event.END_OBJECT.toString())) {
-                    break;
+                if (!isarray && event == Event.END_OBJECT) {
+                    finished = true;
                 }
+            }
+            return null;
+        }
 
-            } catch (NoSuchElementException e) {
-                return null;
+        @Override
+        public boolean hasNext() {
+            if (next == null && !finished) {
+                try {
+                    next = readDocument();
+                } catch (ParseException e) {
+                    throw new IllegalStateException(e.getMessage(), e);
+                }
             }
+            return next != null;
         }
 
-        return result;
+        @Override
+        public ItemCollection next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ItemCollection result = next;
+            next = null;
+            return result;
+        }
     }
 
     /**
@@ -0,0 +1,761 @@
+/*
+ *  Imixs-Workflow
+ *
+ *  Copyright (C) 2001-2020 Imixs Software Solutions GmbH,
+ *  http://www.imixs.com
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 2
+ *  of the License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You can receive a copy of the GNU General Public
+ *  License at http://www.gnu.org/licenses/gpl.html
+ *
+ *  Project:
+ *      https://www.imixs.org
+ *      https://github.com/imixs/imixs-workflow
+ *
+ *  Contributors:
+ *      Imixs Software Solutions GmbH - Project Management
+ *      Ralph Soika - Software Developer
+ */
+
+package org.imixs.workflow.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.imixs.workflow.ItemMap;
+
+/**
+ * The ItemCollectionCodec converts the item map of an ItemCollection into a
+ * compact binary format and back. The codec is used to persist the data of a
+ * Document or EventLog entity instead of the default Java serialization.
+ * <p>
+ * The binary format starts with a header of 5 bytes:
+ * <ul>
+ * <li>the magic bytes 'IMX'</li>
+ * <li>the format version</li>
+ * <li>a flag byte (0x01 = body is compressed with Deflate)</li>
+ * </ul>
+ * The body contains a dictionary of all item names and the keys of embedded
+ * maps followed by the items. Each item refers to its name by the dictionary
+ * index. Item values are encoded with a type tag followed by the value data.
+ * Integer values are stored as variable length numbers. If the body exceeds
+ * {@link #COMPRESSION_THRESHOLD} bytes, the body is compressed.
+ * <p>
+ * Value types not known by the codec are written by Java serialization.
+ * <p>
+ * The method {@link #decode(byte[])} sniffs the format of the data. Data
+ * written by Java serialization (a serialized Hashtable) can still be decoded.
+ *
+ * @author rsoika
+ */
+public class ItemCollectionCodec {
+
+    public static final int FORMAT_VERSION = 1;
+    public static final int COMPRESSION_THRESHOLD = 8192;
+
+    private static final byte[] MAGIC = { 'I', 'M', 'X' };
+    private static final int HEADER_SIZE = 5;
+    private static final int FLAG_DEFLATE = 0x01;
+
+    // Java serialization stream magic
+    private static final byte SERIALIZATION_MAGIC_0 = (byte) 0xAC;
+    private static final byte SERIALIZATION_MAGIC_1 = (byte) 0xED;
+
+    // type tags
+    private static final int TAG_NULL = 0;
+    private static final int TAG_STRING = 1;
+    private static final int TAG_INTEGER = 2;
+    private static final int TAG_LONG = 3;
+    private static final int TAG_DOUBLE = 4;
+    private static final int TAG_FLOAT = 5;
+    private static final int TAG_TRUE = 6;
+    private static final int TAG_FALSE = 7;
+    private static final int TAG_SHORT = 8;
+    private static final int TAG_BYTE = 9;
+    private static final int TAG_CHARACTER = 10;
+    private static final int TAG_BIGDECIMAL = 11;
+    private static final int TAG_BIGINTEGER = 12;
+    private static final int TAG_DATE = 13;
+    private static final int TAG_BYTES = 14;
+    private static final int TAG_ARRAYLIST = 15;
+    private static final int TAG_VECTOR = 16;
+    private static final int TAG_HASHMAP = 17;
+    private static final int TAG_HASHTABLE = 18;
+    private static final int TAG_LINKEDHASHMAP = 19;
+    private static final int TAG_SERIALIZED = 20;
+    private static final int TAG_NAME = 21;
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private ItemCollectionCodec() {
+    }
+
+    /**
+     * Encodes an item map into the binary format.
+     *
+     * @param items - item map, can be null
+     * @return encoded data or null if the map is null
+     * @throws IOException - if a value can not be encoded
+     */
+    public static byte[] encode(Map<String, List<Object>> items) throws IOException {
+        if (items == null) {
+            return null;
+        }
+        // the items are written first, so the name dictionary also contains the
+        // keys of embedded maps
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        Writer itemWriter = new Writer();
+        // the items are sorted by name, so equal items are always encoded into equal
+        // data
+        List<String> names = new ArrayList<>(items.keySet());
+        Collections.sort(names);
+        itemWriter.writeVarInt(names.size());
+        for (String name : names) {
+            itemWriter.writeVarInt(indexOf(dictionary, name));
+            writeItemValue(itemWriter, peekItemValue(items, name), dictionary);
+        }
+        Writer writer = new Writer();
+        writer.writeVarInt(dictionary.size());
+        for (String name : dictionary.keySet()) {
+            writer.writeString(name);
+        }
+        writer.write(itemWriter);
+
+        byte[] body = writer.toByteArray();
+        int flags = 0;
+        if (body.length > COMPRESSION_THRESHOLD) {
+            byte[] compressed = deflate(body);
+            if (compressed.length < body.length) {
+                body = compressed;
+                flags |= FLAG_DEFLATE;
+            }
+        }
+        byte[] result = new byte[HEADER_SIZE + body.length];
+        System.arraycopy(MAGIC, 0, result, 0, MAGIC.length);
+        result[3] = (byte) FORMAT_VERSION;
+        result[4] = (byte) flags;
+        System.arraycopy(body, 0, result, HEADER_SIZE, body.length);
+        return result;
+    }
+
+    /**
+     * Decodes an item map. The method accepts the binary format as also data
+     * written by Java serialization.
+     *
+     * @param data - encoded data, can be null
+     * @return item map or null if data is null or empty
+     * @throws IOException - if the data can not be decoded
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, List<Object>> decode(byte[] data) throws IOException {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        if (isSerializedFormat(data)) {
+            try {
+                return (Map<String, List<Object>>) deserialize(data, 0, data.length);
+            } catch (ClassCastException e) {
+                throw new IOException("invalid data - serialized object is not a Map", e);
+            }
+        }
+        Reader reader = openBody(data);
+        String[] names = readNames(reader);
+        int itemCount = reader.readVarInt();
+        ItemMap result = new ItemMap(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            String name = reader.readName(names);
+            List<Object> value = (List<Object>) readValue(reader, names);
+            if (value.size() == 1 && value.get(0) != null && value instanceof ArrayList) {
+                result.putSingleValue(name, value.get(0));
+            } else {
+                result.put(name, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the stored value of an item. For an ItemMap or a LazyItemMap a single
+     * value is not converted into a value list.
+     */
+    private static Object peekItemValue(Map<String, List<Object>> items, String name) {
+        if (items instanceof ItemMap) {
+            return ((ItemMap) items).peekItemValue(name);
+        }
+        if (items instanceof LazyItemMap) {
+            return ((LazyItemMap) items).peekItemValue(name);
+        }
+        return items.get(name);
+    }
+
+    /**
+     * Decodes an item map lazily. The method only reads the name dictionary and
+     * the positions of the items. An item value is decoded on the first access.
+     * This avoids decoding the full document in cases where only a few items are
+     * read (e.g. the ACL of a document).
+     * <p>
+     * Data written by Java serialization is decoded completely.
+     *
+     * @see LazyItemMap
+     * @param data - encoded data, can be null
+     * @return item map or null if data is null or empty
+     * @throws IOException - if the data can not be decoded
+     */
+    public static Map<String, List<Object>> decodeLazy(byte[] data) throws IOException {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        if (isSerializedFormat(data)) {
+            return decode(data);
+        }
+        Reader reader = openBody(data);
+        String[] names = readNames(reader);
+        int itemCount = reader.readVarInt();
+        Map<String, Integer> positions = new HashMap<>(Math.max(16, itemCount * 2));
+        for (int i = 0; i < itemCount; i++) {
+            String name = reader.readName(names);
+            positions.put(name, reader.pos);
+            skipValue(reader);
+        }
+        return new LazyItemMap(reader.data, names, positions);
+    }
+
+    /**
+     * Decodes a single item value at a given position of the body. The method is
+     * called by the LazyItemMap.
+     */
+    static List<Object> decodeItemValue(byte[] body, String[] names, int position) throws IOException {
+        @SuppressWarnings("unchecked")
+        List<Object> value = (List<Object>) readValue(new Reader(body, position), names);
+        return value;
+    }
+
+    /**
+     * Returns true if the data is encoded in the binary format of this codec.
+     *
+     * @param data
+     * @return
+     */
+    public static boolean isBinaryFormat(byte[] data) {
+        return data != null && data.length >= HEADER_SIZE && data[0] == MAGIC[0] && data[1] == MAGIC[1]
+                && data[2] == MAGIC[2];
+    }
+
+    /**
+     * Returns true if the data was written by Java serialization.
+     *
+     * @param data
+     * @return
+     */
+    public static boolean isSerializedFormat(byte[] data) {
+        return data != null && data.length >= 2 && data[0] == SERIALIZATION_MAGIC_0
+                && data[1] == SERIALIZATION_MAGIC_1;
+    }
+
+    /**
+     * Verifies the header and returns a reader positioned at the beginning of the
+     * body. A compressed body is inflated.
+     */
+    private static Reader openBody(byte[] data) throws IOException {
+        if (!isBinaryFormat(data)) {
+            throw new IOException("unknown data format");
+        }
+        int version = data[3] & 0xFF;
+        if (version > FORMAT_VERSION) {
+            throw new IOException("unsupported format version " + version);
+        }
+        if ((data[4] & FLAG_DEFLATE) != 0) {
+            byte[] body = inflate(data, HEADER_SIZE, data.length - HEADER_SIZE);
+            return new Reader(body, 0);
+        }
+        return new Reader(data, HEADER_SIZE);
+    }
+
+    private static String[] readNames(Reader reader) throws IOException {
+        int nameCount = reader.readVarInt();
+        String[] names = new String[nameCount];
+        for (int i = 0; i < nameCount; i++) {
+            names[i] = reader.readString();
+        }
+        return names;
+    }
+
+    /**
+     * Writes the value of an item. The value is always stored as a value list.
+     */
+    private static void writeItemValue(Writer writer, Object value, Map<String, Integer> dictionary)
+            throws IOException {
+        if (value instanceof List) {
+            writeValue(writer, value, dictionary);
+        } else {
+            // single value
+            writer.write(TAG_ARRAYLIST);
+            if (value == null) {
+                writer.writeVarInt(0);
+            } else {
+                writer.writeVarInt(1);
+                writeValue(writer, value, dictionary);
+            }
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static void writeValue(Writer writer, Object value, Map<String, Integer> dictionary)
+            throws IOException {
+        if (value == null) {
+            writer.write(TAG_NULL);
+            return;
+        }
+        Class<?> c = value.getClass();
+        if (c == String.class) {
+            writer.write(TAG_STRING);
+            writer.writeString((String) value);
+        } else if (c == Integer.class) {
+            writer.write(TAG_INTEGER);
+            writer.writeVarLong(zigZag((Integer) value));
+        } else if (c == Long.class) {
+            writer.write(TAG_LONG);
+            writer.writeVarLong(zigZag((Long) value));
+        } else if (c == Boolean.class) {
+            writer.write(((Boolean) value) ? TAG_TRUE : TAG_FALSE);
+        } else if (c == Double.class) {
+            writer.write(TAG_DOUBLE);
+            writer.writeLong(Double.doubleToLongBits((Double) value));
+        } else if (c == Float.class) {
+            writer.write(TAG_FLOAT);
+            writer.writeVarInt(Float.floatToIntBits((Float) value));
+        } else if (c == Date.class) {
+            writer.write(TAG_DATE);
+            writer.writeVarLong(zigZag(((Date) value).getTime()));
+        } else if (c == Short.class) {
+            writer.write(TAG_SHORT);
+            writer.writeVarLong(zigZag((Short) value));
+        } else if (c == Byte.class) {
+            writer.write(TAG_BYTE);
+            writer.write((Byte) value);
+        } else if (c == Character.class) {
+            writer.write(TAG_CHARACTER);
+            writer.writeVarLong((Character) value);
+        } else if (c == BigDecimal.class) {
+            writer.write(TAG_BIGDECIMAL);
+            writer.writeString(value.toString());
+        } else if (c == BigInteger.class) {
+            writer.write(TAG_BIGINTEGER);
+            writer.writeBytes(((BigInteger) value).toByteArray());
+        } else if (c == byte[].class) {
+            writer.write(TAG_BYTES);
+            writer.writeBytes((byte[]) value);
+        } else if (c == ArrayList.class || c == Vector.class) {
+            List list = (List) value;
+            writer.write(c == Vector.class ? TAG_VECTOR : TAG_ARRAYLIST);
+            writer.writeVarInt(list.size());
+            for (Object o : list) {
+                writeValue(writer, o, dictionary);
+            }
+        } else if (c == HashMap.class || c == Hashtable.class || c == LinkedHashMap.class || c == ItemMap.class) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            if (c == HashMap.class) {
+                writer.write(TAG_HASHMAP);
+            } else if (c == LinkedHashMap.class) {
+                writer.write(TAG_LINKEDHASHMAP);
+            } else {
+                // an ItemMap is serialized as a Hashtable
+                writer.write(TAG_HASHTABLE);
+            }
+            writer.writeVarInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                Object key = entry.getKey();
+                if (key instanceof String) {
+                    // map keys are stored in the name dictionary
+                    writer.write(TAG_NAME);
+                    writer.writeVarInt(indexOf(dictionary, (String) key));
+                } else {
+                    writeValue(writer, key, dictionary);
+                }
+                writeValue(writer, entry.getValue(), dictionary);
+            }
+        } else {
+            // unknown type
+            writer.write(TAG_SERIALIZED);
+            writer.writeBytes(serialize(value));
+        }
+    }
+
+    private static Object readValue(Reader reader, String[] names) throws IOException {
+        int tag = reader.read();
+        switch (tag) {
+        case TAG_NULL:
+            return null;
+        case TAG_STRING:
+            return reader.readString();
+        case TAG_INTEGER:
+            return (int) unZigZag(reader.readVarLong());
+        case TAG_LONG:
+            return unZigZag(reader.readVarLong());
+        case TAG_TRUE:
+            return Boolean.TRUE;
+        case TAG_FALSE:
+            return Boolean.FALSE;
+        case TAG_DOUBLE:
+            return Double.longBitsToDouble(reader.readLong());
+        case TAG_FLOAT:
+            return Float.intBitsToFloat((int) reader.readVarLong());
+        case TAG_DATE:
+            return new Date(unZigZag(reader.readVarLong()));
+        case TAG_SHORT:
+            return (short) unZigZag(reader.readVarLong());
+        case TAG_BYTE:
+            return (byte) reader.read();
+        case TAG_CHARACTER:
+            return (char) reader.readVarLong();
+        case TAG_BIGDECIMAL:
+            return new BigDecimal(reader.readString());
+        case TAG_BIGINTEGER:
+            return new BigInteger(reader.readBytes());
+        case TAG_BYTES:
+            return reader.readBytes();
+        case TAG_ARRAYLIST:
+        case TAG_VECTOR: {
+            int size = reader.readVarInt();
+            List<Object> list = (tag == TAG_VECTOR) ? new Vector<>(size) : new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                list.add(readValue(reader, names));
+            }
+            return list;
+        }
+        case TAG_HASHMAP:
+        case TAG_HASHTABLE:
+        case TAG_LINKEDHASHMAP: {
+            int size = reader.readVarInt();
+            Map<Object, Object> map;
+            if (tag == TAG_HASHTABLE) {
+                map = new Hashtable<>(Math.max(11, size * 2));
+            } else if (tag == TAG_LINKEDHASHMAP) {
+                map = new LinkedHashMap<>(Math.max(16, size * 2));
+            } else {
+                map = new HashMap<>(Math.max(16, size * 2));
+            }
+            for (int i = 0; i < size; i++) {
+                Object key = readValue(reader, names);
+                map.put(key, readValue(reader, names));
+            }
+            return map;
+        }
+        case TAG_NAME:
+            return reader.readName(names);
+        case TAG_SERIALIZED: {
+            byte[] bytes = reader.readBytes();
+            return deserialize(bytes, 0, bytes.length);
+        }
+        default:
+            throw new IOException("invalid data - unknown type tag " + tag);
+        }
+    }
+
+    /**
+     * Skips a value without decoding it.
+     */
+    private static void skipValue(Reader reader) throws IOException {
+        int tag = reader.read();
+        switch (tag) {
+        case TAG_NULL:
+        case TAG_TRUE:
+        case TAG_FALSE:
+            return;
+        case TAG_STRING:
+        case TAG_BIGDECIMAL:
+        case TAG_BIGINTEGER:
+        case TAG_BYTES:
+        case TAG_SERIALIZED:
+            reader.skip(reader.readVarInt());
+            return;
+        case TAG_INTEGER:
+        case TAG_LONG:
+        case TAG_FLOAT:
+        case TAG_DATE:
+        case TAG_SHORT:
+        case TAG_CHARACTER:
+        case TAG_NAME:
+            reader.readVarLong();
+            return;
+        case TAG_DOUBLE:
+            reader.skip(8);
+            return;
+        case TAG_BYTE:
+            reader.skip(1);
+            return;
+        case TAG_ARRAYLIST:
+        case TAG_VECTOR: {
+            int size = reader.readVarInt();
+            for (int i = 0; i < size; i++) {
+                skipValue(reader);
+            }
+            return;
+        }
+        case TAG_HASHMAP:
+        case TAG_HASHTABLE:
+        case TAG_LINKEDHASHMAP: {
+            int size = reader.readVarInt();
+            for (int i = 0; i < size; i++) {
+                skipValue(reader);
+                skipValue(reader);
+            }
+            return;
+        }
+        default:
+            throw new IOException("invalid data - unknown type tag " + tag);
+        }
+    }
+
+    /**
+     * Returns the dictionary index of a name. New names are added to the
+     * dictionary.
+     */
+    private static int indexOf(Map<String, Integer> dictionary, String name) {
+        Integer index = dictionary.get(name);
+        if (index == null) {
+            index = dictionary.size();
+            dictionary.put(name, index);
+        }
+        return index;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bos);
+        oos.writeObject(value);
+        oos.flush();
+        return bos.toByteArray();
+    }
+
+    private static Object deserialize(byte[] data, int offset, int length) throws IOException {
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data, offset, length));
+        try {
+            return ois.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("invalid data - " + e.getMessage(), e);
+        }
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(data.length / 2);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                bos.write(buffer, 0, count);
+            }
+            return bos.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data, int offset, int length) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, offset, length);
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("invalid data - compressed body is truncated");
+                }
+                bos.write(buffer, 0, count);
+            }
+            return bos.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("invalid data - " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Unsynchronized byte buffer with variable length number encoding.
+     */
+    private static class Writer {
+        private byte[] buffer = new byte[256];
+        private int count;
+
+        void write(int b) {
+            ensureCapacity(1);
+            buffer[count++] = (byte) b;
+        }
+
+        void writeVarInt(int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[count++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[count++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[count++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeBytes(byte[] bytes) {
+            writeVarInt(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, count, bytes.length);
+            count += bytes.length;
+        }
+
+        void writeString(String value) {
+            writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void write(Writer other) {
+            ensureCapacity(other.count);
+            System.arraycopy(other.buffer, 0, buffer, count, other.count);
+            count += other.count;
+        }
+
+        byte[] toByteArray() {
+            byte[] result = new byte[count];
+            System.arraycopy(buffer, 0, result, 0, count);
+            return result;
+        }
+
+        private void ensureCapacity(int n) {
+            if (count + n > buffer.length) {
+                byte[] newBuffer = new byte[Math.max(buffer.length * 2, count + n)];
+                System.arraycopy(buffer, 0, newBuffer, 0, count);
+                buffer = newBuffer;
+            }
+        }
+    }
+
+    /**
+     * Reads the encoded values from a byte array.
+     */
+    private static class Reader {
+        private final byte[] data;
+        private int pos;
+
+        Reader(byte[] data, int pos) {
+            this.data = data;
+            this.pos = pos;
+        }
+
+        int read() throws IOException {
+            if (pos >= data.length) {
+                throw new IOException("invalid data - unexpected end of data");
+            }
+            return data[pos++] & 0xFF;
+        }
+
+        int readVarInt() throws IOException {
+            long value = readVarLong();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new IOException("invalid data - length out of range");
+            }
+            return (int) value;
+        }
+
+        long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("invalid data - malformed number");
+        }
+
+        long readLong() throws IOException {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | read();
+            }
+            return value;
+        }
+
+        void skip(int length) throws IOException {
+            if (length > data.length - pos) {
+                throw new IOException("invalid data - unexpected end of data");
+            }
+            pos += length;
+        }
+
+        byte[] readBytes() throws IOException {
+            int length = readVarInt();
+            if (length > data.length - pos) {
+                throw new IOException("invalid data - unexpected end of data");
+            }
+            byte[] result = new byte[length];
+            System.arraycopy(data, pos, result, 0, length);
+            pos += length;
+            return result;
+        }
+
+        String readName(String[] names) throws IOException {
+            int index = readVarInt();
+            if (index >= names.length) {
+                throw new IOException("invalid data - unknown name index " + index);
+            }
+            return names[index];
+        }
+
+        String readString() throws IOException {
+            int length = readVarInt();
+            if (length > data.length - pos) {
+                throw new IOException("invalid data - unexpected end of data");
+            }
+            String result = new String(data, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ *  Imixs-Workflow
+ *
+ *  Copyright (C) 2001-2020 Imixs Software Solutions GmbH,
+ *  http://www.imixs.com
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 2
+ *  of the License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You can receive a copy of the GNU General Public
+ *  License at http://www.gnu.org/licenses/gpl.html
+ *
+ *  Project:
+ *      https://www.imixs.org
+ *      https://github.com/imixs/imixs-workflow
+ *
+ *  Contributors:
+ *      Imixs Software Solutions GmbH - Project Management
+ *      Ralph Soika - Software Developer
+ */
+
+package org.imixs.workflow.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.Vector;
+
+import org.imixs.workflow.ItemMap;
+import org.imixs.workflow.xml.XMLDocument;
+import org.imixs.workflow.xml.XMLItem;
+
+/**
+ * The ItemValueCopier is an utility class to make a deep copy of the item
+ * values stored in an ItemCollection.
+ * <p>
+ * The copier knows the value types supported by the ItemCollection (immutable
+ * java.lang and java.math values, Date, primitive arrays, nested List and Map
+ * structures, XMLItem and XMLDocument). Immutable values are shared by
+ * reference and only the mutable containers are copied. Only for unknown
+ * object types the copier falls back to a serialization round trip.
+ * <p>
+ * The method {@link #deepCopyBySerialization(Object)} provides the former
+ * serialization based copy strategy.
+ *
+ * @author rsoika
+ */
+public class ItemValueCopier {
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private ItemValueCopier() {
+    }
+
+    /**
+     * Makes a deep copy of a given value. Supported collection types are copied
+     * structurally. Unknown object types are copied by serialization.
+     *
+     * @param value - value to be copied, can be null
+     * @return a deep copy of the value
+     * @throws IOException            - if an unknown value type is not
+     *                                serializable
+     * @throws ClassNotFoundException - if an unknown value type can not be
+     *                                deserialized
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static Object deepCopy(Object value) throws IOException, ClassNotFoundException {
+        if (value == null || isImmutable(value)) {
+            return value;
+        }
+
+        if (value instanceof List) {
+            List source = (List) value;
+            List copy = (value instanceof Vector) ? new Vector<>(source.size()) : new ArrayList<>(source.size());
+            for (Object singleValue : source) {
+                copy.add(deepCopy(singleValue));
+            }
+            return copy;
+        }
+
+        if (value instanceof ItemMap) {
+            // copy the item map without converting single values into value lists
+            ItemMap source = (ItemMap) value;
+            ItemMap copy = new ItemMap(source.size());
+            for (String key : source.keySet()) {
+                Object itemValue = source.peekItemValue(key);
+                if (itemValue instanceof List) {
+                    copy.put(key, (List) deepCopy(itemValue));
+                } else {
+                    copy.putSingleValue(key, deepCopy(itemValue));
+                }
+            }
+            return copy;
+        }
+
+        if (value instanceof Map) {
+            Map source = (Map) value;
+            Map copy;
+            if (value instanceof Hashtable) {
+                copy = new Hashtable<>(Math.max(11, source.size() * 2));
+            } else if (value instanceof SortedMap) {
+                copy = new TreeMap<>(((SortedMap) value).comparator());
+            } else {
+                copy = new LinkedHashMap<>(Math.max(16, source.size() * 2));
+            }
+            for (Object o : source.entrySet()) {
+                Map.Entry entry = (Map.Entry) o;
+                copy.put(deepCopy(entry.getKey()), deepCopy(entry.getValue()));
+            }
+            return copy;
+        }
+
+        if (value instanceof Date) {
+            return ((Date) value).clone();
+        }
+
+        if (value.getClass().isArray()) {
+            return copyArray(value);
+        }
+
+        if (value instanceof XMLDocument) {
+            XMLDocument copy = new XMLDocument();
+            copy.setItem((XMLItem[]) deepCopy(((XMLDocument) value).getItem()));
+            return copy;
+        }
+
+        if (value instanceof XMLItem && value.getClass() == XMLItem.class) {
+            XMLItem source = (XMLItem) value;
+            Object[] values = source.getValue();
+            // an empty value array would be converted by setValue - so we can not copy
+            // the item structurally
+            if (values == null || values.length > 0) {
+                XMLItem copy = new XMLItem();
+                copy.setName(source.getName());
+                if (values != null) {
+                    copy.setValue((Object[]) copyArray(values));
+                }
+                return copy;
+            }
+        }
+
+        if (value instanceof StringBuilder) {
+            return new StringBuilder((StringBuilder) value);
+        }
+        if (value instanceof StringBuffer) {
+            return new StringBuffer((StringBuffer) value);
+        }
+
+        // unknown type
+        return deepCopyBySerialization(value);
+    }
+
+    /**
+     * Makes a deep copy of a given value by serializing and deserializing the
+     * object graph.
+     * <p>
+     * It is assumed that all elements in the object's source graph are
+     * serializable.
+     *
+     * @param value - value to be copied
+     * @return a deep copy of the value
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    public static Object deepCopyBySerialization(Object value) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bos);
+        // serialize and pass the object
+        oos.writeObject(value);
+        oos.flush();
+        ByteArrayInputStream bais = new ByteArrayInputStream(bos.toByteArray());
+        ObjectInputStream ois = new ObjectInputStream(bais);
+        return ois.readObject();
+    }
+
+    /**
+     * Copies an array. Primitive arrays are cloned, object arrays are copied
+     * element by element into a new array of the same component type.
+     */
+    private static Object copyArray(Object array) throws IOException, ClassNotFoundException {
+        Class<?> componentType = array.getClass().getComponentType();
+        if (componentType.isPrimitive()) {
+            if (array instanceof byte[]) {
+                return ((byte[]) array).clone();
+            }
+            if (array instanceof char[]) {
+                return ((char[]) array).clone();
+            }
+            if (array instanceof int[]) {
+                return ((int[]) array).clone();
+            }
+            if (array instanceof long[]) {
+                return ((long[]) array).clone();
+            }
+            if (array instanceof double[]) {
+                return ((double[]) array).clone();
+            }
+            if (array instanceof float[]) {
+                return ((float[]) array).clone();
+            }
+            if (array instanceof boolean[]) {
+                return ((boolean[]) array).clone();
+            }
+            return ((short[]) array).clone();
+        }
+        int length = Array.getLength(array);
+        Object[] copy = (Object[]) Array.newInstance(componentType, length);
+        for (int i = 0; i < length; i++) {
+            copy[i] = deepCopy(Array.get(array, i));
+        }
+        return copy;
+    }
+
+    /**
+     * Returns true if the value is an instance of a known immutable class. In
+     * this case the value can be shared between two ItemCollections.
+     * <p>
+     * Note: subclasses of BigInteger and BigDecimal are not treated as immutable.
+     */
+    private static boolean isImmutable(Object value) {
+        Class<?> c = value.getClass();
+        return c == String.class || c == Integer.class || c == Long.class || c == Boolean.class
+                || c == Double.class || c == Float.class || c == Short.class || c == Byte.class
+                || c == Character.class || c == BigDecimal.class || c == BigInteger.class || value instanceof Enum
+                || c == Class.class;
+    }
+
+}
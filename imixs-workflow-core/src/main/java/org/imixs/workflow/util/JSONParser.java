@@ -28,13 +28,14 @@
 
 package org.imixs.workflow.util;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.logging.Level;
@@ -152,6 +153,10 @@ public class JSONParser {
     		]
     	}
      * </code>
+     * <p>
+     * The stream is read in a single pass with a fixed size buffer. The values are
+     * stored directly into the ItemCollection, so the parsing time grows linear
+     * with the size of the stream.
      * 
      * @param requestBodyStream
      * @param encoding          - default encoding use to parse the stream
@@ -178,100 +183,21 @@ public class JSONParser {
             encoding = "UTF-8";
         }
 
-        // Vector<String> vMultiValueFieldNames = new Vector<String>();
-        BufferedReader in = new BufferedReader(new InputStreamReader(requestBodyStream, encoding));
-
-        String inputLine;
+        Reader in = new InputStreamReader(requestBodyStream, encoding);
         ItemCollection workitem = new ItemCollection();
-
-        String content = null;
-        String token = null;
-        String name = null;
-        StringBuffer stringBuffer = new StringBuffer();
-        int iPos = -1;
-        int iStart = -1;
-        int iEnd = -1;
         try {
-            // first we concat all lines
-            while ((inputLine = in.readLine()) != null) {
-                stringBuffer.append(inputLine);
-                if (debug) {
-                    logger.log(Level.FINEST, "......parseWorkitem - read line:{0}", inputLine);
-                }
-            }
-            content = stringBuffer.toString();
-
-            // find start ...."item":[...
-            content = content.substring(content.indexOf('[') + 0);
             if (debug) {
                 logger.finest("......parseWorkitem - start parsing...");
             }
-            while (content != null) {
-
-                // find name => "name" : "$isauthor" ,
-                iPos = content.indexOf(':');
-                content = content.substring(iPos);
-
-                token = content.substring(0, content.indexOf(','));
-                iStart = token.indexOf('"') + 1;
-                iEnd = token.lastIndexOf('"');
-                if (iEnd < iStart)
-                    throw new java.text.ParseException("Unexpected position of '}", iEnd);
-
-                name = token.substring(iStart, iEnd);
-
-                content = content.substring(token.length());
-                if (!isValueArray(content)) {
-                    // now find the value token =>
-                    // "value":{"@type":"xs:boolean","$":"true"}},
-                    iStart = findNextChar(content, '{') + 1;
-                    iEnd = findNextChar(content, '}');
-                    if (iEnd < iStart)
-                        throw new java.text.ParseException("Unexpected position of '}", iEnd);
-                    token = content.substring(iStart, iEnd);
-                    content = content.substring(iEnd + 1);
-                    storeValue(name, token, workitem);
-                } else {
-                    // get content of array
-                    iStart = findNextChar(content, '[') + 1;
-                    iEnd = findNextChar(content, ']');
-                    if (iEnd < iStart)
-                        throw new java.text.ParseException("Unexpected position of '}", iEnd);
-
-                    String arrayContent = content.substring(iStart, iEnd);
-                    content = content.substring(iEnd + 1);
-                    // parse array values....
-                    while (arrayContent != null) {
-                        // now find the value token =>
-                        // "value":{"@type":"xs:boolean","$":"true"}},
-                        iStart = findNextChar(arrayContent, '{') + 1;
-                        iEnd = findNextChar(arrayContent, '}');
-                        if (iEnd < iStart)
-                            throw new java.text.ParseException("Unexpected position of '}", iEnd);
-
-                        token = arrayContent.substring(iStart, iEnd);
-                        arrayContent = arrayContent.substring(iEnd + 1);
-                        storeValue(name, token, workitem);
-
-                        if (!arrayContent.contains("{"))
-                            break;
-                    }
-
-                }
-
-                if (!content.contains("{"))
-                    break;
-
-            }
+            new WorkitemReader(in).read(workitem);
         } catch (IOException e1) {
-            // logger.severe("Unable to parse workitem data!");
-            e1.printStackTrace();
+            logger.log(Level.SEVERE, "parseWorkitem - unable to parse workitem data: {0}", e1.getMessage());
             return null;
         } finally {
             try {
                 in.close();
             } catch (IOException e) {
-                e.printStackTrace();
+                logger.log(Level.WARNING, "parseWorkitem - unable to close stream: {0}", e.getMessage());
             }
 
         }
@@ -280,95 +206,31 @@ public class JSONParser {
     }
 
     /**
-     * This helper method extracts the type and value of a token and stores the
-     * value into the workitem
+     * This helper method converts a value string into the object type defined by
+     * the "@type" attribute and stores the value into the workitem. If the item
+     * already exists, the value is appended to the existing value list.
      * 
-     * e.g.
-     * 
-     * {"name":"$isauthor","value":{"@type":"xs:boolean","$":true}},
-     * {"name":"$readaccess","value":{"@type":"xs:string","$":"Anna"}},
-     * {"name":"txtmessage","value":{"@type":"xs:string","$":"worklist"}},
-     * {"name":"$activityid","value":{"@type":"xs:int","$":10}},
-     * {"name":"XXXX","value":{"$":10,"@type":"xs:int"}},
-     * {"name":"$processid","value":{"@type":"xs:int","$":100}}
-     * 
-     * @param token
-     * @throws ParseException
+     * @param name        - item name
+     * @param type        - the xml type e.g. 'xs:int' or null
+     * @param stringValue - the value
+     * @param workitem
      */
     @SuppressWarnings({ "rawtypes", "unchecked" })
-    private static void storeValue(String name, String token, ItemCollection workitem) throws ParseException {
+    private static void storeValue(String name, String type, String stringValue, ItemCollection workitem) {
         boolean debug = logger.isLoggable(Level.FINE);
-        int iPos, iStart, iEnd;
-        Object value;
-        String type = null;
-
-        // check if "@type" exists
-        iPos = token.indexOf("\"@type\"");
-        if (iPos > -1) {
-            iStart = token.indexOf('"', iPos + "\"@type\"".length() + 1) + 1;
-            iEnd = token.indexOf('"', iStart);
-            if (iEnd < iStart)
-                throw new ParseException("Unexpected position of '}", iEnd);
-
-            type = token.substring(iStart, iEnd);
-            // token = token.substring(iEnd + 1);
-        }
-
-        // check if "$" exists
-        String stringValue = null;
-        iPos = token.indexOf("\"$\"");
-        if (iPos > -1) {
-            iStart = token.indexOf('"', iPos + "\"$\"".length() + 1) + 0;
-
-            // check for ,
-            int commaPos = token.indexOf(',', iStart);
-            if (commaPos > -1) {
-                stringValue = token.substring(iStart, commaPos);
-            } else {
-                stringValue = token.substring(iStart);
-            }
-        }
-
-        // remove " from string value
-        if (stringValue.startsWith("\"")) {
-            stringValue = stringValue.substring(1);
-        }
-        if (stringValue.endsWith("\"")) {
-            stringValue = stringValue.substring(0, stringValue.length() - 1);
-        }
-
-        value = stringValue;
+        Object value = stringValue;
 
         // convert value to Object Type
         if ("xs:boolean".equalsIgnoreCase(type)) {
             value = Boolean.parseBoolean(stringValue);
-            if (debug) {
-                logger.finest("......storeValue - datatype=xs:boolean");
-            }
-        }
-        if ("xs:integer".equalsIgnoreCase(type) || "xs:int".equalsIgnoreCase(type)) {
+        } else if ("xs:integer".equalsIgnoreCase(type) || "xs:int".equalsIgnoreCase(type)) {
             value = Integer.parseInt(stringValue);
-            if (debug) {
-                logger.finest("......storeValue - datatype=xs:integer");
-            }
-        }
-        if ("xs:long".equalsIgnoreCase(type)) {
+        } else if ("xs:long".equalsIgnoreCase(type)) {
             value = Long.parseLong(stringValue);
-            if (debug) {
-                logger.finest("......storeValue - datatype=xs:long");
-            }
-        }
-        if ("xs:float".equalsIgnoreCase(type)) {
-            value = new Float(stringValue);
-            if (debug) {
-                logger.finest("......storeValue - datatype=xs:float");
-            }
-        }
-        if ("xs:double".equalsIgnoreCase(type)) {
-            value = new Double(stringValue);
-            if (debug) {
-                logger.finest("......storeValue - datatype=xs:double");
-            }
+        } else if ("xs:float".equalsIgnoreCase(type)) {
+            value = Float.valueOf(stringValue);
+        } else if ("xs:double".equalsIgnoreCase(type)) {
+            value = Double.valueOf(stringValue);
         }
 
         // store value
@@ -376,7 +238,7 @@ public class JSONParser {
             // frist value
             workitem.replaceItemValue(name, value);
             if (debug) {
-                logger.log(Level.FINEST, "......storeValue: ''{0}'' = ''{1}''", new Object[]{name, value});
+                logger.log(Level.FINEST, "......storeValue: ''{0}'' = ''{1}''", new Object[] { name, value });
             }
         } else {
             // add value
@@ -384,52 +246,279 @@ public class JSONParser {
             valueList.add(value);
             workitem.replaceItemValue(name, valueList);
             if (debug) {
-                logger.log(Level.FINEST, "......store multivalue: ''{0}'' = ''{1}''", new Object[]{name, value});
+                logger.log(Level.FINEST, "......store multivalue: ''{0}'' = ''{1}''", new Object[] { name, value });
             }
         }
-
     }
 
     /**
-     * Checks if the value is an array of values
-     * 
-     * ,"value":[ {"@type":"xs:string","$":"A"},
-     * 
-     * @param token
-     * @return
+     * The WorkitemReader is a single pass tokenizer for the Imixs JSON format. The
+     * reader consumes the character stream through a fixed size buffer and stores
+     * each item value into the ItemCollection as soon as the value object is
+     * complete. Unknown keys are skipped.
+     * <p>
+     * As the former scanner, the reader takes the first array as the item list,
+     * independent of its key, and does not resolve escape sequences in values.
      */
-    private static boolean isValueArray(String token) {
-        int b1 = findNextChar(token, '[');
-        int b2 = findNextChar(token, '{');
-        if (b1 > -1 && b1 < b2)
-            return true;
-        else
-            return false;
-    }
+    private static final class WorkitemReader {
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder token = new StringBuilder();
+        private int length = 0;
+        private int pos = 0;
+        private int offset = 0;
+
+        WorkitemReader(Reader reader) {
+            this.reader = reader;
+        }
 
-    /**
-     * This method finds the next position of a char. The method scips excapte
-     * characters like '\"' or '\['
-     * 
-     * @param token
-     * @param c
-     * @return
-     */
-    private static int findNextChar(String token, char c) {
-        int iPos = token.indexOf(c);
+        /**
+         * Reads the top level object and stores all values of the first array (e.g.
+         * "item") into the given workitem. The top level element can also be the
+         * item array itself.
+         */
+        void read(ItemCollection workitem) throws IOException, ParseException {
+            if (skipWhitespace() == '[') {
+                readItems(workitem);
+                return;
+            }
+            expect('{');
+            if (skipWhitespace() == '}') {
+                next();
+                return;
+            }
+            boolean itemsRead = false;
+            do {
+                readString();
+                expect(':');
+                if (!itemsRead && skipWhitespace() == '[') {
+                    readItems(workitem);
+                    itemsRead = true;
+                } else {
+                    skipValue();
+                }
+            } while (readSeparator('}'));
+        }
 
-        if (iPos <= 0)
-            return iPos;
+        /**
+         * Reads the item array [{...},{...}]
+         */
+        private void readItems(ItemCollection workitem) throws IOException, ParseException {
+            expect('[');
+            if (skipWhitespace() == ']') {
+                next();
+            } else {
+                do {
+                    readItem(workitem);
+                } while (readSeparator(']'));
+            }
+        }
+
+        /**
+         * Reads a single item object: {"name":"...","value":{...}} or
+         * {"name":"...","value":[{...},{...}]}
+         */
+        private void readItem(ItemCollection workitem) throws IOException, ParseException {
+            String name = null;
+            List<String[]> values = null;
+            expect('{');
+            if (skipWhitespace() == '}') {
+                next();
+                return;
+            }
+            do {
+                String key = readString();
+                expect(':');
+                if ("name".equals(key)) {
+                    name = readScalar();
+                } else if ("value".equals(key)) {
+                    values = new ArrayList<String[]>(1);
+                    if (skipWhitespace() == '[') {
+                        next();
+                        if (skipWhitespace() == ']') {
+                            next();
+                        } else {
+                            do {
+                                readValue(values);
+                            } while (readSeparator(']'));
+                        }
+                    } else {
+                        readValue(values);
+                    }
+                } else {
+                    skipValue();
+                }
+            } while (readSeparator('}'));
+
+            if (name == null) {
+                throw new ParseException("Missing item name", offset + pos);
+            }
+            if (values != null) {
+                for (String[] value : values) {
+                    storeValue(name, value[0], value[1], workitem);
+                }
+            }
+        }
+
+        /**
+         * Reads a value object {"@type":"xs:string","$":"A"} and adds the type and
+         * the value string to the given list. Values without a "$" key are ignored.
+         */
+        private void readValue(List<String[]> values) throws IOException, ParseException {
+            String type = null;
+            String value = null;
+            expect('{');
+            if (skipWhitespace() == '}') {
+                next();
+                return;
+            }
+            do {
+                String key = readString();
+                expect(':');
+                if ("@type".equals(key)) {
+                    type = readScalar();
+                } else if ("$".equals(key)) {
+                    value = readScalar();
+                } else {
+                    skipValue();
+                }
+            } while (readSeparator('}'));
+            if (value != null) {
+                values.add(new String[] { type, value });
+            }
+        }
+
+        /**
+         * Reads a string or a literal (number, true, false). The literal null is
+         * returned as null.
+         */
+        private String readScalar() throws IOException, ParseException {
+            int c = skipWhitespace();
+            if (c == '"') {
+                return readString();
+            }
+            if (c == '{' || c == '[' || c < 0) {
+                throw unexpected(c);
+            }
+            token.setLength(0);
+            while (c >= 0 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+                token.append((char) next());
+                c = peek();
+            }
+            String literal = token.toString();
+            return "null".equals(literal) ? null : literal;
+        }
+
+        /**
+         * Skips a value of any type, including nested objects and arrays.
+         */
+        private void skipValue() throws IOException, ParseException {
+            int c = skipWhitespace();
+            if (c == '{' || c == '[') {
+                char close = (c == '{') ? '}' : ']';
+                next();
+                if (skipWhitespace() == close) {
+                    next();
+                    return;
+                }
+                do {
+                    if (close == '}') {
+                        readString();
+                        expect(':');
+                    }
+                    skipValue();
+                } while (readSeparator(close));
+            } else {
+                readScalar();
+            }
+        }
 
-        // check if the char before is a \
-        while ((token.charAt(iPos - 1)) == '\\') {
-            iPos = token.indexOf(c, iPos + 2);
-            if (iPos == -1)
-                break;
+        /**
+         * Reads a quoted string. Escape sequences are not resolved, an escaped
+         * character is kept together with its backslash.
+         */
+        private String readString() throws IOException, ParseException {
+            expect('"');
+            token.setLength(0);
+            while (true) {
+                int c = next();
+                if (c == '"') {
+                    return token.toString();
+                }
+                if (c < 0) {
+                    throw unexpected(c);
+                }
+                token.append((char) c);
+                if (c == '\\') {
+                    c = next();
+                    if (c < 0) {
+                        throw unexpected(c);
+                    }
+                    token.append((char) c);
+                }
+            }
         }
 
-        return iPos;
+        /**
+         * Reads the separator between two elements. Returns true if a ',' was found
+         * and false if the closing character was found.
+         */
+        private boolean readSeparator(char close) throws IOException, ParseException {
+            int c = skipWhitespace();
+            next();
+            if (c == ',') {
+                return true;
+            }
+            if (c == close) {
+                return false;
+            }
+            throw unexpected(c);
+        }
 
+        private void expect(char expected) throws IOException, ParseException {
+            int c = skipWhitespace();
+            if (c != expected) {
+                throw unexpected(c);
+            }
+            next();
+        }
+
+        private ParseException unexpected(int c) {
+            if (c < 0) {
+                return new ParseException("Unexpected end of stream", offset + pos);
+            }
+            return new ParseException("Unexpected character '" + (char) c + "'", offset + pos);
+        }
+
+        private int skipWhitespace() throws IOException {
+            int c = peek();
+            while (c >= 0 && Character.isWhitespace(c)) {
+                pos++;
+                c = peek();
+            }
+            return c;
+        }
+
+        private int peek() throws IOException {
+            if (pos >= length) {
+                offset += length;
+                length = reader.read(buffer, 0, buffer.length);
+                pos = 0;
+                if (length <= 0) {
+                    length = 0;
+                    return -1;
+                }
+            }
+            return buffer[pos];
+        }
+
+        private int next() throws IOException {
+            int c = peek();
+            if (c >= 0) {
+                pos++;
+            }
+            return c;
+        }
     }
 
 }
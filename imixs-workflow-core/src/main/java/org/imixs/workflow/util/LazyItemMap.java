@@ -0,0 +1,373 @@
+/*
+ *  Imixs-Workflow
+ *
+ *  Copyright (C) 2001-2020 Imixs Software Solutions GmbH,
+ *  http://www.imixs.com
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 2
+ *  of the License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You can receive a copy of the GNU General Public
+ *  License at http://www.gnu.org/licenses/gpl.html
+ *
+ *  Project:
+ *      https://www.imixs.org
+ *      https://github.com/imixs/imixs-workflow
+ *
+ *  Contributors:
+ *      Imixs Software Solutions GmbH - Project Management
+ *      Ralph Soika - Software Developer
+ */
+
+package org.imixs.workflow.util;
+
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.imixs.workflow.ItemMap;
+
+/**
+ * The LazyItemMap is an item map backed by the binary data of the
+ * {@link ItemCollectionCodec}. An item value is decoded on the first access.
+ * Items which are never read are never decoded. The item names are available
+ * without decoding any value.
+ * <p>
+ * Iterating the entries of the map decodes all remaining items. Also the
+ * methods equals and hashCode decode all items.
+ * <p>
+ * The map counts all changes made by a put, remove or clear operation (see
+ * getChangeCount). A value list returned by the map is the stored list, so it
+ * can be changed in place. This is not counted, but the map records that a value
+ * list was returned (see hasExposedValues). In this case a client has to compare
+ * the data to detect a change.
+ * <p>
+ * Only the decoding of an item is synchronized. After all items are decoded the
+ * map reads and writes the items like an ItemMap.
+ * <p>
+ * A LazyItemMap is serialized as a Hashtable.
+ *
+ * @see ItemCollectionCodec#decodeLazy(byte[])
+ * @author rsoika
+ */
+public class LazyItemMap extends AbstractMap<String, List<Object>> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ItemMap items;
+    private transient byte[] body;
+    private transient String[] names;
+    // positions of the items not yet decoded
+    private transient volatile Map<String, Integer> positions;
+    private transient int changes;
+    private transient boolean exposedValues;
+
+    LazyItemMap(byte[] body, String[] names, Map<String, Integer> positions) {
+        this.body = body;
+        this.names = names;
+        this.positions = positions;
+        this.items = new ItemMap(positions.size());
+        if (positions.isEmpty()) {
+            release();
+        }
+    }
+
+    /**
+     * Creates a LazyItemMap holding the items of a given map. The value lists are
+     * not copied. The new map is marked as modified.
+     *
+     * @param map - decoded items
+     */
+    public LazyItemMap(Map<String, List<Object>> map) {
+        this.items = new ItemMap(map.size());
+        items.putAll(map);
+        this.changes = 1;
+    }
+
+    /**
+     * Returns true if the map was changed by a put, remove or clear operation.
+     *
+     * @return
+     */
+    public boolean isModified() {
+        return changes > 0;
+    }
+
+    /**
+     * Returns the number of changes made by a put, remove or clear operation. The
+     * value can be compared to a former value to detect a change of the map.
+     *
+     * @return
+     */
+    public int getChangeCount() {
+        return changes;
+    }
+
+    /**
+     * Returns true if a value list was returned by the map. Such a value list may
+     * have been changed in place without changing the change count.
+     *
+     * @return
+     */
+    public boolean hasExposedValues() {
+        return exposedValues;
+    }
+
+    /**
+     * Returns the number of items not yet decoded.
+     *
+     * @return
+     */
+    public synchronized int getUndecodedCount() {
+        return positions == null ? 0 : positions.size();
+    }
+
+    @Override
+    public List<Object> get(Object key) {
+        decode(key);
+        exposedValues = true;
+        return items.get(key);
+    }
+
+    /**
+     * Returns the stored value of an item without creating a value list for a
+     * single value (see ItemMap.peekItemValue). The value must not be changed.
+     *
+     * @param key - normalized item name
+     * @return List, single value or null
+     */
+    public Object peekItemValue(String key) {
+        decode(key);
+        return items.peekItemValue(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        Map<String, Integer> positions = this.positions;
+        if (positions == null) {
+            return items.containsKey(key);
+        }
+        synchronized (this) {
+            return items.containsKey(key) || (this.positions != null && this.positions.containsKey(key));
+        }
+    }
+
+    @Override
+    public int size() {
+        if (positions == null) {
+            return items.size();
+        }
+        synchronized (this) {
+            return items.size() + (positions == null ? 0 : positions.size());
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public List<Object> put(String key, List<Object> value) {
+        changes++;
+        decode(key);
+        return items.put(key, value);
+    }
+
+    @Override
+    public List<Object> remove(Object key) {
+        changes++;
+        decode(key);
+        return items.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        changes++;
+        synchronized (this) {
+            release();
+            items.clear();
+        }
+    }
+
+    /**
+     * Returns the item names. The key set does not decode the item values.
+     */
+    @Override
+    public Set<String> keySet() {
+        if (positions == null) {
+            return items.keySet();
+        }
+        return new KeySet();
+    }
+
+    /**
+     * Returns the entries of the map. All items not yet decoded are decoded.
+     * Iterating the entries does not mark the map as modified.
+     */
+    @Override
+    public Set<Entry<String, List<Object>>> entrySet() {
+        decodeAll();
+        exposedValues = true;
+        return items.entrySet();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        decodeAll();
+        return items.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        decodeAll();
+        return items.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        decodeAll();
+        return items.toString();
+    }
+
+    /**
+     * Decodes the value of a single item if not yet decoded.
+     */
+    private void decode(Object key) {
+        if (positions != null) {
+            synchronized (this) {
+                decodeItem(key);
+            }
+        }
+    }
+
+    /**
+     * Decodes the value of a single item. The caller must hold the lock of the
+     * map.
+     */
+    private void decodeItem(Object key) {
+        if (positions != null) {
+            Integer position = positions.remove(key);
+            if (position != null) {
+                try {
+                    items.put((String) key, ItemCollectionCodec.decodeItemValue(body, names, position));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("unable to decode item '" + key + "'", e);
+                }
+                if (positions.isEmpty()) {
+                    release();
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes all items not yet decoded.
+     */
+    private void decodeAll() {
+        if (positions != null) {
+            synchronized (this) {
+                if (positions != null) {
+                    for (String key : new ArrayList<>(positions.keySet())) {
+                        decodeItem(key);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Releases the binary data after all items are decoded.
+     */
+    private void release() {
+        positions = null;
+        body = null;
+        names = null;
+    }
+
+    /**
+     * The map is serialized by the ItemMap which is serialized as a Hashtable.
+     */
+    private Object writeReplace() throws ObjectStreamException {
+        decodeAll();
+        return items;
+    }
+
+    /**
+     * Key set view based on the item names. The iterator works on a snapshot of
+     * the names.
+     */
+    private class KeySet extends AbstractSet<String> {
+
+        @Override
+        public Iterator<String> iterator() {
+            final List<String> keys;
+            synchronized (LazyItemMap.this) {
+                keys = new ArrayList<>(size());
+                keys.addAll(items.keySet());
+                if (positions != null) {
+                    keys.addAll(positions.keySet());
+                }
+            }
+            return new Iterator<String>() {
+                private int index = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return index < keys.size();
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return keys.get(index++);
+                }
+
+                @Override
+                public void remove() {
+                    if (index == 0) {
+                        throw new IllegalStateException();
+                    }
+                    LazyItemMap.this.remove(keys.get(index - 1));
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return LazyItemMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (containsKey(o)) {
+                LazyItemMap.this.remove(o);
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -32,7 +32,9 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
@@ -66,6 +68,15 @@ import org.xml.sax.SAXException;
 
 /**
  * XMLParser provides helper methods to parse xml strings
+ * <p>
+ * The methods to find tags and attributes scan the content in a single pass and
+ * also work on text which is not well-formed XML (e.g. a mail body or HTML
+ * content).
+ * <p>
+ * The results of the methods parseTag and findAttributes are cached by content.
+ * The parsed xml fragments are typically model definitions which do not change
+ * between calls. A cached result of parseTag is returned as a copy-on-write
+ * ItemCollection.
  * 
  * @author rsoika
  *
@@ -74,6 +85,35 @@ public class XMLParser {
 
     private static final Logger logger = Logger.getLogger(XMLParser.class.getName());
 
+    private static final int CACHE_SIZE = 256;
+    // larger xml fragments are not cached
+    private static final int MAX_FRAGMENT_LENGTH = 8192;
+
+    private static final Pattern ATTRIBUTE_PATTERN = Pattern
+            .compile("(\\S+)\\s*=\\s*[\"']?((?:.(?![\"']?\\s+(?:\\S+)=|[>\"']))?[^\"']*)[\"']?");
+
+    private static final Map<String, ItemCollection> fragmentCache = Collections
+            .synchronizedMap(new LinkedHashMap<String, ItemCollection>(64, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ItemCollection> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
+    private static final Map<String, Map<String, String>> attributeCache = Collections
+            .synchronizedMap(new LinkedHashMap<String, Map<String, String>>(64, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Map<String, String>> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
+    private static final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+
     /**
      * This method parses a xml tag for attributes. The method returns a Map with
      * all attributes found in the content string
@@ -86,8 +126,11 @@ public class XMLParser {
      * @return
      */
     public static Map<String, String> findAttributes(String content) {
+        Map<String, String> cached = attributeCache.get(content);
+        if (cached != null) {
+            return new HashMap<String, String>(cached);
+        }
         Map<String, String> result = new HashMap<String, String>();
-        Pattern p = null;
         // short version of [A-Za-z0-9\-]
         // Pattern p =
         // Pattern.compile("([\\w\\-]+)=\"*((?<=\")[^\"]+(?=\")|([^\\s]+))\"*");
@@ -96,12 +139,13 @@ public class XMLParser {
         // Pattern p =
         // Pattern.compile("(\\S+)=[\"']?((?:.(?![\"']?\\s+(?:\\S+)=|[>\"']))+.)[\"']?");
 
-        p = Pattern.compile("(\\S+)\\s*=\\s*[\"']?((?:.(?![\"']?\\s+(?:\\S+)=|[>\"']))?[^\"']*)[\"']?");
-
-        Matcher m = p.matcher(content);
+        Matcher m = ATTRIBUTE_PATTERN.matcher(content);
         while (m.find()) {
             result.put(m.group(1), m.group(2));
         }
+        if (content.length() <= MAX_FRAGMENT_LENGTH) {
+            attributeCache.put(content, new HashMap<String, String>(result));
+        }
         return result;
     }
 
@@ -142,18 +186,39 @@ public class XMLParser {
      */
     public static List<String> findTags(String content, String tag) {
         List<String> result = new ArrayList<String>();
-
-        String regex = "<(?i)(" + tag + ")" + // matches the tag itself
-                "([^<]+)" + // then anything in between the opening and closing
-                // of the tag
-                "(</" + tag + ">|/>)"; // and finally the end tag corresponding
-        // to what we matched as the first group
-        // (Exony_Credit_Card_ID, tag1 or tag2)
-
-        Pattern p = Pattern.compile(regex);
-        Matcher m = p.matcher(content);
-        while (m.find()) {
-            result.add(m.group());
+        // single pass scan equal to the regular expression
+        // <(?i)(tag)([^<]+)(</tag>|/>)
+        int tagLength = tag.length();
+        int pos = content.indexOf('<');
+        while (pos > -1) {
+            int end = -1;
+            int valueStart = pos + 1 + tagLength;
+            if (content.regionMatches(true, pos + 1, tag, 0, tagLength) && valueStart < content.length()) {
+                // the tag value ends with the next '<'
+                int valueEnd = content.indexOf('<', valueStart);
+                if (valueEnd < 0) {
+                    valueEnd = content.length();
+                }
+                if (valueEnd > valueStart) {
+                    if (content.startsWith("</", valueEnd)
+                            && content.regionMatches(true, valueEnd + 2, tag, 0, tagLength)
+                            && content.startsWith(">", valueEnd + 2 + tagLength)) {
+                        end = valueEnd + 3 + tagLength;
+                    } else {
+                        // last empty tag end within the tag value
+                        int emptyEnd = content.lastIndexOf("/>", valueEnd - 2);
+                        if (emptyEnd > valueStart) {
+                            end = emptyEnd + 2;
+                        }
+                    }
+                }
+            }
+            if (end > -1) {
+                result.add(content.substring(pos, end));
+                pos = content.indexOf('<', end);
+            } else {
+                pos = content.indexOf('<', pos + 1);
+            }
         }
         return result;
     }
@@ -172,12 +237,24 @@ public class XMLParser {
      */
     public static List<String> findNoEmptyTags(String content, String tag) {
         List<String> result = new ArrayList<String>();
-        // Use a regular expression to extract the tag
-        String regex = "(<" + tag + "[^>]*>[\\s\\S]*?</" + tag + ">)";
-        Pattern pattern = java.util.regex.Pattern.compile(regex);
-        Matcher matcher = pattern.matcher(content);
-        while (matcher.find()) {
-            result.add(matcher.group());
+        // single pass scan equal to the regular expression
+        // (<tag[^>]*>[\s\S]*?</tag>)
+        String startTag = "<" + tag;
+        String endTag = "</" + tag + ">";
+        int pos = content.indexOf(startTag);
+        while (pos > -1) {
+            int end = -1;
+            int valueStart = content.indexOf('>', pos + startTag.length());
+            if (valueStart > -1) {
+                end = content.indexOf(endTag, valueStart + 1);
+            }
+            if (end < 0) {
+                // no more complete tags
+                break;
+            }
+            end = end + endTag.length();
+            result.add(content.substring(pos, end));
+            pos = content.indexOf(startTag, end);
         }
         return result;
     }
@@ -347,35 +424,52 @@ public class XMLParser {
         if (debug) {
             logger.finest("......parseItemStructure...");
         }
-        ItemCollection result = new ItemCollection();
-        if (xmlContent.length() > 0) {
-            try {
-
-                // parse item list...
-                DocumentBuilder documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-                Document doc = documentBuilder.parse(new InputSource(new StringReader(xmlContent)));
-                Node node = doc.importNode(doc.getDocumentElement(), true);
-
-                // we expect the tag name as the root tag of the xml structure!
-                if (node != null && node.getNodeName().equals(tag)) {
-                    DocumentFragment docfrag = doc.createDocumentFragment();
-                    while (node.hasChildNodes()) {
-                        docfrag.appendChild(node.removeChild(node.getFirstChild()));
-                    }
+        if (xmlContent.length() == 0) {
+            return new ItemCollection();
+        }
+        String key = null;
+        if (xmlContent.length() <= MAX_FRAGMENT_LENGTH) {
+            key = tag + '\n' + xmlContent;
+            ItemCollection cached = fragmentCache.get(key);
+            if (cached != null) {
+                return ItemCollection.createCopyOnWrite(cached);
+            }
+        }
 
-                    // append all items into the evalItemCollection...
-                    NodeList children = docfrag.getChildNodes();
-                    parseAndAppendChildNodes(children, result, debug);
+        ItemCollection result = new ItemCollection();
+        try {
+            // parse item list...
+            DocumentBuilder documentBuilder;
+            // the factory is not thread safe
+            synchronized (documentBuilderFactory) {
+                documentBuilder = documentBuilderFactory.newDocumentBuilder();
+            }
+            Document doc = documentBuilder.parse(new InputSource(new StringReader(xmlContent)));
+            Node node = doc.importNode(doc.getDocumentElement(), true);
+
+            // we expect the tag name as the root tag of the xml structure!
+            if (node != null && node.getNodeName().equals(tag)) {
+                DocumentFragment docfrag = doc.createDocumentFragment();
+                while (node.hasChildNodes()) {
+                    docfrag.appendChild(node.removeChild(node.getFirstChild()));
                 }
 
-            } catch (ParserConfigurationException | TransformerFactoryConfigurationError | SAXException
-                    | IOException e) {
-                throw new PluginException(XMLParser.class.getName(), "INVALID_FORMAT",
-                        "Parsing item content failed: " + e.getMessage());
-
+                // append all items into the evalItemCollection...
+                NodeList children = docfrag.getChildNodes();
+                parseAndAppendChildNodes(children, result, debug);
             }
+
+        } catch (ParserConfigurationException | TransformerFactoryConfigurationError | SAXException
+                | IOException e) {
+            throw new PluginException(XMLParser.class.getName(), "INVALID_FORMAT",
+                    "Parsing item content failed: " + e.getMessage());
+
         }
-        return result;
+        if (key == null) {
+            return result;
+        }
+        fragmentCache.put(key, result);
+        return ItemCollection.createCopyOnWrite(result);
     }
 
     /**
@@ -386,11 +480,15 @@ public class XMLParser {
     private static void parseAndAppendChildNodes(NodeList children, ItemCollection result, boolean debug){
         // collect all child nodes...
         int itemCount = children.getLength();
+        LSSerializer lsSerializer = null;
         for (int i = 0; i < itemCount; i++) {
             Node childNode = children.item(i);
             if (childNode instanceof Element && childNode.getFirstChild() != null) {
                 String name = childNode.getNodeName();
-                String value = innerXml(childNode);
+                if (lsSerializer == null) {
+                    lsSerializer = createSerializer(childNode);
+                }
+                String value = innerXml(childNode, lsSerializer);
                 result.appendItemValue(name, value);
 
                 if (debug) {
@@ -446,15 +544,10 @@ public class XMLParser {
      * 
      * @see https://stackoverflow.com/questions/3300839/get-a-nodes-inner-xml-as-string-in-java-dom?noredirect=1#comment90136258_42456679
      * @param node
+     * @param lsSerializer - serializer for the document of the node
      * @return
-     * @throws TransformerFactoryConfigurationError
-     * @throws TransformerException
      */
-    private static String innerXml(Node node) {
-        DOMImplementationLS lsImpl = (DOMImplementationLS) node.getOwnerDocument().getImplementation().getFeature("LS",
-                "3.0");
-        LSSerializer lsSerializer = lsImpl.createLSSerializer();
-        lsSerializer.getDomConfig().setParameter("xml-declaration", false);
+    private static String innerXml(Node node, LSSerializer lsSerializer) {
         NodeList childNodes = node.getChildNodes();
         StringBuilder sb = new StringBuilder();
         for (int i = 0; i < childNodes.getLength(); i++) {
@@ -473,6 +566,17 @@ public class XMLParser {
         return sb.toString();
     }
 
+    /**
+     * Creates a LSSerializer for the document of a node without a xml declaration.
+     */
+    private static LSSerializer createSerializer(Node node) {
+        DOMImplementationLS lsImpl = (DOMImplementationLS) node.getOwnerDocument().getImplementation().getFeature("LS",
+                "3.0");
+        LSSerializer lsSerializer = lsImpl.createLSSerializer();
+        lsSerializer.getDomConfig().setParameter("xml-declaration", false);
+        return lsSerializer;
+    }
+
     /**
      * @see https://stackoverflow.com/questions/3300839/get-a-nodes-inner-xml-as-string-in-java-dom?noredirect=1#comment90136258_42456679
      */
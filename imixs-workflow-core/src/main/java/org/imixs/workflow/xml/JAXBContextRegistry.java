@@ -0,0 +1,271 @@
+/*
+ *  Imixs-Workflow
+ *
+ *  Copyright (C) 2001-2020 Imixs Software Solutions GmbH,
+ *  http://www.imixs.com
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 2
+ *  of the License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You can receive a copy of the GNU General Public
+ *  License at http://www.gnu.org/licenses/gpl.html
+ *
+ *  Project:
+ *      https://www.imixs.org
+ *      https://github.com/imixs/imixs-workflow
+ *
+ *  Contributors:
+ *      Imixs Software Solutions GmbH - Project Management
+ *      Ralph Soika - Software Developer
+ */
+
+
+package org.imixs.workflow.xml;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.PropertyException;
+import jakarta.xml.bind.Unmarshaller;
+
+/**
+ * The JAXBContextRegistry holds a shared JAXBContext for each root class like
+ * {@link XMLDocument} or {@link XMLDataCollection}. The creation of a
+ * JAXBContext is expensive, a JAXBContext is thread safe and can be reused
+ * for all marshalling and unmarshalling operations.
+ * <p>
+ * Marshaller and Unmarshaller instances are not thread safe. The registry
+ * provides a bounded pool for each root class. A Marshaller or Unmarshaller
+ * acquired from the registry must be released after use:
+ * 
+ * <pre>
+ * {@code
+ * Marshaller m = JAXBContextRegistry.acquireMarshaller(XMLDocument.class);
+ * try {
+ *     m.marshal(xmlDocument, writer);
+ * } finally {
+ *     JAXBContextRegistry.release(XMLDocument.class, m);
+ * }
+ * }
+ * </pre>
+ * 
+ * When an instance is released, the properties 'jaxb.encoding',
+ * 'jaxb.formatted.output' and 'jaxb.fragment' of a Marshaller are reset to
+ * their defaults. The schema, the event handler, the listener and the
+ * attachment handler are removed. An instance with other changed properties
+ * (e.g. 'jaxb.schemaLocation' or a vendor property) is not pooled but
+ * discarded. An instance with a registered XmlAdapter must not be released.
+ * 
+ * @author rsoika
+ */
+public final class JAXBContextRegistry {
+
+    /**
+     * Maximum number of idle Marshaller and Unmarshaller instances per root class
+     */
+    public static final int POOL_SIZE = 16;
+
+    // properties compared with the defaults of a new instance before pooling
+    private static final String[] MARSHALLER_PROPERTIES = { Marshaller.JAXB_SCHEMA_LOCATION,
+            Marshaller.JAXB_NO_NAMESPACE_SCHEMA_LOCATION, "org.glassfish.jaxb.indentString",
+            "org.glassfish.jaxb.namespacePrefixMapper", "org.glassfish.jaxb.characterEscapeHandler",
+            "org.glassfish.jaxb.xmlDeclaration", "org.glassfish.jaxb.xmlHeaders", "org.glassfish.jaxb.c14n",
+            "org.glassfish.jaxb.objectIdentitityCycleDetection" };
+    private static final String[] UNMARSHALLER_PROPERTIES = { "org.glassfish.jaxb.core.ObjectFactory" };
+
+    private static final Map<Class<?>, JAXBContext> contexts = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Pool<Marshaller>> marshallers = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Pool<Unmarshaller>> unmarshallers = new ConcurrentHashMap<>();
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private JAXBContextRegistry() {
+    }
+
+    /**
+     * Returns the shared JAXBContext for a root class. The context is created on
+     * the first call.
+     * 
+     * @param type - root class e.g. XMLDocument.class
+     * @return shared JAXBContext
+     * @throws JAXBException
+     */
+    public static JAXBContext getContext(Class<?> type) throws JAXBException {
+        JAXBContext context = contexts.get(type);
+        if (context == null) {
+            // two threads may create a context at the same time - only the first one
+            // is registered
+            context = JAXBContext.newInstance(type);
+            JAXBContext existing = contexts.putIfAbsent(type, context);
+            if (existing != null) {
+                context = existing;
+            }
+        }
+        return context;
+    }
+
+    /**
+     * Returns a Marshaller for the given root class from the pool or creates a new
+     * one. The Marshaller must be released by {@link #release(Class, Marshaller)}.
+     * 
+     * @param type - root class e.g. XMLDocument.class
+     * @return Marshaller
+     * @throws JAXBException
+     */
+    public static Marshaller acquireMarshaller(Class<?> type) throws JAXBException {
+        Pool<Marshaller> pool = marshallers.computeIfAbsent(type, t -> new Pool<>());
+        Marshaller marshaller = pool.poll();
+        if (marshaller == null) {
+            marshaller = getContext(type).createMarshaller();
+            if (pool.defaults == null) {
+                pool.defaults = readProperties(marshaller::getProperty, MARSHALLER_PROPERTIES);
+            }
+        }
+        return marshaller;
+    }
+
+    /**
+     * Returns a Marshaller into the pool of the given root class. The Marshaller
+     * is reset to its defaults. If the Marshaller can not be reset, it is
+     * discarded.
+     * 
+     * @param type       - root class the Marshaller was acquired for
+     * @param marshaller
+     */
+    public static void release(Class<?> type, Marshaller marshaller) {
+        if (marshaller == null) {
+            return;
+        }
+        Pool<Marshaller> pool = marshallers.computeIfAbsent(type, t -> new Pool<>());
+        try {
+            marshaller.setProperty(Marshaller.JAXB_ENCODING, "UTF-8");
+            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.FALSE);
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.FALSE);
+            marshaller.setSchema(null);
+            marshaller.setEventHandler(null);
+            marshaller.setListener(null);
+            marshaller.setAttachmentMarshaller(null);
+            if (!readProperties(marshaller::getProperty, MARSHALLER_PROPERTIES).equals(pool.defaults)) {
+                // the configuration was changed
+                return;
+            }
+        } catch (JAXBException | UnsupportedOperationException e) {
+            // the marshaller can not be reset and is discarded
+            return;
+        }
+        pool.offer(marshaller);
+    }
+
+    /**
+     * Returns a Unmarshaller for the given root class from the pool or creates a
+     * new one. The Unmarshaller must be released by
+     * {@link #release(Class, Unmarshaller)}.
+     * 
+     * @param type - root class e.g. XMLDataCollection.class
+     * @return Unmarshaller
+     * @throws JAXBException
+     */
+    public static Unmarshaller acquireUnmarshaller(Class<?> type) throws JAXBException {
+        Pool<Unmarshaller> pool = unmarshallers.computeIfAbsent(type, t -> new Pool<>());
+        Unmarshaller unmarshaller = pool.poll();
+        if (unmarshaller == null) {
+            unmarshaller = getContext(type).createUnmarshaller();
+            if (pool.defaults == null) {
+                pool.defaults = readProperties(unmarshaller::getProperty, UNMARSHALLER_PROPERTIES);
+            }
+        }
+        return unmarshaller;
+    }
+
+    /**
+     * Returns a Unmarshaller into the pool of the given root class. The
+     * Unmarshaller is reset to its defaults. If the Unmarshaller can not be reset,
+     * it is discarded.
+     * 
+     * @param type         - root class the Unmarshaller was acquired for
+     * @param unmarshaller
+     */
+    public static void release(Class<?> type, Unmarshaller unmarshaller) {
+        if (unmarshaller == null) {
+            return;
+        }
+        Pool<Unmarshaller> pool = unmarshallers.computeIfAbsent(type, t -> new Pool<>());
+        try {
+            unmarshaller.setSchema(null);
+            unmarshaller.setEventHandler(null);
+            unmarshaller.setListener(null);
+            unmarshaller.setAttachmentUnmarshaller(null);
+            if (!readProperties(unmarshaller::getProperty, UNMARSHALLER_PROPERTIES).equals(pool.defaults)) {
+                // the configuration was changed
+                return;
+            }
+        } catch (JAXBException | UnsupportedOperationException e) {
+            // the unmarshaller can not be reset and is discarded
+            return;
+        }
+        pool.offer(unmarshaller);
+    }
+
+    /**
+     * Reads the given properties of a Marshaller or Unmarshaller. Properties not
+     * supported by the JAXB implementation are ignored.
+     */
+    private static Map<String, Object> readProperties(PropertyReader reader, String[] names) {
+        Map<String, Object> properties = new HashMap<>();
+        for (String name : names) {
+            try {
+                properties.put(name, reader.getProperty(name));
+            } catch (PropertyException e) {
+                // not supported
+            }
+        }
+        return properties;
+    }
+
+    @FunctionalInterface
+    private interface PropertyReader {
+        Object getProperty(String name) throws PropertyException;
+    }
+
+    /**
+     * A bounded pool of idle instances. If the pool is full, released instances
+     * are discarded.
+     */
+    private static final class Pool<T> {
+        private final Queue<T> idle = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        // properties of a new instance
+        private volatile Map<String, Object> defaults;
+
+        T poll() {
+            T instance = idle.poll();
+            if (instance != null) {
+                size.decrementAndGet();
+            }
+            return instance;
+        }
+
+        void offer(T instance) {
+            if (size.incrementAndGet() > POOL_SIZE) {
+                size.decrementAndGet();
+                return;
+            }
+            idle.offer(instance);
+        }
+    }
+}
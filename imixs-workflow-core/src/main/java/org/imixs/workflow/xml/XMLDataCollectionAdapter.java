@@ -42,7 +42,6 @@ import java.util.logging.Logger;
 
 import org.imixs.workflow.ItemCollection;
 
-import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBException;
 import jakarta.xml.bind.Marshaller;
 import jakarta.xml.bind.Unmarshaller;
@@ -187,11 +186,13 @@ public class XMLDataCollectionAdapter {
         if (debug) {
             logger.finest("......readCollection importXmlEntityData - verifing  content....");
         }
-        JAXBContext context = JAXBContext.newInstance(XMLDataCollection.class);
-        Unmarshaller m = context.createUnmarshaller();
-
-        ByteArrayInputStream input = new ByteArrayInputStream(byteInput);
-        Object jaxbObject = m.unmarshal(input);
+        Object jaxbObject = null;
+        Unmarshaller m = JAXBContextRegistry.acquireUnmarshaller(XMLDataCollection.class);
+        try {
+            jaxbObject = m.unmarshal(new ByteArrayInputStream(byteInput));
+        } finally {
+            JAXBContextRegistry.release(XMLDataCollection.class, m);
+        }
         if (jaxbObject == null) {
             throw new RuntimeException("readCollection error - wrong xml file format - unable to read content!");
         }
@@ -227,9 +228,12 @@ public class XMLDataCollectionAdapter {
         }
         XMLDataCollection ecol = XMLDataCollectionAdapter.getDataCollection(documents);
         StringWriter writer = new StringWriter();
-        JAXBContext context = JAXBContext.newInstance(XMLDataCollection.class);
-        Marshaller m = context.createMarshaller();
-        m.marshal(ecol, writer);
+        Marshaller m = JAXBContextRegistry.acquireMarshaller(XMLDataCollection.class);
+        try {
+            m.marshal(ecol, writer);
+        } finally {
+            JAXBContextRegistry.release(XMLDataCollection.class, m);
+        }
         return writer.toString().getBytes();
     }
 
@@ -248,9 +252,12 @@ public class XMLDataCollectionAdapter {
         }
         XMLDataCollection ecol = XMLDataCollectionAdapter.getDataCollection(document);
         StringWriter writer = new StringWriter();
-        JAXBContext context = JAXBContext.newInstance(XMLDataCollection.class);
-        Marshaller m = context.createMarshaller();
-        m.marshal(ecol, writer);
+        Marshaller m = JAXBContextRegistry.acquireMarshaller(XMLDataCollection.class);
+        try {
+            m.marshal(ecol, writer);
+        } finally {
+            JAXBContextRegistry.release(XMLDataCollection.class, m);
+        }
         return writer.toString().getBytes();
     }
 
@@ -0,0 +1,208 @@
+/*
+ *  Imixs-Workflow
+ *
+ *  Copyright (C) 2001-2020 Imixs Software Solutions GmbH,
+ *  http://www.imixs.com
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 2
+ *  of the License, or (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You can receive a copy of the GNU General Public
+ *  License at http://www.gnu.org/licenses/gpl.html
+ *
+ *  Project:
+ *      https://www.imixs.org
+ *      https://github.com/imixs/imixs-workflow
+ *
+ *  Contributors:
+ *      Imixs Software Solutions GmbH - Project Management
+ *      Ralph Soika - Software Developer
+ */
+
+
+package org.imixs.workflow.xml;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+import javax.xml.transform.sax.SAXSource;
+
+import org.imixs.workflow.ItemCollection;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.DTDHandler;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.AttributesImpl;
+
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+
+/**
+ * The XMLDataCollectionSource is a SAXSource providing the XML representation
+ * of a collection of ItemCollections in the format of a
+ * {@link XMLDataCollection}. The source can be passed directly to a XSL
+ * Transformer.
+ * <p>
+ * In difference to the marshalling of a XMLDataCollection, the source does not
+ * build the XML document in memory. The documents are converted into a
+ * XMLDocument one by one and the SAX events are passed directly to the
+ * transformer. So the memory needed for the XML representation is proportional
+ * to the size of a single document.
+ * <p>
+ * Note: the namespace declarations are declared on each document element
+ * instead of the root element 'data'.
+ * 
+ * @author rsoika
+ * @see XSLHandler#transform(List, String, String, java.io.OutputStream)
+ */
+public class XMLDataCollectionSource extends SAXSource {
+
+    /**
+     * Creates a new source for a collection of ItemCollections
+     * 
+     * @param documents - the documents to be provided
+     */
+    public XMLDataCollectionSource(Collection<ItemCollection> documents) {
+        this(documents, null);
+    }
+
+    /**
+     * Creates a new source for a collection of ItemCollections. If the item list
+     * is provided only the corresponding items will be part of the source.
+     * 
+     * @param documents - the documents to be provided
+     * @param itemNames - optional list of item names to be converted. If null
+     *                  all items will be converted
+     */
+    public XMLDataCollectionSource(Collection<ItemCollection> documents, List<String> itemNames) {
+        super(new DocumentReader(documents, itemNames), new InputSource());
+    }
+
+    /**
+     * The DocumentReader emits the SAX events of the root element 'data' and
+     * marshals each document as a XML fragment into the content handler.
+     */
+    private static class DocumentReader implements XMLReader {
+        private static final String ROOT_ELEMENT = "data";
+
+        private final Collection<ItemCollection> documents;
+        private final List<String> itemNames;
+        private ContentHandler contentHandler;
+        private DTDHandler dtdHandler;
+        private EntityResolver entityResolver;
+        private ErrorHandler errorHandler;
+
+        DocumentReader(Collection<ItemCollection> documents, List<String> itemNames) {
+            this.documents = documents;
+            this.itemNames = itemNames;
+        }
+
+        @Override
+        public void parse(InputSource input) throws IOException, SAXException {
+            if (contentHandler == null) {
+                throw new SAXException("no content handler defined");
+            }
+            Marshaller marshaller = null;
+            try {
+                marshaller = JAXBContextRegistry.acquireMarshaller(XMLDocument.class);
+                marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+
+                contentHandler.startDocument();
+                contentHandler.startElement("", ROOT_ELEMENT, ROOT_ELEMENT, new AttributesImpl());
+                if (documents != null) {
+                    for (ItemCollection document : documents) {
+                        if (document != null) {
+                            marshaller.marshal(XMLDocumentAdapter.getDocument(document, itemNames), contentHandler);
+                        }
+                    }
+                }
+                contentHandler.endElement("", ROOT_ELEMENT, ROOT_ELEMENT);
+                contentHandler.endDocument();
+            } catch (JAXBException e) {
+                throw new SAXException(e);
+            } finally {
+                JAXBContextRegistry.release(XMLDocument.class, marshaller);
+            }
+        }
+
+        @Override
+        public void parse(String systemId) throws IOException, SAXException {
+            parse(new InputSource(systemId));
+        }
+
+        @Override
+        public boolean getFeature(String name) throws SAXNotRecognizedException {
+            if ("http://xml.org/sax/features/namespaces".equals(name)) {
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void setFeature(String name, boolean value) {
+            // features are ignored - the reader always reports namespaces
+        }
+
+        @Override
+        public Object getProperty(String name) throws SAXNotRecognizedException {
+            throw new SAXNotRecognizedException(name);
+        }
+
+        @Override
+        public void setProperty(String name, Object value) throws SAXNotRecognizedException {
+            throw new SAXNotRecognizedException(name);
+        }
+
+        @Override
+        public void setEntityResolver(EntityResolver resolver) {
+            this.entityResolver = resolver;
+        }
+
+        @Override
+        public EntityResolver getEntityResolver() {
+            return entityResolver;
+        }
+
+        @Override
+        public void setDTDHandler(DTDHandler handler) {
+            this.dtdHandler = handler;
+        }
+
+        @Override
+        public DTDHandler getDTDHandler() {
+            return dtdHandler;
+        }
+
+        @Override
+        public void setContentHandler(ContentHandler handler) {
+            this.contentHandler = handler;
+        }
+
+        @Override
+        public ContentHandler getContentHandler() {
+            return contentHandler;
+        }
+
+        @Override
+        public void setErrorHandler(ErrorHandler handler) {
+            this.errorHandler = handler;
+        }
+
+        @Override
+        public ErrorHandler getErrorHandler() {
+            return errorHandler;
+        }
+    }
+}
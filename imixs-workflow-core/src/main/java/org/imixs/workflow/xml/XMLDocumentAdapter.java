@@ -42,7 +42,6 @@ import java.util.Map.Entry;
 import java.util.Vector;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBException;
 import jakarta.xml.bind.Marshaller;
 import jakarta.xml.bind.Unmarshaller;
@@ -123,8 +122,17 @@ public class XMLDocumentAdapter {
     @SuppressWarnings({ "unchecked" })
     public static XMLDocument getDocument(final ItemCollection document, final List<String> itemNames) {
 
-        // create a deep copy of the source
-        ItemCollection aItemCollection = (ItemCollection) document.clone();
+        ItemCollection aItemCollection = null;
+        if (document != null && itemNames != null && itemNames.size() > 0) {
+            // copy only the requested items
+            aItemCollection = new ItemCollection();
+            for (String aField : itemNames) {
+                aItemCollection.cloneItem(aField, document);
+            }
+        } else if (document != null) {
+            // create a deep copy of the source
+            aItemCollection = (ItemCollection) document.clone();
+        }
 
         String itemName = null;
         XMLDocument entity = new XMLDocument();
@@ -272,11 +280,13 @@ public class XMLDocumentAdapter {
         if (debug) {
             logger.finest("......importXmlEntityData - verifing content....");
         }
-        JAXBContext context = JAXBContext.newInstance(XMLDocument.class);
-        Unmarshaller m = context.createUnmarshaller();
-
-        ByteArrayInputStream input = new ByteArrayInputStream(byteInput);
-        Object jaxbObject = m.unmarshal(input);
+        Object jaxbObject = null;
+        Unmarshaller m = JAXBContextRegistry.acquireUnmarshaller(XMLDocument.class);
+        try {
+            jaxbObject = m.unmarshal(new ByteArrayInputStream(byteInput));
+        } finally {
+            JAXBContextRegistry.release(XMLDocument.class, m);
+        }
         if (jaxbObject == null) {
             throw new RuntimeException("readItemCollection error - wrong xml file format - unable to read content!");
         }
@@ -304,9 +314,12 @@ public class XMLDocumentAdapter {
 
         XMLDocument ecol = XMLDocumentAdapter.getDocument(document);
         StringWriter writer = new StringWriter();
-        JAXBContext context = JAXBContext.newInstance(XMLDocument.class);
-        Marshaller m = context.createMarshaller();
-        m.marshal(ecol, writer);
+        Marshaller m = JAXBContextRegistry.acquireMarshaller(XMLDocument.class);
+        try {
+            m.marshal(ecol, writer);
+        } finally {
+            JAXBContextRegistry.release(XMLDocument.class, m);
+        }
         return writer.toString().getBytes();
     }
 
@@ -32,14 +32,18 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.xml.XMLConstants;
 import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
@@ -48,15 +52,20 @@ import javax.xml.transform.stream.StreamSource;
 
 import org.imixs.workflow.ItemCollection;
 
-import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBException;
 import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.util.JAXBSource;
 
 /**
  * This class can be used to transform xml by XSL template.
  * 
  * The class is used by the ReportRestService to execute a report and also by
  * the MailPluign to transform the mail body
+ * <p>
+ * Compiled XSL templates are cached by the XSL content and the encoding in a
+ * bounded LRU cache. Each transformation only creates a new Transformer from
+ * the cached Templates. The cache metrics can be read by the methods
+ * getCacheHits, getCacheMisses and getCacheEvictions.
  * 
  * @author imixs.com - Ralph Soika
  * @version 1.0
@@ -65,6 +74,29 @@ import jakarta.xml.bind.Marshaller;
 public class XSLHandler {
     private static final Logger logger = Logger.getLogger(XSLHandler.class.getName());
 
+    /**
+     * Maximum number of compiled XSL Templates held in the cache
+     */
+    public static final int CACHE_SIZE = 64;
+
+    private static final AtomicLong cacheHits = new AtomicLong();
+    private static final AtomicLong cacheMisses = new AtomicLong();
+    private static final AtomicLong cacheEvictions = new AtomicLong();
+
+    private static final Map<TemplatesKey, Templates> templatesCache = Collections
+            .synchronizedMap(new LinkedHashMap<TemplatesKey, Templates>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<TemplatesKey, Templates> eldest) {
+                    if (size() > CACHE_SIZE) {
+                        cacheEvictions.incrementAndGet();
+                        return true;
+                    }
+                    return false;
+                }
+            });
+
     /**
      * This method transforms an XML source with a provided XSL template. The result
      * will be written into a output stream.
@@ -80,44 +112,124 @@ public class XSLHandler {
     public static void transform(String xmlSource, String xslSource, String encoding, OutputStream output)
             throws UnsupportedEncodingException, TransformerException {
         boolean debug = logger.isLoggable(Level.FINE);
-        try {
-            if (encoding == null || encoding.isEmpty()) {
-                encoding = "UTF-8";
-            }
-            // Setup XSLT
-            TransformerFactory transformerFactory = TransformerFactory.newInstance();
-            // Set secure process - see #852
-            transformerFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        if (encoding == null || encoding.isEmpty()) {
+            encoding = "UTF-8";
+        }
+        if (debug) {
+            logger.log(Level.FINEST, "......xslTransformation: encoding={0}", encoding);
+        }
+        // generate XML InputStream Reader with encoding
+        ByteArrayInputStream baisXML = new ByteArrayInputStream(xmlSource.getBytes());
+        InputStreamReader isreaderXML = new InputStreamReader(baisXML, encoding);
+        Source xmlSrc = new StreamSource(isreaderXML);
 
-            if (debug) {
-                logger.log(Level.FINEST, "......xslTransformation: encoding={0}", encoding);
-            }
-            // generate XML InputStream Reader with encoding
-            ByteArrayInputStream baisXML = new ByteArrayInputStream(xmlSource.getBytes());
-            InputStreamReader isreaderXML;
+        transform(xmlSrc, xslSource, encoding, output);
+    }
+
+    /**
+     * This method transforms a XML source with a provided XSL template. The result
+     * will be written into a output stream.
+     * <p>
+     * The source can be a streaming source like the
+     * {@link XMLDataCollectionSource}, so the XML data need not to exist as a
+     * String or byte array.
+     * 
+     * @param xmlSource - the XML source
+     * @param xslSource
+     * @param encoding  (default UTF-8)
+     * @param output
+     * @throws UnsupportedEncodingException
+     * @throws TransformerException
+     */
+    public static void transform(Source xmlSource, String xslSource, String encoding, OutputStream output)
+            throws UnsupportedEncodingException, TransformerException {
+        Transformer trans = getTemplates(xslSource, encoding).newTransformer();
+        trans.transform(xmlSource, new StreamResult(output));
+    }
 
-            isreaderXML = new InputStreamReader(baisXML, encoding);
+    /**
+     * Returns the compiled Templates for a XSL source. The Templates are cached by
+     * the XSL content and the encoding. A Templates object is thread safe and can
+     * be used to create a new Transformer for each transformation.
+     * 
+     * @param xslSource
+     * @param encoding  (default UTF-8)
+     * @return compiled templates
+     * @throws UnsupportedEncodingException
+     * @throws TransformerException         - if the XSL source is invalid
+     */
+    public static Templates getTemplates(String xslSource, String encoding)
+            throws UnsupportedEncodingException, TransformerException {
+        if (encoding == null || encoding.isEmpty()) {
+            encoding = "UTF-8";
+        }
+        TemplatesKey key = new TemplatesKey(xslSource, encoding);
+        Templates templates = templatesCache.get(key);
+        if (templates != null) {
+            cacheHits.incrementAndGet();
+            return templates;
+        }
+        cacheMisses.incrementAndGet();
 
-            Source xmlSrc = new StreamSource(isreaderXML);
+        // Setup XSLT
+        TransformerFactory transformerFactory = TransformerFactory.newInstance();
+        // Set secure process - see #852
+        transformerFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        // generate XSL InputStream Reader with encoding
+        ByteArrayInputStream baisXSL = new ByteArrayInputStream(xslSource.getBytes());
+        InputStreamReader isreaderXSL = new InputStreamReader(baisXSL, encoding);
+        templates = transformerFactory.newTemplates(new StreamSource(isreaderXSL));
+        templatesCache.put(key, templates);
+        return templates;
+    }
 
-            // generate XSL InputStream Reader with encoding
-            ByteArrayInputStream baisXSL = new ByteArrayInputStream(xslSource.getBytes());
-            InputStreamReader isreaderXSL = new InputStreamReader(baisXSL, encoding);
-            Source xslSrc = new StreamSource(isreaderXSL);
+    /**
+     * Returns the number of transformations using already compiled Templates.
+     */
+    public static long getCacheHits() {
+        return cacheHits.get();
+    }
 
-            Transformer trans = transformerFactory.newTransformer(xslSrc);
-            trans.transform(xmlSrc, new StreamResult(output));
+    /**
+     * Returns the number of XSL sources compiled since the last reset.
+     */
+    public static long getCacheMisses() {
+        return cacheMisses.get();
+    }
 
-        } finally {
+    /**
+     * Returns the number of Templates removed from the cache because the cache
+     * size was exceeded.
+     */
+    public static long getCacheEvictions() {
+        return cacheEvictions.get();
+    }
 
-        }
+    /**
+     * Returns the number of Templates currently cached.
+     */
+    public static int getCacheSize() {
+        return templatesCache.size();
+    }
 
+    /**
+     * Removes all compiled Templates from the cache and resets the cache metrics.
+     */
+    public static void clearCache() {
+        templatesCache.clear();
+        cacheHits.set(0);
+        cacheMisses.set(0);
+        cacheEvictions.set(0);
     }
 
     /**
      * This method transforms an Collection of Documents into XML and translates the
      * result based on a provided XSL template. The result will be written into a
      * output stream.
+     * <p>
+     * The documents are streamed into the transformer by a
+     * {@link XMLDataCollectionSource}, so the XML representation of the collection
+     * is never held in memory.
      * 
      * @param xmlSource -
      * @param xslSource
@@ -129,20 +241,7 @@ public class XSLHandler {
      */
     public static void transform(List<ItemCollection> dataSource, String xslSource, String encoding,
             OutputStream output) throws JAXBException, TransformerException, IOException {
-
-        if (encoding == null || encoding.isEmpty()) {
-            encoding = "UTF-8";
-        }
-        XMLDataCollection xmlDataCollection = XMLDataCollectionAdapter.getDataCollection(dataSource);
-
-        StringWriter writer = new StringWriter();
-
-        JAXBContext context = JAXBContext.newInstance(XMLDataCollection.class);
-        Marshaller m = context.createMarshaller();
-        m.setProperty("jaxb.encoding", encoding);
-        m.marshal(xmlDataCollection, writer);
-
-        XSLHandler.transform(writer.toString(), xslSource, encoding, output);
+        XSLHandler.transform(new XMLDataCollectionSource(dataSource), xslSource, encoding, output);
     }
 
     /**
@@ -160,20 +259,45 @@ public class XSLHandler {
      */
     public static void transform(ItemCollection dataSource, String xslSource, String encoding, OutputStream output)
             throws JAXBException, TransformerException, IOException {
-
-        // byte[] result=null;
-        if (encoding == null || encoding.isEmpty()) {
-            encoding = "UTF-8";
-        }
         XMLDocument xmlDocument = XMLDocumentAdapter.getDocument(dataSource);
+        Marshaller m = JAXBContextRegistry.acquireMarshaller(XMLDocument.class);
+        try {
+            XSLHandler.transform(new JAXBSource(m, xmlDocument), xslSource, encoding, output);
+        } finally {
+            JAXBContextRegistry.release(XMLDocument.class, m);
+        }
+    }
 
-        StringWriter writer = new StringWriter();
+    /**
+     * Cache key for compiled Templates. The hash of the XSL content is computed
+     * once, equal keys are verified by the full XSL content.
+     */
+    private static final class TemplatesKey {
+        private final String xslSource;
+        private final String encoding;
+        private final int hash;
 
-        JAXBContext context = JAXBContext.newInstance(XMLDocument.class);
-        Marshaller m = context.createMarshaller();
-        m.setProperty("jaxb.encoding", encoding);
-        m.marshal(xmlDocument, writer);
+        TemplatesKey(String xslSource, String encoding) {
+            this.xslSource = xslSource;
+            this.encoding = encoding;
+            this.hash = 31 * xslSource.hashCode() + encoding.hashCode();
+        }
 
-        XSLHandler.transform(writer.toString(), xslSource, encoding, output);
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof TemplatesKey)) {
+                return false;
+            }
+            TemplatesKey other = (TemplatesKey) obj;
+            return hash == other.hash && encoding.equals(other.encoding) && xslSource.equals(other.xslSource);
+        }
     }
 }
@@ -0,0 +1,217 @@
+package org.imixs.workflow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.imixs.workflow.bpmn.BPMNUtil;
+import org.imixs.workflow.exceptions.ModelException;
+import org.junit.jupiter.api.Test;
+import org.openbpmn.bpmn.BPMNModel;
+import org.openbpmn.bpmn.elements.Activity;
+import org.openbpmn.bpmn.exceptions.BPMNModelException;
+import org.openbpmn.bpmn.util.BPMNModelFactory;
+
+/**
+ * Test class for the CompiledModel. The results of a ModelManager using
+ * compiled models are compared with the results of the model navigation for
+ * all test models.
+ *
+ * @author rsoika
+ */
+public class TestCompiledModel {
+
+	/**
+	 * Compares tasks, events, process groups and follow-up elements of all test
+	 * models.
+	 */
+	@Test
+	public void testAllModels() throws Exception {
+		File[] files = new File("src/test/resources/bpmn").listFiles((dir, name) -> name.endsWith(".bpmn"));
+		assertNotNull(files);
+		int count = 0;
+		for (File file : files) {
+			BPMNModel compiledModel = BPMNModelFactory.read("/bpmn/" + file.getName());
+			ModelManager compiledManager = new ModelManager();
+			try {
+				compiledManager.addModel(compiledModel);
+			} catch (ModelException e) {
+				// model with invalid scripts
+				continue;
+			}
+			assertNotNull(compiledManager.getCompiledModel(compiledModel), file.getName());
+
+			// the second model instance is not compiled
+			BPMNModel model = BPMNModelFactory.read("/bpmn/" + file.getName());
+			ModelManager modelManager = new ModelManager();
+			String version = BPMNUtil.getVersion(model);
+			modelManager.getModelStore().put(version, model);
+			assertNull(modelManager.getCompiledModel(model));
+
+			compareModels(file.getName(), version, compiledManager, compiledModel, modelManager, model);
+			count++;
+		}
+		System.out.println("Performancetest compared " + count + " compiled models");
+	}
+
+	/**
+	 * Test the lookup of tasks and events by a compiled model
+	 */
+	@Test
+	public void testLookup() throws ModelException, BPMNModelException {
+		ModelManager modelManager = new ModelManager();
+		BPMNModel model = BPMNModelFactory.read("/bpmn/simple.bpmn");
+		modelManager.addModel(model);
+		CompiledModel compiledModel = modelManager.getCompiledModel(model);
+		assertEquals("1.0.0", compiledModel.getVersion());
+		assertEquals("1.0.0", modelManager.loadDefinition(model).getItemValueString(WorkflowKernel.MODELVERSION));
+
+		ItemCollection workitem = new ItemCollection().model("1.0.0").task(1000).event(10);
+		assertEquals(1000, modelManager.loadTask(workitem).getItemValueInteger(BPMNUtil.TASK_ITEM_TASKID));
+		assertEquals(10, modelManager.loadEvent(workitem).getItemValueInteger(BPMNUtil.EVENT_ITEM_EVENTID));
+		assertEquals("Simple", modelManager.loadProcess(workitem).getItemValueString("name"));
+		assertNull(compiledModel.getEvent(1000, 99));
+		assertNull(compiledModel.getTask(99));
+		assertEquals(0, modelManager.findEventsByTask(model, 99).size());
+
+		// entities are copy-on-write instances
+		ItemCollection task = modelManager.findTaskByID(model, 1000);
+		task.setItemValue("name", "changed");
+		assertEquals("Task 1", modelManager.findTaskByID(model, 1000).getItemValueString("name"));
+		modelManager.findTasks(model, "Simple").get(0).setItemValue("name", "changed");
+		assertEquals("Task 1", modelManager.findTasks(model, "Simple").get(0).getItemValueString("name"));
+		modelManager.findStartTasks(model, "Simple").get(0).setItemValue("name", "changed");
+		assertEquals("Task 1", modelManager.findStartTasks(model, "Simple").get(0).getItemValueString("name"));
+		String endTask = modelManager.findEndTasks(model, "Simple").get(0).getItemValueString("name");
+		modelManager.findEndTasks(model, "Simple").get(0).setItemValue("name", "changed");
+		assertEquals(endTask, modelManager.findEndTasks(model, "Simple").get(0).getItemValueString("name"));
+
+		// a removed model is no longer compiled
+		modelManager.removeModel("1.0.0");
+		assertNull(modelManager.getCompiledModel(model));
+	}
+
+	/**
+	 * Adding a model replaces the compiled model and the caches of its version
+	 * only. Other model versions are not affected.
+	 */
+	@Test
+	public void testReplaceModel() throws ModelException, BPMNModelException {
+		ModelManager modelManager = new ModelManager();
+		BPMNModel model = BPMNModelFactory.read("/bpmn/simple.bpmn");
+		BPMNModel targetModel = BPMNModelFactory.read("/bpmn/model-switch-target.bpmn");
+		modelManager.addModel(model);
+		modelManager.addModel(targetModel);
+		CompiledModel compiledTargetModel = modelManager.getCompiledModel(targetModel);
+		assertNotNull(compiledTargetModel);
+		assertEquals(Set.of("Simple"), modelManager.findAllGroupsByModel(model));
+
+		// deploy a new model with the same version
+		BPMNModel newModel = BPMNModelFactory.read("/bpmn/ticket.bpmn");
+		modelManager.addModel(newModel);
+		assertEquals(newModel, modelManager.getModel("1.0.0"));
+		assertNotNull(modelManager.getCompiledModel(newModel));
+		assertEquals(Set.of("Ticket"), modelManager.findAllGroupsByModel(newModel));
+		assertEquals(compiledTargetModel, modelManager.getCompiledModel(targetModel));
+
+		// the replaced model instance can still be used but is no longer cached
+		assertNull(modelManager.getCompiledModel(model));
+		assertEquals(Set.of("Simple"), modelManager.findAllGroupsByModel(model));
+		assertEquals("Task 1", modelManager.findTaskByID(model, 1000).getItemValueString("name"));
+	}
+
+	private void compareModels(String name, String version, ModelManager compiledManager, BPMNModel compiledModel,
+			ModelManager modelManager, BPMNModel model) throws ModelException {
+		assertEquals(modelManager.loadDefinition(model).getAllItems(),
+				compiledManager.loadDefinition(compiledModel).getAllItems(), name);
+
+		// the order of start tasks, end tasks and events is not defined
+		for (String group : modelManager.findAllGroupsByModel(model)) {
+			assertEquals(ids(modelManager.findTasks(model, group)),
+					ids(compiledManager.findTasks(compiledModel, group)), name + " " + group);
+			assertEquals(sortedIds(modelManager.findStartTasks(model, group)),
+					sortedIds(compiledManager.findStartTasks(compiledModel, group)), name + " " + group);
+			assertEquals(sortedIds(modelManager.findEndTasks(model, group)),
+					sortedIds(compiledManager.findEndTasks(compiledModel, group)), name + " " + group);
+		}
+
+		for (Activity activity : model.findAllActivities()) {
+			String processID = activity.getExtensionAttribute(BPMNUtil.getNamespace(), "processid");
+			if (processID == null || processID.isEmpty()) {
+				continue;
+			}
+			int taskID = Integer.parseInt(processID);
+			String message = name + " " + taskID;
+			assertEquals(modelManager.findTaskByID(model, taskID).getAllItems(),
+					compiledManager.findTaskByID(compiledModel, taskID).getAllItems(), message);
+
+			ItemCollection workitem = new ItemCollection().model(version).task(taskID);
+			assertEquals(modelManager.loadProcess(workitem).getAllItems(),
+					compiledManager.loadProcess(workitem).getAllItems(), message);
+
+			List<ItemCollection> events = modelManager.findEventsByTask(model, taskID);
+			assertEquals(sortedIds(events), sortedIds(compiledManager.findEventsByTask(compiledModel, taskID)),
+					message);
+			for (ItemCollection event : events) {
+				int eventID = event.getItemValueInteger(BPMNUtil.EVENT_ITEM_EVENTID);
+				if (events.stream().filter(e -> e.getItemValueInteger(BPMNUtil.EVENT_ITEM_EVENTID) == eventID)
+						.count() > 1) {
+					// the event is not unique
+					continue;
+				}
+				assertEquals(id(modelManager.findEventByID(model, taskID, eventID)),
+						id(compiledManager.findEventByID(compiledModel, taskID, eventID)), message + "." + eventID);
+				workitem.event(eventID);
+				String nextElement;
+				try {
+					nextElement = nextModelElement(modelManager, event, workitem);
+				} catch (NullPointerException e) {
+					// link event without a catch event can not be navigated
+					continue;
+				}
+				assertEquals(nextElement, nextModelElement(compiledManager, event, workitem), message + "." + eventID);
+				if (nextElement.startsWith(ModelManager.PARALLELGATEWAY_ELEMENT + ":")) {
+					ItemCollection gateway = modelManager.nextModelElement(event, workitem);
+					assertEquals(sortedIds(modelManager.findParallelGatewayTargets(model, gateway)),
+							sortedIds(compiledManager.findParallelGatewayTargets(compiledModel, gateway)), message);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the type and id of the next model element or the exception type
+	 */
+	private String nextModelElement(ModelManager modelManager, ItemCollection event, ItemCollection workitem) {
+		try {
+			ItemCollection element = modelManager.nextModelElement(event, workitem);
+			return element == null ? "null" : element.getType() + ":" + id(element);
+		} catch (ModelException e) {
+			return e.getErrorCode();
+		}
+	}
+
+	private String id(ItemCollection entity) {
+		return entity == null ? null : entity.getItemValueString("id");
+	}
+
+	private List<String> ids(List<ItemCollection> entities) {
+		List<String> result = new ArrayList<>();
+		for (ItemCollection entity : entities) {
+			result.add(id(entity));
+		}
+		return result;
+	}
+
+	private List<String> sortedIds(List<ItemCollection> entities) {
+		List<String> result = ids(entities);
+		Collections.sort(result);
+		return result;
+	}
+}
@@ -1332,4 +1332,122 @@ public class TestItemCollection {
         assertEquals(2, workitem.getItemValue("c").size());
 
     }
+
+    /**
+     * Test the copy-on-write behavior. The shared item map must only be copied on
+     * the first modification.
+     */
+    @Test
+    public void testCopyOnWrite() {
+        ItemCollection source = new ItemCollection();
+        source.setItemValue("txtname", "Anna");
+        source.setItemValue("numage", 42);
+        List<String> list = new ArrayList<String>();
+        list.add("a");
+        list.add("b");
+        source.setItemValue("list", list);
+
+        ItemCollection view = ItemCollection.createCopyOnWrite(source);
+        assertTrue(view.isCopyOnWrite());
+        assertEquals("Anna", view.getItemValueString("txtname"));
+        assertEquals(42, view.getItemValueInteger("numage"));
+        assertEquals(source, view);
+
+        // reading a value list does not copy the items
+        view.getItemValue("list");
+        view.getItemValueList("txtname", String.class);
+        view.getItemValueList("numage", Integer.class);
+        assertTrue(view.isCopyOnWrite());
+
+        // a clone is still a copy-on-write instance
+        ItemCollection clone = (ItemCollection) view.clone();
+        assertTrue(clone.isCopyOnWrite());
+
+        // modifying a value list is visible to the view but not to the source
+        List<?> values = view.getItemValue("list");
+        assertEquals(2, values.size());
+        assertEquals("a", values.get(0));
+        values.remove(0);
+        assertEquals(1, values.size());
+        assertEquals("b", values.get(0));
+        assertFalse(view.isCopyOnWrite());
+        view.getItemValue("list").add("c");
+        assertEquals(2, view.getItemValue("list").size());
+        assertEquals("b", view.getItemValue("list").get(0));
+        assertEquals("c", view.getItemValue("list").get(1));
+        assertEquals(2, source.getItemValue("list").size());
+        assertEquals("a", source.getItemValue("list").get(0));
+        assertEquals(42, source.getItemValue("numage").get(0));
+        assertEquals(2, clone.getItemValue("list").size());
+        assertEquals("a", clone.getItemValue("list").get(0));
+
+        // a modification of a value list of the next view is visible as well
+        view = ItemCollection.createCopyOnWrite(source);
+        view.getItemValue("list").add("d");
+        assertEquals(3, view.getItemValue("list").size());
+        assertEquals("d", view.getItemValue("list").get(2));
+        assertEquals(2, source.getItemValue("list").size());
+        view = ItemCollection.createCopyOnWrite(source);
+
+        // first modification copies the items
+        view.replaceItemValue("txtname", "Tom");
+        view.removeItem("numage");
+        assertFalse(view.isCopyOnWrite());
+        assertEquals("Tom", view.getItemValueString("txtname"));
+        assertFalse(view.hasItem("numage"));
+        assertEquals("Anna", source.getItemValueString("txtname"));
+        assertEquals("Anna", clone.getItemValueString("txtname"));
+        assertTrue(source.hasItem("numage"));
+
+        // getAllItems must not expose the shared map
+        view = ItemCollection.createCopyOnWrite(source);
+        view.getAllItems().remove("txtname");
+        assertFalse(view.isCopyOnWrite());
+        assertTrue(source.hasItem("txtname"));
+    }
+
+    /**
+     * Test the typed getters with a default value
+     */
+    @Test
+    public void testGetItemValueWithDefault() {
+        ItemCollection itemCol = new ItemCollection();
+        itemCol.replaceItemValue("int", 42);
+        itemCol.replaceItemValue("long", 9999999999L);
+        itemCol.replaceItemValue("double", 1.5);
+        itemCol.replaceItemValue("string", "1200");
+        itemCol.replaceItemValue("negative", "-7");
+        itemCol.replaceItemValue("decimal", "12.7");
+        itemCol.replaceItemValue("text", "abc");
+        itemCol.replaceItemValue("boolean", true);
+
+        assertEquals(42, itemCol.getItemValueInteger("int", -1));
+        assertEquals(1, itemCol.getItemValueInteger("double", -1));
+        assertEquals(1200, itemCol.getItemValueInteger("string", -1));
+        assertEquals(-7, itemCol.getItemValueInteger("negative", -1));
+        assertEquals(12, itemCol.getItemValueInteger("decimal", -1));
+        assertEquals(-1, itemCol.getItemValueInteger("text", -1));
+        assertEquals(-1, itemCol.getItemValueInteger("unknown", -1));
+        assertEquals(0, itemCol.getItemValueInteger("text"));
+
+        assertEquals(9999999999L, itemCol.getItemValueLong("long", -1));
+        assertEquals(42L, itemCol.getItemValueLong("int", -1));
+        assertEquals(1200L, itemCol.getItemValueLong("string", -1));
+        assertEquals(-1L, itemCol.getItemValueLong("unknown", -1));
+
+        assertEquals(1.5, itemCol.getItemValueDouble("double", -1), 0);
+        assertEquals(12.7, itemCol.getItemValueDouble("decimal", -1), 0);
+        assertEquals(-1.0, itemCol.getItemValueDouble("text", -1), 0);
+
+        assertTrue(itemCol.getItemValueBoolean("boolean", false));
+        assertTrue(itemCol.getItemValueBoolean("unknown", true));
+        assertFalse(itemCol.getItemValueBoolean("text", true));
+
+        // null values are skipped
+        List<Object> list = new ArrayList<>();
+        list.add(null);
+        list.add(5);
+        itemCol.replaceItemValue("nulls", list);
+        assertEquals(5, itemCol.getItemValueInteger("nulls"));
+    }
 }
@@ -0,0 +1,166 @@
+package org.imixs.workflow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the internal storage layout of an ItemCollection.
+ *
+ * @author rsoika
+ */
+public class TestItemMap {
+
+    /**
+     * Test put, get and remove for a large number of items
+     */
+    @Test
+    public void testPutGetRemove() {
+        ItemMap map = new ItemMap();
+        for (int i = 0; i < 1000; i++) {
+            List<Object> list = new ArrayList<>();
+            list.add(i);
+            map.put("item" + i, list);
+        }
+        assertEquals(1000, map.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, map.get("item" + i).get(0));
+        }
+        // remove every second item
+        for (int i = 0; i < 1000; i += 2) {
+            map.remove("item" + i);
+        }
+        assertEquals(500, map.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 2 == 1, map.containsKey("item" + i));
+        }
+        assertNull(map.get("item0"));
+    }
+
+    /**
+     * A single value is converted into a value list only if the list is
+     * modified.
+     */
+    @Test
+    public void testSingleValue() {
+        ItemMap map = new ItemMap();
+        map.putSingleValue("name", "Anna");
+        assertEquals("Anna", map.peekItemValue("name"));
+
+        Map<String, List<Object>> other = new Hashtable<>();
+        List<Object> list = new ArrayList<>();
+        list.add("Anna");
+        other.put("name", list);
+        assertTrue(map.equals(other));
+        assertEquals(other.hashCode(), map.hashCode());
+        // still a single value
+        assertEquals("Anna", map.peekItemValue("name"));
+
+        // get does not change the slot
+        List<Object> value = map.get("name");
+        assertEquals(1, value.size());
+        assertEquals("Anna", value.get(0));
+        assertEquals("Anna", map.peekItemValue("name"));
+
+        // a modification converts the value into a list
+        value.add("Tom");
+        assertTrue(map.peekItemValue("name") instanceof List);
+        assertEquals(2, map.get("name").size());
+        value.add("Eva");
+        assertEquals(3, map.get("name").size());
+        assertEquals("Eva", map.get("name").get(2));
+    }
+
+    /**
+     * Test two views of the same single value. The modifications of both views
+     * must be stored into the slot.
+     */
+    @Test
+    public void testSingleValueViews() {
+        ItemMap map = new ItemMap();
+        map.putSingleValue("name", "Anna");
+        List<Object> view1 = map.get("name");
+        List<Object> view2 = map.get("name");
+
+        view1.add("Tom");
+        assertEquals(2, view2.size());
+        view2.add("Eva");
+        assertEquals(3, view1.size());
+        List<Object> value = map.get("name");
+        assertEquals(3, value.size());
+        assertEquals("Anna", value.get(0));
+        assertEquals("Tom", value.get(1));
+        assertEquals("Eva", value.get(2));
+        assertSame(value, map.get("name"));
+    }
+
+    /**
+     * Test the iterator of the entry set
+     */
+    @Test
+    public void testEntrySet() {
+        ItemMap map = new ItemMap();
+        map.putSingleValue("a", 1);
+        map.putSingleValue("b", 2);
+        map.putSingleValue("c", 3);
+        int sum = 0;
+        Iterator<Map.Entry<String, List<Object>>> iter = map.entrySet().iterator();
+        while (iter.hasNext()) {
+            Map.Entry<String, List<Object>> entry = iter.next();
+            sum += (Integer) entry.getValue().get(0);
+            if ("b".equals(entry.getKey())) {
+                iter.remove();
+            }
+        }
+        assertEquals(6, sum);
+        assertEquals(2, map.size());
+        assertFalse(map.containsKey("b"));
+    }
+
+    /**
+     * An ItemMap must be serialized as a Hashtable
+     */
+    @Test
+    public void testSerialization() throws IOException, ClassNotFoundException {
+        ItemCollection itemCol = new ItemCollection();
+        itemCol.setItemValue("txtName", "Anna");
+        itemCol.setItemValue("numAge", 42);
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bos);
+        oos.writeObject(itemCol.getAllItems());
+        oos.flush();
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()));
+        Object result = ois.readObject();
+        assertTrue(result instanceof Hashtable);
+        assertEquals(itemCol.getAllItems(), result);
+    }
+
+    /**
+     * Test the normalization of item names
+     */
+    @Test
+    public void testNormalize() {
+        String name = "txtname";
+        assertSame(name, ItemMap.normalize(name));
+        assertEquals("txtname", ItemMap.normalize(" txtName "));
+        assertEquals("$uniqueid", ItemMap.normalize("$UniqueID"));
+        assertEquals("", ItemMap.normalize(""));
+    }
+
+}
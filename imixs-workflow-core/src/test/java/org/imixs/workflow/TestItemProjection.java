@@ -0,0 +1,153 @@
+package org.imixs.workflow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the ItemProjection
+ *
+ * @author rsoika
+ */
+public class TestItemProjection {
+
+    private ItemCollection createDocument() {
+        ItemCollection document = new ItemCollection();
+        document.replaceItemValue("txtName", "Anna");
+        document.replaceItemValue("txtCity", "Berlin");
+        document.replaceItemValue("numAge", 42);
+        document.replaceItemValue("artikel", "A-100");
+        document.replaceItemValue("invoice", "R-200");
+        List<String> list = new ArrayList<>();
+        list.add("a");
+        list.add("b");
+        document.replaceItemValue("list", list);
+        return document;
+    }
+
+    /**
+     * Test exact names, mappings and regular expressions
+     */
+    @Test
+    public void testApply() {
+        ItemCollection document = createDocument();
+        ItemProjection projection = new ItemProjection(
+                Arrays.asList("txtName", "numage|age", "(^artikel$|^invoice$)", "list"));
+        ItemCollection result = projection.apply(document);
+
+        assertEquals("Anna", result.getItemValueString("txtname"));
+        assertEquals(42, result.getItemValueInteger("age"));
+        assertFalse(result.hasItem("numage"));
+        assertEquals("A-100", result.getItemValueString("artikel"));
+        assertEquals("R-200", result.getItemValueString("invoice"));
+        assertFalse(result.hasItem("txtcity"));
+        assertEquals(5, result.getItemNames().size());
+
+        // the values are copied
+        result.getItemValue("list").add("c");
+        assertEquals(2, document.getItemValue("list").size());
+    }
+
+    /**
+     * A name not found in the source is evaluated as a regular expression
+     */
+    @Test
+    public void testApplyRegexFallback() {
+        ItemCollection document = createDocument();
+        ItemProjection projection = new ItemProjection(Arrays.asList("^txt"));
+        ItemCollection result = projection.apply(document);
+        assertEquals(2, result.getItemNames().size());
+        assertEquals("Berlin", result.getItemValueString("txtcity"));
+
+        // same result as clone
+        assertEquals(result, document.clone(Arrays.asList("^txt")));
+    }
+
+    /**
+     * Test copy into an existing ItemCollection
+     */
+    @Test
+    public void testCopy() {
+        ItemCollection document = createDocument();
+        ItemCollection target = new ItemCollection();
+        target.replaceItemValue("other", "x");
+        ItemProjection.compile("txtname, numage|age ,(^artikel$|^invoice$),missing").copy(document, target);
+
+        assertEquals("x", target.getItemValueString("other"));
+        assertEquals("Anna", target.getItemValueString("txtname"));
+        assertEquals(42, target.getItemValueInteger("age"));
+        assertEquals("A-100", target.getItemValueString("artikel"));
+        assertEquals("R-200", target.getItemValueString("invoice"));
+        // exact names are copied even if not defined
+        assertTrue(target.hasItem("missing"));
+        assertFalse(target.hasItem("txtcity"));
+    }
+
+    /**
+     * Compiled projections are cached by the item string
+     */
+    @Test
+    public void testCompileCache() {
+        ItemProjection projection = ItemProjection.compile("txtname,numage");
+        assertSame(projection, ItemProjection.compile("txtname,numage"));
+        assertNotSame(projection, ItemProjection.compile("txtname"));
+        assertEquals(Arrays.asList("txtname", "numage"), projection.getItemNames());
+        assertNull(ItemProjection.compile(""));
+        assertNull(ItemProjection.compile((String) null));
+    }
+
+    /**
+     * Compiled projections are cached by the content of an item list. Changing
+     * the list after compiling must not change the cached projection.
+     */
+    @Test
+    public void testCompileListCache() {
+        List<String> itemNames = new ArrayList<>(Arrays.asList("txtname", "numage"));
+        ItemProjection projection = ItemProjection.compile(itemNames);
+        assertSame(projection, ItemProjection.compile(Arrays.asList("txtname", "numage")));
+        itemNames.add("txtcity");
+        assertNotSame(projection, ItemProjection.compile(itemNames));
+        assertEquals(Arrays.asList("txtname", "numage"), projection.getItemNames());
+        assertNull(ItemProjection.compile(new ArrayList<String>()));
+        assertNull(ItemProjection.compile((List<String>) null));
+    }
+
+    /**
+     * Compares the projection with a clone of the full document
+     */
+    @Test
+    public void testPerformance() {
+        ItemCollection document = createDocument();
+        for (int i = 0; i < 200; i++) {
+            document.replaceItemValue("item" + i, "some value " + i);
+        }
+        ItemProjection projection = ItemProjection.compile("txtname,numage|age,(^artikel$|^invoice$)");
+        int rounds = 10000;
+        long time = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            ItemCollection clone = (ItemCollection) document.clone();
+            for (String itemName : document.getItemNames()) {
+                if (!itemName.equals("txtname") && !itemName.equals("artikel") && !itemName.equals("invoice")) {
+                    clone.removeItem(itemName);
+                }
+            }
+        }
+        long cloneTime = System.nanoTime() - time;
+        time = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            projection.apply(document);
+        }
+        long projectionTime = System.nanoTime() - time;
+        System.out.println("Performancetest full clone: " + (cloneTime / rounds / 1000) + "us per document");
+        System.out.println("Performancetest item projection: " + (projectionTime / rounds / 1000) + "us per document");
+    }
+}
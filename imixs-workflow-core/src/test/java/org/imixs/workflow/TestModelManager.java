@@ -0,0 +1,177 @@
+package org.imixs.workflow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.imixs.workflow.bpmn.BPMNUtil;
+import org.imixs.workflow.exceptions.ModelException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openbpmn.bpmn.BPMNModel;
+import org.openbpmn.bpmn.exceptions.BPMNModelException;
+import org.openbpmn.bpmn.util.BPMNModelFactory;
+
+/**
+ * Test class for the ModelManager loading model versions on first access by a
+ * ModelLoader.
+ *
+ * @author rsoika
+ */
+public class TestModelManager {
+
+	private ModelManager modelManager;
+	private AtomicInteger loadCount;
+
+	@BeforeEach
+	public void setup() {
+		modelManager = new ModelManager();
+		loadCount = new AtomicInteger();
+	}
+
+	/**
+	 * A registered model version is loaded on first access only
+	 */
+	@Test
+	public void testLoadOnFirstAccess() throws ModelException, BPMNModelException {
+		modelManager.addModel(BPMNModelFactory.read("/bpmn/simple.bpmn"));
+		modelManager.addModel("source-1.0.0", Set.of("Simple"), createLoader("/bpmn/model-switch-source.bpmn"));
+
+		assertEquals(List.of("source-1.0.0", "1.0.0"), modelManager.getVersions());
+		assertEquals(Set.of("source-1.0.0", "1.0.0"), modelManager.findAllVersionsByGroup("Simple"));
+		assertEquals(Set.of("source-1.0.0"), modelManager.findVersionsByRegEx("^source-"));
+		assertEquals("source-1.0.0", modelManager.findVersionByGroup("Simple"));
+		assertEquals(0, loadCount.get());
+		assertFalse(modelManager.getModelStore().containsKey("source-1.0.0"));
+
+		ItemCollection workitem = new ItemCollection().model("source-1.0.0").task(1000).event(10);
+		assertEquals("Create Request", modelManager.loadTask(workitem).getItemValueString("name"));
+		assertEquals(10, modelManager.loadEvent(workitem).getItemValueInteger(BPMNUtil.EVENT_ITEM_EVENTID));
+		assertNotNull(modelManager.getModel("source-1.0.0"));
+		assertEquals(1, loadCount.get());
+		assertTrue(modelManager.getModelStore().containsKey("source-1.0.0"));
+		assertEquals(List.of("source-1.0.0", "1.0.0"), modelManager.getVersions());
+	}
+
+	/**
+	 * The groups of a registered model version are resolved by loading the model
+	 * if unknown.
+	 */
+	@Test
+	public void testUnknownGroups() throws ModelException {
+		modelManager.addModel("source-1.0.0", null, createLoader("/bpmn/model-switch-source.bpmn"));
+		modelManager.addModel("target-1.0.0", null, createLoader("/bpmn/model-switch-target.bpmn"));
+		assertEquals(Set.of("source-1.0.0", "target-1.0.0"), modelManager.findAllVersionsByGroup("Simple"));
+		assertEquals(2, loadCount.get());
+		assertEquals(2, modelManager.getAllModels().size());
+		assertEquals(2, loadCount.get());
+	}
+
+	/**
+	 * A model which can not be loaded or which defines a different version results
+	 * in a ModelException.
+	 */
+	@Test
+	public void testInvalidModel() {
+		modelManager.addModel("2.0.0", Set.of("Simple"), createLoader("/bpmn/simple.bpmn"));
+		modelManager.addModel("3.0.0", Set.of("Simple"), version -> {
+			throw new ModelException(ModelException.INVALID_MODEL, "model not found");
+		});
+		assertThrows(ModelException.class, () -> modelManager.getModel("2.0.0"));
+		assertThrows(ModelException.class,
+				() -> modelManager.loadTask(new ItemCollection().model("3.0.0").task(1000)));
+
+		// a removed model version is no longer loaded
+		modelManager.removeModel("3.0.0");
+		assertEquals(List.of("2.0.0"), modelManager.getVersions());
+	}
+
+	/**
+	 * The least recently used model version is evicted if the capacity of the
+	 * model store is exceeded and reloaded on the next access.
+	 */
+	@Test
+	public void testEviction() throws ModelException, BPMNModelException {
+		List<String> modelEvents = new ArrayList<>();
+		modelManager.setModelListener(new ModelManager.ModelListener() {
+			@Override
+			public void onModelLoad(String version, boolean reload) {
+				modelEvents.add((reload ? "reload " : "load ") + version);
+			}
+
+			@Override
+			public void onModelEviction(String version) {
+				modelEvents.add("evict " + version);
+			}
+		});
+		modelManager.setCapacity(2);
+		modelManager.addModel(BPMNModelFactory.read("/bpmn/simple.bpmn"));
+		modelManager.addModel("source-1.0.0", Set.of("Simple"), createLoader("/bpmn/model-switch-source.bpmn"));
+		modelManager.addModel("target-1.0.0", Set.of("Simple"), createLoader("/bpmn/model-switch-target.bpmn"));
+
+		assertNotNull(modelManager.getModel("source-1.0.0"));
+		assertNotNull(modelManager.getModel("target-1.0.0"));
+		assertEquals(Set.of("1.0.0", "target-1.0.0"), modelManager.getModelStore().keySet());
+		assertEquals(1, modelManager.getEvictionCount());
+		assertEquals(List.of("target-1.0.0", "source-1.0.0", "1.0.0"), modelManager.getVersions());
+		assertEquals(Set.of("target-1.0.0", "source-1.0.0", "1.0.0"), modelManager.findAllVersionsByGroup("Simple"));
+		assertEquals(2, loadCount.get());
+
+		// the evicted model version is reloaded
+		ItemCollection workitem = new ItemCollection().model("source-1.0.0").task(1000).event(10);
+		assertEquals("Create Request", modelManager.loadTask(workitem).getItemValueString("name"));
+		assertEquals(Set.of("1.0.0", "source-1.0.0"), modelManager.getModelStore().keySet());
+		assertEquals(3, loadCount.get());
+		assertEquals(3, modelManager.getLoadCount());
+		assertEquals(1, modelManager.getReloadCount());
+		assertEquals(2, modelManager.getEvictionCount());
+		assertEquals(List.of("load source-1.0.0", "evict source-1.0.0", "load target-1.0.0", "evict target-1.0.0",
+				"reload source-1.0.0"), modelEvents);
+
+		// a model version added without a ModelLoader is never evicted
+		modelManager.setCapacity(1);
+		assertEquals(Set.of("1.0.0"), modelManager.getModelStore().keySet());
+		modelManager.setCapacity(0);
+		assertNotNull(modelManager.getModel("source-1.0.0"));
+		assertNotNull(modelManager.getModel("target-1.0.0"));
+		assertEquals(3, modelManager.getModelStore().size());
+	}
+
+	/**
+	 * The model version accessed last is kept in the model store
+	 */
+	@Test
+	public void testLeastRecentlyUsed() throws ModelException {
+		modelManager.addModel("source-1.0.0", null, createLoader("/bpmn/model-switch-source.bpmn"));
+		modelManager.addModel("target-1.0.0", null, createLoader("/bpmn/model-switch-target.bpmn"));
+		assertNotNull(modelManager.getModel("source-1.0.0"));
+		assertNotNull(modelManager.getModel("target-1.0.0"));
+		modelManager.setCapacity(2);
+		assertNotNull(modelManager.getModel("source-1.0.0"));
+
+		modelManager.setCapacity(1);
+		assertEquals(Set.of("source-1.0.0"), modelManager.getModelStore().keySet());
+		// the groups of the evicted model version are still known
+		assertEquals(Set.of("source-1.0.0", "target-1.0.0"), modelManager.findAllVersionsByGroup("Simple"));
+		assertEquals(2, loadCount.get());
+	}
+
+	private ModelManager.ModelLoader createLoader(String modelPath) {
+		return version -> {
+			loadCount.incrementAndGet();
+			try {
+				BPMNModel model = BPMNModelFactory.read(modelPath);
+				return model;
+			} catch (BPMNModelException e) {
+				throw new ModelException(ModelException.INVALID_MODEL, e.getMessage());
+			}
+		};
+	}
+}
@@ -3,8 +3,16 @@ package org.imixs.workflow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import javax.script.ScriptException;
 
 import org.imixs.workflow.exceptions.PluginException;
@@ -71,4 +79,172 @@ public class TestRuleEngine {
 
 	}
 
+	/**
+	 * The RuleEngine reuses pooled contexts. Variables and members of a previous
+	 * script must not be visible to the next script.
+	 * 
+	 * @throws PluginException
+	 */
+	@Test
+	public void testPooledContextIsolation() throws PluginException {
+		ItemCollection workitem = new ItemCollection();
+		workitem.setItemValue("name", "Anna");
+
+		ItemCollection result = ruleEngine.evaluateBusinessRule("var result={name:'Anna'}; x=1;", workitem, null);
+		assertEquals("Anna", result.getItemValueString("name"));
+
+		// no result object
+		assertNull(ruleEngine.evaluateBusinessRule("var y=1;", workitem, null));
+		// no event and no global variable
+		assertTrue(ruleEngine.evaluateBooleanExpression("typeof event === 'undefined' && typeof x === 'undefined'",
+				workitem));
+		assertFalse(ruleEngine.evaluateBooleanExpression("typeof workitem === 'undefined'", workitem));
+		assertTrue(ruleEngine.evaluateBooleanExpression("typeof workitem === 'undefined'", null));
+
+		// lexical declarations can be evaluated more than once
+		for (int i = 0; i < 5; i++) {
+			result = ruleEngine.evaluateBusinessRule("let a=" + i + "; const b=2; var result={a:a, b:b};", workitem,
+					null);
+			assertEquals(i, result.getItemValueInteger("a"));
+			assertEquals(2, result.getItemValueInteger("b"));
+		}
+	}
+
+	/**
+	 * Changes of built-in objects must not leak into the next evaluation.
+	 * 
+	 * @throws PluginException
+	 */
+	@Test
+	public void testPooledContextBuiltins() throws PluginException {
+		for (int i = 0; i < 3; i++) {
+			assertTrue(ruleEngine.evaluateBooleanExpression(
+					"typeof ({}).foo === 'undefined' && Math.random() < 1 && typeof parseInt('1') === 'number'",
+					null));
+			assertTrue(ruleEngine.evaluateBooleanExpression(
+					"Object.prototype.foo=1; Math.random=function(){return 4;}; true", null));
+			assertTrue(ruleEngine.evaluateBooleanExpression("function parseInt(){ return 'x'; } true", null));
+		}
+	}
+
+	/**
+	 * A script may change the built-in objects depending on the workitem. The
+	 * change must not leak into the next evaluation even if the same script was
+	 * evaluated before without changing the built-in objects.
+	 *
+	 * @throws PluginException
+	 */
+	@Test
+	public void testPooledContextDataDependentBuiltins() throws PluginException {
+		String script = "if (workitem.getItemValueBoolean('extend')) { Array.prototype.foo=1; } true";
+		ItemCollection workitem = new ItemCollection();
+		assertTrue(ruleEngine.evaluateBooleanExpression(script, workitem));
+		workitem.setItemValue("extend", true);
+		assertTrue(ruleEngine.evaluateBooleanExpression(script, workitem));
+		for (int i = 0; i < 3; i++) {
+			assertTrue(ruleEngine.evaluateBooleanExpression("typeof [].foo === 'undefined'", null));
+		}
+	}
+
+	/**
+	 * A subclass can override convertResult. The method is called while the
+	 * context of the evaluation is bound to the RuleEngine.
+	 * 
+	 * @throws PluginException
+	 */
+	@Test
+	public void testConvertResultOverride() throws PluginException {
+		RuleEngine engine = new RuleEngine() {
+			@Override
+			public ItemCollection convertResult() {
+				ItemCollection result = super.convertResult();
+				if (result != null) {
+					result.setItemValue("answer",
+							getContext().getBindings(RuleEngine.DEFAULT_LANGUAGE_ID).getMember("answer").asInt());
+				}
+				return result;
+			}
+		};
+		ItemCollection result = engine.evaluateBusinessRule("var answer=42; var result={name:'Anna'};", null, null);
+		assertEquals("Anna", result.getItemValueString("name"));
+		assertEquals(42, result.getItemValueInteger("answer"));
+	}
+
+	/**
+	 * Evaluates rules by concurrent threads. Each RuleEngine instance takes its
+	 * own context from the pool.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testConcurrentEvaluation() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int i = 0; i < 200; i++) {
+				final int budget = i;
+				results.add(executor.submit(() -> {
+					ItemCollection workitem = new ItemCollection();
+					workitem.replaceItemValue("_budget", budget);
+					RuleEngine engine = new RuleEngine();
+					ItemCollection result = engine.evaluateBusinessRule(
+							"var result={budget:workitem.getItemValueInteger('_budget')};", workitem, null);
+					return result.getItemValueInteger("budget") == budget
+							&& engine.evaluateBooleanExpression("(workitem._budget[0]==" + budget + ")", workitem);
+				}));
+			}
+			for (Future<Boolean> future : results) {
+				assertTrue(future.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Deprecated scripts are rewritten depending on the items of the workitem. The
+	 * rewritten script is cached by the names and types of the referred items.
+	 * 
+	 * @throws PluginException
+	 */
+	@Test
+	public void testDeprecatedScriptRewrite() throws PluginException {
+		String script = "(workitem._budget && workitem._budget[0]>100)";
+
+		ItemCollection workitem = new ItemCollection();
+		workitem.replaceItemValue("_budget", 1000);
+		workitem.replaceItemValue("txtname", "Anna");
+		assertTrue(ruleEngine.evaluateBooleanExpression(script, workitem));
+		workitem.replaceItemValue("_budget", 10);
+		assertFalse(ruleEngine.evaluateBooleanExpression(script, workitem));
+
+		// no budget item
+		assertFalse(ruleEngine.evaluateBooleanExpression(script, new ItemCollection()));
+
+		// the key only depends on the referred items
+		ItemCollection other = new ItemCollection();
+		other.replaceItemValue("_budget", 500);
+		assertEquals(RuleEngineNashornConverter.getRewriteKey(script, workitem, null),
+				RuleEngineNashornConverter.getRewriteKey(script, other, null));
+		other.replaceItemValue("_budget", "500");
+		assertFalse(RuleEngineNashornConverter.getRewriteKey(script, workitem, null)
+				.equals(RuleEngineNashornConverter.getRewriteKey(script, other, null)));
+	}
+
+	/**
+	 * Test the preparation of scripts
+	 * 
+	 * @throws PluginException
+	 */
+	@Test
+	public void testPrepareScript() throws PluginException {
+		assertTrue(ruleEngine.prepareScript("(workitem.getItemValueDouble('_budget')>100)"));
+		// deprecated script
+		assertFalse(ruleEngine.prepareScript("(workitem._budget && workitem._budget[0]>100)"));
+		assertFalse(ruleEngine.prepareScript(" "));
+		PluginException e = assertThrows(PluginException.class,
+				() -> ruleEngine.prepareScript("(workitem.getItemValueDouble('_budget')>>>)"));
+		assertEquals(RuleEngine.INVALID_SCRIPT, e.getErrorCode());
+	}
+
 }
@@ -0,0 +1,145 @@
+package org.imixs.workflow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.function.Predicate;
+
+import org.imixs.workflow.exceptions.PluginException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the RuleEngineExpressionCompiler. The results of compiled
+ * expressions are compared with the results of the GraalJS script engine.
+ *
+ * @author rsoika
+ */
+public class TestRuleEngineExpressionCompiler {
+
+	private static final String[] OPERANDS = { "workitem.getItemValueString('_status')",
+			"workitem.getItemValueString('_number')", "workitem.getItemValueString('_empty')",
+			"workitem.getItemValueString('_missing')", "workitem.getItemValueInteger('_number')",
+			"workitem.getItemValueDouble('_budget')", "workitem.getItemValueLong('_budget')",
+			"workitem.getItemValueFloat('_budget')", "workitem.getItemValueBoolean('_flag')",
+			"workitem.hasItem('_budget')", "workitem.hasItem('_missing')", "workitem.isItemEmpty('_empty')",
+			"workitem.isItemValueNumeric('_number')", "'approved'", "'Approved'", "''", "' 42 '", "'0x1F'",
+			"'1e2'", "'abc'", "42", "0", "-1.5", "100", ".5", "true", "false", "null" };
+
+	private static final String[] OPERATORS = { "==", "!=", "===", "!==", "<", "<=", ">", ">=", "&&", "||" };
+
+	private RuleEngine graalEngine;
+
+	@BeforeEach
+	public void setup() {
+		// a RuleEngine with a bound context evaluates all scripts by GraalJS
+		graalEngine = new RuleEngine();
+		graalEngine.getContext();
+	}
+
+	/**
+	 * Test typical conditions of a BPMN model
+	 */
+	@Test
+	public void testConditions() throws PluginException {
+		ItemCollection workitem = createWorkitem();
+
+		assertCompiled("workitem.getItemValueString('_status')=='approved'", workitem, true);
+		assertCompiled("(workitem.getItemValueDouble('_budget')>100)", workitem, true);
+		assertCompiled("(workitem.getItemValueDouble('_budget')<=100)", workitem, false);
+		assertCompiled("workitem.hasItem('_budget') && workitem.getItemValueDouble('_budget')>100", workitem,
+				true);
+		assertCompiled("!workitem.hasItem('_missing') || false;", workitem, true);
+		assertCompiled("workitem.getItemValueString( \"_status\" ) != \"rejected\"", workitem, true);
+		assertCompiled("workitem.getItemValueString('_status')", workitem, false);
+		assertCompiled("true", workitem, true);
+
+		// scripts not supported by the compiler
+		assertNull(RuleEngineExpressionCompiler.compile("workitem.getItemValueString('_status').length>0"));
+		assertNull(RuleEngineExpressionCompiler.compile("var a=1; a==1"));
+		assertNull(RuleEngineExpressionCompiler.compile("workitem.getItemValueDouble('_budget')+1>100"));
+		assertNull(RuleEngineExpressionCompiler.compile("workitem.getItemValue('_budget')"));
+		assertNull(RuleEngineExpressionCompiler.compile("event.getItemValueString('name')=='x'"));
+		assertNull(RuleEngineExpressionCompiler.compile("workitem.getItemValueInteger('_budget')>>1"));
+		assertNull(RuleEngineExpressionCompiler.compile("010==8"));
+		assertNull(RuleEngineExpressionCompiler.compile("1==1 // comment"));
+		assertNull(RuleEngineExpressionCompiler.compile("(1==1"));
+		assertNull(RuleEngineExpressionCompiler.compile(""));
+	}
+
+	/**
+	 * Compares the results of random expressions with the results of the script
+	 * engine.
+	 */
+	@Test
+	public void testRandomExpressions() throws PluginException {
+		ItemCollection workitem = createWorkitem();
+		Random random = new Random(42);
+		for (int i = 0; i < 2000; i++) {
+			String script = randomExpression(random, 3);
+			Predicate<ItemCollection> expression = RuleEngineExpressionCompiler.compile(script);
+			assertNotNull(expression, script);
+			assertEquals(graalEngine.evaluateBooleanExpression(script, workitem), expression.test(workitem),
+					script);
+		}
+	}
+
+	/**
+	 * The RuleEngine uses compiled expressions for supported scripts
+	 */
+	@Test
+	public void testRuleEngine() throws PluginException {
+		RuleEngine ruleEngine = new RuleEngine();
+		ItemCollection workitem = createWorkitem();
+		assertTrue(ruleEngine.prepareScript("workitem.getItemValueString('_status')=='approved'"));
+		assertTrue(ruleEngine.evaluateBooleanExpression("workitem.getItemValueString('_status')=='approved'",
+				workitem));
+		// deprecated script
+		assertTrue(ruleEngine.evaluateBooleanExpression("(workitem._budget && workitem._budget[0]>100)",
+				workitem));
+		assertFalse(ruleEngine.evaluateBooleanExpression("(workitem._budget && workitem._budget[0]>2000)",
+				workitem));
+
+		long l = System.nanoTime();
+		for (int i = 0; i < 10000; i++) {
+			ruleEngine.evaluateBooleanExpression("workitem.getItemValueString('_status')=='approved'", workitem);
+		}
+		System.out.println("Performancetest 10000 compiled expressions: " + (System.nanoTime() - l) / 1000 + "us");
+	}
+
+	private void assertCompiled(String script, ItemCollection workitem, boolean expected) throws PluginException {
+		Predicate<ItemCollection> expression = RuleEngineExpressionCompiler.compile(script);
+		assertNotNull(expression, script);
+		assertEquals(expected, expression.test(workitem), script);
+		assertEquals(expected, graalEngine.evaluateBooleanExpression(script, workitem), script);
+	}
+
+	private String randomExpression(Random random, int depth) {
+		int type = random.nextInt(depth > 0 ? 4 : 1);
+		switch (type) {
+		case 1:
+			return "!" + randomExpression(random, depth - 1);
+		case 2:
+			return "(" + randomExpression(random, depth - 1) + ")";
+		case 3:
+			return randomExpression(random, depth - 1) + " " + OPERATORS[random.nextInt(OPERATORS.length)] + " "
+					+ randomExpression(random, depth - 1);
+		default:
+			return OPERANDS[random.nextInt(OPERANDS.length)];
+		}
+	}
+
+	private ItemCollection createWorkitem() {
+		ItemCollection workitem = new ItemCollection();
+		workitem.setItemValue("_status", "approved");
+		workitem.setItemValue("_number", "42");
+		workitem.setItemValue("_empty", "");
+		workitem.setItemValue("_budget", 1500.5);
+		workitem.setItemValue("_flag", true);
+		return workitem;
+	}
+}
@@ -151,6 +151,11 @@ public class TestBPMNModelBasic {
 		assertNotNull(event);
 		assertEquals("submit", event.getItemValueString("name"));
 
+		// changing the value list of an item should not have any effect
+		event.getItemValue("name").add("test");
+		event = openBPMNModelManager.findEventByID(model, 1000, 20);
+		assertEquals(1, event.getItemValue("name").size());
+
 	}
 
 	/**
@@ -2,6 +2,8 @@ package org.imixs.workflow.kernel;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.IOException;
@@ -18,6 +20,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.openbpmn.bpmn.BPMNModel;
 import org.openbpmn.bpmn.exceptions.BPMNModelException;
+import org.openbpmn.bpmn.util.BPMNModelFactory;
 import org.xml.sax.SAXException;
 
 /**
@@ -76,6 +79,20 @@ public class TestBPMNParserConditionalEvents {
 
 	}
 
+	/**
+	 * A model with a syntax error in a condition can not be added to the
+	 * ModelManager. The error is reported at deployment time.
+	 */
+	@Test
+	public void testInvalidCondition() throws BPMNModelException {
+		BPMNModel model = BPMNModelFactory.read("/bpmn/conditional_event_invalid.bpmn");
+		ModelException e = assertThrows(ModelException.class,
+				() -> workflowEngine.getModelManager().addModel(model));
+		assertEquals(ModelException.INVALID_MODEL, e.getErrorCode());
+		assertTrue(e.getMessage().contains("condition of SequenceFlow"));
+		assertEquals(0, workflowEngine.getModelManager().getVersions().size());
+	}
+
 	/**
 	 * Like testSimple() but with a default conditional sequence flow....
 	 * 
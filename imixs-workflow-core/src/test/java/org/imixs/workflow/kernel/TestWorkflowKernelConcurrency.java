@@ -0,0 +1,173 @@
+package org.imixs.workflow.kernel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.imixs.workflow.ItemCollection;
+import org.imixs.workflow.MockPlugin;
+import org.imixs.workflow.MockWorkflowContext;
+import org.imixs.workflow.ModelManager;
+import org.imixs.workflow.WorkflowKernel;
+import org.imixs.workflow.exceptions.ModelException;
+import org.imixs.workflow.exceptions.PluginException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openbpmn.bpmn.exceptions.BPMNModelException;
+import org.openbpmn.bpmn.util.BPMNModelFactory;
+
+/**
+ * This test class verifies that conditional events and parallel gateways can
+ * be processed by many threads sharing one ModelManager. Each thread uses its
+ * own WorkflowKernel instance as the kernel holds the split workitems of the
+ * last processing cycle.
+ *
+ * @author rsoika
+ */
+public class TestWorkflowKernelConcurrency {
+
+	private static final int THREADS = 32;
+	private static final int RUNS = 20;
+
+	private MockWorkflowContext workflowContext;
+	private ExecutorService executor;
+
+	@BeforeEach
+	public void setup() {
+		workflowContext = new MockWorkflowContext();
+		executor = Executors.newFixedThreadPool(THREADS);
+	}
+
+	@AfterEach
+	public void teardown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Processes conditional events in parallel. The result depends on the budget
+	 * of each workitem.
+	 */
+	@Test
+	public void testConditionalEvents() throws Exception {
+		loadModel("/bpmn/conditional_event1.bpmn");
+		runConcurrent(run -> {
+			WorkflowKernel workflowKernel = createWorkflowKernel();
+			ItemCollection workItem = new ItemCollection().model("1.0.0").task(1000).event(10);
+			workItem.setItemValue("_budget", run % 2 == 0 ? 1500.00 : 50.00);
+			workItem = workflowKernel.process(workItem);
+			assertEquals(run % 2 == 0 ? 1100 : 1200, workItem.getTaskID());
+		});
+	}
+
+	/**
+	 * Processes a conditional parallel gateway in parallel. Each processing cycle
+	 * creates one split workitem.
+	 */
+	@Test
+	public void testConditionalSplitEvents() throws Exception {
+		loadModel("/bpmn/conditional_split_event.bpmn");
+		runConcurrent(run -> {
+			WorkflowKernel workflowKernel = createWorkflowKernel();
+			ItemCollection workItem = new ItemCollection().model("1.0.0").task(1000).event(10);
+			workItem.setItemValue("_budget", 1520.00);
+			workItem = workflowKernel.process(workItem);
+			assertEquals(1100, workItem.getTaskID());
+			assertEquals(2, workItem.getItemValueInteger("runs"));
+			List<ItemCollection> splitWorkitems = workflowKernel.getSplitWorkitems();
+			assertEquals(1, splitWorkitems.size());
+			assertEquals(1200, splitWorkitems.get(0).getTaskID());
+			assertEquals(3, splitWorkitems.get(0).getItemValueInteger("runs"));
+		});
+	}
+
+	/**
+	 * Processes conditional events in parallel while the model version is
+	 * deployed again by other threads.
+	 */
+	@Test
+	public void testDeployModel() throws Exception {
+		loadModel("/bpmn/conditional_event1.bpmn");
+		runConcurrent(run -> {
+			if (run % 10 == 0) {
+				loadModel("/bpmn/conditional_event1.bpmn");
+			}
+			WorkflowKernel workflowKernel = createWorkflowKernel();
+			ItemCollection workItem = new ItemCollection().model("1.0.0").task(1000).event(10);
+			workItem.setItemValue("_budget", run % 2 == 0 ? 1500.00 : 50.00);
+			workItem = workflowKernel.process(workItem);
+			assertEquals(run % 2 == 0 ? 1100 : 1200, workItem.getTaskID());
+		});
+	}
+
+	/**
+	 * Evaluates conditions in parallel which can not be compiled and are
+	 * evaluated by the script engine. A variable declared by one thread must
+	 * not be visible to another thread.
+	 */
+	@Test
+	public void testScriptConditions() throws Exception {
+		ModelManager modelManager = workflowContext.getModelManager();
+		runConcurrent(run -> {
+			ItemCollection workItem = new ItemCollection();
+			if (run % 2 == 0) {
+				workItem.setItemValue("_budget", 1500.00);
+			}
+			assertEquals(run % 2 == 0, modelManager.evaluateCondition(
+					"var total = workitem.getItemValueDouble('_budget') * 2; total > 200", workItem));
+			assertEquals(false, modelManager.evaluateCondition("typeof total2 !== 'undefined'", workItem));
+			assertEquals(run % 2 == 0, modelManager.evaluateCondition(
+					"var total2 = workitem.getItemValueString('_budget'); total2.length > 0", workItem));
+		});
+	}
+
+	private void loadModel(String modelPath) throws BPMNModelException, ModelException {
+		workflowContext.getModelManager().addModel(BPMNModelFactory.read(modelPath));
+	}
+
+	private WorkflowKernel createWorkflowKernel() throws PluginException {
+		WorkflowKernel workflowKernel = new WorkflowKernel(workflowContext);
+		workflowKernel.registerPlugin(new MockPlugin());
+		return workflowKernel;
+	}
+
+	/**
+	 * Runs the given task RUNS times in each thread and rethrows the first error.
+	 */
+	private void runConcurrent(ConcurrentTask task) throws Exception {
+		long l = System.currentTimeMillis();
+		List<Future<Void>> futures = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			Callable<Void> callable = () -> {
+				for (int run = 0; run < RUNS; run++) {
+					task.run(run);
+				}
+				return null;
+			};
+			futures.add(executor.submit(callable));
+		}
+		for (Future<Void> future : futures) {
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof Error) {
+					throw (Error) e.getCause();
+				}
+				throw (Exception) e.getCause();
+			}
+		}
+		System.out.println("Performancetest " + THREADS * RUNS + " concurrent runs: "
+				+ (System.currentTimeMillis() - l) + "ms");
+	}
+
+	@FunctionalInterface
+	private interface ConcurrentTask {
+		void run(int run) throws Exception;
+	}
+}
@@ -0,0 +1,199 @@
+package org.imixs.workflow.services.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Test the RestClient transports against an embedded http server.
+ * <p>
+ * The endpoint '/echo' returns the request method, the authorization header
+ * and the (decompressed) request body. If the client accepts gzip the
+ * response is compressed.
+ *
+ * @author rsoika
+ */
+public class TestRestClient {
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private String rootURL;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/echo", this::echo);
+        server.createContext("/error", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+        rootURL = "http://localhost:" + server.getAddress().getPort() + "/";
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Test GET and POST with both transports
+     */
+    @Test
+    public void testTransports() throws RestAPIException {
+        for (RestClient.Transport transport : RestClient.Transport.values()) {
+            RestClient client = new RestClient(rootURL);
+            client.setTransport(transport);
+            client.registerRequestFilter(new BasicAuthenticator("admin", "secret"));
+
+            String result = client.get("echo");
+            assertEquals(200, client.getLastHTTPResult());
+            assertTrue(result.startsWith("GET|Basic "), transport + ": " + result);
+
+            result = client.post(rootURL + "echo", "Hello Wörld", "text/plain");
+            assertTrue(result.startsWith("POST|Basic "), transport + ": " + result);
+            assertTrue(result.endsWith("|Hello Wörld"), transport + ": " + result);
+
+            result = client.post(rootURL + "echo", "<data/>".getBytes(StandardCharsets.UTF_8), null);
+            assertTrue(result.endsWith("|<data/>"), transport + ": " + result);
+
+            RestAPIException e = assertThrows(RestAPIException.class, () -> client.get("error"));
+            assertEquals(404, e.getErrorCode());
+            assertEquals(404, client.getLastHTTPResult());
+        }
+    }
+
+    /**
+     * Test gzip compressed requests and responses
+     */
+    @Test
+    public void testGzip() throws RestAPIException {
+        RestClient client = new RestClient(rootURL);
+        client.setTransport(RestClient.Transport.HTTP_CLIENT);
+        client.setGzipRequest(true);
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            data.append("<item>").append(i).append("</item>");
+        }
+        String result = client.post(rootURL + "echo", data.toString().getBytes(StandardCharsets.UTF_8),
+                "application/xml");
+        assertEquals("POST|null|gzip|" + data, result);
+    }
+
+    /**
+     * Test the streaming api
+     */
+    @Test
+    public void testInputStream() throws RestAPIException, IOException {
+        for (RestClient.Transport transport : RestClient.Transport.values()) {
+            RestClient client = new RestClient(rootURL);
+            client.setTransport(transport);
+            try (InputStream in = client.getInputStream("echo")) {
+                assertEquals("GET|null||", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            assertThrows(RestAPIException.class, () -> client.getInputStream("error"));
+        }
+    }
+
+    /**
+     * Test the async api
+     */
+    @Test
+    public void testAsync() throws RestAPIException, InterruptedException {
+        RestClient client = new RestClient(rootURL);
+        CompletableFuture<String> get = client.getAsync("echo");
+        CompletableFuture<String> post = client.postAsync(rootURL + "echo",
+                "Hello".getBytes(StandardCharsets.UTF_8), "text/plain", null);
+        try {
+            assertEquals("GET|null||", get.get());
+            assertEquals("POST|null||Hello", post.get());
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> client.getAsync("error").get());
+        assertTrue(e.getCause() instanceof RestAPIException);
+        assertEquals(404, ((RestAPIException) e.getCause()).getErrorCode());
+    }
+
+    /**
+     * Transport errors of the async api must be mapped to a RestAPIException
+     */
+    @Test
+    public void testAsyncTransportError() throws RestAPIException {
+        RestClient client = new RestClient(rootURL);
+        client.setRequestTimeout(1);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> client.getAsync("slow").get());
+        assertTrue(e.getCause() instanceof RestAPIException);
+        assertTrue(e.getCause().getCause() instanceof HttpTimeoutException);
+
+        server.stop(0);
+        e = assertThrows(ExecutionException.class, () -> client
+                .postAsync(rootURL + "echo", "Hello".getBytes(StandardCharsets.UTF_8), "text/plain", null).get());
+        assertTrue(e.getCause() instanceof RestAPIException);
+        assertEquals(500, ((RestAPIException) e.getCause()).getErrorCode());
+    }
+
+    /**
+     * Echo handler
+     */
+    private void echo(HttpExchange exchange) throws IOException {
+        String contentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        InputStream in = exchange.getRequestBody();
+        if ("gzip".equals(contentEncoding)) {
+            in = new GZIPInputStream(in);
+        }
+        String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        String result = exchange.getRequestMethod() + "|" + exchange.getRequestHeaders().getFirst("Authorization")
+                + "|" + (contentEncoding == null ? "" : contentEncoding) + "|" + body;
+        byte[] data = result.getBytes(StandardCharsets.UTF_8);
+
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(bos)) {
+                gzip.write(data);
+            }
+            data = bos.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+        exchange.sendResponseHeaders(200, data.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(data);
+        }
+    }
+}
@@ -1,15 +1,23 @@
 package org.imixs.workflow.util;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
+import java.util.Enumeration;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import org.imixs.workflow.ItemCollection;
 import org.junit.jupiter.api.Test;
@@ -147,4 +155,80 @@ public class TestImixsJSONParser {
 
   }
 
+  /**
+   * Test the stream and iterator of documents
+   */
+  @Test
+  public void testStream() {
+    InputStream inputStream = getClass().getResourceAsStream("/json/multidocuments.json");
+    List<ItemCollection> result = ImixsJSONParser.stream(inputStream).collect(Collectors.toList());
+    assertEquals(2, result.size());
+    assertEquals("Anna", result.get(0).getItemValueString("$readaccess"));
+    assertEquals("Tom", result.get(1).getItemValueString("$readaccess"));
+
+    // single document
+    Iterator<ItemCollection> iter = ImixsJSONParser.iterator(getClass().getResourceAsStream("/json/simple.json"));
+    assertTrue(iter.hasNext());
+    assertEquals(10, iter.next().getItemValueInteger("$ActivityID"));
+    assertFalse(iter.hasNext());
+  }
+
+  /**
+   * Test the callback form with a large generated data stream. The documents are
+   * parsed one by one and are not collected.
+   */
+  @Test
+  public void testParseLargeStream() throws ParseException {
+    final int count = 50000;
+    // generate the data stream on the fly
+    Enumeration<InputStream> parts = new Enumeration<InputStream>() {
+      int i = -1;
+
+      @Override
+      public boolean hasMoreElements() {
+        return i <= count;
+      }
+
+      @Override
+      public InputStream nextElement() {
+        String part;
+        if (i == -1) {
+          part = "{\"data\":[";
+        } else if (i == count) {
+          part = "]}";
+        } else {
+          part = (i > 0 ? "," : "") + "{\"item\":["
+              + "{\"name\":\"$uniqueid\",\"value\":{\"@type\":\"xs:string\",\"$\":\"" + i + "\"}},"
+              + "{\"name\":\"$taskid\",\"value\":{\"@type\":\"xs:int\",\"$\":\"1000\"}}]}";
+        }
+        i++;
+        return new ByteArrayInputStream(part.getBytes(StandardCharsets.UTF_8));
+      }
+    };
+
+    final AtomicInteger sum = new AtomicInteger();
+    long time = System.currentTimeMillis();
+    int result = ImixsJSONParser.parse(new SequenceInputStream(parts), document -> {
+      sum.addAndGet(document.getTaskID());
+    });
+    System.out.println("Performancetest streaming parser: " + count + " documents in "
+        + (System.currentTimeMillis() - time) + "ms");
+    assertEquals(count, result);
+    assertEquals(count * 1000, sum.get());
+  }
+
+  /**
+   * A data element is not allowed after a document
+   */
+  @Test
+  public void testInvalidDataElement() {
+    String json = "{\"item\":[{\"name\":\"a\",\"value\":{\"@type\":\"xs:string\",\"$\":\"1\"}}],\"data\":[]}";
+    assertThrows(ParseException.class,
+        () -> ImixsJSONParser.parse(new ByteArrayInputStream(json.getBytes()), document -> {
+        }));
+    Iterator<ItemCollection> iter = ImixsJSONParser.iterator(new ByteArrayInputStream(json.getBytes()));
+    assertEquals("1", iter.next().getItemValueString("a"));
+    assertThrows(IllegalStateException.class, () -> iter.hasNext());
+  }
+
 }
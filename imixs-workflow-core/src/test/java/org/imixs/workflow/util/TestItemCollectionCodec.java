@@ -0,0 +1,169 @@
+package org.imixs.workflow.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+
+import org.imixs.workflow.ItemCollection;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the binary format of the ItemCollectionCodec.
+ *
+ * @author rsoika
+ */
+public class TestItemCollectionCodec {
+
+    /**
+     * Encode and decode all supported value types
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testEncodeDecode() throws IOException {
+        ItemCollection itemCol = new ItemCollection();
+        itemCol.setItemValue("txtname", "Anna");
+        itemCol.setItemValue("numint", -42);
+        itemCol.setItemValue("numlong", Long.MAX_VALUE);
+        itemCol.setItemValue("numdouble", 3.14);
+        itemCol.setItemValue("numfloat", 1.5f);
+        itemCol.setItemValue("numshort", (short) 7);
+        itemCol.setItemValue("numbyte", (byte) -1);
+        itemCol.setItemValue("char", 'x');
+        itemCol.setItemValue("bool", true);
+        itemCol.setItemValue("bigdecimal", new BigDecimal("12.3450"));
+        itemCol.setItemValue("biginteger", new BigInteger("-123456789012345678901234567890"));
+        itemCol.setItemValue("date", new Date());
+        itemCol.setItemValue("data", new byte[] { 1, 2, 3 });
+        itemCol.setItemValue("umlaut", "äöü €");
+        List<Object> list = new ArrayList<>();
+        list.add("a");
+        list.add(1);
+        list.add(null);
+        itemCol.setItemValue("list", list);
+        Map<String, Object> map = new HashMap<>();
+        map.put("txtname", "embedded");
+        map.put("vector", new Vector<>(List.of("x", "y")));
+        itemCol.setItemValue("map", map);
+        // unknown type - serialization fallback
+        itemCol.getAllItems().put("calendar", new ArrayList<>(List.of(Calendar.getInstance())));
+
+        byte[] data = ItemCollectionCodec.encode(itemCol.getAllItems());
+        assertTrue(ItemCollectionCodec.isBinaryFormat(data));
+        Map<String, List<Object>> result = ItemCollectionCodec.decode(data);
+
+        assertEquals(itemCol.getAllItems().size(), result.size());
+        for (String name : itemCol.getItemNames()) {
+            Object expected = itemCol.getAllItems().get(name).get(0);
+            if (expected instanceof byte[]) {
+                assertArrayEquals((byte[]) expected, (byte[]) result.get(name).get(0));
+            } else {
+                assertEquals(itemCol.getAllItems().get(name), result.get(name), name);
+            }
+        }
+        assertTrue(((Map<String, Object>) result.get("map").get(0)).get("vector") instanceof Vector);
+        assertEquals("Anna", new ItemCollection(result).getItemValueString("txtName"));
+    }
+
+    /**
+     * Data written by Java serialization must still be readable
+     */
+    @Test
+    public void testDecodeSerializedFormat() throws IOException {
+        Map<String, List<Object>> source = new Hashtable<>();
+        source.put("txtname", new ArrayList<>(List.of("Anna")));
+        source.put("numage", new ArrayList<>(List.of(42)));
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bos);
+        oos.writeObject(source);
+        oos.flush();
+        byte[] data = bos.toByteArray();
+
+        assertTrue(ItemCollectionCodec.isSerializedFormat(data));
+        assertEquals(source, ItemCollectionCodec.decode(data));
+        assertNull(ItemCollectionCodec.decode(null));
+        assertNull(ItemCollectionCodec.encode(null));
+        assertThrows(IOException.class, () -> ItemCollectionCodec.decode(new byte[] { 1, 2, 3, 4, 5, 6 }));
+    }
+
+    /**
+     * Large documents are compressed
+     */
+    @Test
+    public void testCompression() throws IOException {
+        ItemCollection itemCol = new ItemCollection();
+        for (int i = 0; i < 500; i++) {
+            itemCol.setItemValue("txtitem" + i, "some repeated text value " + i);
+        }
+        byte[] data = ItemCollectionCodec.encode(itemCol.getAllItems());
+        assertEquals(1, data[4] & 0x01);
+        assertEquals(itemCol.getAllItems(), ItemCollectionCodec.decode(data));
+    }
+
+    /**
+     * This test compares size and time of the binary format with the Java
+     * serialization for a document with 300 items.
+     */
+    @Test
+    public void testPerformance() throws IOException, ClassNotFoundException {
+        ItemCollection itemCol = new ItemCollection();
+        for (int i = 0; i < 300; i++) {
+            if (i % 3 == 0) {
+                itemCol.setItemValue("txtitem" + i, "some text value " + i);
+            } else if (i % 3 == 1) {
+                itemCol.setItemValue("numitem" + i, i);
+            } else {
+                itemCol.setItemValue("datitem" + i, new Date());
+            }
+        }
+        Map<String, List<Object>> source = new Hashtable<>(itemCol.getAllItems());
+        int rounds = 1000;
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bos);
+        oos.writeObject(source);
+        oos.flush();
+        byte[] serialized = bos.toByteArray();
+        byte[] encoded = ItemCollectionCodec.encode(source);
+
+        // warm up
+        for (int i = 0; i < 100; i++) {
+            ItemCollectionCodec.decode(serialized);
+            ItemCollectionCodec.decode(ItemCollectionCodec.encode(source));
+        }
+
+        long l = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            ItemCollectionCodec.decode(serialized);
+        }
+        long serializationTime = System.nanoTime() - l;
+        l = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            ItemCollectionCodec.decode(encoded);
+        }
+        long codecTime = System.nanoTime() - l;
+
+        System.out.println("Performancetest serialization: " + serialized.length + " bytes, decode in "
+                + (serializationTime / rounds / 1000) + "us");
+        System.out.println("Performancetest binary codec: " + encoded.length + " bytes, decode in "
+                + (codecTime / rounds / 1000) + "us");
+        assertTrue(encoded.length < serialized.length);
+        assertEquals(source, ItemCollectionCodec.decode(encoded));
+    }
+
+}
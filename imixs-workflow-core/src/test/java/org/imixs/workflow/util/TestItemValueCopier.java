@@ -0,0 +1,121 @@
+package org.imixs.workflow.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+
+import org.imixs.workflow.ItemCollection;
+import org.imixs.workflow.xml.XMLDocument;
+import org.imixs.workflow.xml.XMLDocumentAdapter;
+import org.imixs.workflow.xml.XMLItem;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the ItemValueCopier. The test verifies the structural deep
+ * copy of item values.
+ *
+ * @author rsoika
+ */
+public class TestItemValueCopier {
+
+    /**
+     * Immutable values are shared, mutable containers must be copied.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testDeepCopyMap() throws ClassNotFoundException, IOException {
+        Map<String, List<Object>> source = new Hashtable<>();
+        List<Object> list = new ArrayList<>();
+        list.add("hello");
+        list.add(42);
+        list.add(new BigDecimal("1.5"));
+        source.put("list", list);
+
+        Date date = new Date();
+        List<Object> dateList = new ArrayList<>();
+        dateList.add(date);
+        source.put("date", dateList);
+
+        byte[] data = { 1, 2, 3 };
+        List<Object> dataList = new ArrayList<>();
+        dataList.add(data);
+        source.put("data", dataList);
+
+        Map<String, Object> embedded = new HashMap<>();
+        List<Object> embeddedList = new ArrayList<>();
+        embeddedList.add("a");
+        embedded.put("sub", embeddedList);
+        List<Object> mapList = new ArrayList<>();
+        mapList.add(embedded);
+        source.put("map", mapList);
+
+        Map<String, List<Object>> copy = (Map<String, List<Object>>) ItemValueCopier.deepCopy(source);
+        assertTrue(copy instanceof Hashtable);
+        assertEquals(4, copy.size());
+
+        // list is copied, immutable values are shared
+        assertNotSame(list, copy.get("list"));
+        assertEquals(list, copy.get("list"));
+        assertSame(list.get(0), copy.get("list").get(0));
+
+        // date is copied
+        Date dateCopy = (Date) copy.get("date").get(0);
+        assertNotSame(date, dateCopy);
+        assertEquals(date, dateCopy);
+
+        // byte array is copied
+        byte[] dataCopy = (byte[]) copy.get("data").get(0);
+        assertNotSame(data, dataCopy);
+        assertArrayEquals(data, dataCopy);
+
+        // embedded map is copied
+        Map<String, Object> embeddedCopy = (Map<String, Object>) copy.get("map").get(0);
+        assertNotSame(embedded, embeddedCopy);
+        assertNotSame(embeddedList, embeddedCopy.get("sub"));
+        assertEquals(embedded, embeddedCopy);
+
+        // changes in the copy must not affect the source
+        ((List<Object>) embeddedCopy.get("sub")).add("b");
+        dataCopy[0] = 9;
+        assertEquals(1, embeddedList.size());
+        assertEquals(1, data[0]);
+    }
+
+    /**
+     * Test copy of XMLDocument and XMLItem values
+     */
+    @Test
+    public void testDeepCopyXMLDocument() throws ClassNotFoundException, IOException {
+        ItemCollection itemCol = new ItemCollection();
+        itemCol.setItemValue("txtname", "Anna");
+        itemCol.setItemValue("numage", 42);
+        XMLDocument xmlDoc = XMLDocumentAdapter.getDocument(itemCol);
+
+        XMLDocument copy = (XMLDocument) ItemValueCopier.deepCopy(xmlDoc);
+        assertNotSame(xmlDoc, copy);
+        assertNotSame(xmlDoc.getItem(), copy.getItem());
+        assertEquals(xmlDoc.getItem().length, copy.getItem().length);
+        for (int i = 0; i < copy.getItem().length; i++) {
+            XMLItem item = xmlDoc.getItem()[i];
+            XMLItem itemCopy = copy.getItem()[i];
+            assertNotSame(item, itemCopy);
+            assertEquals(item.getName(), itemCopy.getName());
+            assertArrayEquals(item.getValue(), itemCopy.getValue());
+        }
+        ItemCollection result = XMLDocumentAdapter.putDocument(copy);
+        assertEquals("Anna", result.getItemValueString("txtname"));
+        assertEquals(42, result.getItemValueInteger("numage"));
+    }
+
+}
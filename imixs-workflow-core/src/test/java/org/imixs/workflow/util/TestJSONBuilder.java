@@ -1,18 +1,23 @@
 package org.imixs.workflow.util;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Logger;
 
 import org.imixs.workflow.ItemCollection;
+import org.imixs.workflow.ItemProjection;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -100,4 +105,52 @@ public class TestJSONBuilder {
 
 	}
 
+	/**
+	 * Test writing a collection of documents with an item projection into an
+	 * OutputStream.
+	 * 
+	 * @throws ParseException
+	 */
+	@Test
+	public void testWriteCollection() throws ParseException, UnsupportedEncodingException {
+		List<ItemCollection> documents = new ArrayList<ItemCollection>();
+		for (int i = 0; i < 3; i++) {
+			ItemCollection workitem = new ItemCollection();
+			workitem.setItemValue("$readaccess", "Anna");
+			workitem.setItemValue("count", i);
+			workitem.setItemValue("txtname", "Say \"Hello\"\n");
+			documents.add(workitem);
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImixsJSONBuilder.write(documents, ItemProjection.compile("count,txtname|name"), out);
+
+		List<ItemCollection> result = ImixsJSONParser.parse(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(3, result.size());
+		ItemCollection testItemCol = result.get(2);
+		assertEquals(2, testItemCol.getItemValueInteger("count"));
+		assertEquals("Say \"Hello\"\n", testItemCol.getItemValueString("name"));
+		assertFalse(testItemCol.hasItem("$readaccess"));
+		assertFalse(testItemCol.hasItem("txtname"));
+	}
+
+	/**
+	 * Test writing a single document into a Writer. The result must be equal to
+	 * the build method.
+	 * 
+	 * @throws ParseException
+	 * @throws UnsupportedEncodingException
+	 */
+	@Test
+	public void testWriteDocument() throws ParseException, UnsupportedEncodingException {
+		ItemCollection workitem = new ItemCollection();
+		workitem.setItemValue("$readaccess", "Anna");
+		workitem.setItemValue("$taskid", 1000);
+		StringWriter writer = new StringWriter();
+		ImixsJSONBuilder.write(workitem, writer);
+		assertEquals(ImixsJSONBuilder.build(workitem), writer.toString());
+		assertEquals("{\"item\":[{\"name\":\"$readaccess\",\"value\":{\"@type\":\"xs:string\",\"$\":\"Anna\"}},"
+				+ "{\"name\":\"$taskid\",\"value\":{\"@type\":\"xs:int\",\"$\":\"1000\"}}]}", writer.toString());
+	}
+
 }
@@ -3,10 +3,13 @@ package org.imixs.workflow.util;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.util.List;
 
@@ -119,4 +122,89 @@ public class TestJSONParserWorkitem {
 		assertEquals(7, list.size());
 
 	}
+
+	/**
+	 * Test the deprecated method JSONParser.parseWorkitem
+	 */
+	@SuppressWarnings("deprecation")
+	@Test
+	public void testParseWorkitem() throws ParseException, UnsupportedEncodingException {
+		ItemCollection itemCol = JSONParser.parseWorkitem(getClass().getResourceAsStream("/json/simple.json"), null);
+		assertNotNull(itemCol);
+		assertEquals("Anna", itemCol.getItemValueString("$readaccess"));
+		List<?> list = itemCol.getItemValue("txtLog");
+		assertEquals(3, list.size());
+		assertEquals("C", list.get(2));
+		assertEquals(10, itemCol.getItemValueInteger("$ActivityID"));
+
+		itemCol = JSONParser.parseWorkitem(getClass().getResourceAsStream("/json/workitem.json"), "UTF-8");
+		assertNotNull(itemCol);
+		assertEquals(20, itemCol.getTaskID());
+		assertEquals("worklist", itemCol.getItemValueString("txtworkflowresultmessage"));
+		assertEquals(Boolean.TRUE, itemCol.getItemValue("$isAuthor").get(0));
+		assertEquals(7, itemCol.getItemValueInteger("$activityID"));
+		assertEquals("14194929161-1003e42a", itemCol.getItemValueString("$UniqueID"));
+		assertEquals(7, itemCol.getItemValue("txtworkflowpluginlog").size());
+	}
+
+	/**
+	 * Test unquoted values, the order of "@type" and "$", escaped characters and
+	 * repeated item names. Escape sequences are not resolved.
+	 */
+	@SuppressWarnings("deprecation")
+	@Test
+	public void testParseWorkitemValues() throws ParseException, UnsupportedEncodingException {
+		String json = "{\"item\":[" //
+				+ "{\"name\":\"$processid\",\"value\":{\"@type\":\"xs:int\",\"$\":1100}},"
+				+ "{\"name\":\"amount\",\"value\":{\"$\":1.5,\"@type\":\"xs:double\"}},"
+				+ "{\"name\":\"count\",\"value\":{\"@type\":\"xs:long\",\"$\":\"42\"}},"
+				+ "{\"name\":\"txtsubject\",\"value\":{\"@type\":\"xs:string\",\"$\":\"Say \\\"Hello\\\", [World] {\\u00e4}\"}},"
+				+ "{\"value\":[{\"@type\":\"xs:string\",\"$\":\"A\"}],\"name\":\"txtlog\"},"
+				+ "{\"name\":\"txtlog\",\"value\":[{\"@type\":\"xs:string\",\"$\":\"B\"},{\"$\":\"C\"}]}"
+				+ "]}";
+		ItemCollection itemCol = JSONParser
+				.parseWorkitem(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), "UTF-8");
+		assertEquals(1100, itemCol.getTaskID());
+		assertEquals(1.5, itemCol.getItemValueDouble("amount"));
+		assertEquals(Long.valueOf(42), itemCol.getItemValue("count").get(0));
+		assertEquals("Say \\\"Hello\\\", [World] {\\u00e4}", itemCol.getItemValueString("txtsubject"));
+		List<?> list = itemCol.getItemValue("txtlog");
+		assertEquals(3, list.size());
+		assertEquals("A", list.get(0));
+		assertEquals("C", list.get(2));
+
+		// the first array is the item list independent of its key
+		json = "{\"id\":\"1\",\"document\":[{\"name\":\"a\",\"value\":{\"$\":\"A\"}}]}";
+		itemCol = JSONParser.parseWorkitem(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), null);
+		assertEquals("A", itemCol.getItemValueString("a"));
+		itemCol = JSONParser.parseWorkitem(new ByteArrayInputStream(
+				"[{\"name\":\"a\",\"value\":{\"$\":\"A\"}}]".getBytes(StandardCharsets.UTF_8)), null);
+		assertEquals("A", itemCol.getItemValueString("a"));
+
+		// invalid structure
+		assertThrows(ParseException.class, () -> JSONParser.parseWorkitem(
+				new ByteArrayInputStream("{\"item\":[{\"name\":\"a\"".getBytes(StandardCharsets.UTF_8)), null));
+		assertThrows(ParseException.class, () -> JSONParser.parseWorkitem(null, null));
+	}
+
+	/**
+	 * Parses a large workitem generated by the ImixsJSONBuilder
+	 */
+	@SuppressWarnings("deprecation")
+	@Test
+	public void testParseWorkitemLarge() throws ParseException, UnsupportedEncodingException {
+		ItemCollection workitem = new ItemCollection();
+		for (int i = 0; i < 10000; i++) {
+			workitem.setItemValue("item" + i, "Some text value " + i);
+			workitem.appendItemValue("item" + i, i);
+		}
+		byte[] data = ImixsJSONBuilder.build(workitem).getBytes(StandardCharsets.UTF_8);
+
+		long l = System.currentTimeMillis();
+		ItemCollection itemCol = JSONParser.parseWorkitem(new ByteArrayInputStream(data), "UTF-8");
+		System.out.println("Performancetest parseWorkitem 10000 items: " + (System.currentTimeMillis() - l) + "ms");
+		assertEquals(10000, itemCol.getItemNames().size());
+		assertEquals("Some text value 9999", itemCol.getItemValueString("item9999"));
+		assertEquals(9999, itemCol.getItemValue("item9999").get(1));
+	}
 }
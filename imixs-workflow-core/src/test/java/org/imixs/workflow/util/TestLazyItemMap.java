@@ -0,0 +1,183 @@
+package org.imixs.workflow.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+
+import org.imixs.workflow.ItemCollection;
+import org.imixs.workflow.xml.XMLDocument;
+import org.imixs.workflow.xml.XMLDocumentAdapter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the lazy decoding of the LazyItemMap.
+ *
+ * @author rsoika
+ */
+public class TestLazyItemMap {
+
+    private ItemCollection source;
+
+    @BeforeEach
+    public void setUp() {
+        source = new ItemCollection();
+        source.setItemValue("$readaccess", "anna");
+        source.setItemValue("$writeaccess", "tom");
+        source.setItemValue("txtname", "Some Name");
+        for (int i = 0; i < 100; i++) {
+            List<Object> values = new ArrayList<>();
+            values.add("value " + i);
+            values.add(i);
+            source.setItemValue("item" + i, values);
+        }
+    }
+
+    /**
+     * Only the requested items must be decoded
+     */
+    @Test
+    public void testLazyGet() throws IOException {
+        LazyItemMap map = (LazyItemMap) ItemCollectionCodec.decodeLazy(ItemCollectionCodec.encode(source.getAllItems()));
+        assertEquals(103, map.size());
+        assertEquals(103, map.getUndecodedCount());
+
+        ItemCollection itemCol = ItemCollection.createByReference(map);
+        assertEquals("anna", itemCol.getItemValueString("$readAccess"));
+        assertTrue(itemCol.hasItem("item1"));
+        assertEquals(102, map.getUndecodedCount());
+
+        // item names are available without decoding
+        assertEquals(103, itemCol.getItemNames().size());
+        assertEquals(102, map.getUndecodedCount());
+        assertFalse(map.isModified());
+
+        // iterating the entries decodes all items
+        assertEquals(source.getAllItems(), map);
+        assertEquals(new ItemCollection(source), new ItemCollection(map));
+        assertEquals(0, map.getUndecodedCount());
+        // reading the entries is not a change
+        assertFalse(map.isModified());
+    }
+
+    /**
+     * A value list returned by the map is the stored list. The map must record
+     * that a value list was returned.
+     */
+    @Test
+    public void testModifyValueList() throws IOException {
+        LazyItemMap map = (LazyItemMap) ItemCollectionCodec.decodeLazy(ItemCollectionCodec.encode(source.getAllItems()));
+        ItemCollection itemCol = ItemCollection.createByReference(map);
+        assertEquals("anna", itemCol.getItemValueString("$readaccess"));
+        assertTrue(itemCol.hasItem("$readaccess"));
+        assertFalse(map.hasExposedValues());
+
+        itemCol.getItemValue("$readaccess").add("tom");
+        assertTrue(map.hasExposedValues());
+        assertFalse(map.isModified());
+        assertEquals(2, itemCol.getItemValue("$readaccess").size());
+        for (Map.Entry<String, List<Object>> entry : map.entrySet()) {
+            if ("item1".equals(entry.getKey())) {
+                entry.getValue().remove(0);
+            }
+        }
+        assertEquals(0, map.getUndecodedCount());
+
+        Map<String, List<Object>> result = ItemCollectionCodec.decode(ItemCollectionCodec.encode(map));
+        assertEquals(2, result.get("$readaccess").size());
+        assertEquals("tom", result.get("$readaccess").get(1));
+        assertEquals(1, result.get("item1").size());
+    }
+
+    /**
+     * Test put and remove
+     */
+    @Test
+    public void testModify() throws IOException {
+        LazyItemMap map = (LazyItemMap) ItemCollectionCodec.decodeLazy(ItemCollectionCodec.encode(source.getAllItems()));
+        ItemCollection itemCol = ItemCollection.createByReference(map);
+        itemCol.replaceItemValue("txtName", "Other Name");
+        assertTrue(map.isModified());
+        itemCol.removeItem("item5");
+        assertEquals(102, map.size());
+        assertEquals(101, map.getUndecodedCount());
+
+        Map<String, List<Object>> result = ItemCollectionCodec.decode(ItemCollectionCodec.encode(map));
+        assertEquals(102, result.size());
+        assertEquals("Other Name", result.get("txtname").get(0));
+        assertFalse(result.containsKey("item5"));
+    }
+
+    /**
+     * A LazyItemMap is serialized as a Hashtable
+     */
+    @Test
+    public void testSerialization() throws IOException, ClassNotFoundException {
+        Map<String, List<Object>> map = ItemCollectionCodec.decodeLazy(ItemCollectionCodec.encode(source.getAllItems()));
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bos);
+        oos.writeObject(map);
+        oos.flush();
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()));
+        Object result = ois.readObject();
+        assertTrue(result instanceof Hashtable);
+        assertEquals(source.getAllItems(), result);
+    }
+
+    /**
+     * Converting a projection of a document into a XMLDocument must not decode
+     * all items.
+     */
+    @Test
+    public void testXMLDocumentProjection() throws IOException {
+        LazyItemMap map = (LazyItemMap) ItemCollectionCodec.decodeLazy(ItemCollectionCodec.encode(source.getAllItems()));
+        List<String> itemNames = new ArrayList<>();
+        itemNames.add("txtName");
+        itemNames.add("item7");
+        XMLDocument xmlDoc = XMLDocumentAdapter.getDocument(ItemCollection.createByReference(map), itemNames);
+        assertEquals(2, xmlDoc.getItem().length);
+        assertEquals(101, map.getUndecodedCount());
+        ItemCollection result = XMLDocumentAdapter.putDocument(xmlDoc);
+        assertEquals("Some Name", result.getItemValueString("txtname"));
+        assertEquals(7, result.getItemValue("item7").get(1));
+    }
+
+    /**
+     * This test compares the time to read the ACL items of a document with a full
+     * decode of the document.
+     */
+    @Test
+    public void testPerformanceReadACL() throws IOException {
+        byte[] data = ItemCollectionCodec.encode(source.getAllItems());
+        int rounds = 10000;
+        // warm up
+        for (int i = 0; i < 1000; i++) {
+            ItemCollectionCodec.decode(data).get("$readaccess");
+            ItemCollectionCodec.decodeLazy(data).get("$readaccess");
+        }
+        long l = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            ItemCollectionCodec.decode(data).get("$readaccess");
+        }
+        long fullTime = System.nanoTime() - l;
+        l = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            Map<String, List<Object>> map = ItemCollectionCodec.decodeLazy(data);
+            map.get("$readaccess");
+            map.get("$writeaccess");
+        }
+        long lazyTime = System.nanoTime() - l;
+        System.out.println("Performancetest full decode: " + (fullTime / rounds / 1000) + "us per document");
+        System.out.println("Performancetest lazy decode ACL: " + (lazyTime / rounds / 1000) + "us per document");
+    }
+}
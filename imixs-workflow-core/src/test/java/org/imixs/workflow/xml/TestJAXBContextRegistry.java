@@ -0,0 +1,109 @@
+package org.imixs.workflow.xml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import javax.xml.XMLConstants;
+import javax.xml.validation.SchemaFactory;
+
+import org.imixs.workflow.ItemCollection;
+import org.junit.jupiter.api.Test;
+
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.Unmarshaller;
+import jakarta.xml.bind.ValidationEventHandler;
+
+/**
+ * Test class for the JAXBContextRegistry
+ * 
+ * @author rsoika
+ * 
+ */
+public class TestJAXBContextRegistry {
+
+    /**
+     * The context is shared and released marshallers are reused with the default
+     * properties.
+     */
+    @Test
+    public void testMarshallerPool() throws JAXBException, IOException {
+        assertSame(JAXBContextRegistry.getContext(XMLDocument.class),
+                JAXBContextRegistry.getContext(XMLDocument.class));
+
+        Marshaller m1 = JAXBContextRegistry.acquireMarshaller(XMLDocument.class);
+        Marshaller m2 = JAXBContextRegistry.acquireMarshaller(XMLDocument.class);
+        assertNotSame(m1, m2);
+        m1.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+        m1.setProperty(Marshaller.JAXB_ENCODING, "ISO-8859-1");
+        JAXBContextRegistry.release(XMLDocument.class, m1);
+        JAXBContextRegistry.release(XMLDocument.class, m2);
+
+        Marshaller m = JAXBContextRegistry.acquireMarshaller(XMLDocument.class);
+        assertEquals(Boolean.FALSE, m.getProperty(Marshaller.JAXB_FRAGMENT));
+        assertEquals("UTF-8", m.getProperty(Marshaller.JAXB_ENCODING));
+
+        ItemCollection document = new ItemCollection();
+        document.setItemValue("txtname", "Anna");
+        StringWriter writer = new StringWriter();
+        m.marshal(XMLDocumentAdapter.getDocument(document), writer);
+        JAXBContextRegistry.release(XMLDocument.class, m);
+        assertEquals("Anna", XMLDocumentAdapter.readItemCollection(writer.toString().getBytes())
+                .getItemValueString("txtname"));
+    }
+
+    /**
+     * A released Marshaller with a changed schema location is not reused.
+     */
+    @Test
+    public void testMarshallerConfigurationChanged() throws JAXBException {
+        Marshaller m1 = JAXBContextRegistry.acquireMarshaller(XMLDataCollection.class);
+        m1.setProperty(Marshaller.JAXB_SCHEMA_LOCATION, "http://www.imixs.org test.xsd");
+        m1.setListener(new Marshaller.Listener() {
+        });
+        JAXBContextRegistry.release(XMLDataCollection.class, m1);
+
+        Marshaller m = JAXBContextRegistry.acquireMarshaller(XMLDataCollection.class);
+        assertNotSame(m1, m);
+        assertNull(m.getProperty(Marshaller.JAXB_SCHEMA_LOCATION));
+        JAXBContextRegistry.release(XMLDataCollection.class, m);
+    }
+
+    /**
+     * A released Unmarshaller is reused without the schema, the event handler and
+     * the listener of the former client.
+     */
+    @Test
+    public void testUnmarshallerPool() throws Exception {
+        Unmarshaller u1 = JAXBContextRegistry.acquireUnmarshaller(XMLDocument.class);
+        ValidationEventHandler eventHandler = event -> false;
+        u1.setSchema(SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema());
+        u1.setEventHandler(eventHandler);
+        u1.setListener(new Unmarshaller.Listener() {
+        });
+        JAXBContextRegistry.release(XMLDocument.class, u1);
+        assertNull(u1.getSchema());
+        assertNull(u1.getListener());
+        assertNotSame(eventHandler, u1.getEventHandler());
+
+        Unmarshaller u = JAXBContextRegistry.acquireUnmarshaller(XMLDocument.class);
+        assertNull(u.getSchema());
+
+        ItemCollection document = new ItemCollection();
+        document.setItemValue("txtname", "Anna");
+        StringWriter writer = new StringWriter();
+        Marshaller m = JAXBContextRegistry.acquireMarshaller(XMLDocument.class);
+        m.marshal(XMLDocumentAdapter.getDocument(document), writer);
+        JAXBContextRegistry.release(XMLDocument.class, m);
+        XMLDocument xmlDocument = (XMLDocument) u
+                .unmarshal(new ByteArrayInputStream(writer.toString().getBytes()));
+        JAXBContextRegistry.release(XMLDocument.class, u);
+        assertEquals("Anna", XMLDocumentAdapter.putDocument(xmlDocument).getItemValueString("txtname"));
+    }
+}
@@ -406,4 +406,29 @@ public class TestXMLParser {
         }
     }
 
+    /**
+     * A parsed xml fragment is cached. Changes of a result must not affect the
+     * cached fragment.
+     */
+    @Test
+    public void testParseTagCache() throws PluginException {
+        String data = "<model><version>1.0.0</version><task>1000</task><event>10</event></model>";
+        ItemCollection first = XMLParser.parseTag(data, "model");
+        assertEquals("1.0.0", first.getItemValueString("version"));
+        first.replaceItemValue("version", "2.0.0");
+        first.appendItemValue("task", "2000");
+
+        ItemCollection second = XMLParser.parseTag(data, "model");
+        assertEquals("1.0.0", second.getItemValueString("version"));
+        assertEquals(1, second.getItemValue("task").size());
+        assertEquals(10, second.getItemValueInteger("event"));
+
+        // the same content with a different root tag
+        assertTrue(XMLParser.parseTag(data, "item").getAllItems().isEmpty());
+
+        // the cached tag pattern must be case insensitive for each call
+        assertEquals(1, XMLParser.findTags("<ItemValue>a</ItemValue>", "itemvalue").size());
+        assertEquals(1, XMLParser.findTags("<itemvalue>b</itemvalue>", "itemvalue").size());
+    }
+
 }
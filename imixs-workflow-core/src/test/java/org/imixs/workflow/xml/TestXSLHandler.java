@@ -0,0 +1,137 @@
+package org.imixs.workflow.xml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.transform.TransformerException;
+
+import org.imixs.workflow.ItemCollection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+
+/**
+ * Test class for the XSLHandler and the Templates cache
+ * 
+ * @author rsoika
+ * 
+ */
+public class TestXSLHandler {
+
+    private static final String XSL = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>"
+            + "<xsl:stylesheet xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\" version=\"1.0\">"
+            + "<xsl:output method=\"text\" />" //
+            + "<xsl:template match=\"/\">Hello <xsl:value-of select=\"document/item[@name='txtname']/value\" />"
+            + "</xsl:template></xsl:stylesheet>";
+
+    @BeforeEach
+    public void setup() {
+        XSLHandler.clearCache();
+    }
+
+    /**
+     * The second transformation with the same template must use the cached
+     * Templates.
+     */
+    @Test
+    public void testTransformCached() throws JAXBException, TransformerException, IOException {
+        ItemCollection document = new ItemCollection();
+        document.setItemValue("txtname", "Anna");
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        XSLHandler.transform(document, XSL, "UTF-8", output);
+        assertEquals("Hello Anna", output.toString("UTF-8"));
+        assertEquals(0, XSLHandler.getCacheHits());
+        assertEquals(1, XSLHandler.getCacheMisses());
+
+        document.setItemValue("txtname", "Tom");
+        output = new ByteArrayOutputStream();
+        XSLHandler.transform(document, XSL, null, output);
+        assertEquals("Hello Tom", output.toString("UTF-8"));
+        assertEquals(1, XSLHandler.getCacheHits());
+        assertEquals(1, XSLHandler.getCacheMisses());
+        assertEquals(1, XSLHandler.getCacheSize());
+
+        // a different encoding compiles a new template
+        assertSame(XSLHandler.getTemplates(XSL, "UTF-8"), XSLHandler.getTemplates(XSL, null));
+        XSLHandler.getTemplates(XSL, "ISO-8859-1");
+        assertEquals(2, XSLHandler.getCacheSize());
+    }
+
+    /**
+     * The cache size is limited. The least recently used Templates are evicted.
+     */
+    @Test
+    public void testEviction() throws TransformerException, IOException {
+        for (int i = 0; i < XSLHandler.CACHE_SIZE + 10; i++) {
+            XSLHandler.getTemplates(XSL.replace("Hello", "Hello " + i), "UTF-8");
+        }
+        assertEquals(XSLHandler.CACHE_SIZE, XSLHandler.getCacheSize());
+        assertEquals(10, XSLHandler.getCacheEvictions());
+        assertEquals(XSLHandler.CACHE_SIZE + 10, XSLHandler.getCacheMisses());
+    }
+
+    /**
+     * An invalid template is not cached
+     */
+    @Test
+    public void testInvalidTemplate() {
+        assertThrows(TransformerException.class, () -> XSLHandler.getTemplates("<xsl:stylesheet", "UTF-8"));
+        assertEquals(0, XSLHandler.getCacheSize());
+        assertTrue(XSLHandler.getCacheMisses() > 0);
+    }
+
+    /**
+     * The streamed transformation of a document collection must produce the same
+     * result as the transformation of the marshalled XMLDataCollection.
+     */
+    @Test
+    public void testTransformCollection() throws JAXBException, TransformerException, IOException {
+        String xsl = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>"
+                + "<xsl:stylesheet xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\" version=\"1.0\">"
+                + "<xsl:output method=\"text\" />" //
+                + "<xsl:template match=\"/\"><xsl:for-each select=\"data/document\">["
+                + "<xsl:for-each select=\"item\"><xsl:sort select=\"@name\" />"
+                + "<xsl:value-of select=\"@name\" />=<xsl:for-each select=\"value\"><xsl:value-of select=\".\" />;</xsl:for-each>"
+                + "</xsl:for-each>]</xsl:for-each></xsl:template></xsl:stylesheet>";
+
+        List<ItemCollection> documents = new ArrayList<ItemCollection>();
+        for (int i = 0; i < 3; i++) {
+            ItemCollection document = new ItemCollection();
+            document.setItemValue("txtname", "Anna <" + i + "> & Tom");
+            document.setItemValue("numvalue", i);
+            document.setItemValue("txtlist", Arrays.asList("a", "b"));
+            documents.add(document);
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        XSLHandler.transform(documents, xsl, "UTF-8", output);
+        String result = output.toString("UTF-8");
+        assertTrue(result.startsWith("[numvalue=0;txtlist=a;b;txtname=Anna <0> & Tom;]"), result);
+
+        // compare with the transformation of the marshalled data collection
+        StringWriter writer = new StringWriter();
+        Marshaller m = JAXBContext.newInstance(XMLDataCollection.class).createMarshaller();
+        m.marshal(XMLDataCollectionAdapter.getDataCollection(documents), writer);
+        output = new ByteArrayOutputStream();
+        XSLHandler.transform(writer.toString(), xsl, "UTF-8", output);
+        assertEquals(output.toString("UTF-8"), result);
+
+        // empty collection
+        output = new ByteArrayOutputStream();
+        XSLHandler.transform(new ArrayList<ItemCollection>(), xsl, "UTF-8", output);
+        assertEquals("", output.toString("UTF-8"));
+    }
+}
@@ -627,7 +627,8 @@ public class DocumentService {
 					logger.log(Level.FINEST, "......clone manged entity ''{0}'' pending status={1}",
 							new Object[] { id, persistedDocument.isPending() });
 				}
-				result = new ItemCollection(persistedDocument.getData());
+				result = new ItemCollection();
+				result.setAllItems(persistedDocument.copyData());
 			} else {
 				// the document is not managed, so we detach it
 				result = new ItemCollection();
@@ -1031,7 +1032,8 @@ public class DocumentService {
 						logger.log(Level.FINEST, "......clone manged entity ''{0}'' pending status={1}",
 								new Object[] { doc.getId(), doc.isPending() });
 					}
-					_tmp = new ItemCollection(doc.getData());
+					_tmp = new ItemCollection();
+					_tmp.setAllItems(doc.copyData());
 				} else {
 					// the document is not managed, so we detach it
 					_tmp = new ItemCollection();
@@ -1263,6 +1265,9 @@ public class DocumentService {
 
 	/**
 	 * This method checks if the Caller Principal has read access for the document.
+	 * <p>
+	 * The document data is decoded lazily, so only the item $readaccess is decoded
+	 * by this check.
 	 * 
 	 * @return true if user has readaccess
 	 */
@@ -1307,6 +1312,8 @@ public class DocumentService {
 	/**
 	 * Verifies if the caller has write access to the given ItemCollection
 	 * (document).
+	 * <p>
+	 * Only the item $writeaccess is decoded from the document data.
 	 * 
 	 * @return true if the current user has author access
 	 */
@@ -38,12 +38,14 @@ import org.eclipse.microprofile.metrics.Metadata;
 import org.eclipse.microprofile.metrics.MetricRegistry;
 import org.eclipse.microprofile.metrics.Tag;
 import org.eclipse.microprofile.metrics.annotation.RegistryScope;
+import org.imixs.workflow.ModelManager;
 import org.imixs.workflow.WorkflowKernel;
 import org.imixs.workflow.exceptions.AccessDeniedException;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.event.ObserverException;
 import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.Startup;
 import jakarta.inject.Inject;
 
 /**
@@ -56,7 +58,9 @@ import jakarta.inject.Inject;
  * format.
  * <p>
  * The service provides counter metrics for document access and processed
- * workitems. A counter will always increase. To extract the values in
+ * workitems and the model versions loaded or evicted by the ModelManager, and
+ * gauge metrics for the model versions held in memory. A counter will always
+ * increase. To extract the values in
  * prometheus use the rate function - Example:
  * <p>
  * <code>rate(http_requests_total[5m])</code>
@@ -77,6 +81,9 @@ public class MetricService {
 	public static final String METRIC_DOCUMENTS = "documents";
 	public static final String METRIC_WORKITEMS = "workitems";
 	public static final String METRIC_TRANSACTIONS = "transactions";
+	public static final String METRIC_MODELS = "models";
+	public static final String METRIC_MODEL_LOADS = "model_loads";
+	public static final String METRIC_MODEL_EVICTIONS = "model_evictions";
 
 	@Inject
 	@ConfigProperty(name = "metrics.enabled", defaultValue = "false")
@@ -90,10 +97,30 @@ public class MetricService {
 	@RegistryScope(scope = MetricRegistry.APPLICATION_SCOPE)
 	MetricRegistry metricRegistry;
 
+	@Inject
+	ModelService modelService;
+
 	boolean mpMetricNoSupport = false;
 
 	private static final Logger logger = Logger.getLogger(MetricService.class.getName());
 
+	/**
+	 * Registers the model metrics during the application startup.
+	 * 
+	 * @param startup
+	 */
+	public void onStartup(@Observes Startup startup) {
+		if (!metricsEnabled) {
+			return;
+		}
+		try {
+			registerModelMetrics();
+		} catch (IncompatibleClassChangeError | ObserverException oe) {
+			mpMetricNoSupport = true;
+			logger.warning("...Microprofile Metrics not supported!");
+		}
+	}
+
 	/**
 	 * ProcessingEvent listener to generate a metric.
 	 * 
@@ -154,6 +181,49 @@ public class MetricService {
 		}
 	}
 
+	/**
+	 * This method registers the metrics of the ModelManager. The gauge metric
+	 * 'models' contains the tag 'state' with the number of model versions held in
+	 * memory (resident) and the number of all available model versions
+	 * (registered). The counter metric 'model_loads' contains the tag 'type' to
+	 * distinguish the first load of a model version from a reload after the model
+	 * version was evicted. The counters are increased by a ModelListener of the
+	 * ModelManager.
+	 */
+	private void registerModelMetrics() {
+		// the gauges access the ModelManager directly as they are evaluated without
+		// a caller principal
+		ModelManager modelManager = modelService.getModelManager();
+		Metadata models = Metadata.builder().withName(METRIC_MODELS)
+				.withDescription("Imixs-Workflow model versions").build();
+		metricRegistry.gauge(models, () -> modelManager.getModelStore().size(), new Tag("state", "resident"));
+		metricRegistry.gauge(models, () -> modelManager.getVersions().size(), new Tag("state", "registered"));
+
+		Metadata loadMetadata = Metadata.builder().withName(METRIC_MODEL_LOADS)
+				.withDescription("Imixs-Workflow model versions loaded on access").build();
+		Counter loadCounter = metricRegistry.counter(loadMetadata, new Tag("type", "load"));
+		Counter reloadCounter = metricRegistry.counter(loadMetadata, new Tag("type", "reload"));
+		Metadata evictionMetadata = Metadata.builder().withName(METRIC_MODEL_EVICTIONS)
+				.withDescription("Imixs-Workflow model versions evicted from memory").build();
+		Counter evictionCounter = metricRegistry.counter(evictionMetadata);
+
+		modelManager.setModelListener(new ModelManager.ModelListener() {
+			@Override
+			public void onModelLoad(String version, boolean reload) {
+				if (reload) {
+					reloadCounter.inc();
+				} else {
+					loadCounter.inc();
+				}
+			}
+
+			@Override
+			public void onModelEviction(String version) {
+				evictionCounter.inc();
+			}
+		});
+	}
+
 	/**
 	 * This method builds a Microprofile Metric for a Counter. The metric contains
 	 * the tag 'method'.
@@ -28,7 +28,9 @@
 
 package org.imixs.workflow.engine;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -36,12 +38,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.xml.transform.TransformerException;
 
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.imixs.workflow.FileData;
 import org.imixs.workflow.ItemCollection;
 import org.imixs.workflow.ModelManager;
@@ -51,6 +54,8 @@ import org.imixs.workflow.exceptions.InvalidAccessException;
 import org.imixs.workflow.exceptions.ModelException;
 import org.openbpmn.bpmn.BPMNModel;
 import org.openbpmn.bpmn.elements.BPMNProcess;
+import org.openbpmn.bpmn.exceptions.BPMNModelException;
+import org.openbpmn.bpmn.util.BPMNModelFactory;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
@@ -90,12 +95,19 @@ import jakarta.inject.Inject;
 @ConcurrencyManagement
 public class ModelService {
 
+    public static final String ITEM_MODEL_CHECKSUM = "model.checksum";
+    public static final String ITEM_MODEL_GROUPS = "model.groups";
+
     private static final Logger logger = Logger.getLogger(ModelService.class.getName());
 
     protected ModelManager modelManager = null;
     // private final Map<String, ItemCollection> modelEntityStore = new
     // ConcurrentHashMap<>();
-    private final SortedMap<String, ItemCollection> modelEntityStore = new TreeMap<>();
+    private final SortedMap<String, ItemCollection> modelEntityStore = new ConcurrentSkipListMap<>();
+
+    @Inject
+    @ConfigProperty(name = "model.store.capacity", defaultValue = "0")
+    int modelStoreCapacity;
 
     @Inject
     protected DocumentService documentService;
@@ -109,10 +121,15 @@ public class ModelService {
 
     /**
      * Lazy loading of ModelManager
+     * <p>
+     * The optional property 'model.store.capacity' limits the number of model
+     * versions held in memory. Evicted model versions are reloaded from the model
+     * entities on the next access.
      */
     @PostConstruct
     public void init() {
         modelManager = new ModelManager();
+        modelManager.setCapacity(modelStoreCapacity);
     }
 
     /**
@@ -270,7 +287,7 @@ public class ModelService {
             modelManager.removeModel(version);
             // store model into internal cache
 
-            modelManager.addModel(model);
+            modelManager.addModel(model, this::readModel);
             ItemCollection modelItemCol = new ItemCollection();
             modelItemCol.replaceItemValue("type", "model");
             modelItemCol.replaceItemValue("$snapshot.history", 1);
@@ -295,6 +312,7 @@ public class ModelService {
                 model.writeToOutputStream(model.getDoc(), baos);
                 FileData fileData = new FileData(filename, baos.toByteArray(), "application/xml", null);
                 modelItemCol.addFileData(fileData);
+                updateModelSnapshot(modelItemCol, fileData, model);
                 // store model in database
                 modelItemCol.replaceItemValue(DocumentService.NOINDEX, true);
                 documentService.save(modelItemCol);
@@ -305,6 +323,86 @@ public class ModelService {
         }
     }
 
+    /**
+     * This method parses the BPMN source of a model entity file.
+     * 
+     * @param file - the BPMN file of a model entity
+     * @return the BPMNModel
+     * @throws ModelException if the file is not a valid BPMN model
+     */
+    public BPMNModel readModel(FileData file) throws ModelException {
+        try {
+            return BPMNModelFactory.read(new ByteArrayInputStream(file.getContent()));
+        } catch (BPMNModelException e) {
+            throw new ModelException(ModelException.INVALID_MODEL,
+                    "Failed to read model '" + file.getName() + "': " + e.getMessage());
+        }
+    }
+
+    /**
+     * This method loads a model version from the BPMN file of its model entity.
+     * The method is used by the ModelManager to load a model version on first
+     * access or after the model was evicted from the model store.
+     * 
+     * @param version - the model version
+     * @return the BPMNModel
+     * @throws ModelException if no valid model entity exists for the version
+     */
+    public BPMNModel readModel(String version) throws ModelException {
+        ItemCollection modelEntity = modelEntityStore.get(version);
+        if (modelEntity != null) {
+            for (FileData file : modelEntity.getFileData()) {
+                BPMNModel model = readModel(file);
+                if (version.equals(BPMNUtil.getVersion(model))) {
+                    return model;
+                }
+            }
+        }
+        throw new ModelException(ModelException.UNDEFINED_MODEL_VERSION,
+                "$modelversion '" + version + "' not found");
+    }
+
+    /**
+     * This method stores the snapshot of a model into its model entity. The
+     * snapshot contains the checksum of the BPMN source and the workflow groups
+     * of the model. With a valid snapshot the SetupService can register a model
+     * version during startup without parsing the BPMN source.
+     * 
+     * @param modelEntity - the model entity
+     * @param file        - the BPMN file of the model entity
+     * @param model       - the parsed BPMNModel
+     * @throws ModelException
+     */
+    public void updateModelSnapshot(ItemCollection modelEntity, FileData file, BPMNModel model)
+            throws ModelException {
+        try {
+            modelEntity.replaceItemValue(ITEM_MODEL_CHECKSUM, file.generateMD5());
+            modelEntity.replaceItemValue(ITEM_MODEL_GROUPS,
+                    new ArrayList<>(modelManager.findAllGroupsByModel(model)));
+        } catch (NoSuchAlgorithmException e) {
+            logger.log(Level.WARNING, "Failed to create model checksum: {0}", e.getMessage());
+        }
+    }
+
+    /**
+     * Returns true if the model entity provides a snapshot matching the given
+     * BPMN file.
+     * 
+     * @param modelEntity - the model entity
+     * @param file        - the BPMN file of the model entity
+     * @return true if the snapshot is valid
+     */
+    public boolean hasModelSnapshot(ItemCollection modelEntity, FileData file) {
+        if (modelEntity.getItemValueString("name").isEmpty() || !modelEntity.hasItem(ITEM_MODEL_GROUPS)) {
+            return false;
+        }
+        try {
+            return file.validateMD5(modelEntity.getItemValueString(ITEM_MODEL_CHECKSUM));
+        } catch (NoSuchAlgorithmException e) {
+            return false;
+        }
+    }
+
     /**
      * This method puts a model entity into the internal store.
      * 
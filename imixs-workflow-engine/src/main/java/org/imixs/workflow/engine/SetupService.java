@@ -29,22 +29,28 @@
 package org.imixs.workflow.engine;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.imixs.workflow.FileData;
 import org.imixs.workflow.ItemCollection;
+import org.imixs.workflow.ModelManager;
 import org.imixs.workflow.WorkflowKernel;
 import org.imixs.workflow.bpmn.BPMNUtil;
 import org.imixs.workflow.engine.index.SearchService;
@@ -55,11 +61,11 @@ import org.imixs.workflow.exceptions.AccessDeniedException;
 import org.imixs.workflow.exceptions.InvalidAccessException;
 import org.imixs.workflow.exceptions.ModelException;
 import org.imixs.workflow.exceptions.QueryException;
+import org.imixs.workflow.xml.JAXBContextRegistry;
 import org.imixs.workflow.xml.XMLDataCollection;
 import org.imixs.workflow.xml.XMLDocument;
 import org.imixs.workflow.xml.XMLDocumentAdapter;
 import org.openbpmn.bpmn.BPMNModel;
-import org.openbpmn.bpmn.exceptions.BPMNModelException;
 import org.openbpmn.bpmn.util.BPMNModelFactory;
 
 import jakarta.annotation.PostConstruct;
@@ -69,9 +75,9 @@ import jakarta.annotation.security.RunAs;
 import jakarta.ejb.Singleton;
 import jakarta.ejb.Startup;
 import jakarta.ejb.Timer;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
 import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
-import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBException;
 import jakarta.xml.bind.Unmarshaller;
 
@@ -120,6 +126,10 @@ public class SetupService {
     @ConfigProperty(name = "model.default.data.overwrite", defaultValue = "false")
     private boolean modelDefaultDataOverwrite;
 
+    @Inject
+    @ConfigProperty(name = "model.loading.lazy", defaultValue = "true")
+    private boolean modelLoadingLazy;
+
     @Inject
     private DocumentService documentService;
 
@@ -138,6 +148,9 @@ public class SetupService {
     @Resource
     private jakarta.ejb.TimerService timerService;
 
+    @Resource
+    private ManagedExecutorService managedExecutorService;
+
     @Inject
     protected Event<SetupEvent> setupEvents;
 
@@ -188,6 +201,13 @@ public class SetupService {
      * This method loads all existing Model Entities from the database and adds the
      * BPMNModel objects into the ModelManager.
      * <p>
+     * The BPMN sources are parsed in parallel. If lazy model loading is enabled
+     * ('model.loading.lazy'), a model entity providing a valid snapshot is only
+     * registered in the ModelManager with its version and workflow groups. In this
+     * case the BPMN source is parsed on first access of the model version. Missing
+     * snapshots are stored into the model entities so that a restart can skip the
+     * parsing of unchanged models.
+     * <p>
      * The method also checks the stored models for duplicates and removes
      * deprecated duplicated model entities from the database.
      * 
@@ -195,44 +215,110 @@ public class SetupService {
      */
     private void initModels() throws AccessDeniedException {
         boolean debug = logger.isLoggable(Level.FINE);
+        long l = System.currentTimeMillis();
+        ModelManager modelManager = modelService.getModelManager();
 
-        // first remove existing model entities
         Collection<ItemCollection> col = documentService.getDocumentsByType("model");
         logger.finest("...found " + col.size() + " model entities");
-        List<ItemCollection> deprecatedModelEntities = new ArrayList<>();
+        List<ModelSource> sources = new ArrayList<>();
+        List<Callable<ModelSource>> parseTasks = new ArrayList<>();
         for (ItemCollection modelEntity : col) {
             logger.finest(".. " + modelEntity.getItemValueString("name") + " created -> "
                     + modelEntity.getItemValueDate("$created"));
             List<FileData> files = modelEntity.getFileData();
             for (FileData file : files) {
-                if (debug) {
-                    logger.log(Level.FINEST, "......loading file:{0}", file.getName());
+                ModelSource source = new ModelSource(modelEntity, file);
+                sources.add(source);
+                if (files.size() == 1 && modelService.hasModelSnapshot(modelEntity, file)) {
+                    source.version = modelEntity.getItemValueString("name");
+                    source.groups = new HashSet<>(
+                            modelEntity.getItemValueList(ModelService.ITEM_MODEL_GROUPS, String.class));
+                    if (modelLoadingLazy) {
+                        continue;
+                    }
                 }
-                byte[] rawData = file.getContent();
-                InputStream bpmnInputStream = new ByteArrayInputStream(rawData);
-                try {
-                    BPMNModel model = BPMNModelFactory.read(bpmnInputStream);
-                    String version = BPMNUtil.getVersion(model);
-                    // test if model is a deprecated duplicate entry!
-                    if (modelService.getModelManager().getModelStore().containsKey(version)) {
-                        logger.warning("│   ├── duplicated Model Entity found (" + modelEntity.getUniqueID()
-                                + ") for model version '" + version
-                                + "' - entity will be removed!");
-                        deprecatedModelEntities.add(modelEntity);
-                    } else {
-                        logger.log(Level.INFO, "│   ├── loaded model: {0} ▶ {1}", new Object[] { file.getName(),
-                                BPMNUtil.getVersion(model) });
-                        // Add the model into the ModelManger and put the model into the ModelService
-                        // model store
-                        modelService.getModelManager().addModel(model);
-                        modelService.getModelEntityStore().put(version, modelEntity);
+                // parse the model
+                source.parse = true;
+                parseTasks.add(() -> {
+                    if (debug) {
+                        logger.log(Level.FINEST, "......loading file:{0}", file.getName());
                     }
-                } catch (BPMNModelException | ModelException e) {
+                    source.model = modelService.readModel(file);
+                    source.version = BPMNUtil.getVersion(source.model);
+                    return source;
+                });
+            }
+        }
+        for (Future<ModelSource> future : invokeAll(parseTasks)) {
+            Throwable error = getError(future);
+            if (error != null) {
+                logger.log(Level.WARNING, "Failed to load model: {0}", error.getMessage());
+            }
+        }
+
+        // test for deprecated duplicate entries and add the parsed models
+        Set<String> versions = new HashSet<>();
+        List<ModelSource> models = new ArrayList<>();
+        List<ItemCollection> deprecatedModelEntities = new ArrayList<>();
+        for (ModelSource source : sources) {
+            if (source.version == null || (source.parse && source.model == null)) {
+                // invalid model
+                continue;
+            }
+            if (!versions.add(source.version)) {
+                logger.warning("│   ├── duplicated Model Entity found (" + source.modelEntity.getUniqueID()
+                        + ") for model version '" + source.version + "' - entity will be removed!");
+                deprecatedModelEntities.add(source.modelEntity);
+                continue;
+            }
+            models.add(source);
+        }
+        List<Callable<ModelSource>> addTasks = new ArrayList<>();
+        for (ModelSource source : models) {
+            if (source.model != null) {
+                addTasks.add(() -> {
+                    modelManager.addModel(source.model, modelService::readModel);
+                    return source;
+                });
+            }
+        }
+        List<Future<ModelSource>> addResults = invokeAll(addTasks);
+
+        int addIndex = 0;
+        int loaded = 0;
+        int registered = 0;
+        for (ModelSource source : models) {
+            if (!source.parse) {
+                // register the model version to be loaded on first access
+                modelManager.addModel(source.version, source.groups, modelService::readModel);
+                logger.log(Level.INFO, "│   ├── registered model: {0} ▶ {1}",
+                        new Object[] { source.file.getName(), source.version });
+                registered++;
+            } else {
+                Throwable error = getError(addResults.get(addIndex++));
+                if (error != null) {
                     logger.log(Level.WARNING, "Failed to load model ''{0}'' : {1}",
-                            new Object[] { file.getName(), e.getMessage() });
+                            new Object[] { source.file.getName(), error.getMessage() });
+                    continue;
+                }
+                logger.log(Level.INFO, "│   ├── loaded model: {0} ▶ {1}",
+                        new Object[] { source.file.getName(), source.version });
+                loaded++;
+                if (source.groups == null && source.modelEntity.getFileData().size() == 1) {
+                    // store the missing snapshot
+                    try {
+                        modelService.updateModelSnapshot(source.modelEntity, source.file, source.model);
+                        source.modelEntity = documentService.save(source.modelEntity);
+                    } catch (ModelException | AccessDeniedException e) {
+                        logger.log(Level.WARNING, "Failed to store model snapshot ''{0}'' : {1}",
+                                new Object[] { source.file.getName(), e.getMessage() });
+                    }
                 }
             }
+            modelService.getModelEntityStore().put(source.version, source.modelEntity);
         }
+        logger.log(Level.INFO, "│   ├── {0} models loaded, {1} models registered in {2}ms",
+                new Object[] { loaded, registered, System.currentTimeMillis() - l });
 
         // remove duplicated entries (this should not happen!)
         if (deprecatedModelEntities.size() > 0) {
@@ -242,6 +328,53 @@ public class SetupService {
         }
     }
 
+    /**
+     * Executes the given tasks by the ManagedExecutorService of the application
+     * server and waits for all tasks to complete. If no ManagedExecutorService is
+     * available the tasks are executed sequentially by the current thread.
+     * 
+     * @param tasks - tasks to execute
+     * @return the completed futures in the order of the tasks
+     */
+    private <T> List<Future<T>> invokeAll(List<Callable<T>> tasks) {
+        if (tasks.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (managedExecutorService == null) {
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> task : tasks) {
+                FutureTask<T> future = new FutureTask<>(task);
+                future.run();
+                futures.add(future);
+            }
+            return futures;
+        }
+        try {
+            return managedExecutorService.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Model loading interrupted", e);
+        }
+    }
+
+    /**
+     * Returns the error of a completed task or null if the task succeeded.
+     * 
+     * @param future - a completed task
+     * @return the error or null
+     */
+    private Throwable getError(Future<?> future) {
+        try {
+            future.get();
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return e;
+        }
+    }
+
     /**
      * Returns the count of available model versions
      * 
@@ -322,6 +455,9 @@ public class SetupService {
         String modelData = modelDefaultData.get();
 
         String[] modelResources = modelData.split(";");
+        // read the resource files and parse the bpmn models in parallel....
+        List<byte[]> resourceData = new ArrayList<>();
+        List<Callable<BPMNModel>> parseTasks = new ArrayList<>();
         for (String modelResource : modelResources) {
             // try to load the resource file....
             if (modelResource.endsWith(".bpmn") || modelResource.endsWith(".xml")) {
@@ -339,28 +475,13 @@ public class SetupService {
                             throw new IOException("the resource '" + modelResource + "' could not be found!");
                         }
                     }
-
+                    byte[] data = inputStream.readAllBytes();
+                    resourceData.add(data);
                     // test if it is a bpmn model?
                     if (modelResource.endsWith(".bpmn")) {
-                        // parse model file....
-                        BPMNModel model = BPMNModelFactory.read(inputStream);
-                        modelService.saveModel(model);
-                    } else {
-                        // read Imixs XML Data Set
-                        ByteArrayOutputStream bos = new ByteArrayOutputStream();
-                        int next;
-                        next = inputStream.read();
-                        while (next > -1) {
-                            bos.write(next);
-                            next = inputStream.read();
-                        }
-                        bos.flush();
-                        byte[] result = bos.toByteArray();
-                        importXmlEntityData(result);
+                        parseTasks.add(() -> BPMNModelFactory.read(new ByteArrayInputStream(data)));
                     }
-
-                    // issue #600 return; // MODEL_INITIALIZED;
-                } catch (IOException | ModelException | BPMNModelException e) {
+                } catch (IOException e) {
                     throw new RuntimeException(
                             "Failed to load model configuration: " + e.getMessage() + " check 'model.default.data'", e);
                 } finally {
@@ -373,9 +494,35 @@ public class SetupService {
                     }
                 }
             } else {
+                resourceData.add(null);
                 logger.log(Level.SEVERE, "Wrong model format: ''{0}'' - expected *.bpmn or *.xml", modelResource);
             }
+        }
+        List<Future<BPMNModel>> models = invokeAll(parseTasks);
 
+        // save the models in the order of the resources....
+        int modelIndex = 0;
+        for (int i = 0; i < modelResources.length; i++) {
+            if (resourceData.get(i) == null) {
+                continue;
+            }
+            try {
+                if (modelResources[i].endsWith(".bpmn")) {
+                    Future<BPMNModel> model = models.get(modelIndex++);
+                    Throwable error = getError(model);
+                    if (error != null) {
+                        throw new ModelException(ModelException.INVALID_MODEL, error.getMessage());
+                    }
+                    modelService.saveModel(model.get());
+                } else {
+                    // read Imixs XML Data Set
+                    importXmlEntityData(resourceData.get(i));
+                }
+                // issue #600 return; // MODEL_INITIALIZED;
+            } catch (ModelException | ExecutionException | InterruptedException e) {
+                throw new RuntimeException(
+                        "Failed to load model configuration: " + e.getMessage() + " check 'model.default.data'", e);
+            }
         }
         // SETUP_OK;
     }
@@ -400,17 +547,18 @@ public class SetupService {
             XMLDataCollection ecol = null;
             logger.fine("importXmlEntityData - importModel, verifing file content....");
 
-            JAXBContext context;
             Object jaxbObject = null;
             // unmarshall the model file
             ByteArrayInputStream input = new ByteArrayInputStream(filestream);
+            Unmarshaller m = null;
             try {
-                context = JAXBContext.newInstance(XMLDataCollection.class);
-                Unmarshaller m = context.createUnmarshaller();
+                m = JAXBContextRegistry.acquireUnmarshaller(XMLDataCollection.class);
                 jaxbObject = m.unmarshal(input);
             } catch (JAXBException e) {
                 throw new ModelException(ModelException.INVALID_MODEL,
                         "error - wrong xml file format - unable to import model file: ", e);
+            } finally {
+                JAXBContextRegistry.release(XMLDataCollection.class, m);
             }
             if (jaxbObject == null)
                 throw new ModelException(ModelException.INVALID_MODEL,
@@ -531,4 +679,22 @@ public class SetupService {
         return timer;
     }
 
+    /**
+     * A model file of a model entity. The version and workflow groups are either
+     * provided by the model snapshot or by the parsed BPMNModel.
+     */
+    private static class ModelSource {
+        ItemCollection modelEntity;
+        final FileData file;
+        String version;
+        Set<String> groups;
+        boolean parse;
+        BPMNModel model;
+
+        ModelSource(ItemCollection modelEntity, FileData file) {
+            this.modelEntity = modelEntity;
+            this.file = file;
+        }
+    }
+
 }
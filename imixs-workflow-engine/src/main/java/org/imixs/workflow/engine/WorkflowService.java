@@ -35,6 +35,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
@@ -137,6 +138,14 @@ public class WorkflowService implements WorkflowManager, WorkflowContext {
     @Inject
     protected Event<TextEvent> textEvents;
 
+    // plugin pipelines of this bean instance by the plugin list of a model
+    // definition
+    final Map<List<String>, PluginPipeline> pluginPipelines = new HashMap<>();
+    // pipelines used by the running processing cycles
+    private final Map<WorkflowKernel, PluginPipeline> pipelinesInUse = new IdentityHashMap<>();
+    // adapters resolved once for this bean instance
+    private List<Adapter> adapterList = null;
+
     private static final Logger logger = Logger.getLogger(WorkflowService.class.getName());
 
     public WorkflowService() {
@@ -604,11 +613,11 @@ public class WorkflowService implements WorkflowManager, WorkflowContext {
         registerPlugins(workflowkernel, model);
         // register adapters.....
         registerAdapters(workflowkernel);
-        // udpate workitem metadata...
-        updateMetadata(workitem);
-
-        // now process the workitem
         try {
+            // udpate workitem metadata...
+            updateMetadata(workitem);
+
+            // now process the workitem
             long lKernelTime = System.currentTimeMillis();
             workitem = workflowkernel.process(workitem);
             if (debug) {
@@ -621,6 +630,8 @@ public class WorkflowService implements WorkflowManager, WorkflowContext {
                     workitem.getItemValueString(WorkflowKernel.UNIQUEID));
             ctx.setRollbackOnly();
             throw pe;
+        } finally {
+            releasePlugins(workflowkernel);
         }
 
         // fire event
@@ -1179,46 +1190,114 @@ public class WorkflowService implements WorkflowManager, WorkflowContext {
      * @throws PluginException
      * @throws ModelException
      */
-    @SuppressWarnings("unchecked")
     protected void registerPlugins(WorkflowKernel workflowkernel, BPMNModel model)
             throws PluginException, ModelException {
-        boolean debug = logger.isLoggable(Level.FINE);
         // Fetch the current Profile Entity for this version.
 
         ItemCollection profile = modelService.loadDefinition(model);// model.getDefinition();
 
         // register plugins defined in the environment.profile ....
-        List<String> vPlugins = (List<String>) profile.getItemValue("txtPlugins");
-        for (int i = 0; i < vPlugins.size(); i++) {
-            String aPluginClassName = vPlugins.get(i);
-
-            Plugin aPlugin = findPluginByName(aPluginClassName);
-            // aPlugin=null;
-            if (aPlugin != null) {
-                // register injected CDI Plugin
-                if (debug) {
-                    logger.log(Level.FINEST, "......register CDI plugin class: {0}...", aPluginClassName);
+        registerPlugins(workflowkernel, profile.getItemValueList("txtPlugins", String.class));
+    }
+
+    /**
+     * This method registers the plugin classes of a plugin list. CDI plugins are
+     * preferred over plugins created by their class name.
+     * <p>
+     * The plugin instances are resolved once for each plugin list and kept by
+     * this bean instance. A following processing cycle reuses a plugin instance
+     * only if its method {@link Plugin#reset()} returns true. For all other
+     * plugins a new instance is created. A pipeline is not shared by nested
+     * processing cycles, e.g. if a plugin processes another workitem. In this
+     * case new plugin instances are resolved.
+     * 
+     * @throws PluginException
+     */
+    private void registerPlugins(WorkflowKernel workflowkernel, List<String> vPlugins) throws PluginException {
+        PluginPipeline pluginPipeline = pluginPipelines.get(vPlugins);
+        if (pluginPipeline != null && !pluginPipeline.inUse) {
+            List<Plugin> pluginList = pluginPipeline.plugins;
+            for (int i = 0; i < pluginList.size(); i++) {
+                Plugin plugin = pluginList.get(i);
+                if (!plugin.reset()) {
+                    pluginList.set(i, createPlugin(workflowkernel, plugin.getClass().getName()));
                 }
-                workflowkernel.registerPlugin(aPlugin);
-            } else {
-                // register plugin by class name
-                workflowkernel.registerPlugin(aPluginClassName);
             }
+            workflowkernel.registerPlugins(pluginList);
+        } else {
+            boolean debug = logger.isLoggable(Level.FINE);
+            for (int i = 0; i < vPlugins.size(); i++) {
+                String aPluginClassName = vPlugins.get(i);
+
+                Plugin aPlugin = findPluginByName(aPluginClassName);
+                // aPlugin=null;
+                if (aPlugin != null) {
+                    // register injected CDI Plugin
+                    if (debug) {
+                        logger.log(Level.FINEST, "......register CDI plugin class: {0}...", aPluginClassName);
+                    }
+                    workflowkernel.registerPlugin(aPlugin);
+                } else {
+                    // register plugin by class name
+                    workflowkernel.registerPlugin(aPluginClassName);
+                }
+            }
+            pluginPipeline = new PluginPipeline(workflowkernel.getPluginRegistry());
+            pluginPipelines.putIfAbsent(new ArrayList<>(vPlugins), pluginPipeline);
         }
+        pluginPipeline.inUse = true;
+        pipelinesInUse.put(workflowkernel, pluginPipeline);
     }
 
+    /**
+     * Releases the plugin pipeline registered for a processing cycle so that it
+     * can be used by the next processing cycle.
+     */
+    private void releasePlugins(WorkflowKernel workflowkernel) {
+        PluginPipeline pluginPipeline = pipelinesInUse.remove(workflowkernel);
+        if (pluginPipeline != null) {
+            pluginPipeline.inUse = false;
+        }
+    }
+
+    /**
+     * Creates a new instance of a plugin class. An injected CDI plugin is
+     * preferred over a plugin created by its class name.
+     * 
+     * @throws PluginException
+     */
+    private Plugin createPlugin(WorkflowKernel workflowkernel, String pluginClassName) throws PluginException {
+        Plugin plugin = findPluginByName(pluginClassName);
+        if (plugin == null) {
+            plugin = workflowkernel.createPlugin(pluginClassName);
+        }
+        return plugin;
+    }
+
+    /**
+     * This method registers all injected CDI adapters. The adapters are resolved
+     * once for this bean instance.
+     */
     protected void registerAdapters(WorkflowKernel workflowkernel) {
-        boolean debug = logger.isLoggable(Level.FINE);
-        if (debug && (adapters == null || !adapters.iterator().hasNext())) {
-            logger.finest("......no CDI Adapters injected");
-        } else if (this.adapters != null) {
-            // iterate over all injected adapters....
-            for (Adapter adapter : this.adapters) {
-                if (debug) {
-                    logger.log(Level.FINEST, "......register CDI Adapter class ''{0}''", adapter.getClass().getName());
+        if (adapterList == null) {
+            boolean debug = logger.isLoggable(Level.FINE);
+            List<Adapter> list = new ArrayList<>();
+            if (debug && (adapters == null || !adapters.iterator().hasNext())) {
+                logger.finest("......no CDI Adapters injected");
+            } else if (this.adapters != null) {
+                // iterate over all injected adapters....
+                for (Adapter adapter : this.adapters) {
+                    if (debug) {
+                        logger.log(Level.FINEST, "......register CDI Adapter class ''{0}''",
+                                adapter.getClass().getName());
+                    }
+                    list.add(adapter);
                 }
-                workflowkernel.registerAdapter(adapter);
             }
+            adapterList = list;
+        }
+        for (Adapter adapter : adapterList) {
+            workflowkernel.registerAdapter(adapter);
         }
     }
 
@@ -1299,4 +1378,16 @@ public class WorkflowService implements WorkflowManager, WorkflowContext {
 
         return null;
     }
+
+    /**
+     * The plugin instances resolved for the plugin list of a model definition.
+     */
+    static class PluginPipeline {
+        final List<Plugin> plugins;
+        boolean inUse;
+
+        PluginPipeline(List<Plugin> plugins) {
+            this.plugins = new ArrayList<>(plugins);
+        }
+    }
 }
@@ -76,6 +76,12 @@ import jakarta.ejb.Timer;
  * This job is to update the lucene index.
  * 
  * 
+ * MigrateDataJob:
+ * 
+ * This job converts the data of documents still stored in the Java
+ * serialization format into the binary format of the ItemCollectionCodec.
+ * 
+ * 
  * @see AdminPController
  * 
  * @author rsoika
@@ -90,6 +96,7 @@ public class AdminPService {
     public static final String JOB_REBUILD_INDEX = "JOB_REBUILD_INDEX";
     public static final String JOB_UPGRADE = "UPGRADE";
     public static final String JOB_MIGRATION = "MIGRATION";
+    public static final String JOB_MIGRATE_DATA = "JOB_MIGRATE_DATA";
     public static final int DEFAULT_INTERVAL = 60;
 
     @Resource
@@ -110,6 +117,9 @@ public class AdminPService {
     @Inject
     JobHandlerRebuildIndex jobHandlerRebuildIndex;
 
+    @Inject
+    JobHandlerMigrateData jobHandlerMigrateData;
+
     @Inject
     @Any
     private Instance<JobHandler> jobHandlers;
@@ -265,6 +275,10 @@ public class AdminPService {
                 jobHandler = jobHandlerRebuildIndex;
             }
 
+            if (job.equals(JOB_MIGRATE_DATA)) {
+                jobHandler = jobHandlerMigrateData;
+            }
+
             if (jobHandler == null) {
                 // try to find the jobHandler by CDI .....
                 jobHandler = findJobHandlerByName(job);
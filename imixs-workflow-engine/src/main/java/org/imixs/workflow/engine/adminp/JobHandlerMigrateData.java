@@ -0,0 +1,227 @@
+/*  
+ *  Imixs-Workflow 
+ *  
+ *  Copyright (C) 2001-2020 Imixs Software Solutions GmbH,  
+ *  http://www.imixs.com
+ *  
+ *  This program is free software; you can redistribute it and/or 
+ *  modify it under the terms of the GNU General Public License 
+ *  as published by the Free Software Foundation; either version 2 
+ *  of the License, or (at your option) any later version.
+ *  
+ *  This program is distributed in the hope that it will be useful, 
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU 
+ *  General Public License for more details.
+ *  
+ *  You can receive a copy of the GNU General Public
+ *  License at http://www.gnu.org/licenses/gpl.html
+ *  
+ *  Project: 
+ *      https://www.imixs.org
+ *      https://github.com/imixs/imixs-workflow
+ *  
+ *  Contributors:  
+ *      Imixs Software Solutions GmbH - Project Management
+ *      Ralph Soika - Software Developer
+ */
+
+package org.imixs.workflow.engine.adminp;
+
+import java.io.IOException;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jakarta.annotation.security.DeclareRoles;
+import jakarta.annotation.security.RunAs;
+
+import org.imixs.workflow.ItemCollection;
+import org.imixs.workflow.util.ItemCollectionCodec;
+
+import jakarta.ejb.LocalBean;
+import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+/**
+ * JobHandler to migrate the data of existing Document and EventLog entities
+ * from the Java serialization format into the binary format of the
+ * ItemCollectionCodec.
+ * <p>
+ * The job reads the raw data of the tables DOCUMENT and EVENTLOG ordered by
+ * the ID. Only rows still stored in the serialization format are re-encoded.
+ * A row is only updated if its version was not changed in the meantime. The
+ * version of a migrated entity is incremented in the same statement, so that a
+ * concurrent transaction holding the old data fails with an optimistic lock
+ * exception. The modified timestamp is not changed.
+ * <p>
+ * The job stores the last processed ID in the item '_lastid' and suspends after
+ * the job interval. The blocksize defines the number of rows read in one
+ * query.
+ * 
+ * @author rsoika
+ *
+ */
+@DeclareRoles({ "org.imixs.ACCESSLEVEL.MANAGERACCESS" })
+@RunAs("org.imixs.ACCESSLEVEL.MANAGERACCESS")
+@Stateless
+@LocalBean
+public class JobHandlerMigrateData implements JobHandler {
+
+    private static final int DEFAULT_BLOCK_SIZE = 100;
+    private static final String[] TABLES = { "DOCUMENT", "EVENTLOG" };
+
+    @PersistenceContext(unitName = "org.imixs.workflow.jpa")
+    private EntityManager manager;
+
+    private static final Logger logger = Logger.getLogger(JobHandlerMigrateData.class.getName());
+
+    /**
+     * This method runs the data migration. The method processes the tables
+     * DOCUMENT and EVENTLOG in sequence. The current table is stored in the item
+     * '_table', the last processed ID in the item '_lastid'.
+     * <p>
+     * After the run method is finished, the properties numUpdates and
+     * numProcessed are updated.
+     * <p>
+     * The method runs in an isolated new transaction.
+     * 
+     * @param adminp
+     * @return the job description
+     * @throws AdminPException
+     */
+    @Override
+    @TransactionAttribute(value = TransactionAttributeType.REQUIRES_NEW)
+    public ItemCollection run(ItemCollection adminp) throws AdminPException {
+        long lProfiler = System.currentTimeMillis();
+        int iBlockSize = adminp.getItemValueInteger("numBlockSize");
+        if (iBlockSize <= 0) {
+            iBlockSize = DEFAULT_BLOCK_SIZE;
+            adminp.replaceItemValue("numBlockSize", iBlockSize);
+        }
+        // suspend the job after the job interval (in seconds)
+        int timeOut = adminp.getItemValueInteger("numinterval");
+        if (timeOut <= 0) {
+            timeOut = AdminPService.DEFAULT_INTERVAL;
+        }
+        int tableIndex = adminp.getItemValueInteger("_table");
+        String lastID = adminp.getItemValueString("_lastid");
+        int iUpdates = adminp.getItemValueInteger("numUpdates");
+        int iProcessed = adminp.getItemValueInteger("numProcessed");
+
+        try {
+            while (tableIndex < TABLES.length) {
+                String table = TABLES[tableIndex];
+                List<Object[]> rows = findNextRows(table, lastID, iBlockSize);
+                for (Object[] row : rows) {
+                    lastID = (String) row[0];
+                    iProcessed++;
+                    if (migrateRow(table, lastID, row[1], row[2])) {
+                        iUpdates++;
+                    }
+                }
+                manager.flush();
+                if (rows.size() < iBlockSize) {
+                    // next table
+                    logger.log(Level.INFO, "...Job " + AdminPService.JOB_MIGRATE_DATA + " ({0}) - table {1} completed",
+                            new Object[] { adminp.getUniqueID(), table });
+                    tableIndex++;
+                    lastID = "";
+                }
+
+                // suspend job?
+                long time = (System.currentTimeMillis() - lProfiler) / 1000;
+                if (time > timeOut && tableIndex < TABLES.length) {
+                    logger.log(Level.INFO,
+                            "...Job " + AdminPService.JOB_MIGRATE_DATA
+                                    + " ({0}) - suspended: {1} rows processed, {2} updates in {3} sec. ",
+                            new Object[] { adminp.getUniqueID(), iProcessed, iUpdates, time });
+                    updateJob(adminp, tableIndex, lastID, iProcessed, iUpdates);
+                    adminp.replaceItemValue(JobHandler.ISCOMPLETED, false);
+                    return adminp;
+                }
+            }
+        } catch (IOException | SQLException e) {
+            // print exception and stop job
+            logger.log(Level.SEVERE, "...Job " + AdminPService.JOB_MIGRATE_DATA + " ({0}) - failed at {1} - {2}",
+                    new Object[] { adminp.getUniqueID(), lastID, e.getMessage() });
+            updateJob(adminp, tableIndex, lastID, iProcessed, iUpdates);
+            adminp.replaceItemValue("error", e.getMessage());
+            adminp.replaceItemValue(JobHandler.ISCOMPLETED, false);
+            return adminp;
+        }
+
+        long time = (System.currentTimeMillis() - lProfiler) / 1000;
+        logger.log(Level.INFO,
+                "...Job " + AdminPService.JOB_MIGRATE_DATA + " ({0}) - Finished: {1} rows processed, {2} updates in {3} sec. ",
+                new Object[] { adminp.getUniqueID(), iProcessed, iUpdates, time });
+        updateJob(adminp, tableIndex, lastID, iProcessed, iUpdates);
+        adminp.replaceItemValue(JobHandler.ISCOMPLETED, true);
+        return adminp;
+    }
+
+    /**
+     * Updates the status items of the job description
+     */
+    private void updateJob(ItemCollection adminp, int tableIndex, String lastID, int iProcessed, int iUpdates) {
+        adminp.replaceItemValue("_table", tableIndex);
+        adminp.replaceItemValue("_lastid", lastID);
+        adminp.replaceItemValue("numUpdates", iUpdates);
+        adminp.replaceItemValue("numProcessed", iProcessed);
+    }
+
+    /**
+     * Loads the next block of rows (ID, VERSION, DATA) with an ID greater than the
+     * given ID.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Object[]> findNextRows(String table, String lastID, int blockSize) {
+        Query q = manager.createNativeQuery(
+                "SELECT ID, VERSION, DATA FROM " + table + " WHERE ID > ?1 ORDER BY ID ASC");
+        q.setParameter(1, lastID);
+        q.setFirstResult(0);
+        q.setMaxResults(blockSize);
+        return q.getResultList();
+    }
+
+    /**
+     * Converts the data of a single row into the binary format. The method returns
+     * false if the data is already stored in the binary format.
+     */
+    private boolean migrateRow(String table, String id, Object version, Object rawData)
+            throws IOException, SQLException {
+        byte[] data;
+        if (rawData instanceof Blob) {
+            Blob blob = (Blob) rawData;
+            data = blob.getBytes(1, (int) blob.length());
+        } else {
+            data = (byte[]) rawData;
+        }
+        if (!ItemCollectionCodec.isSerializedFormat(data)) {
+            return false;
+        }
+        Map<String, List<Object>> items = ItemCollectionCodec.decode(data);
+        String sql = "UPDATE " + table + " SET DATA = ?1, VERSION = VERSION + 1 WHERE ID = ?2";
+        if (version != null) {
+            sql += " AND VERSION = ?3";
+        }
+        Query q = manager.createNativeQuery(sql);
+        q.setParameter(1, ItemCollectionCodec.encode(items));
+        q.setParameter(2, id);
+        if (version != null) {
+            q.setParameter(3, version);
+        }
+        int count = q.executeUpdate();
+        if (count == 0) {
+            logger.log(Level.FINE, "......{0} ''{1}'' was updated in the meantime", new Object[] { table, id });
+        }
+        return count > 0;
+    }
+}
@@ -28,17 +28,24 @@
 
 package org.imixs.workflow.engine.jpa;
 
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.List;
 import java.util.Map;
 
+import org.imixs.workflow.ItemMap;
 import org.imixs.workflow.WorkflowKernel;
 import org.imixs.workflow.exceptions.InvalidAccessException;
+import org.imixs.workflow.util.ItemCollectionCodec;
+import org.imixs.workflow.util.LazyItemMap;
 
 import jakarta.persistence.Basic;
+import jakarta.persistence.Column;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Lob;
+import jakarta.persistence.PersistenceException;
 import jakarta.persistence.Temporal;
 import jakarta.persistence.TemporalType;
 import jakarta.persistence.Transient;
@@ -66,7 +73,8 @@ import jakarta.persistence.Version;
  * attribute 'type' the value will be automatically mapped to the type property.
  * <p>
  * The data attribute is used to hold the ItemCollection data. It is mapped by a
- * OR-Mapper to a large object (Lob).
+ * OR-Mapper to a large object (Lob). The data is stored in the binary format of
+ * the ItemCollectionCodec and decoded lazily (see getData).
  * <p>
  * A Client should not work directly with an instance of the Document entity.
  * It's recommended to use the DocumentService which acts as a session facade to
@@ -89,6 +97,9 @@ public class Document implements java.io.Serializable {
     private Calendar created;
     private Calendar modified;
     private Map<String, List<Object>> data;
+    private byte[] encodedData;
+    // change count of the data at the time the encoded data was created
+    private int encodedChanges;
     private boolean pending;
 
     /**
@@ -210,16 +221,44 @@ public class Document implements java.io.Serializable {
     /**
      * returns the data object part of the Entity represented by a java.util.Map
      * <p>
-     * Data is loaded eager because it is read in any case by the DocumentService.
+     * The data is decoded lazily from the binary data of the entity. An item value
+     * is decoded on the first access (see LazyItemMap). For example an access
+     * check reads only the ACL items of a document.
+     * <p>
+     * A change of the data map or of a value list returned by the data map is
+     * detected and the data is encoded again on the next flush.
      *
      * @return Map
      */
-    @Lob
-    @Basic(fetch = FetchType.EAGER)
+    @Transient
     public Map<String, List<Object>> getData() {
+        if (data == null && encodedData != null) {
+            try {
+                data = ItemCollectionCodec.decodeLazy(encodedData);
+            } catch (IOException e) {
+                throw new PersistenceException("unable to decode data of " + id + " - " + e.getMessage(), e);
+            }
+        }
         return data;
     }
 
+    /**
+     * Returns a copy of the data object. The copy is decoded lazily from the
+     * current binary data of the entity, so a change of the copy does not change
+     * the entity.
+     *
+     * @return copy of the data object or an empty map if the entity has no data
+     */
+    @Transient
+    public Map<String, List<Object>> copyData() {
+        try {
+            Map<String, List<Object>> copy = ItemCollectionCodec.decodeLazy(getEncodedData());
+            return copy != null ? copy : new ItemMap();
+        } catch (IOException e) {
+            throw new PersistenceException("unable to decode data of " + id + " - " + e.getMessage(), e);
+        }
+    }
+
     /**
      * sets a data object for this Entity.
      * <p>
@@ -231,7 +270,65 @@ public class Document implements java.io.Serializable {
      * @throws InvalidAccessException if $modified is missing
      */
     public void setData(Map<String, List<Object>> itemCol) {
-        this.data = itemCol;
+        if (itemCol == null || itemCol instanceof LazyItemMap) {
+            this.data = itemCol;
+        } else {
+            this.data = new LazyItemMap(itemCol);
+        }
+        this.encodedChanges = -1;
+    }
+
+    /**
+     * Returns the binary data of the entity in the format of the
+     * ItemCollectionCodec. The data object is encoded only if it was set or
+     * changed, or if a value list of the data object was returned, which may be
+     * changed in place. In this case the former binary data is kept if the
+     * encoded data is equal. The encoded data is cached until the next change of
+     * the data. The
+     * data is mapped by a OR-Mapper to a large object (Lob).
+     * <p>
+     * Data is loaded eager because it is read in any case by the DocumentService.
+     * 
+     * @return binary data
+     */
+    @Lob
+    @Basic(fetch = FetchType.EAGER)
+    @Column(name = "DATA")
+    protected byte[] getEncodedData() {
+        if (data != null && !(data instanceof LazyItemMap)) {
+            // e.g. after deserialization
+            data = new LazyItemMap(data);
+            encodedChanges = -1;
+        }
+        LazyItemMap items = (LazyItemMap) data;
+        if (items != null && (items.getChangeCount() != encodedChanges || items.hasExposedValues())) {
+            try {
+                byte[] newData = ItemCollectionCodec.encode(items);
+                // a value list returned by the data map may be unchanged
+                if (items.getChangeCount() != encodedChanges || !Arrays.equals(newData, encodedData)) {
+                    encodedData = newData;
+                }
+                encodedChanges = items.getChangeCount();
+            } catch (IOException e) {
+                throw new PersistenceException("unable to encode data of " + id + " - " + e.getMessage(), e);
+            }
+        }
+        return encodedData;
+    }
+
+    /**
+     * Sets the binary data of the entity. The data object is decoded on the next
+     * call of getData.
+     * <p>
+     * Data written by former versions with the Java serialization can still be
+     * read. The format is detected automatically.
+     * 
+     * @param encodedData
+     */
+    protected void setEncodedData(byte[] encodedData) {
+        this.encodedData = encodedData;
+        this.data = null;
+        this.encodedChanges = 0;
     }
 
 }
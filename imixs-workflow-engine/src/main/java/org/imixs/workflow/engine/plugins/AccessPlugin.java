@@ -43,6 +43,14 @@ import org.imixs.workflow.exceptions.PluginException;
 public class AccessPlugin extends AbstractPlugin {
     private static final Logger logger = Logger.getLogger(AccessPlugin.class.getName());
 
+    /**
+     * The deprecated plugin holds no state and can be reused.
+     */
+    @Override
+    public boolean reset() {
+        return true;
+    }
+
     @Deprecated
     public ItemCollection run(ItemCollection adocumentContext, ItemCollection documentActivity) throws PluginException {
 
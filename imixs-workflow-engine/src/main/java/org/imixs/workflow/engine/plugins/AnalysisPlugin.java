@@ -74,6 +74,15 @@ public class AnalysisPlugin extends AbstractPlugin {
 
     private static final Logger logger = Logger.getLogger(AnalysisPlugin.class.getName());
 
+    /**
+     * The measure points are evaluated on each run. The plugin keeps no state
+     * between two processing cycles and can be reused.
+     */
+    @Override
+    public boolean reset() {
+        return true;
+    }
+
     @SuppressWarnings({ "unchecked", "rawtypes" })
     @Override
     public ItemCollection run(ItemCollection documentContext, ItemCollection documentActivity) throws PluginException {
@@ -84,6 +84,19 @@ public class ApplicationPlugin extends AbstractPlugin {
     @SuppressWarnings("unused")
     private static final Logger logger = Logger.getLogger(ApplicationPlugin.class.getName());
 
+    /**
+     * Clears the workitem and the application properties of the last run.
+     */
+    @Override
+    public boolean reset() {
+        documentContext = null;
+        sEditorID = null;
+        sImageURL = null;
+        sAbstract = null;
+        sSummary = null;
+        return true;
+    }
+
     public ItemCollection run(ItemCollection adocumentContext, ItemCollection adocumentActivity)
             throws PluginException {
 
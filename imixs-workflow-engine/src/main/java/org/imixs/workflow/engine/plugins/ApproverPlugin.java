@@ -81,6 +81,15 @@ public class ApproverPlugin extends AbstractPlugin {
 
     private static String EVAL_APPROVEDBY = "approvedby";
 
+    /**
+     * The approver lists are stored in the workitem only. The plugin instance can
+     * be reused.
+     */
+    @Override
+    public boolean reset() {
+        return true;
+    }
+
     /**
      * computes the approvedBy and appovers name fields.
      * 
@@ -30,18 +30,13 @@ package org.imixs.workflow.engine.plugins;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.StringWriter;
 import java.util.List;
 import java.util.logging.Logger;
-import jakarta.xml.bind.JAXBContext;
-import jakarta.xml.bind.Marshaller;
 import java.util.logging.Level;
 import org.imixs.workflow.ItemCollection;
 import org.imixs.workflow.WorkflowContext;
 import org.imixs.workflow.exceptions.ModelException;
 import org.imixs.workflow.exceptions.PluginException;
-import org.imixs.workflow.xml.XMLDocument;
-import org.imixs.workflow.xml.XMLDocumentAdapter;
 import org.imixs.workflow.xml.XSLHandler;
 
 /**
@@ -68,6 +63,14 @@ public class DocumentComposerPlugin extends AbstractPlugin {
 
     private static final Logger logger = Logger.getLogger(DocumentComposerPlugin.class.getName());
 
+    /**
+     * The plugin does not store any data of a processing cycle and can be reused.
+     */
+    @Override
+    public boolean reset() {
+        return true;
+    }
+
     @Override
     public void init(WorkflowContext actx) throws PluginException {
 
@@ -163,18 +166,8 @@ public class DocumentComposerPlugin extends AbstractPlugin {
 
         logger.finest("......transfor mail body based on XSL template....");
         // Transform XML per XSL and generate output
-        XMLDocument xml;
         try {
-            xml = XMLDocumentAdapter.getDocument(documentContext);
-            StringWriter writer = new StringWriter();
-
-            JAXBContext context = JAXBContext.newInstance(XMLDocument.class);
-            Marshaller m = context.createMarshaller();
-            m.setProperty("jaxb.encoding", encoding);
-            m.marshal(xml, writer);
-
-            // create a ByteArray Output Stream
-            XSLHandler.transform(writer.toString(), xslTemplate, encoding, outputStream);
+            XSLHandler.transform(documentContext, xslTemplate, encoding, outputStream);
             return outputStream.toString(encoding);
 
         } catch (Exception e) {
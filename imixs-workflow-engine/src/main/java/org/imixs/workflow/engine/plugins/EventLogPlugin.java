@@ -74,6 +74,15 @@ public class EventLogPlugin extends AbstractPlugin {
 	@Inject
 	EventLogService eventLogService;
 
+	/**
+	 * The EventLog entries are created directly by the EventLogService. The plugin
+	 * instance can be reused.
+	 */
+	@Override
+	public boolean reset() {
+		return true;
+	}
+
 	@Override
 	public ItemCollection run(ItemCollection documentContext, ItemCollection event) throws PluginException {
 
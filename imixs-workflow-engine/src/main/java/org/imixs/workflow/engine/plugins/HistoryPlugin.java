@@ -72,6 +72,15 @@ public class HistoryPlugin extends AbstractPlugin {
 
     public static final String ITEM_HISTORY_LOG = "workflow.history";
 
+    /**
+     * Releases the workitem of the previous processing cycle.
+     */
+    @Override
+    public boolean reset() {
+        documentContext = null;
+        return true;
+    }
+
     /**
      * Update the Log entry.
      * 
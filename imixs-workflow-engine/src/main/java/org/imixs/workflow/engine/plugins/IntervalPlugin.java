@@ -74,6 +74,16 @@ public class IntervalPlugin extends AbstractPlugin {
     private ItemCollection documentContext;
     private static final Logger logger = Logger.getLogger(IntervalPlugin.class.getName());
 
+    /**
+     * Resets the cron increase flag and releases the workitem of the last run.
+     */
+    @Override
+    public boolean reset() {
+        increase = false;
+        documentContext = null;
+        return true;
+    }
+
     /**
      * The method paresed for a fields with the prafix 'keyitnerval'
      */
@@ -52,6 +52,14 @@ import org.imixs.workflow.exceptions.PluginException;
 
 public class LogPlugin extends AbstractPlugin {
 
+    /**
+     * The plugin only logs the current workitem and can be reused.
+     */
+    @Override
+    public boolean reset() {
+        return true;
+    }
+
     /**
      * the log entries generated form the kernel will be cut if the attribute
      * numWorkflowLogLength was provided
@@ -30,8 +30,6 @@ package org.imixs.workflow.engine.plugins;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.StringWriter;
-import java.io.UnsupportedEncodingException;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.List;
@@ -46,15 +44,11 @@ import jakarta.annotation.Resource;
 import jakarta.inject.Inject;
 import javax.xml.transform.TransformerException;
 
-import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBException;
-import jakarta.xml.bind.Marshaller;
 
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.imixs.workflow.ItemCollection;
 import org.imixs.workflow.exceptions.PluginException;
-import org.imixs.workflow.xml.XMLDocument;
-import org.imixs.workflow.xml.XMLDocumentAdapter;
 import org.imixs.workflow.xml.XSLHandler;
 
 import jakarta.mail.Message;
@@ -115,6 +109,20 @@ public class MailPlugin extends AbstractPlugin {
     private boolean bHTMLMail = false;
     private static final Logger logger = Logger.getLogger(MailPlugin.class.getName());
 
+    /**
+     * Discards the mail message of a previous processing cycle so that a reused
+     * plugin instance never sends a message again. The charset and the html flag
+     * are set to their defaults.
+     */
+    @Override
+    public boolean reset() {
+        mailMessage = null;
+        mimeMultipart = null;
+        charSet = "ISO-8859-1";
+        bHTMLMail = false;
+        return true;
+    }
+
     /**
      * The run method creates a mailMessage object if recipients are defined by the
      * corresponding BPMN event. The mail message will finally be send in the close
@@ -501,21 +509,11 @@ public class MailPlugin extends AbstractPlugin {
             logger.finest("......transfor mail body based on XSL template....");
         }
         // Transform XML per XSL and generate output
-        XMLDocument xml;
         try {
-            xml = XMLDocumentAdapter.getDocument(documentContext);
-            StringWriter writer = new StringWriter();
-
-            JAXBContext context = JAXBContext.newInstance(XMLDocument.class);
-            Marshaller m = context.createMarshaller();
-            m.setProperty("jaxb.encoding", encoding);
-            m.marshal(xml, writer);
-
-            // create a ByteArray Output Stream
-            XSLHandler.transform(writer.toString(), xslTemplate, encoding, outputStream);
+            XSLHandler.transform(documentContext, xslTemplate, encoding, outputStream);
             return outputStream.toString(encoding);
 
-        } catch (JAXBException | UnsupportedEncodingException | TransformerException e) {
+        } catch (JAXBException | IOException | TransformerException e) {
             logger.warning("Error processing XSL template!");
             throw new PluginException(MailPlugin.class.getSimpleName(), ERROR_INVALID_XSL_FORMAT, e.getMessage(), e);
         } finally {
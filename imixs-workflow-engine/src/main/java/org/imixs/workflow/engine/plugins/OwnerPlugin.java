@@ -86,6 +86,17 @@ public class OwnerPlugin extends AbstractPlugin {
 
     private static final Logger logger = Logger.getLogger(OwnerPlugin.class.getName());
 
+    /**
+     * Releases the workitem, the event and the next task of the last run.
+     */
+    @Override
+    public boolean reset() {
+        documentContext = null;
+        documentActivity = null;
+        documentNextProcessEntity = null;
+        return true;
+    }
+
     /**
      * changes the '$owner' item depending to the activityentity or processEntity
      * 
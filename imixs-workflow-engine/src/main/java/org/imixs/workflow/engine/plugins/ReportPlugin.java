@@ -30,16 +30,10 @@ package org.imixs.workflow.engine.plugins;
 
 import java.io.ByteArrayOutputStream;
 import java.io.FileOutputStream;
-import java.io.StringWriter;
 import java.util.logging.Logger;
-import jakarta.xml.bind.JAXBContext;
-import jakarta.xml.bind.Marshaller;
 import org.imixs.workflow.FileData;
 import org.imixs.workflow.ItemCollection;
 import org.imixs.workflow.exceptions.PluginException;
-import org.imixs.workflow.xml.XMLDataCollection;
-import org.imixs.workflow.xml.XMLDocument;
-import org.imixs.workflow.xml.XMLDocumentAdapter;
 import org.imixs.workflow.xml.XSLHandler;
 
 /**
@@ -73,6 +67,14 @@ public class ReportPlugin extends AbstractPlugin {
 
     private static final Logger logger = Logger.getLogger(ReportPlugin.class.getName());
 
+    /**
+     * Nothing to reset. The plugin instance can be reused.
+     */
+    @Override
+    public boolean reset() {
+        return true;
+    }
+
     /**
      * Executes a report defined defined by the event in the attribute
      * 'txtReportName'.
@@ -124,14 +126,6 @@ public class ReportPlugin extends AbstractPlugin {
             // TODO : we need to clarify if the method call unescapeXMLContent() is
             // necessary
 
-            XMLDocument xml = XMLDocumentAdapter.getDocument(adocumentContext);
-            StringWriter writer = new StringWriter();
-
-            JAXBContext context = JAXBContext.newInstance(XMLDataCollection.class);
-            Marshaller m = context.createMarshaller();
-            m.setProperty("jaxb.encoding", encoding);
-            m.marshal(xml, writer);
-
             // create a ByteArray Output Stream
             ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
             try {
@@ -141,7 +135,7 @@ public class ReportPlugin extends AbstractPlugin {
                     // xslTemplate, encoding,
                     // outputStream);
                 } else {
-                    XSLHandler.transform(writer.toString(), xslTemplate, encoding, outputStream);
+                    XSLHandler.transform(adocumentContext, xslTemplate, encoding, outputStream);
 
                 }
             } finally {
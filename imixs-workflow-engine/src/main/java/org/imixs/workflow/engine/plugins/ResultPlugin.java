@@ -64,6 +64,14 @@ public class ResultPlugin extends AbstractPlugin {
 
     private static final Logger logger = Logger.getLogger(ResultPlugin.class.getName());
 
+    /**
+     * The result items are evaluated on each run, so there is nothing to reset.
+     */
+    @Override
+    public boolean reset() {
+        return true;
+    }
+
     public ItemCollection run(ItemCollection documentContext, ItemCollection event) throws PluginException {
         // evaluate new items....
         ItemCollection evalItemCollection = getWorkflowService().evalWorkflowResult(event, "item", documentContext,
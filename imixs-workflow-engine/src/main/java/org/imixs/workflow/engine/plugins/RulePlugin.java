@@ -103,6 +103,15 @@ public class RulePlugin extends AbstractPlugin {
     public static final String VALIDATION_ERROR = "VALIDATION_ERROR";
     private static final Logger logger = Logger.getLogger(RulePlugin.class.getName());
 
+    /**
+     * The business rule of an event is evaluated on each run. The plugin holds no
+     * state and can be reused.
+     */
+    @Override
+    public boolean reset() {
+        return true;
+    }
+
     /**
      * The run method evaluates a script provided by an activityEntity with the
      * specified scriptEngine.
@@ -29,13 +29,12 @@
 package org.imixs.workflow.engine.plugins;
 
 import java.util.List;
-import java.util.Map;
-import java.util.StringTokenizer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 
 import org.imixs.workflow.ItemCollection;
+import org.imixs.workflow.ItemProjection;
 import org.imixs.workflow.WorkflowKernel;
 import org.imixs.workflow.engine.WorkflowService;
 import org.imixs.workflow.exceptions.AccessDeniedException;
@@ -82,6 +81,15 @@ public class SplitAndJoinPlugin extends AbstractPlugin {
 
     private static final Logger logger = Logger.getLogger(SplitAndJoinPlugin.class.getName());
 
+    /**
+     * Subprocesses are created and updated within a single run. The plugin has no
+     * state to reset.
+     */
+    @Override
+    public boolean reset() {
+        return true;
+    }
+
     /**
      * The method evaluates the workflow activity result for items with name:
      * 
@@ -592,31 +600,10 @@ public class SplitAndJoinPlugin extends AbstractPlugin {
      * 
      */
     protected void copyItemList(String items, ItemCollection source, ItemCollection target) {
-        // clone the field list...
-        StringTokenizer st = new StringTokenizer(items, ",");
-        while (st.hasMoreTokens()) {
-            String field = st.nextToken().trim();
-
-            // test if field is a reg ex
-            if (field.startsWith("(") && field.endsWith(")")) {
-                Pattern itemPattern = Pattern.compile(field);
-                Map<String, List<Object>> map = source.getAllItems();
-                for (String itemName : map.keySet()) {
-                    if (itemPattern.matcher(itemName).find()) {
-                        target.replaceItemValue(itemName, source.getItemValue(itemName));
-                    }
-                }
-
-            } else {
-                // default behavior without reg ex
-                int pos = field.indexOf('|');
-                if (pos > -1) {
-                    target.replaceItemValue(field.substring(pos + 1).trim(),
-                            source.getItemValue(field.substring(0, pos).trim()));
-                } else {
-                    target.replaceItemValue(field, source.getItemValue(field));
-                }
-            }
+        // the compiled item list is cached
+        ItemProjection projection = ItemProjection.compile(items);
+        if (projection != null) {
+            projection.copy(source, target);
         }
     }
 
@@ -80,6 +80,14 @@ public class TaxonomyPlugin extends AbstractPlugin {
 	private static final Logger logger = Logger.getLogger(TaxonomyPlugin.class.getName());
 
 
+	/**
+	 * The taxonomy data is stored in the workitem only. The plugin can be reused.
+	 */
+	@Override
+	public boolean reset() {
+		return true;
+	}
+
 	@Override
 	public ItemCollection run(ItemCollection documentContext, ItemCollection event) throws PluginException {
 		logger.finest("running TaxonomyPlugin");
@@ -99,6 +99,19 @@ public class VersionPlugin extends AbstractPlugin {
         this.version = version;
     }
 
+    /**
+     * A reused plugin instance must not provide the version created by a
+     * previous processing cycle.
+     */
+    @Override
+    public boolean reset() {
+        versionMode = "";
+        versionActivityID = -1;
+        version = null;
+        documentContext = null;
+        return true;
+    }
+
     /**
      * creates a new version or converts a version into the MasterVersion depending
      * to the activity attribute "keyVersion" provided by the workflow model.
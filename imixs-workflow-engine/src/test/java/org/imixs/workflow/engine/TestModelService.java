@@ -1,10 +1,18 @@
 package org.imixs.workflow.engine;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import org.imixs.workflow.FileData;
 import org.imixs.workflow.ItemCollection;
 import org.imixs.workflow.WorkflowKernel;
 import org.imixs.workflow.bpmn.BPMNUtil;
@@ -142,4 +150,51 @@ public class TestModelService {
 		assertNull(amodel);
 	}
 
+	/**
+	 * This test validates the model snapshot stored in a model entity. A snapshot
+	 * is only valid for an unchanged BPMN source.
+	 */
+	@Test
+	public void testModelSnapshot() throws ModelException, IOException {
+		ModelService modelService = workflowEngine.getModelService();
+		byte[] content = readContent("/bpmn/TestWorkflowService.bpmn");
+		FileData file = new FileData("TestWorkflowService.bpmn", content, "application/xml", null);
+		BPMNModel model = modelService.readModel(file);
+		assertEquals("1.0.0", BPMNUtil.getVersion(model));
+
+		ItemCollection modelEntity = new ItemCollection().setItemValue("name", "1.0.0");
+		assertFalse(modelService.hasModelSnapshot(modelEntity, file));
+		modelService.updateModelSnapshot(modelEntity, file, model);
+		assertTrue(modelService.hasModelSnapshot(modelEntity, file));
+		assertEquals(List.copyOf(modelService.getModelManager().findAllGroupsByModel(model)),
+				modelEntity.getItemValueList(ModelService.ITEM_MODEL_GROUPS, String.class));
+
+		// a changed source invalidates the snapshot
+		FileData changedFile = new FileData("TestWorkflowService.bpmn", (new String(content) + " ").getBytes(),
+				"application/xml", null);
+		assertFalse(modelService.hasModelSnapshot(modelEntity, changedFile));
+	}
+
+	/**
+	 * This test loads a model version from the BPMN file of its model entity as
+	 * used by the ModelManager to reload an evicted model version.
+	 */
+	@Test
+	public void testReadModelVersion() throws ModelException, IOException {
+		ModelService modelService = workflowEngine.getModelService();
+		ItemCollection modelEntity = new ItemCollection().setItemValue("name", "1.0.0");
+		modelEntity.addFileData(new FileData("TestWorkflowService.bpmn",
+				readContent("/bpmn/TestWorkflowService.bpmn"), "application/xml", null));
+		modelService.getModelEntityStore().put("1.0.0", modelEntity);
+
+		assertEquals("1.0.0", BPMNUtil.getVersion(modelService.readModel("1.0.0")));
+		assertThrows(ModelException.class, () -> modelService.readModel("2.0.0"));
+	}
+
+	private byte[] readContent(String resource) throws IOException {
+		try (InputStream inputStream = getClass().getResourceAsStream(resource)) {
+			return inputStream.readAllBytes();
+		}
+	}
+
 }
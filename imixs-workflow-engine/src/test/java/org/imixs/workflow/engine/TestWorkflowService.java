@@ -1,7 +1,11 @@
 package org.imixs.workflow.engine;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.Mockito.when;
 
@@ -11,6 +15,8 @@ import java.util.Vector;
 import java.util.logging.Logger;
 
 import org.imixs.workflow.ItemCollection;
+import org.imixs.workflow.Plugin;
+import org.imixs.workflow.WorkflowContext;
 import org.imixs.workflow.WorkflowKernel;
 import org.imixs.workflow.engine.plugins.ApplicationPlugin;
 import org.imixs.workflow.exceptions.AccessDeniedException;
@@ -97,6 +103,41 @@ public class TestWorkflowService {
 		assertEquals(0, workitem.getEventID());
 	}
 
+	/**
+	 * This test verifies that the plugin instances resolved for the plugin list
+	 * of a model definition are reused by the following processing cycles. A
+	 * plugin not supporting a reset is created again for each processing cycle.
+	 */
+	@Test
+	public void testPluginPipeline()
+			throws AccessDeniedException, ProcessingErrorException, PluginException, ModelException {
+		WorkflowService workflowService = workflowEnvironment.workflowService;
+		ItemCollection workitem = workflowEnvironment.getDocumentService().load("W0000-00001");
+		workitem.model("1.0.0").task(100).event(10);
+		int taskID = workflowService.processWorkItem(workitem).getTaskID();
+		assertEquals(1, workflowService.pluginPipelines.size());
+		WorkflowService.PluginPipeline pluginPipeline = workflowService.pluginPipelines.values().iterator().next();
+		assertEquals(4, pluginPipeline.plugins.size());
+		assertFalse(pluginPipeline.inUse);
+		// replace the deprecated AccessPlugin
+		Plugin newInstancePlugin = new NewInstancePlugin();
+		pluginPipeline.plugins.set(0, newInstancePlugin);
+		List<Plugin> plugins = new ArrayList<>(pluginPipeline.plugins);
+
+		workitem = workflowEnvironment.getDocumentService().load("W0000-00001");
+		workitem.model("1.0.0").task(100).event(10);
+		workitem = workflowService.processWorkItem(workitem);
+		assertEquals(taskID, workitem.getTaskID());
+		assertEquals(1, workflowService.pluginPipelines.size());
+		assertSame(pluginPipeline, workflowService.pluginPipelines.values().iterator().next());
+		assertFalse(pluginPipeline.inUse);
+		assertTrue(pluginPipeline.plugins.get(0) instanceof NewInstancePlugin);
+		assertNotSame(newInstancePlugin, pluginPipeline.plugins.get(0));
+		for (int i = 1; i < plugins.size(); i++) {
+			assertSame(plugins.get(i), pluginPipeline.plugins.get(i));
+		}
+	}
+
 	/**
 	 * test if the method getEvents returns correct lists of public events.
 	 */
@@ -216,4 +257,23 @@ public class TestWorkflowService {
 		}
 		assertEquals(2, eventList.size());
 	}
+
+	/**
+	 * A plugin which does not support the reuse of its instance.
+	 */
+	public static class NewInstancePlugin implements Plugin {
+
+		@Override
+		public void init(WorkflowContext workflowContext) throws PluginException {
+		}
+
+		@Override
+		public ItemCollection run(ItemCollection document, ItemCollection event) throws PluginException {
+			return document;
+		}
+
+		@Override
+		public void close(boolean rollbackTransaction) throws PluginException {
+		}
+	}
 }
@@ -0,0 +1,83 @@
+package org.imixs.workflow.engine.jpa;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.imixs.workflow.ItemCollection;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the encoding of the data of a Document and an EventLog entity.
+ * 
+ * @author rsoika
+ */
+public class TestDocument {
+
+	/**
+	 * A value list changed in place must be persisted. The encoded data is cached
+	 * until the next change.
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testDocumentRoundTrip() {
+		ItemCollection workitem = new ItemCollection();
+		workitem.setItemValue("txtname", "Anna");
+		workitem.setItemValue("$readaccess", "anna");
+
+		Document document = new Document();
+		document.setData(workitem.getAllItems());
+		byte[] data = document.getEncodedData();
+		assertSame(data, document.getEncodedData());
+
+		// load the entity
+		Document managed = new Document(document.getId());
+		managed.setEncodedData(data);
+		ItemCollection.createByReference(managed.getData()).getItemValue("$readaccess");
+		assertSame(data, managed.getEncodedData());
+
+		// change a value list in place
+		ItemCollection.createByReference(managed.getData()).getItemValue("$readaccess").add("tom");
+		byte[] changedData = managed.getEncodedData();
+		assertNotSame(data, changedData);
+		assertSame(changedData, managed.getEncodedData());
+
+		Document result = new Document(document.getId());
+		result.setEncodedData(changedData);
+		ItemCollection resultWorkitem = new ItemCollection(result.getData());
+		assertEquals(2, resultWorkitem.getItemValue("$readaccess").size());
+		assertEquals("tom", resultWorkitem.getItemValue("$readaccess").get(1));
+		assertEquals("Anna", resultWorkitem.getItemValueString("txtname"));
+		// copying the data is not a change
+		assertSame(changedData, result.getEncodedData());
+
+		// a change of a copy of the data does not change the entity
+		ItemCollection copy = new ItemCollection();
+		copy.setAllItems(result.copyData());
+		copy.getItemValue("$readaccess").add("eva");
+		copy.replaceItemValue("txtname", "Eva");
+		assertSame(changedData, result.getEncodedData());
+		assertEquals(2, new ItemCollection(result.getData()).getItemValue("$readaccess").size());
+	}
+
+	/**
+	 * A value list of an EventLog changed in place must be persisted.
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testEventLogRoundTrip() {
+		ItemCollection data = new ItemCollection();
+		data.setItemValue("txtname", "Anna");
+		EventLog eventLog = new EventLog("test", "ref", data.getAllItems());
+		byte[] encodedData = eventLog.getEncodedData();
+		assertSame(encodedData, eventLog.getEncodedData());
+
+		EventLog managed = new EventLog();
+		managed.setEncodedData(encodedData);
+		ItemCollection.createByReference(managed.getData()).getItemValue("txtname").set(0, "Tom");
+
+		EventLog result = new EventLog();
+		result.setEncodedData(managed.getEncodedData());
+		assertEquals("Tom", new ItemCollection(result.getData()).getItemValueString("txtname"));
+	}
+}
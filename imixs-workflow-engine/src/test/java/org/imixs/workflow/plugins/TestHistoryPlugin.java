@@ -0,0 +1,71 @@
+package org.imixs.workflow.plugins;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.imixs.workflow.ItemCollection;
+import org.imixs.workflow.Plugin;
+import org.imixs.workflow.WorkflowKernel;
+import org.imixs.workflow.engine.WorkflowMockEnvironment;
+import org.imixs.workflow.engine.plugins.HistoryPlugin;
+import org.imixs.workflow.exceptions.ModelException;
+import org.imixs.workflow.exceptions.PluginException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the History plug-in.
+ * 
+ * @author rsoika
+ * 
+ */
+public class TestHistoryPlugin {
+
+	protected HistoryPlugin historyPlugin = null;
+	protected WorkflowMockEnvironment workflowEnvironment;
+
+	@BeforeEach
+	public void setUp() throws PluginException, ModelException {
+		workflowEnvironment = new WorkflowMockEnvironment();
+		workflowEnvironment.setUp();
+		historyPlugin = new HistoryPlugin();
+	}
+
+	/**
+	 * Runs the same plugin instance in two processing cycles. The history of the
+	 * second workitem must only contain its own entry and the first workitem must
+	 * not be changed by the second cycle.
+	 * 
+	 * @throws PluginException
+	 */
+	@Test
+	public void testReusedPlugin() throws PluginException {
+		ItemCollection event = new ItemCollection();
+		event.replaceItemValue("rtfresultlog", "processed by <itemvalue>namcreator</itemvalue>");
+
+		ItemCollection workitem1 = new ItemCollection();
+		workitem1.replaceItemValue("namcreator", "Anna");
+		workitem1.replaceItemValue(WorkflowKernel.LASTEVENTDATE, new Date());
+		ItemCollection workitem2 = new ItemCollection();
+		workitem2.replaceItemValue("namcreator", "Manfred");
+		workitem2.replaceItemValue(WorkflowKernel.LASTEVENTDATE, new Date());
+
+		List<Plugin> plugins = Arrays.asList((Plugin) historyPlugin);
+		new WorkflowKernel(workflowEnvironment.getWorkflowService()).registerPlugins(plugins);
+		historyPlugin.run(workitem1, event);
+		assertTrue(historyPlugin.reset());
+		new WorkflowKernel(workflowEnvironment.getWorkflowService()).registerPlugins(plugins);
+		historyPlugin.run(workitem2, event);
+
+		List<?> history1 = workitem1.getItemValue(HistoryPlugin.ITEM_HISTORY_LOG);
+		List<?> history2 = workitem2.getItemValue(HistoryPlugin.ITEM_HISTORY_LOG);
+		assertEquals(1, history1.size());
+		assertEquals(1, history2.size());
+		assertEquals("processed by Anna", ((List<?>) history1.get(0)).get(1));
+		assertEquals("processed by Manfred", ((List<?>) history2.get(0)).get(1));
+	}
+}
@@ -1,12 +1,17 @@
 package org.imixs.workflow.plugins;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.util.Arrays;
 import java.util.logging.Logger;
 
 import org.imixs.workflow.ItemCollection;
+import org.imixs.workflow.Plugin;
+import org.imixs.workflow.WorkflowKernel;
 import org.imixs.workflow.engine.WorkflowMockEnvironment;
 import org.imixs.workflow.engine.plugins.MailPlugin;
 import org.imixs.workflow.exceptions.ModelException;
@@ -109,4 +114,29 @@ public class TestMailPlugin {
 		logger.info(sBody);
 		assertTrue(sBody.contains("<h2>Anna</h2>"));
 	}
+
+	/**
+	 * Test that a plugin instance reused for a second processing cycle does not
+	 * keep the state of the first processing cycle.
+	 * 
+	 * @throws PluginException
+	 */
+	@Test
+	public void testReset() throws PluginException {
+		ItemCollection documentContext = new ItemCollection();
+		ItemCollection documentActivity = new ItemCollection();
+		documentActivity.replaceItemValue("rtfMailBody", "<html><body>Hello</body></html>");
+		mailPlugin.getBody(documentContext, documentActivity);
+		mailPlugin.setCharSet("UTF-8");
+		assertTrue(mailPlugin.isHTMLMail());
+
+		// second processing cycle
+		assertTrue(mailPlugin.reset());
+		WorkflowKernel workflowKernel = new WorkflowKernel(workflowEnvironment.getWorkflowService());
+		workflowKernel.registerPlugins(Arrays.asList((Plugin) mailPlugin));
+		assertFalse(mailPlugin.isHTMLMail());
+		assertEquals("ISO-8859-1", mailPlugin.getCharSet());
+		assertNull(mailPlugin.getMailMessage());
+		assertNull(mailPlugin.getMultipart());
+	}
 }
@@ -134,6 +134,10 @@ public class SolrIndexService {
     @ConfigProperty(name = "solr.password")
     private Optional<String> password;
 
+    @Inject
+    @ConfigProperty(name = "solr.httpclient", defaultValue = "false")
+    private boolean httpClient;
+
     @Inject
     private SchemaService schemaService;
 
@@ -160,6 +164,10 @@ public class SolrIndexService {
     public void init() {
         // create rest client
         restClient = new RestClient(api);
+        if (httpClient) {
+            // use the shared keep-alive HttpClient
+            restClient.setTransport(RestClient.Transport.HTTP_CLIENT);
+        }
         if (user.isPresent() && !user.get().isEmpty()) {
             BasicAuthenticator authenticator = new BasicAuthenticator(user.get(), password.get());
             restClient.registerRequestFilter(authenticator);
@@ -49,6 +49,7 @@ import javax.xml.XMLConstants;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.sax.SAXResult;
 import javax.xml.transform.stream.StreamSource;
@@ -61,8 +62,10 @@ import org.imixs.workflow.ItemCollection;
 import org.imixs.workflow.engine.DocumentService;
 import org.imixs.workflow.engine.ReportService;
 import org.imixs.workflow.xml.DocumentTable;
+import org.imixs.workflow.xml.JAXBContextRegistry;
 import org.imixs.workflow.xml.XMLDataCollection;
 import org.imixs.workflow.xml.XMLDataCollectionAdapter;
+import org.imixs.workflow.xml.XMLDataCollectionSource;
 import org.imixs.workflow.xml.XMLDocument;
 import org.imixs.workflow.xml.XMLDocumentAdapter;
 import org.imixs.workflow.xml.XSLHandler;
@@ -88,7 +91,6 @@ import jakarta.ws.rs.core.MultivaluedMap;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.StreamingOutput;
 import jakarta.ws.rs.core.UriInfo;
-import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.Marshaller;
 
 /**
@@ -242,43 +244,56 @@ public class ReportRestService {
                 return builder.build();
             }
 
-            // Transform XML per XSL and generate output
-            XMLDataCollection xmlCol = XMLDataCollectionAdapter.getDataCollection(col);
-
-            StringWriter writer = new StringWriter();
-
-            JAXBContext context = JAXBContext.newInstance(XMLDataCollection.class);
-
-            Marshaller m = context.createMarshaller();
-            m.setProperty("jaxb.encoding", encoding);
-            m.marshal(xmlCol, writer);
+            // FOP Tranformation
+            if ("application/pdf".equals(sContentType.toLowerCase())) {
+                XMLDataCollection xmlCol = XMLDataCollectionAdapter.getDataCollection(col);
+                StringWriter writer = new StringWriter();
+                Marshaller m = JAXBContextRegistry.acquireMarshaller(XMLDataCollection.class);
+                try {
+                    m.setProperty("jaxb.encoding", encoding);
+                    m.marshal(xmlCol, writer);
+                } finally {
+                    JAXBContextRegistry.release(XMLDataCollection.class, m);
+                }
 
-            // create a ByteArray Output Stream
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            try {
-                // test if FOP Tranformation
-                if ("application/pdf".equals(sContentType.toLowerCase()))
+                // create a ByteArray Output Stream
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                try {
                     fopTranformation(writer.toString(), sXSL, encoding, outputStream);
-                else
-                    XSLHandler.transform(writer.toString(), sXSL, encoding, outputStream);
-            } finally {
-                outputStream.close();
+                } finally {
+                    outputStream.close();
+                }
+                /*
+                 * outputStream.toByteArray() did not work here because the encoding will not
+                 * be considered. For that reason we use the toString(encoding) method here.
+                 * 
+                 * 8.9.2012:
+                 * 
+                 * after some tests we see that only toByteArray will work on things like fop
+                 * processing. So for that reason we switched back to the toByteArray method
+                 * again. But we still need to solve the encoding issue
+                 */
+                Response.ResponseBuilder builder = Response.ok(outputStream.toByteArray(), sContentType);
+                return builder.build();
             }
 
-            /*
-             * outputStream.toByteArray() did not work here because the encoding will not be
-             * considered. For that reason we use the toString(encoding) method here.
-             * 
-             * 8.9.2012:
-             * 
-             * after some tests we see that only toByteArray will work on things like fop
-             * processing. So for that reason we switched back to the toByteArray method
-             * again. But we still need to solve the encoding issue
-             */
-
-            Response.ResponseBuilder builder = Response.ok(outputStream.toByteArray(), sContentType);
-            // Response.ResponseBuilder builder = Response.ok(
-            // outputStream.toString(encoding), sContentType);
+            // Transform XML per XSL and stream the output. The template is compiled
+            // first so that an invalid template is reported before the response is
+            // committed.
+            XSLHandler.getTemplates(sXSL, encoding);
+            final Collection<ItemCollection> dataSource = col;
+            final String xslTemplate = sXSL;
+            final String xslEncoding = encoding;
+            StreamingOutput output = new StreamingOutput() {
+                public void write(OutputStream out) throws IOException, WebApplicationException {
+                    try {
+                        XSLHandler.transform(new XMLDataCollectionSource(dataSource), xslTemplate, xslEncoding, out);
+                    } catch (TransformerException e) {
+                        throw new WebApplicationException(e);
+                    }
+                }
+            };
+            Response.ResponseBuilder builder = Response.ok(output, sContentType);
             return builder.build();
         } catch (Exception e) {
             e.printStackTrace();
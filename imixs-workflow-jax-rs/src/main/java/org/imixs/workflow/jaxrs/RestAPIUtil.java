@@ -3,7 +3,7 @@ package org.imixs.workflow.jaxrs;
 import java.util.List;
 import java.util.Vector;
 
-import com.ibm.icu.util.StringTokenizer;
+import org.imixs.workflow.ItemProjection;
 
 /**
  * This Utility class provides methods to convert Item Values in Rest API calls.
@@ -16,17 +16,16 @@ public class RestAPIUtil {
      * typical like this: <code>
      *   txtWorkflowStatus,numProcessID,txtName
      * </code>
+     * <p>
+     * The parsed item list is cached by the {@link ItemProjection}.
      * 
      * @param items
      * @return
      */
     public static List<String> getItemList(String items) {
-        if (items == null || "".equals(items))
+        ItemProjection projection = ItemProjection.compile(items);
+        if (projection == null)
             return null;
-        Vector<String> v = new Vector<String>();
-        StringTokenizer st = new StringTokenizer(items, ",");
-        while (st.hasMoreTokens())
-            v.add(st.nextToken());
-        return v;
+        return new Vector<String>(projection.getItemNames());
     }
 }